@@ -89,7 +89,8 @@ public class WarehouseApplication {
 					5,
 					90,
 					false,
-					4);
+					4,
+					0L);
 			configurationRepo.save(configuration);
 
 			// Categories
@@ -1,6 +1,12 @@
 package capstonesu25.warehouse.annotation.transactionLog;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.lang.reflect.Field;
 
 import org.aspectj.lang.JoinPoint;
@@ -10,50 +16,63 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import capstonesu25.warehouse.entity.TransactionLog;
-import capstonesu25.warehouse.repository.TransactionLogRepository;
-import capstonesu25.warehouse.service.AccountService;
-
 @Aspect
 @Component
 public class TransactionLogAspect {
     @Autowired
-    private TransactionLogRepository transactionLogRepository;
+    private TransactionLogWriter transactionLogWriter;
 
     @Autowired
     private ObjectMapper objectMapper;
 
-    @Autowired
-    private AccountService accountService;
+    // Cache Field của objectIdSource theo từng class response, tránh duyệt reflection mỗi lần gọi
+    private final Map<Class<?>, Map<String, Optional<Field>>> objectIdFields = new ConcurrentHashMap<>();
 
     @AfterReturning(pointcut = "@annotation(transactionLoggable)", returning = "responseContent")
     public void logTransaction(JoinPoint joinPoint, TransactionLoggable transactionLoggable, Object responseContent)
             throws Throwable {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        String fullName = accountService.findAccountByUsername(username).getFullName();
+        String username = authentication != null ? authentication.getName() : null;
         String type = transactionLoggable.type();
         String action = transactionLoggable.action();
         String objectIdSource = transactionLoggable.objectIdSource();
+        LocalDateTime createdDate = LocalDateTime.now();
 
         // Check if response content is a List/Collection
         // If yes - create multiple transaction log records
         // Else - create single transaction log
+        List<TransactionLogEvent> events = new ArrayList<>();
         if (responseContent instanceof Collection) {
             Collection<?> responseCollection = (Collection<?>) responseContent;
             for (Object responseItem : responseCollection) {
-                createTransactionLog(username, fullName, type, action, objectIdSource, responseItem);
+                events.add(createTransactionLog(username, type, action, objectIdSource, responseItem, createdDate));
             }
         } else {
-            createTransactionLog(username, fullName, type, action, objectIdSource, responseContent);
+            events.add(createTransactionLog(username, type, action, objectIdSource, responseContent, createdDate));
+        }
+
+        // Chỉ ghi log khi transaction của nghiệp vụ đã commit thành công
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    events.forEach(transactionLogWriter::enqueue);
+                }
+            });
+        } else {
+            events.forEach(transactionLogWriter::enqueue);
         }
     }
-    
-    private void createTransactionLog(String username, String fullName, String type, String action, 
-                                    String objectIdSource, Object responseItem) throws Exception {
+
+    private TransactionLogEvent createTransactionLog(String username, String type, String action,
+                                                     String objectIdSource, Object responseItem,
+                                                     LocalDateTime createdDate) throws Exception {
         // Convert individual response item to JSON
+        // (serialize ngay tại đây vì response có thể còn bị thay đổi hoặc chứa proxy lazy sau khi request kết thúc)
         String responseContent = "null";
         if (responseItem != null) {
             responseContent = objectMapper.writeValueAsString(responseItem);
@@ -65,14 +84,7 @@ public class TransactionLogAspect {
             objectId = extractObjectIdFromItem(responseItem, objectIdSource);
         }
 
-        TransactionLog transactionLog = new TransactionLog();
-        transactionLog.setExecutorUsername(username);
-        transactionLog.setExecutorFullName(fullName);
-        transactionLog.setType(type);
-        transactionLog.setAction(action);
-        transactionLog.setObjectId(objectId);
-        transactionLog.setResponseContent(responseContent);
-        transactionLogRepository.save(transactionLog);
+        return new TransactionLogEvent(username, type, action, objectId, responseContent, createdDate);
     }
 
     private String extractObjectIdFromItem(Object responseItem, String objectIdSource) throws Exception {
@@ -80,32 +92,36 @@ public class TransactionLogAspect {
         if (responseItem == null) {
             return null;
         }
-        
-        // Use reflection technique - Get the class of the response item
-        // Example: targetClass = class ImportRequestResponse
-        Class<?> targetClass = responseItem.getClass();
-        Field field = null; // Hold the field (objectIdSource field) we're looking for
-        
+
+        Optional<Field> field = objectIdFields
+                .computeIfAbsent(responseItem.getClass(), c -> new ConcurrentHashMap<>())
+                .computeIfAbsent(objectIdSource, name -> findField(responseItem.getClass(), name));
+
+        // If we found the field, extract its value
+        if (field.isPresent()) {
+            // Get the actual value of the field from the response object
+            // Example: value = "PN-20241201-001" (the actual ID value from the response)
+            Object value = field.get().get(responseItem);
+            return value != null ? value.toString() : null;
+        }
+
+        return null;
+    }
+
+    private Optional<Field> findField(Class<?> responseClass, String objectIdSource) {
         // Try to find the field in the class hierarchy
         // Looks in current class first, then parent classes
-        while (field == null && targetClass != null) {
+        Class<?> targetClass = responseClass;
+        while (targetClass != null) {
             try {
-                field = targetClass.getDeclaredField(objectIdSource);
+                Field field = targetClass.getDeclaredField(objectIdSource);
+                field.setAccessible(true);
+                return Optional.of(field);
             } catch (NoSuchFieldException e) {
                 // Field not found in current class, move to parent class
                 targetClass = targetClass.getSuperclass();
             }
         }
-        
-        // If we found the field, extract its value
-        if (field != null) {
-            field.setAccessible(true);
-            // Get the actual value of the field from the response object
-            // Example: value = "PN-20241201-001" (the actual ID value from the response)
-            Object value = field.get(responseItem);
-            return value != null ? value.toString() : null;
-        }
-        
-        return null;
+        return Optional.empty();
     }
 }
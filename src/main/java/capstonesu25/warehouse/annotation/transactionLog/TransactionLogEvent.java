@@ -0,0 +1,15 @@
+package capstonesu25.warehouse.annotation.transactionLog;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bản ghi log đã được dựng xong ở luồng request, chờ TransactionLogWriter ghi xuống DB.
+ */
+public record TransactionLogEvent(
+        String executorUsername,
+        String type,
+        String action,
+        String objectId,
+        String responseContent,
+        LocalDateTime createdDate) {
+}
@@ -0,0 +1,176 @@
+package capstonesu25.warehouse.annotation.transactionLog;
+
+import capstonesu25.warehouse.model.transactionlog.TransactionLogWriterMetrics;
+import capstonesu25.warehouse.repository.AccountRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ghi transaction log bất đồng bộ: TransactionLogAspect chỉ đẩy event vào hàng đợi có giới hạn,
+ * một luồng nền gom event thành batch và insert bằng JDBC batch.
+ * Khi hàng đợi đầy, event mới bị bỏ (và được đếm) để không làm chậm request.
+ */
+@Component
+public class TransactionLogWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionLogWriter.class);
+
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int BATCH_SIZE = 200;
+    private static final long POLL_TIMEOUT_MILLIS = 1_000;
+    private static final Duration FULL_NAME_TTL = Duration.ofMinutes(10);
+
+    private static final String INSERT_SQL = "INSERT INTO transaction_log "
+            + "(executor_username, executor_full_name, type, action, object_id, response_content, created_date) "
+            + "VALUES (?, ?, ?, ?, ?, CAST(? AS jsonb), ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountRepository accountRepository;
+
+    private final BlockingQueue<TransactionLogEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ConcurrentHashMap<String, CachedFullName> fullNameCache = new ConcurrentHashMap<>();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+    private final AtomicLong maxFlushMillis = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public TransactionLogWriter(JdbcTemplate jdbcTemplate, AccountRepository accountRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountRepository = accountRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "transaction-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        flushRemaining();
+    }
+
+    public void enqueue(TransactionLogEvent event) {
+        if (queue.offer(event)) {
+            enqueued.incrementAndGet();
+            return;
+        }
+        long total = dropped.incrementAndGet();
+        LOGGER.warn("Transaction log queue is full, dropped {} {} for {} (total dropped: {})",
+                event.type(), event.action(), event.objectId(), total);
+    }
+
+    public TransactionLogWriterMetrics getMetrics() {
+        return TransactionLogWriterMetrics.builder()
+                .queueDepth(queue.size())
+                .queueCapacity(QUEUE_CAPACITY)
+                .enqueued(enqueued.get())
+                .dropped(dropped.get())
+                .written(written.get())
+                .failed(failed.get())
+                .flushes(flushes.get())
+                .lastFlushMillis(lastFlushMillis.get())
+                .maxFlushMillis(maxFlushMillis.get())
+                .build();
+    }
+
+    private void drainLoop() {
+        List<TransactionLogEvent> batch = new ArrayList<>(BATCH_SIZE);
+        while (running) {
+            try {
+                TransactionLogEvent first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOGGER.error("Unexpected error in transaction log writer", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flushRemaining() {
+        List<TransactionLogEvent> batch = new ArrayList<>(BATCH_SIZE);
+        while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<TransactionLogEvent> batch) {
+        long start = System.nanoTime();
+        try {
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (TransactionLogEvent event : batch) {
+                rows.add(new Object[]{
+                        event.executorUsername(),
+                        resolveFullName(event.executorUsername()),
+                        event.type(),
+                        event.action(),
+                        event.objectId(),
+                        event.responseContent(),
+                        Timestamp.valueOf(event.createdDate())
+                });
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            written.addAndGet(batch.size());
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            LOGGER.error("Failed to write {} transaction logs", batch.size(), e);
+        } finally {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            flushes.incrementAndGet();
+            lastFlushMillis.set(elapsed);
+            maxFlushMillis.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private String resolveFullName(String username) {
+        if (username == null) {
+            return null;
+        }
+        CachedFullName cached = fullNameCache.get(username);
+        if (cached != null && cached.loadedAt().plus(FULL_NAME_TTL).isAfter(Instant.now())) {
+            return cached.fullName();
+        }
+        String fullName = accountRepository.findFullNameByUsername(username).orElse(null);
+        fullNameCache.put(username, new CachedFullName(fullName, Instant.now()));
+        return fullName;
+    }
+
+    private record CachedFullName(String fullName, Instant loadedAt) {
+    }
+}
@@ -4,32 +4,31 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import capstonesu25.warehouse.enums.TokenType;
+import capstonesu25.warehouse.model.account.AuthenticatedAccount;
+import capstonesu25.warehouse.service.AccountRevocationService;
 import capstonesu25.warehouse.service.JwtService;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final AccountRevocationService accountRevocationService;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
         final String authenticationHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
 
         if (authenticationHeader == null || !authenticationHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -38,23 +37,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         jwt = authenticationHeader.replace("Bearer ", "");
 
-        if (!jwtService.isAccessToken(jwt)) {
-            filterChain.doFilter(request, response);
-            return;
-        }
-
-        username = jwtService.extractClaim(jwt, claims -> claims.get("username", String.class), TokenType.ACCESS);
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-            boolean isTokenValid = jwtService.isTokenValid(jwt, userDetails, TokenType.ACCESS);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Token được parse đúng một lần (hoặc lấy từ cache), principal dựng từ claims nên không truy vấn DB
+            Optional<AuthenticatedAccount> account = jwtService.verifyAccessToken(jwt)
+                    .filter(verified -> !accountRevocationService.isRevoked(verified.getId()));
 
-            if (isTokenValid) {
+            if (account.isPresent()) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        account.get(),
                         null,
-                        userDetails.getAuthorities()
+                        account.get().getAuthorities()
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
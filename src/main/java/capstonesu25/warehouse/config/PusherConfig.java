@@ -13,9 +13,16 @@ public class PusherConfig {
   public Pusher pusher(@Value("${spring.pusher.app-id}") String appId,
                        @Value("${spring.pusher.key}")   String key,
                        @Value("${spring.pusher.secret}")String secret,
-                       @Value("${spring.pusher.cluster}") String cluster) {
+                       @Value("${spring.pusher.cluster}") String cluster,
+                       @Value("${spring.pusher.host:}") String host,
+                       @Value("${spring.pusher.encrypted:true}") boolean encrypted) {
       Pusher pusher = new Pusher(appId, key, secret);       
       pusher.setCluster(cluster);
+      // Cho phép trỏ tới một Pusher giả lập chạy local (ví dụ khi test không có mạng)
+      if (!host.isBlank()) {
+          pusher.setHost(host);
+      }
+      pusher.setEncrypted(encrypted);
       return pusher;
   }
-}
\ No newline at end of file
+}
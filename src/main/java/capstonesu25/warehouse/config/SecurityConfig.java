@@ -35,7 +35,6 @@ public class SecurityConfig {
                                 "/account/register",
                                 "/account/login",
                                 "/account/refresh-token",
-                                "/transaction-log",
                                 "/pusher/auth")
                         .permitAll()
                         .anyRequest().authenticated())
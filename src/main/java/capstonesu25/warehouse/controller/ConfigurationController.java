@@ -33,6 +33,16 @@ public class ConfigurationController {
         );
     }
 
+    @Operation(summary = "Get configuration cache metrics")
+    @GetMapping("/cache-metrics")
+    public ResponseEntity<?> getCacheMetrics() {
+        return ResponseUtil.getObject(
+                configurationService.getCacheMetrics(),
+                HttpStatus.OK,
+                "Fetch configuration cache metrics successfully"
+        );
+    }
+
     @Operation(summary = "Save configurations")
     @PostMapping("/save")
     public ResponseEntity<?> save(@RequestBody ConfigurationDto configurationDto) {
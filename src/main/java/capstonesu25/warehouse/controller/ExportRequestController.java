@@ -10,13 +10,16 @@ import capstonesu25.warehouse.model.exportrequest.exportreturn.ExportReturnReque
 import capstonesu25.warehouse.model.importrequest.AssignStaffExportRequest;
 import capstonesu25.warehouse.model.responsedto.MetaDataDTO;
 import capstonesu25.warehouse.service.ExportRequestService;
+import capstonesu25.warehouse.service.PickListService;
 import capstonesu25.warehouse.utils.ResponseUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -29,6 +32,7 @@ import org.springframework.web.bind.annotation.*;
 @Validated
 public class ExportRequestController {
     private final ExportRequestService exportRequestService;
+    private final PickListService pickListService;
     private static final Logger LOGGER = LoggerFactory.getLogger(ExportRequestController.class);
 
     @Operation(summary = "Get all export requests")
@@ -77,6 +81,28 @@ public class ExportRequestController {
         );
     }
 
+    @Operation(summary = "Get pick list of an export request ordered by travel route")
+    @GetMapping("/pick-list/{exportRequestId}")
+    public ResponseEntity<?> getPickList(@PathVariable String exportRequestId) {
+        LOGGER.info("Getting pick list of export request");
+        return ResponseUtil.getObject(
+            pickListService.getPickList(exportRequestId),
+            HttpStatus.OK,
+            "Successfully retrieved pick list"
+        );
+    }
+
+    @Operation(summary = "Get pick list of all export requests of a staff on a date ordered by travel route")
+    @GetMapping("/pick-list/staff/{staffId}")
+    public ResponseEntity<?> getPickListOfStaff(@PathVariable Long staffId, @RequestParam LocalDate date) {
+        LOGGER.info("Getting pick list of staff");
+        return ResponseUtil.getObject(
+            pickListService.getPickListOfStaff(staffId, date),
+            HttpStatus.OK,
+            "Successfully retrieved pick list of staff"
+        );
+    }
+
     @Operation(summary = "Get export requests by status and date")
     @GetMapping("/status/{status}")
     public ResponseEntity<?> getByStatus(@PathVariable RequestStatus status, @RequestParam LocalDate fromDate, @RequestParam LocalDate toDate) {
@@ -89,6 +115,31 @@ public class ExportRequestController {
         );
     }
 
+    @Operation(summary = "Get paginated export requests by status and date")
+    @GetMapping("/status/{status}/page")
+    public ResponseEntity<?> getByStatusAndPage(
+        @PathVariable RequestStatus status,
+        @RequestParam LocalDate fromDate,
+        @RequestParam LocalDate toDate,
+        @RequestParam(defaultValue = "1") int page,
+        @RequestParam(defaultValue = "10") int limit
+    ) {
+        LOGGER.info("Getting paginated export requests by status: {}", status);
+        Page<ExportRequestResponse> result = exportRequestService.getExportRequestsByStatus(status, fromDate, toDate, page, limit);
+        return ResponseUtil.getCollection(
+            result.getContent(),
+            HttpStatus.OK,
+            "Successfully retrieved paginated export requests by status",
+            new MetaDataDTO(
+                result.hasNext(),
+                result.hasPrevious(),
+                limit,
+                (int) result.getTotalElements(),
+                page
+            )
+        );
+    }
+
     @Operation(summary = "get number export request by and date")
     @GetMapping("/number")
     public ResponseEntity<?> getNumberByDate(@RequestParam LocalDate fromDate, @RequestParam LocalDate toDate) {
@@ -121,6 +172,19 @@ public class ExportRequestController {
         );
     }
 
+    @Operation(summary = "Get export requests by staff Id (keyset pagination, newest first)")
+    @GetMapping("/staff/{staffId}/cursor")
+    public ResponseEntity<?> getByStaffIdBefore(@PathVariable Long staffId,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeCreatedDate,
+                                                @RequestParam(required = false) String beforeId,
+                                                @RequestParam(defaultValue = "10") int limit) {
+        LOGGER.info("Getting export requests by staff id before ({}, {})", beforeCreatedDate, beforeId);
+        return ResponseUtil.getObject(
+                exportRequestService.getExportRequestsOfStaffBefore(staffId, beforeCreatedDate, beforeId, limit),
+                HttpStatus.OK,
+                "Successfully get export requests by staff id");
+    }
+
     @Operation(summary = "Create a new export request for internal")
     @PostMapping()
     public ResponseEntity<?> createExportRequestForProduction(@RequestBody ExportRequestRequest request) {
@@ -11,12 +11,14 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Controller
@@ -61,6 +63,16 @@ public class ImportOrderController {
 				"Successfully retrieved import order");
 	}
 
+	@Operation(summary = "Preview the putaway plan of an import order")
+	@GetMapping("/putaway-plan/{importOrderId}")
+	public ResponseEntity<?> getPutawayPlan(@PathVariable String importOrderId) {
+		LOGGER.info("Getting putaway plan for import order");
+		return ResponseUtil.getObject(
+				importOrderService.getPutawayPlan(importOrderId),
+				HttpStatus.OK,
+				"Successfully planned putaway for import order");
+	}
+
 	@Operation(summary = "Create a new import order")
 	@PostMapping()
 	public ResponseEntity<?> createImportOrder(@RequestBody ImportOrderCreateRequest request) {
@@ -124,6 +136,19 @@ public class ImportOrderController {
 						page));
 	}
 
+	@Operation(summary = "Get import orders by staff Id (keyset pagination, newest first)")
+	@GetMapping("/staff/{staffId}/cursor")
+	public ResponseEntity<?> getByStaffIdBefore(@PathVariable Long staffId,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeCreatedDate,
+			@RequestParam(required = false) String beforeId,
+			@RequestParam(defaultValue = "10") int limit) {
+		LOGGER.info("Getting import orders by staff id before ({}, {})", beforeCreatedDate, beforeId);
+		return ResponseUtil.getObject(
+				importOrderService.getImportOrdersOfStaffBefore(staffId, beforeCreatedDate, beforeId, limit),
+				HttpStatus.OK,
+				"Successfully get import orders by staff id");
+	}
+
 	@Operation(summary = "Get all import orders")
 	@GetMapping("/page")
 	public ResponseEntity<?> getAllByPage(@RequestParam(defaultValue = "1") int page,
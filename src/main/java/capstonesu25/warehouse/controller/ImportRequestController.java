@@ -67,6 +67,29 @@ public class ImportRequestController {
                 null);
     }
 
+    @Operation(summary = "Get paginated import requests by status and date")
+    @GetMapping("/status/{status}/page")
+    public ResponseEntity<?> getByStatusAndPage(@PathVariable RequestStatus status,
+                                                @RequestParam LocalDate fromDate,
+                                                @RequestParam LocalDate toDate,
+                                                @RequestParam(defaultValue = "1") int page,
+                                                @RequestParam(defaultValue = "10") int limit) {
+        LOGGER.info("Getting paginated import requests by status: {}", status);
+        Page<ImportRequestResponse> result = importRequestService.getImportRequestsByStatus(status, fromDate, toDate, page, limit);
+        return ResponseUtil.getCollection(
+                result.getContent(),
+                HttpStatus.OK,
+                "Successfully retrieved paginated import requests by status",
+                new MetaDataDTO(
+                        result.hasNext(),
+                        result.hasPrevious(),
+                        limit,
+                        (int) result.getTotalElements(),
+                        page
+                )
+        );
+    }
+
     @Operation(summary = "get number import request by and date")
     @GetMapping("/number")
     public ResponseEntity<?> getNumberByDate(@RequestParam LocalDate fromDate, @RequestParam LocalDate toDate) {
@@ -1,5 +1,6 @@
 package capstonesu25.warehouse.controller;
 
+import capstonesu25.warehouse.model.excel.ExcelReadResult;
 import capstonesu25.warehouse.model.importrequest.ImportRequestResponse;
 import capstonesu25.warehouse.model.importrequest.importrequestdetail.ImportRequestCreateWithDetailRequest;
 import capstonesu25.warehouse.model.importrequest.importrequestdetail.ImportRequestDetailResponse;
@@ -10,10 +11,12 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
@@ -70,6 +73,27 @@ public class ImportRequestDetailController {
                 "Successfully created import requests with details");
     }
 
+    @Operation(summary = "Create import requests with details from an Excel file")
+    @PostMapping(value = "/import-requests-with-import-request-details/excel", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> createImportRequestsWithDetailsFromExcel(@RequestParam("file") MultipartFile file) {
+        LOGGER.info("Creating import requests with details from Excel");
+        ExcelReadResult<ImportRequestCreateWithDetailRequest> result = service.readImportRequestsFromExcel(file);
+        if (result.hasErrors()) {
+            return ResponseUtil.getObject(
+                    result.getSummary(),
+                    HttpStatus.BAD_REQUEST,
+                    "Excel file contains invalid rows");
+        }
+        if (result.getRows().isEmpty()) {
+            throw new IllegalArgumentException("Excel file has no data rows");
+        }
+        List<ImportRequestResponse> createdImportRequests = service.createImportRequestWithDetails(result.getRows());
+        return ResponseUtil.getObject(
+                createdImportRequests,
+                HttpStatus.CREATED,
+                "Successfully created import requests with details");
+    }
+
 //    @Operation(summary = "Create return import requests with details")
 //    @PostMapping("/return-import-requests-with-import-request-details")
 //    public ResponseEntity<?> createReturnImportRequestsWithDetails(@RequestBody List<ImportRequestCreateWithDetailRequest> request) {
@@ -50,11 +50,37 @@ public class InventoryItemController {
 		);
 	}
 
-	@Operation(summary = "search inventory items by scarf id")
+	@Operation(summary = "Get inventory item and all items split from it (parent before children)")
+	@GetMapping("/subtree/{id}")
+	public ResponseEntity<?> getInventoryItemSubtree(@PathVariable String id) {
+		LOGGER.info("Get inventory item subtree by ID");
+		List<InventoryItemResponse> responses = inventoryItemService.getInventoryItemSubtree(id);
+		return ResponseUtil.getCollection(
+				responses,
+				HttpStatus.OK,
+				"Successfully get inventory item subtree",
+				null
+		);
+	}
+
+	@Operation(summary = "Get root (original) inventory item of a split inventory item")
+	@GetMapping("/root/{id}")
+	public ResponseEntity<?> getRootInventoryItem(@PathVariable String id) {
+		LOGGER.info("Get root inventory item by ID");
+		return ResponseUtil.getObject(
+				inventoryItemService.getRootInventoryItem(id),
+				HttpStatus.OK,
+				"Successfully get root inventory item"
+		);
+	}
+
+	@Operation(summary = "search inventory items by part of scarf id",
+			description = "Case-insensitive match, ordered by id. Returns at most limit items (default 20, max 100)")
 	@GetMapping("/search/{id}")
-	public ResponseEntity<?> searchingByScarfId(@PathVariable String id) {
+	public ResponseEntity<?> searchingByScarfId(@PathVariable String id,
+												@RequestParam(defaultValue = "20") int limit) {
 		LOGGER.info("Search inventory item by: {} ",id);
-		List<InventoryItemResponse> responses = inventoryItemService.searchByScarfId(id);
+		List<InventoryItemResponse> responses = inventoryItemService.searchByScarfId(id, limit);
 		return ResponseUtil.getCollection(
 				responses,
 				HttpStatus.OK,
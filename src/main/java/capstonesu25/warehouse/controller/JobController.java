@@ -0,0 +1,70 @@
+package capstonesu25.warehouse.controller;
+
+import capstonesu25.warehouse.entity.JobRun;
+import capstonesu25.warehouse.model.responsedto.MetaDataDTO;
+import capstonesu25.warehouse.service.JobLeaseService;
+import capstonesu25.warehouse.utils.ResponseUtil;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+@Controller
+@RequestMapping("/job")
+@RequiredArgsConstructor
+public class JobController {
+    private final JobLeaseService jobLeaseService;
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobController.class);
+
+    @Operation(summary = "Get leases of scheduled jobs and the instance holding each one")
+    @GetMapping("/lease")
+    public ResponseEntity<?> getLeases() {
+        LOGGER.info("Getting scheduled job leases");
+        return ResponseUtil.getCollection(
+                jobLeaseService.getLeases(),
+                HttpStatus.OK,
+                "Successfully get job leases",
+                null
+        );
+    }
+
+    @Operation(summary = "Get run history of scheduled jobs, newest first")
+    @GetMapping("/run")
+    public ResponseEntity<?> getRuns(@RequestParam(required = false) String jobName,
+                                     @RequestParam(defaultValue = "1") int page,
+                                     @RequestParam(defaultValue = "10") int limit) {
+        LOGGER.info("Getting runs of job {}", jobName);
+        Page<JobRun> result = jobLeaseService.getRuns(jobName, page, limit);
+        return ResponseUtil.getCollection(
+                result.getContent(),
+                HttpStatus.OK,
+                "Successfully get job runs",
+                new MetaDataDTO(
+                        result.hasNext(),
+                        result.hasPrevious(),
+                        limit,
+                        (int) result.getTotalElements(),
+                        page
+                )
+        );
+    }
+
+    @Operation(summary = "Get run count, failures and duration metrics of each scheduled job")
+    @GetMapping("/run/metrics")
+    public ResponseEntity<?> getRunMetrics(@RequestParam(defaultValue = "30") int days) {
+        LOGGER.info("Getting job run metrics of the last {} days", days);
+        return ResponseUtil.getCollection(
+                jobLeaseService.getMetrics(days),
+                HttpStatus.OK,
+                "Successfully get job run metrics",
+                null
+        );
+    }
+}
@@ -68,4 +68,14 @@ public class NotificationController {
                 "All notifications deleted successfully for receiver"
         );
     }
+
+    @Operation(summary = "Get Pusher outbox delivery metrics")
+    @GetMapping("/outbox-metrics")
+    public ResponseEntity<?> getOutboxMetrics() {
+        return ResponseUtil.getObject(
+                notificationService.getOutboxMetrics(),
+                HttpStatus.OK,
+                "Fetch notification outbox metrics successfully"
+        );
+    }
 }
@@ -0,0 +1,61 @@
+package capstonesu25.warehouse.controller;
+
+import capstonesu25.warehouse.enums.ReportFormat;
+import capstonesu25.warehouse.service.ReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@Controller
+@RequestMapping("/report")
+@RequiredArgsConstructor
+public class ReportController {
+    private final ReportService reportService;
+
+    @Operation(summary = "Download inventory items grouped by stored location")
+    @GetMapping("/inventory-by-location")
+    public ResponseEntity<StreamingResponseBody> exportInventoryByLocation(
+            @RequestParam(defaultValue = "XLSX") ReportFormat format) {
+        StreamingResponseBody body = outputStream -> reportService.exportInventoryByLocation(format, outputStream);
+        return download("inventory-by-location", format, body);
+    }
+
+    @Operation(summary = "Download stock check variance (expected vs counted) by counting date")
+    @GetMapping("/stock-check-variance")
+    public ResponseEntity<StreamingResponseBody> exportStockCheckVariance(
+            @RequestParam(required = false) LocalDate fromDate,
+            @RequestParam(required = false) LocalDate toDate,
+            @RequestParam(defaultValue = "XLSX") ReportFormat format) {
+        StreamingResponseBody body = outputStream ->
+                reportService.exportStockCheckVariance(fromDate, toDate, format, outputStream);
+        return download("stock-check-variance", format, body);
+    }
+
+    @Operation(summary = "Download import and export movement by date")
+    @GetMapping("/movement")
+    public ResponseEntity<StreamingResponseBody> exportMovement(
+            @RequestParam(required = false) LocalDate fromDate,
+            @RequestParam(required = false) LocalDate toDate,
+            @RequestParam(defaultValue = "XLSX") ReportFormat format) {
+        StreamingResponseBody body = outputStream -> reportService.exportMovement(fromDate, toDate, format, outputStream);
+        return download("movement", format, body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> download(String name, ReportFormat format, StreamingResponseBody body) {
+        String fileName = name + "-" + LocalDate.now() + "." + format.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
@@ -4,13 +4,18 @@ import capstonesu25.warehouse.enums.RequestStatus;
 import capstonesu25.warehouse.model.stockcheck.AssignStaffStockCheck;
 import capstonesu25.warehouse.model.stockcheck.CompleteStockCheckRequest;
 import capstonesu25.warehouse.model.stockcheck.StockCheckRequestRequest;
+import capstonesu25.warehouse.model.stockcheck.StockCheckRequestResponse;
+import capstonesu25.warehouse.model.responsedto.MetaDataDTO;
 import capstonesu25.warehouse.service.StockCheckService;
 import capstonesu25.warehouse.utils.ResponseUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -59,6 +64,19 @@ public class StockCheckController {
         );
     }
 
+    @Operation(summary = "Get stock check requests by staff Id (keyset pagination, newest first)")
+    @GetMapping("/staff/{staffId}/cursor")
+    public ResponseEntity<?> getByStaffIdBefore(@PathVariable Long staffId,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeCreatedDate,
+                                                @RequestParam(required = false) String beforeId,
+                                                @RequestParam(defaultValue = "10") int limit) {
+        LOGGER.info("Getting stock check requests by staff id before ({}, {})", beforeCreatedDate, beforeId);
+        return ResponseUtil.getObject(
+                stockCheckService.getStockCheckRequestsOfStaffBefore(staffId, beforeCreatedDate, beforeId, limit),
+                HttpStatus.OK,
+                "Successfully get stock check requests by staff id");
+    }
+
     @Operation(summary = "Get stock check requests by status and date")
     @GetMapping("/status/{status}")
     public ResponseEntity<?> getByStatus(@PathVariable RequestStatus status, @RequestParam LocalDate fromDate, @RequestParam LocalDate toDate) {
@@ -71,6 +89,29 @@ public class StockCheckController {
         );
     }
 
+    @Operation(summary = "Get paginated stock check requests by status and date")
+    @GetMapping("/status/{status}/page")
+    public ResponseEntity<?> getByStatusAndPage(@PathVariable RequestStatus status,
+                                                @RequestParam LocalDate fromDate,
+                                                @RequestParam LocalDate toDate,
+                                                @RequestParam(defaultValue = "1") int page,
+                                                @RequestParam(defaultValue = "10") int limit) {
+        LOGGER.info("Getting paginated stock check requests by status: {}", status);
+        Page<StockCheckRequestResponse> result = stockCheckService.getStockCheckRequestsByStatus(status, fromDate, toDate, page, limit);
+        return ResponseUtil.getCollection(
+                result.getContent(),
+                HttpStatus.OK,
+                "Successfully retrieved paginated stock check requests by status",
+                new MetaDataDTO(
+                        result.hasNext(),
+                        result.hasPrevious(),
+                        limit,
+                        (int) result.getTotalElements(),
+                        page
+                )
+        );
+    }
+
     @Operation(summary = "get number stock check request by and date")
     @GetMapping("/number")
     public ResponseEntity<?> getNumberByDate(@RequestParam LocalDate fromDate, @RequestParam LocalDate toDate) {
@@ -0,0 +1,77 @@
+package capstonesu25.warehouse.controller;
+
+import capstonesu25.warehouse.model.responsedto.MetaDataDTO;
+import capstonesu25.warehouse.model.stockmovement.StockMovementResponse;
+import capstonesu25.warehouse.service.StockMovementService;
+import capstonesu25.warehouse.utils.ResponseUtil;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDate;
+
+@Controller
+@RequestMapping("/stock-movement")
+@RequiredArgsConstructor
+public class StockMovementController {
+    private final StockMovementService stockMovementService;
+    private static final Logger LOGGER = LoggerFactory.getLogger(StockMovementController.class);
+
+    @Operation(summary = "Get stock movements of an item between two dates (inclusive)")
+    @GetMapping("/item/{itemId}")
+    public ResponseEntity<?> getMovements(@PathVariable String itemId,
+                                          @RequestParam LocalDate fromDate,
+                                          @RequestParam LocalDate toDate,
+                                          @RequestParam(defaultValue = "1") int page,
+                                          @RequestParam(defaultValue = "10") int limit) {
+        LOGGER.info("Getting stock movements of item {}", itemId);
+        Page<StockMovementResponse> result = stockMovementService.getMovements(itemId, fromDate, toDate, page, limit);
+        return ResponseUtil.getCollection(
+                result.getContent(),
+                HttpStatus.OK,
+                "Successfully get stock movements",
+                new MetaDataDTO(
+                        result.hasNext(),
+                        result.hasPrevious(),
+                        limit,
+                        (int) result.getTotalElements(),
+                        page
+                )
+        );
+    }
+
+    @Operation(summary = "Get stock movement totals of an item by movement type between two dates (inclusive)")
+    @GetMapping("/item/{itemId}/totals")
+    public ResponseEntity<?> getMovementTotals(@PathVariable String itemId,
+                                               @RequestParam LocalDate fromDate,
+                                               @RequestParam LocalDate toDate) {
+        LOGGER.info("Getting stock movement totals of item {}", itemId);
+        return ResponseUtil.getCollection(
+                stockMovementService.getMovementTotals(itemId, fromDate, toDate),
+                HttpStatus.OK,
+                "Successfully get stock movement totals",
+                null
+        );
+    }
+
+    @Operation(summary = "Get stock of an item by status at the end of a date")
+    @GetMapping("/item/{itemId}/stock")
+    public ResponseEntity<?> getStockAsOf(@PathVariable String itemId,
+                                          @RequestParam(required = false) LocalDate date) {
+        LOGGER.info("Getting stock of item {} as of {}", itemId, date);
+        return ResponseUtil.getObject(
+                stockMovementService.getStockAsOf(itemId, date != null ? date : LocalDate.now()),
+                HttpStatus.OK,
+                "Successfully get stock as of date"
+        );
+    }
+}
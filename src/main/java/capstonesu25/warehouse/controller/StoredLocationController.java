@@ -143,9 +143,10 @@ public class StoredLocationController {
 
     @GetMapping("/suggest-locations")
     @Operation(summary = "Suggest stored locations", description = "Returns a list of stored locations that are not full and not used")
-    public ResponseEntity<?> suggestLocations(@RequestParam String itemId, @RequestParam Long locationId) {
+    public ResponseEntity<?> suggestLocations(@RequestParam String itemId, @RequestParam Long locationId,
+                                              @RequestParam(required = false) Integer limit) {
         LOGGER.info("Suggesting stored locations");
-        List<StoredLocationResponse> result = storedLocationService.suggestNearestStoredLocations(itemId, locationId);
+        List<StoredLocationResponse> result = storedLocationService.suggestNearestStoredLocations(itemId, locationId, limit);
         return ResponseUtil.getCollection(
                 result,
                 HttpStatus.OK,
@@ -153,6 +154,15 @@ public class StoredLocationController {
                 null);
     }
 
+    @Operation(summary = "Get stored location index metrics")
+    @GetMapping("/index-metrics")
+    public ResponseEntity<?> getIndexMetrics() {
+        return ResponseUtil.getObject(
+                storedLocationService.getIndexMetrics(),
+                HttpStatus.OK,
+                "Fetch stored location index metrics successfully");
+    }
+
     @Operation(summary = "Delete a stored location by ID", description = "Removes a stored location from the system")
     @DeleteMapping("/{storedLocationId}")
     public ResponseEntity<?> deleteStoredLocation(@PathVariable Long storedLocationId) {
@@ -1,14 +1,21 @@
 package capstonesu25.warehouse.controller;
 
+import capstonesu25.warehouse.model.transactionlog.TransactionLogFilter;
 import capstonesu25.warehouse.service.TransactionLogService;
 import capstonesu25.warehouse.utils.ResponseUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
 
 @Controller
 @RequestMapping("/transaction-log")
@@ -16,14 +23,58 @@ import org.springframework.web.bind.annotation.RequestMapping;
 public class TransactionLogController {
     private final TransactionLogService transactionLogService;
 
-    @Operation(summary = "Get all transaction logs")
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Operation(summary = "Get transaction logs (keyset pagination, newest first)")
     @GetMapping()
-    public ResponseEntity<?> getAllTransactionLogs(){
-        return ResponseUtil.getCollection(
-                transactionLogService.getAllTransactionLogs(),
+    public ResponseEntity<?> getTransactionLogs(@RequestParam(required = false) String type,
+                                                @RequestParam(required = false) String action,
+                                                @RequestParam(required = false) String objectId,
+                                                @RequestParam(required = false) String executorUsername,
+                                                @RequestParam(required = false) LocalDate fromDate,
+                                                @RequestParam(required = false) LocalDate toDate,
+                                                @RequestParam(required = false) Long beforeId,
+                                                @RequestParam(defaultValue = "20") int limit){
+        TransactionLogFilter filter = new TransactionLogFilter(type, action, objectId, executorUsername, fromDate, toDate);
+        return ResponseUtil.getObject(
+                transactionLogService.getTransactionLogs(filter, beforeId, limit),
+                HttpStatus.OK,
+                "Fetch transaction logs successfully"
+        );
+    }
+
+    @Operation(summary = "Get transaction log by id")
+    @GetMapping("/{transactionLogId}")
+    public ResponseEntity<?> getTransactionLogById(@PathVariable Long transactionLogId){
+        return ResponseUtil.getObject(
+                transactionLogService.getTransactionLogById(transactionLogId),
+                HttpStatus.OK,
+                "Fetch transaction log successfully"
+        );
+    }
+
+    @Operation(summary = "Export transaction logs as NDJSON stream")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactionLogs(@RequestParam(required = false) String type,
+                                                                       @RequestParam(required = false) String action,
+                                                                       @RequestParam(required = false) String objectId,
+                                                                       @RequestParam(required = false) String executorUsername,
+                                                                       @RequestParam(required = false) LocalDate fromDate,
+                                                                       @RequestParam(required = false) LocalDate toDate){
+        TransactionLogFilter filter = new TransactionLogFilter(type, action, objectId, executorUsername, fromDate, toDate);
+        StreamingResponseBody body = outputStream -> transactionLogService.exportTransactionLogs(filter, outputStream);
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(body);
+    }
+
+    @Operation(summary = "Get transaction log writer queue metrics")
+    @GetMapping("/writer-metrics")
+    public ResponseEntity<?> getWriterMetrics(){
+        return ResponseUtil.getObject(
+                transactionLogService.getWriterMetrics(),
                 HttpStatus.OK,
-                "Fetch all transaction logs successfully",
-                null
+                "Fetch transaction log writer metrics successfully"
         );
     }
-} 
\ No newline at end of file
+}
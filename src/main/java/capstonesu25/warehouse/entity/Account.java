@@ -1,6 +1,8 @@
 package capstonesu25.warehouse.entity;
+import capstonesu25.warehouse.entity.listener.AccountChangeListener;
 import capstonesu25.warehouse.enums.AccountRole;
 import capstonesu25.warehouse.enums.AccountStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import jakarta.persistence.*;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -17,7 +19,7 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, AccountChangeListener.class})
 @Builder
 public class Account implements UserDetails {
 
@@ -67,6 +69,13 @@ public class Account implements UserDetails {
     @Column(name = "verification_token_expiry")
     private LocalDateTime verificationTokenExpiry;
 
+    // role / trạng thái lúc nạp từ DB, AccountChangeListener so sánh để biết có cần xóa cache hay không
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private String loadedAccessState;
+
     @OneToMany(mappedBy = "assignedStaff", cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REFRESH})
     private List<ImportOrder> importOrders;
 
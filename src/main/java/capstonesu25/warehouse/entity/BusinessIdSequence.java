@@ -0,0 +1,31 @@
+package capstonesu25.warehouse.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Số thứ tự cuối cùng đã cấp cho một tiền tố mã (vd: PX-20250101, DN-PN-20250101-001).
+ */
+@Entity
+@Table(name = "business_id_sequence")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusinessIdSequence {
+    @Id
+    @Column(name = "sequence_key")
+    private String sequenceKey;
+
+    @Column(name = "last_value", nullable = false)
+    private Long lastValue;
+
+    @Column(name = "updated_date")
+    private LocalDateTime updatedDate;
+}
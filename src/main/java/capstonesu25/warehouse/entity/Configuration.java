@@ -68,4 +68,8 @@ public class Configuration {
     @Column(name = "periodic_creating_stock_check")
     private Integer periodicCreatingStockCheck;
 
+    // Tăng mỗi lần cập nhật để các instance khác biết cần nạp lại ConfigurationProvider
+    @Column(name = "version")
+    private Long version;
+
 }
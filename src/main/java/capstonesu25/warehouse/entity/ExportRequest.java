@@ -15,7 +15,13 @@ import java.time.LocalTime;
 import java.util.List;
 
 @Entity
-@Table(name = "export_request")
+@Table(name = "export_request", indexes = {
+        @Index(name = "idx_export_request_status_created_date", columnList = "status, created_date"),
+        @Index(name = "idx_export_request_assigned_staff_created_date", columnList = "assigned_staff_id, created_date, id"),
+        @Index(name = "idx_export_request_counting_staff_created_date", columnList = "counting_staff_id, created_date, id"),
+        @Index(name = "idx_export_request_status_export_date", columnList = "status, export_date"),
+        @Index(name = "idx_export_request_status_extended_date", columnList = "status, extended_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
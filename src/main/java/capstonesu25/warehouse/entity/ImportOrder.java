@@ -14,7 +14,11 @@ import java.time.LocalTime;
 import java.util.List;
 
 @Entity
-@Table(name = "import_order")
+@Table(name = "import_order", indexes = {
+        @Index(name = "idx_import_order_assigned_staff_created_date", columnList = "assigned_staff_id, created_date, id"),
+        @Index(name = "idx_import_order_status_date_received", columnList = "status, date_received"),
+        @Index(name = "idx_import_order_status_extended_date", columnList = "status, extended_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,7 +14,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "import_request")
+@Table(name = "import_request", indexes = @Index(name = "idx_import_request_status_created_date", columnList = "status, created_date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,5 +1,7 @@
 package capstonesu25.warehouse.entity;
 
+import capstonesu25.warehouse.entity.listener.InventoryItemIdIndexListener;
+import capstonesu25.warehouse.entity.listener.InventoryItemStockListener;
 import capstonesu25.warehouse.enums.ItemStatus;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -13,7 +15,12 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "inventory_item")
+@Table(name = "inventory_item", indexes = {
+        @Index(name = "idx_inventory_item_pick_fifo", columnList = "item_id, status, imported_date, id"),
+        @Index(name = "idx_inventory_item_pick_fefo", columnList = "item_id, status, expired_date, imported_date, id"),
+        @Index(name = "idx_inventory_item_parent", columnList = "parent_id")
+})
+@EntityListeners({InventoryItemStockListener.class, InventoryItemIdIndexListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -76,4 +83,29 @@ public class InventoryItem {
     @ManyToOne
     @JoinColumn(name = "stored_location_id")
     private StoredLocation storedLocation;
+
+    // Giá trị đã được tính vào inventory_stock_counter và stock_movement, do InventoryItemStockListener quản lý
+    @Transient
+    @JsonIgnore
+    private String countedItemId;
+
+    @Transient
+    @JsonIgnore
+    private ItemStatus countedStatus;
+
+    @Transient
+    @JsonIgnore
+    private Long countedStoredLocationId;
+
+    @Transient
+    @JsonIgnore
+    private Double countedMeasurementValue;
+
+    @Transient
+    @JsonIgnore
+    private Long countedExportRequestDetailId;
+
+    @Transient
+    @JsonIgnore
+    private String countedExportRequestId;
 }
@@ -0,0 +1,43 @@
+package capstonesu25.warehouse.entity;
+
+import capstonesu25.warehouse.enums.ItemStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Số lượng inventory item theo từng (item, status), được cập nhật mỗi khi status của InventoryItem thay đổi.
+ */
+@Entity
+@Table(name = "inventory_stock_counter",
+        uniqueConstraints = @UniqueConstraint(name = "uk_inventory_stock_counter_item_status",
+                columnNames = {"item_id", "status"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryStockCounter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private String itemId;
+
+    @Column(name = "status", nullable = false)
+    private ItemStatus status;
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
+
+    @Column(name = "updated_date")
+    private LocalDateTime updatedDate;
+}
@@ -0,0 +1,43 @@
+package capstonesu25.warehouse.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Lease của một job định kỳ dùng chung giữa các instance: instance nào cập nhật được dòng khi lease đã hết hạn
+ * thì được chạy job, fencing_token tăng sau mỗi lần giành lease để chủ cũ không còn ghi được sau khi mất lease.
+ * last_run_date là mốc "đã chạy hôm nay" được lưu lại thay cho biến trong bộ nhớ của từng instance.
+ */
+@Entity
+@Table(name = "job_lease")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLease {
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "fencing_token", nullable = false)
+    private Long fencingToken;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "last_run_date")
+    private LocalDate lastRunDate;
+}
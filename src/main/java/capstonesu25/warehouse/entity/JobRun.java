@@ -0,0 +1,61 @@
+package capstonesu25.warehouse.entity;
+
+import capstonesu25.warehouse.enums.JobRunStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lịch sử một lần chạy job định kỳ trên instance đang giữ lease.
+ */
+@Entity
+@Table(name = "job_run", indexes = {
+        @Index(name = "idx_job_run_job_name_started_at", columnList = "job_name, started_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_name", nullable = false, length = 100)
+    private String jobName;
+
+    @Column(name = "owner", nullable = false)
+    private String owner;
+
+    @Column(name = "fencing_token", nullable = false)
+    private Long fencingToken;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private JobRunStatus status;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "duration_millis")
+    private Long durationMillis;
+
+    @Column(name = "processed")
+    private Integer processed;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+}
@@ -18,7 +18,11 @@ import java.time.LocalTime;
 import java.util.List;
 
 @Entity
-@Table(name = "stock_check_request")
+@Table(name = "stock_check_request", indexes = {
+        @Index(name = "idx_stock_check_request_status_created_date", columnList = "status, created_date"),
+        @Index(name = "idx_stock_check_request_assigned_staff_created_date", columnList = "assigned_staff_id, created_date, id"),
+        @Index(name = "idx_stock_check_request_status_expected_return_date", columnList = "status, expected_return_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
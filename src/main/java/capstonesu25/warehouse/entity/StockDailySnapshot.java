@@ -0,0 +1,49 @@
+package capstonesu25.warehouse.entity;
+
+import capstonesu25.warehouse.enums.ItemStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Tồn cuối ngày theo (item, status), cộng dồn từ stock_movement bởi StockMovementJob.
+ * Tồn tại một thời điểm = snapshot gần nhất trước đó + các movement sau ngày snapshot.
+ */
+@Entity
+@Table(name = "stock_daily_snapshot",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_daily_snapshot_item_date_status",
+                columnNames = {"item_id", "snapshot_date", "status"}),
+        indexes = @Index(name = "idx_stock_daily_snapshot_date", columnList = "snapshot_date"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockDailySnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    @Column(name = "item_id", nullable = false)
+    private String itemId;
+
+    @Column(name = "status", nullable = false)
+    private ItemStatus status;
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
+
+    @Column(name = "measurement", nullable = false)
+    private Double measurement;
+}
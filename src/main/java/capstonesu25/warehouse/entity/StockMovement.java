@@ -0,0 +1,80 @@
+package capstonesu25.warehouse.entity;
+
+import capstonesu25.warehouse.enums.ItemStatus;
+import capstonesu25.warehouse.enums.MovementType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sổ biến động tồn kho, chỉ ghi thêm: mỗi dòng là một thay đổi status/vị trí/measurement/phiếu xuất của một
+ * inventory item, ghi cùng transaction với thay đổi đó. quantityDelta/measurementDelta là thay đổi của tồn thực tế
+ * (mọi status trừ NO_LONGER_EXIST); fromStatus/toStatus cho phép tính tồn theo từng status.
+ */
+@Entity
+@Table(name = "stock_movement", indexes = {
+        @Index(name = "idx_stock_movement_item_occurred", columnList = "item_id, occurred_at"),
+        @Index(name = "idx_stock_movement_occurred", columnList = "occurred_at"),
+        @Index(name = "idx_stock_movement_inventory_item", columnList = "inventory_item_id, occurred_at"),
+        @Index(name = "idx_stock_movement_reference", columnList = "reference_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false, length = 30)
+    private MovementType movementType;
+
+    @Column(name = "inventory_item_id", nullable = false)
+    private String inventoryItemId;
+
+    @Column(name = "item_id")
+    private String itemId;
+
+    @Column(name = "from_status")
+    private ItemStatus fromStatus;
+
+    @Column(name = "to_status")
+    private ItemStatus toStatus;
+
+    @Column(name = "from_location_id")
+    private Long fromLocationId;
+
+    @Column(name = "to_location_id")
+    private Long toLocationId;
+
+    @Column(name = "measurement_before")
+    private Double measurementBefore;
+
+    @Column(name = "measurement_after")
+    private Double measurementAfter;
+
+    @Column(name = "quantity_delta", nullable = false)
+    private Integer quantityDelta;
+
+    @Column(name = "measurement_delta", nullable = false)
+    private Double measurementDelta;
+
+    // Id phiếu nhập/phiếu xuất/phiếu kiểm kê gây ra biến động
+    @Column(name = "reference_id")
+    private String referenceId;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
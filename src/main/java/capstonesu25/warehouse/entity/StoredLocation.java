@@ -1,4 +1,5 @@
 package capstonesu25.warehouse.entity;
+import capstonesu25.warehouse.entity.listener.StoredLocationIndexListener;
 import lombok.*;
 import jakarta.persistence.*;
 
@@ -6,6 +7,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "stored_location")
+@EntityListeners(StoredLocationIndexListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,6 +14,7 @@ import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
 import lombok.AllArgsConstructor;
@@ -21,7 +22,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "transaction_log")
+@Table(name = "transaction_log", indexes = {
+        @Index(name = "idx_transaction_log_type_action", columnList = "type, action, id"),
+        @Index(name = "idx_transaction_log_object_id", columnList = "object_id"),
+        @Index(name = "idx_transaction_log_executor", columnList = "executor_username, id"),
+        @Index(name = "idx_transaction_log_created_date", columnList = "created_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
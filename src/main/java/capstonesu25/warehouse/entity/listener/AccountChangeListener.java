@@ -0,0 +1,52 @@
+package capstonesu25.warehouse.entity.listener;
+
+import capstonesu25.warehouse.entity.Account;
+import capstonesu25.warehouse.service.AccountRevocationService;
+import capstonesu25.warehouse.service.RoleRecipientCache;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Xóa cache người nhận thông báo theo role và cập nhật tập account bị thu hồi quyền truy cập khi account được tạo,
+ * xóa hoặc đổi role / trạng thái. Các cập nhật khác (vd: lưu refresh token mỗi lần đăng nhập) được bỏ qua.
+ */
+public class AccountChangeListener {
+    private final ObjectProvider<RoleRecipientCache> roleRecipientCacheProvider;
+    private final ObjectProvider<AccountRevocationService> accountRevocationServiceProvider;
+
+    public AccountChangeListener(ObjectProvider<RoleRecipientCache> roleRecipientCacheProvider,
+                                 ObjectProvider<AccountRevocationService> accountRevocationServiceProvider) {
+        this.roleRecipientCacheProvider = roleRecipientCacheProvider;
+        this.accountRevocationServiceProvider = accountRevocationServiceProvider;
+    }
+
+    @PostLoad
+    public void onLoad(Account account) {
+        account.setLoadedAccessState(accessState(account));
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(Account account) {
+        String accessState = accessState(account);
+        if (accessState.equals(account.getLoadedAccessState())) {
+            return;
+        }
+        account.setLoadedAccessState(accessState);
+        roleRecipientCacheProvider.getObject().invalidate();
+        accountRevocationServiceProvider.getObject().onAccountChanged(account);
+    }
+
+    @PostRemove
+    public void onRemove(Account account) {
+        roleRecipientCacheProvider.getObject().invalidate();
+        accountRevocationServiceProvider.getObject().onAccountRemoved(account);
+    }
+
+    private static String accessState(Account account) {
+        return account.getRole() + "|" + account.getStatus() + "|" + account.getIsEnable() + "|" + account.getIsBlocked();
+    }
+}
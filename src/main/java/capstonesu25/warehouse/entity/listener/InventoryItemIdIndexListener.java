@@ -0,0 +1,46 @@
+package capstonesu25.warehouse.entity.listener;
+
+import capstonesu25.warehouse.entity.InventoryItem;
+import capstonesu25.warehouse.service.InventoryItemIdSearchIndex;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Đưa id của InventoryItem mới tạo hoặc bị xóa vào InventoryItemIdSearchIndex sau khi commit.
+ * Id không đổi sau khi tạo nên không cần theo dõi cập nhật.
+ */
+public class InventoryItemIdIndexListener {
+    private final ObjectProvider<InventoryItemIdSearchIndex> indexProvider;
+
+    public InventoryItemIdIndexListener(ObjectProvider<InventoryItemIdSearchIndex> indexProvider) {
+        this.indexProvider = indexProvider;
+    }
+
+    @PostPersist
+    public void onPersist(InventoryItem inventoryItem) {
+        String id = inventoryItem.getId();
+        afterCommit(() -> indexProvider.getObject().add(id));
+    }
+
+    @PostRemove
+    public void onRemove(InventoryItem inventoryItem) {
+        String id = inventoryItem.getId();
+        afterCommit(() -> indexProvider.getObject().remove(id));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package capstonesu25.warehouse.entity.listener;
+
+import capstonesu25.warehouse.entity.InventoryItem;
+import capstonesu25.warehouse.service.InventoryStockCounterService;
+import capstonesu25.warehouse.service.StockMovementService;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Cập nhật inventory_stock_counter và ghi stock_movement mỗi khi một InventoryItem được tạo,
+ * đổi status/item/vị trí/measurement/phiếu xuất hoặc bị xóa.
+ * Listener được Hibernate tạo qua SpringBeanContainer nên có thể inject bean.
+ */
+public class InventoryItemStockListener {
+    private final ObjectProvider<InventoryStockCounterService> counterServiceProvider;
+    private final ObjectProvider<StockMovementService> stockMovementServiceProvider;
+
+    public InventoryItemStockListener(ObjectProvider<InventoryStockCounterService> counterServiceProvider,
+                                      ObjectProvider<StockMovementService> stockMovementServiceProvider) {
+        this.counterServiceProvider = counterServiceProvider;
+        this.stockMovementServiceProvider = stockMovementServiceProvider;
+    }
+
+    @PostLoad
+    public void onLoad(InventoryItem inventoryItem) {
+        remember(inventoryItem);
+    }
+
+    @PostPersist
+    public void onPersist(InventoryItem inventoryItem) {
+        counterServiceProvider.getObject().applyDelta(itemIdOf(inventoryItem), inventoryItem.getStatus(), 1);
+        stockMovementServiceProvider.getObject().recordPersisted(inventoryItem);
+        remember(inventoryItem);
+    }
+
+    @PostUpdate
+    public void onUpdate(InventoryItem inventoryItem) {
+        counterServiceProvider.getObject().moveStatus(
+                inventoryItem.getCountedItemId(), inventoryItem.getCountedStatus(),
+                itemIdOf(inventoryItem), inventoryItem.getStatus());
+        stockMovementServiceProvider.getObject().recordUpdated(inventoryItem);
+        remember(inventoryItem);
+    }
+
+    @PostRemove
+    public void onRemove(InventoryItem inventoryItem) {
+        counterServiceProvider.getObject().applyDelta(
+                inventoryItem.getCountedItemId(), inventoryItem.getCountedStatus(), -1);
+        stockMovementServiceProvider.getObject().recordRemoved(inventoryItem);
+    }
+
+    private void remember(InventoryItem inventoryItem) {
+        inventoryItem.setCountedItemId(itemIdOf(inventoryItem));
+        inventoryItem.setCountedStatus(inventoryItem.getStatus());
+        inventoryItem.setCountedStoredLocationId(StockMovementService.storedLocationIdOf(inventoryItem));
+        inventoryItem.setCountedMeasurementValue(inventoryItem.getMeasurementValue());
+        inventoryItem.setCountedExportRequestDetailId(StockMovementService.exportRequestDetailIdOf(inventoryItem));
+        inventoryItem.setCountedExportRequestId(StockMovementService.exportRequestIdOf(inventoryItem));
+    }
+
+    private String itemIdOf(InventoryItem inventoryItem) {
+        return inventoryItem.getItem() != null ? inventoryItem.getItem().getId() : null;
+    }
+}
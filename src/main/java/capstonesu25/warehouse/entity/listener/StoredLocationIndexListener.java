@@ -0,0 +1,54 @@
+package capstonesu25.warehouse.entity.listener;
+
+import capstonesu25.warehouse.entity.StoredLocation;
+import capstonesu25.warehouse.model.storedlocation.LocationNode;
+import capstonesu25.warehouse.service.WarehouseTopologyIndex;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+
+/**
+ * Đưa thay đổi của StoredLocation (capacity, flag, item affinity) vào WarehouseTopologyIndex sau khi commit,
+ * để transaction bị rollback không làm sai chỉ mục.
+ */
+public class StoredLocationIndexListener {
+    private final ObjectProvider<WarehouseTopologyIndex> indexProvider;
+
+    public StoredLocationIndexListener(ObjectProvider<WarehouseTopologyIndex> indexProvider) {
+        this.indexProvider = indexProvider;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(StoredLocation storedLocation) {
+        boolean itemIdsKnown = storedLocation.getItems() == null || Hibernate.isInitialized(storedLocation.getItems());
+        LocationNode node = LocationNode.from(storedLocation,
+                itemIdsKnown ? LocationNode.itemIdsOf(storedLocation) : Set.of());
+        afterCommit(() -> indexProvider.getObject().apply(node, itemIdsKnown));
+    }
+
+    @PostRemove
+    public void onRemove(StoredLocation storedLocation) {
+        Long id = storedLocation.getId();
+        afterCommit(() -> indexProvider.getObject().remove(id));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,8 @@
+package capstonesu25.warehouse.enums;
+
+public enum JobRunStatus {
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    LEASE_LOST
+}
@@ -0,0 +1,15 @@
+package capstonesu25.warehouse.enums;
+
+// Loại biến động của một inventory item trong sổ stock_movement
+public enum MovementType {
+    OPENING,
+    RECEIVE,
+    PUTAWAY,
+    TRANSFER,
+    RESERVE,
+    RELEASE,
+    DISPATCH,
+    LIQUIDATION,
+    STOCK_CHECK_ADJUSTMENT,
+    ADJUSTMENT
+}
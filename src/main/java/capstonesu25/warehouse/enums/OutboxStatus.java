@@ -0,0 +1,7 @@
+package capstonesu25.warehouse.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
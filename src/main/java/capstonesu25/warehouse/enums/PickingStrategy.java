@@ -0,0 +1,26 @@
+package capstonesu25.warehouse.enums;
+
+import org.springframework.data.domain.Sort;
+
+// Thứ tự lấy inventory item khi xuất kho
+public enum PickingStrategy {
+    // Hết hạn trước xuất trước, item không có hạn dùng xếp sau cùng
+    FEFO(Sort.by(
+            Sort.Order.asc("expiredDate").nullsLast(),
+            Sort.Order.asc("importedDate"),
+            Sort.Order.asc("id"))),
+    // Nhập trước xuất trước
+    FIFO(Sort.by(
+            Sort.Order.asc("importedDate"),
+            Sort.Order.asc("id")));
+
+    private final Sort sort;
+
+    PickingStrategy(Sort sort) {
+        this.sort = sort;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+}
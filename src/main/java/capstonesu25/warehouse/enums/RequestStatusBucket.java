@@ -0,0 +1,57 @@
+package capstonesu25.warehouse.enums;
+
+import capstonesu25.warehouse.model.report.RequestStatusCount;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Nhóm trạng thái dùng cho các ô thống kê ở trang tổng quan
+public enum RequestStatusBucket {
+    ONGOING(Set.of(
+            RequestStatus.IN_PROGRESS,
+            RequestStatus.EXTENDED,
+            RequestStatus.COUNTED,
+            RequestStatus.COUNT_AGAIN_REQUESTED,
+            RequestStatus.COUNT_CONFIRMED,
+            RequestStatus.WAITING_EXPORT,
+            RequestStatus.CONFIRMED)),
+    FINISH(Set.of(
+            RequestStatus.COMPLETED,
+            RequestStatus.CANCELLED));
+
+    private final Set<RequestStatus> statuses;
+
+    RequestStatusBucket(Set<RequestStatus> statuses) {
+        this.statuses = statuses;
+    }
+
+    public Set<RequestStatus> getStatuses() {
+        return statuses;
+    }
+
+    public static Set<RequestStatus> allStatuses() {
+        Set<RequestStatus> all = EnumSet.noneOf(RequestStatus.class);
+        for (RequestStatusBucket bucket : values()) {
+            all.addAll(bucket.statuses);
+        }
+        return all;
+    }
+
+    public static Map<RequestStatusBucket, Long> tally(List<RequestStatusCount> counts) {
+        Map<RequestStatusBucket, Long> totals = new EnumMap<>(RequestStatusBucket.class);
+        for (RequestStatusBucket bucket : values()) {
+            totals.put(bucket, 0L);
+        }
+        for (RequestStatusCount count : counts) {
+            for (RequestStatusBucket bucket : values()) {
+                if (bucket.statuses.contains(count.getStatus())) {
+                    totals.merge(bucket, count.getTotal(), Long::sum);
+                }
+            }
+        }
+        return totals;
+    }
+}
@@ -1,12 +1,10 @@
 package capstonesu25.warehouse.job;
 
-import capstonesu25.warehouse.entity.Configuration;
-import capstonesu25.warehouse.entity.ExportRequest;
-import capstonesu25.warehouse.entity.ExportRequestDetail;
 import capstonesu25.warehouse.enums.RequestStatus;
-import capstonesu25.warehouse.repository.ConfigurationRepository;
-import capstonesu25.warehouse.repository.ExportRequestRepository;
-import capstonesu25.warehouse.repository.InventoryItemRepository;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
+import capstonesu25.warehouse.service.ConfigurationProvider;
+import capstonesu25.warehouse.service.JobLeaseService;
+import capstonesu25.warehouse.service.RequestExpiryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -16,100 +14,59 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.util.List;
-import java.util.Objects;
 import java.util.logging.Logger;
 
 @Component
 @RequiredArgsConstructor
 @EnableScheduling
 public class ExportRequestJob {
-    private final ConfigurationRepository configurationRepository;
-    private final ExportRequestRepository exportRequestRepository;
-    private final InventoryItemRepository inventoryItemRepository;
+    private final ConfigurationProvider configurationProvider;
+    private final RequestExpiryService requestExpiryService;
+    private final JobLeaseService jobLeaseService;
 
     private static final Logger LOGGER = Logger.getLogger(ExportRequestJob.class.getName());
-    private LocalDate lastRunDate = null;
+    private static final String CANCEL_JOB = "export-request-cancel";
+    private static final String CANCEL_EXTENDED_JOB = "export-request-cancel-extended";
+
     @Scheduled(fixedRate = 60_000, zone = "Asia/Ho_Chi_Minh")
     public void cancelExportRequestJob() {
-        Configuration config = configurationRepository.findAll().getFirst();
+        ConfigurationSnapshot config = configurationProvider.get();
         LocalTime cancelTime = config.getTimeToAllowCancel();
         LocalTime now = LocalTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
         LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
 
-
-
-        if (now.isBefore(cancelTime) || today.equals(lastRunDate)) {
+        if (now.isBefore(cancelTime)) {
             return;
         }
 
-        LocalDate dayWillBeCancel = today.plusDays(config.getDayWillBeCancelRequest());
-
-        List<RequestStatus> statuses = List.of(RequestStatus.IN_PROGRESS, RequestStatus.COUNTED
-                , RequestStatus.COUNT_CONFIRMED, RequestStatus.WAITING_EXPORT, RequestStatus.NOT_STARTED);
-
-        List<ExportRequest> exportRequests= exportRequestRepository.findByStatusIn(statuses);
-        List<ExportRequest> filteredRequests = exportRequests.stream()
-                .filter(exportRequest -> exportRequest.getExportDate() != null
-                        && !exportRequest.getExportDate().isBefore(dayWillBeCancel))
-                .toList();
+        // Mốc đã chạy trong ngày nằm ở job_lease nên chỉ một instance hủy mỗi ngày
+        jobLeaseService.runOncePerDay(CANCEL_JOB, today, lease -> {
+            LocalDate dayWillBeCancel = today.plusDays(config.getDayWillBeCancelRequest());
 
-        if (filteredRequests.isEmpty()) {
-            lastRunDate = today;
-            return;
-        }
+            List<RequestStatus> statuses = List.of(RequestStatus.IN_PROGRESS, RequestStatus.COUNTED
+                    , RequestStatus.COUNT_CONFIRMED, RequestStatus.WAITING_EXPORT, RequestStatus.NOT_STARTED);
 
-        filteredRequests.forEach(order -> {
-            order.setStatus(RequestStatus.CANCELLED);
-            order.setNote("Tự động hủy do quá hạn xác nhận lúc " + now);
+            // Hủy và trả inventory item theo từng lô ngay trong DB
+            int cancelled = requestExpiryService.cancelExportRequests(lease, statuses, dayWillBeCancel,
+                    "Tự động hủy do quá hạn xác nhận lúc " + now);
+            LOGGER.info("Đã tự động hủy " + cancelled + " đơn lúc " + now);
+            return cancelled;
         });
-
-        List<Long> detailIds = filteredRequests.stream()
-                .filter(Objects::nonNull)
-                .flatMap(er -> er.getExportRequestDetails().stream())
-                .map(ExportRequestDetail::getId)
-                .distinct()
-                .toList();
-
-        if (!detailIds.isEmpty()) {
-            // 3) Bulk release all inventory items tied to those details
-            int released = inventoryItemRepository.releaseByExportDetailIds(detailIds);
-
-            // 4) Keep in-memory collections consistent (optional but clean):
-            //    Clear the items list on each detail since owning side is on InventoryItem.
-            LOGGER.info("Release {} inventory item of export for today"+ released);
-
-            filteredRequests.forEach(er -> er.getExportRequestDetails()
-                    .forEach(d -> d.getInventoryItems().clear()));
-        }
-
-
-        exportRequestRepository.saveAll(filteredRequests);
-        lastRunDate = today;
-        LOGGER.info("Đã tự động hủy " + filteredRequests.size() + " đơn lúc " + now);
     }
 
     @Scheduled(cron = "0 1 0 * * *", zone = "Asia/Ho_Chi_Minh") // Run at 00:01 daily
     public void cancelExtendedOrdersPastDueDays() {
-        Configuration config = configurationRepository.findAll().getFirst();
+        ConfigurationSnapshot config = configurationProvider.get();
         int daysAllowed = config.getDaysToAllowExtend();
 
         LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
         LocalDate cancelThreshold = today.minusDays(daysAllowed);
 
-        // Find orders in EXTENDED status where extendedAt ≤ cancelThreshold
-        List<ExportRequest> expiredRequest = exportRequestRepository
-                .findByStatusAndExtendedDateLessThanEqual(RequestStatus.EXTENDED, cancelThreshold);
-
-        if (expiredRequest.isEmpty()) {
-            return;
-        }
-
-        expiredRequest.forEach(order -> {
-            order.setStatus(RequestStatus.CANCELLED);
-            order.setNote("Tự động hủy do đã gia hạn quá " + daysAllowed + " ngày (từ " + order.getExtendedDate() + ")");
+        jobLeaseService.runOncePerDay(CANCEL_EXTENDED_JOB, today, lease -> {
+            int cancelled = requestExpiryService.cancelExtendedExportRequests(lease, cancelThreshold,
+                    "Tự động hủy do đã gia hạn quá " + daysAllowed + " ngày (từ ");
+            LOGGER.info("auto cancel " + cancelled + " cause has extended after " + daysAllowed + " days.");
+            return cancelled;
         });
-
-        exportRequestRepository.saveAll(expiredRequest);
-        LOGGER.info("auto cancel " + expiredRequest.size() + " cause has extended after " + daysAllowed + " days.");
     }
 }
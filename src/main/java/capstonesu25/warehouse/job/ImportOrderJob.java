@@ -1,10 +1,10 @@
 package capstonesu25.warehouse.job;
 
-import capstonesu25.warehouse.entity.Configuration;
-import capstonesu25.warehouse.entity.ImportOrder;
 import capstonesu25.warehouse.enums.RequestStatus;
-import capstonesu25.warehouse.repository.ConfigurationRepository;
-import capstonesu25.warehouse.repository.ImportOrderRepository;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
+import capstonesu25.warehouse.service.ConfigurationProvider;
+import capstonesu25.warehouse.service.JobLeaseService;
+import capstonesu25.warehouse.service.RequestExpiryService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -20,75 +20,52 @@ import java.util.List;
 @RequiredArgsConstructor
 @EnableScheduling
 public class ImportOrderJob {
-    private final ConfigurationRepository configurationRepository;
-    private final ImportOrderRepository importOrderRepository;
+    private final ConfigurationProvider configurationProvider;
+    private final RequestExpiryService requestExpiryService;
+    private final JobLeaseService jobLeaseService;
     private static final Logger logger = org.slf4j.LoggerFactory.getLogger(ImportOrderJob.class);
-
-    private LocalDate lastRunDate = null;
+    private static final String CANCEL_JOB = "import-order-cancel";
+    private static final String CANCEL_EXTENDED_JOB = "import-order-cancel-extended";
 
     @Scheduled(fixedRate = 60_000, zone = "Asia/Ho_Chi_Minh")
     public void cancelImportOrderJob() {
-        Configuration config = configurationRepository.findAll().get(0);
+        ConfigurationSnapshot config = configurationProvider.get();
         LocalTime cancelTime = config.getTimeToAllowCancel();
         LocalTime now = LocalTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
         LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
 
-        if (now.isBefore(cancelTime) || today.equals(lastRunDate)) {
+        if (now.isBefore(cancelTime)) {
             return;
         }
 
-        LocalDate dayWillBeCancel = today.plusDays(config.getDayWillBeCancelRequest());
-
-        List<RequestStatus> statuses = List.of(RequestStatus.NOT_STARTED,RequestStatus.IN_PROGRESS, RequestStatus.COUNTED
-                , RequestStatus.COUNT_CONFIRMED, RequestStatus.COUNT_AGAIN_REQUESTED);
-
-        List<ImportOrder> importOrders = importOrderRepository
-                .findByStatusIn(statuses);
+        jobLeaseService.runOncePerDay(CANCEL_JOB, today, lease -> {
+            LocalDate dayWillBeCancel = today.plusDays(config.getDayWillBeCancelRequest());
 
-        List<ImportOrder> checkOrders = importOrders.stream()
-                .filter(importOrder -> importOrder.getDateReceived() != null
-                        && !importOrder.getDateReceived().isBefore(dayWillBeCancel))
-                .toList();
-
-        if (checkOrders.isEmpty()) {
-            lastRunDate = today;
-            return;
-        }
+            List<RequestStatus> statuses = List.of(RequestStatus.NOT_STARTED,RequestStatus.IN_PROGRESS, RequestStatus.COUNTED
+                    , RequestStatus.COUNT_CONFIRMED, RequestStatus.COUNT_AGAIN_REQUESTED);
 
-        checkOrders.forEach(order -> {
-            order.setStatus(RequestStatus.CANCELLED);
-            order.setNote("Tự động hủy do quá hạn xác nhận lúc " + now);
+            int cancelled = requestExpiryService.cancelImportOrders(lease, statuses, dayWillBeCancel,
+                    "Tự động hủy do quá hạn xác nhận lúc " + now);
+            logger.info("Đã tự động hủy " + cancelled + " đơn lúc " + now);
+            return cancelled;
         });
-
-        importOrderRepository.saveAll(checkOrders);
-        lastRunDate = today;
-        logger.info("Đã tự động hủy " + checkOrders.size() + " đơn lúc " + now);
     }
 
     // Run at 00:01 every day
     @Scheduled(cron = "0 1 0 * * *", zone = "Asia/Ho_Chi_Minh") // Run at 00:01 daily
     public void cancelExtendedOrdersPastDueDays() {
-        Configuration config = configurationRepository.findAll().get(0);
+        ConfigurationSnapshot config = configurationProvider.get();
         int daysAllowed = config.getDaysToAllowExtend();
 
         LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
         LocalDate cancelThreshold = today.minusDays(daysAllowed);
 
-        // Find orders in EXTENDED status where extendedAt ≤ cancelThreshold
-        List<ImportOrder> expiredOrders = importOrderRepository
-                .findByStatusAndExtendedDateLessThanEqual(RequestStatus.EXTENDED, cancelThreshold);
-
-        if (expiredOrders.isEmpty()) {
-            return;
-        }
-
-        expiredOrders.forEach(order -> {
-            order.setStatus(RequestStatus.CANCELLED);
-            order.setNote("Tự động hủy do đã gia hạn quá " + daysAllowed + " ngày (từ " + order.getExtendedDate() + ")");
+        jobLeaseService.runOncePerDay(CANCEL_EXTENDED_JOB, today, lease -> {
+            int cancelled = requestExpiryService.cancelExtendedImportOrders(lease, cancelThreshold,
+                    "Tự động hủy do đã gia hạn quá " + daysAllowed + " ngày (từ ");
+            logger.info("auto cancel " + cancelled + " cause has extended after " + daysAllowed + " days.");
+            return cancelled;
         });
-
-        importOrderRepository.saveAll(expiredOrders);
-        logger.info("auto cancel " + expiredOrders.size() + " cause has extended after " + daysAllowed + " days.");
     }
 
 
@@ -0,0 +1,36 @@
+package capstonesu25.warehouse.job;
+
+import capstonesu25.warehouse.service.InventoryStockCounterService;
+import capstonesu25.warehouse.service.JobLeaseService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+@Component
+@RequiredArgsConstructor
+@EnableScheduling
+public class InventoryStockCounterJob {
+    private final InventoryStockCounterService inventoryStockCounterService;
+    private final JobLeaseService jobLeaseService;
+    private static final String RECONCILE_JOB = "inventory-stock-counter-reconcile";
+
+    // Dựng lại counter khi khởi động để bảng luôn có dữ liệu (kể cả khi vừa thêm bảng vào DB cũ).
+    // Tính là lần đối soát của ngày: khi nhiều instance cùng khởi động chỉ instance đầu tiên chạy
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcileInventoryStockCounters();
+    }
+
+    // Đối soát lại counter với inventory_item, sửa sai lệch nếu có cập nhật nào đi vòng qua listener
+    @Scheduled(cron = "0 30 0 * * *", zone = "Asia/Ho_Chi_Minh") // Run at 00:30 daily
+    public void reconcileInventoryStockCounters() {
+        jobLeaseService.runOncePerDay(RECONCILE_JOB, LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh")),
+                lease -> inventoryStockCounterService.reconcile());
+    }
+}
@@ -1,83 +1,66 @@
 package capstonesu25.warehouse.job;
 
-import capstonesu25.warehouse.entity.Configuration;
-import capstonesu25.warehouse.entity.InventoryItem;
-import capstonesu25.warehouse.entity.Item;
-import capstonesu25.warehouse.entity.StockCheckRequest;
-import capstonesu25.warehouse.enums.ItemStatus;
 import capstonesu25.warehouse.enums.RequestStatus;
 import capstonesu25.warehouse.enums.StockCheckType;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
 import capstonesu25.warehouse.model.stockcheck.StockCheckRequestRequest;
 import capstonesu25.warehouse.model.stockcheck.StockCheckRequestResponse;
-import capstonesu25.warehouse.model.stockcheck.detail.StockCheckRequestDetailRequest;
-import capstonesu25.warehouse.repository.ConfigurationRepository;
-import capstonesu25.warehouse.repository.ItemRepository;
-import capstonesu25.warehouse.repository.StockCheckRequestRepository;
+import capstonesu25.warehouse.service.ConfigurationProvider;
+import capstonesu25.warehouse.service.JobLeaseService;
+import capstonesu25.warehouse.service.RequestExpiryService;
 import capstonesu25.warehouse.service.StockCheckDetailService;
 import capstonesu25.warehouse.service.StockCheckService;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
-import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 @Component
 @RequiredArgsConstructor
 @EnableScheduling
 public class StockCheckJob {
-    private final ConfigurationRepository configurationRepository;
-    private final StockCheckRequestRepository stockCheckRequestRepository;
+    private final ConfigurationProvider configurationProvider;
+    private final RequestExpiryService requestExpiryService;
+    private final JobLeaseService jobLeaseService;
     private static final Logger logger = org.slf4j.LoggerFactory.getLogger(StockCheckJob.class);
-    private LocalDate lastRunDate = null;
-    private final ItemRepository itemRepository;
+    private static final String CANCEL_JOB = "stock-check-cancel";
     private final StockCheckService stockCheckService;
     private final StockCheckDetailService stockCheckDetailService;
 
     @Scheduled(fixedRate = 60_000, zone = "Asia/Ho_Chi_Minh")
     public void cancelStockCheckJob() {
-        Configuration config = configurationRepository.findAll().getFirst();
+        ConfigurationSnapshot config = configurationProvider.get();
         LocalTime cancelTime = config.getTimeToAllowCancel();
         LocalTime now = LocalTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
         LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
 
-        if (now.isBefore(cancelTime) || today.equals(lastRunDate)) {
+        if (now.isBefore(cancelTime)) {
             return;
         }
 
-        LocalDate dayWillBeCancel = today.plusDays(config.getDayWillBeCancelRequest());
+        jobLeaseService.runOncePerDay(CANCEL_JOB, today, lease -> {
+            LocalDate dayWillBeCancel = today.plusDays(config.getDayWillBeCancelRequest());
 
-        List<RequestStatus> statuses = List.of(RequestStatus.NOT_STARTED,RequestStatus.IN_PROGRESS, RequestStatus.COUNTED
-                , RequestStatus.COUNT_CONFIRMED);
+            List<RequestStatus> statuses = List.of(RequestStatus.NOT_STARTED,RequestStatus.IN_PROGRESS, RequestStatus.COUNTED
+                    , RequestStatus.COUNT_CONFIRMED);
 
-        List<StockCheckRequest> stockCheckRequests = stockCheckRequestRepository
-                .findAllByStatusIn(statuses);
-
-        List<StockCheckRequest> checkRequests = stockCheckRequests.stream()
-                .filter(stockCheckRequest -> stockCheckRequest.getExpectedCompletedDate() != null
-                        && !stockCheckRequest.getExpectedCompletedDate().isBefore(dayWillBeCancel))
-                .toList();
-
-        if (checkRequests.isEmpty()) {
-            lastRunDate = today;
-            return;
-        }
-
-        checkRequests.forEach(order -> {
-            order.setStatus(RequestStatus.CANCELLED);
-            order.setNote("Tự động hủy do quá hạn xác nhận lúc " + now);
+            int cancelled = requestExpiryService.cancelStockCheckRequests(lease, statuses, dayWillBeCancel,
+                    "Tự động hủy do quá hạn xác nhận lúc " + now);
+            logger.info("Đã tự động hủy " + cancelled + " đơn lúc " + now);
+            return cancelled;
         });
-
-        stockCheckRequestRepository.saveAll(checkRequests);
-        lastRunDate = today;
-        logger.info("Đã tự động hủy " + checkRequests.size() + " đơn lúc " + now);
     }
 
-    public void createStockCheckJob  () {
+    // Gọi qua bean từ StockCheckScheduler nên proxy áp dụng: phiếu và chi tiết cùng commit hoặc cùng rollback,
+    // lỗi khi tạo chi tiết (vd. không có nhân viên để phân công) không để lại phiếu kiểm kê rỗng
+    @Transactional
+    public int createStockCheckJob  () {
         StockCheckRequestRequest request = new StockCheckRequestRequest();
         request.setStockCheckReason("Kiểm tra định kỳ");
         request.setType(StockCheckType.PERIODIC);
@@ -88,30 +71,8 @@ public class StockCheckJob {
         request.setNote("Kiểm tra thông số của toàn bộ mặt hàng trong kho");
 
         StockCheckRequestResponse response = stockCheckService.createStockCheckRequest(request);
-        List<StockCheckRequestDetailRequest> detailRequests = new ArrayList<>();
-
-        List<Item> items = itemRepository.findAll();
-        for(Item item : items) {
-            if(item.getInventoryItems() == null) {
-                break;
-            }
-
-            List<InventoryItem> inventoryItems = item.getInventoryItems().stream()
-                    .filter(inv -> inv.getStatus().equals(ItemStatus.AVAILABLE)).toList();
-
-            double totalMeasurement = inventoryItems.stream()
-                    .mapToDouble(InventoryItem::getMeasurementValue)
-                    .sum();
-
-            StockCheckRequestDetailRequest detailRequest = new StockCheckRequestDetailRequest();
-            detailRequest.setItemId(item.getId());
-            detailRequest.setQuantity(inventoryItems.size());
-            detailRequest.setMeasurementValue(totalMeasurement);
-
-            detailRequests.add(detailRequest);
-        }
-
-        stockCheckDetailService.create(detailRequests, response.getId());
+        // Mỗi item còn hàng AVAILABLE một dòng chi tiết, tạo theo lô trong DB
+        return stockCheckDetailService.createForAvailableItems(response.getId());
     }
 
 }
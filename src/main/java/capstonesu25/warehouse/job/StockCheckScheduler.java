@@ -1,7 +1,9 @@
 package capstonesu25.warehouse.job;
 
-import capstonesu25.warehouse.entity.Configuration;
-import capstonesu25.warehouse.repository.ConfigurationRepository;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
+import capstonesu25.warehouse.service.ConfigurationProvider;
+import capstonesu25.warehouse.service.JobLeaseService;
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Date;
@@ -15,20 +17,24 @@ import org.springframework.stereotype.Component;
 @EnableScheduling
 @RequiredArgsConstructor
 public class StockCheckScheduler  implements SchedulingConfigurer {
-    private final ConfigurationRepository configurationRepository;
+    private final ConfigurationProvider configurationProvider;
     private final StockCheckJob stockCheckJob;
+    private final JobLeaseService jobLeaseService;
+
+    private static final String PERIODIC_STOCK_CHECK_JOB = "stock-check-periodic";
 
     @Override
     public void configureTasks(ScheduledTaskRegistrar registrar) {
         registrar.addTriggerTask(
-                // the task to run
-                stockCheckJob::createStockCheckJob,
+                // the task to run: trigger fires on every instance, the lease lets only one create the request
+                () -> jobLeaseService.runOncePerDay(PERIODIC_STOCK_CHECK_JOB,
+                        LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh")),
+                        lease -> stockCheckJob.createStockCheckJob()),
                 // dynamic trigger
                 triggerContext -> {
                     // get "every N months" from DB
-                    int every = configurationRepository.findAll().stream()
-                            .findFirst()
-                            .map(Configuration::getPeriodicCreatingStockCheck)
+                    int every = configurationProvider.find()
+                            .map(ConfigurationSnapshot::getPeriodicCreatingStockCheck)
                             .orElse(4); // default 4 months
 
                     ZonedDateTime now = ZonedDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
@@ -0,0 +1,53 @@
+package capstonesu25.warehouse.job;
+
+import capstonesu25.warehouse.service.JobLeaseService;
+import capstonesu25.warehouse.service.StockMovementService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+@Component
+@RequiredArgsConstructor
+@EnableScheduling
+public class StockMovementJob {
+    private final StockMovementService stockMovementService;
+    private final JobLeaseService jobLeaseService;
+    private static final String OPEN_LEDGER_JOB = "stock-movement-open-ledger";
+    private static final String ROLL_UP_JOB = "stock-movement-roll-up";
+
+    // Mở sổ từ tồn hiện tại nếu bảng stock_movement còn trống (DB cũ), rồi bù các ngày chưa có snapshot
+    @EventListener(ApplicationReadyEvent.class)
+    public void openLedgerOnStartup() {
+        jobLeaseService.runExclusively(OPEN_LEDGER_JOB, lease -> stockMovementService.openLedgerIfEmpty());
+        rollUpDailySnapshots();
+    }
+
+    // Mỗi ngày một transaction để lần chạy bị ngắt vẫn giữ được các ngày đã xong
+    @Scheduled(cron = "0 40 0 * * *", zone = "Asia/Ho_Chi_Minh") // Run at 00:40 daily
+    public void rollUpDailySnapshots() {
+        // Instance đến sau chạy lại cũng không có ngày nào để cộng dồn, lease chỉ tránh hai instance chạy cùng lúc
+        jobLeaseService.runExclusively(ROLL_UP_JOB, lease -> {
+            int days = 0;
+            // "Hôm qua" theo cùng múi giờ với cron; occurred_at ghi theo đồng hồ hệ thống nên nếu server
+            // chạy múi giờ khác thì chỉ cộng dồn ngày đã kết thúc ở cả hai, tránh snapshot một ngày còn dở
+            LocalDate yesterday = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh")).minusDays(1);
+            LocalDate systemYesterday = LocalDate.now().minusDays(1);
+            if (systemYesterday.isBefore(yesterday)) {
+                yesterday = systemYesterday;
+            }
+            LocalDate day = stockMovementService.firstDayToRollUp();
+            while (day != null && !day.isAfter(yesterday)) {
+                stockMovementService.rollUp(day);
+                day = day.plusDays(1);
+                days++;
+            }
+            return days;
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package capstonesu25.warehouse.model.account;
+
+import lombok.Value;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+// Principal dựng từ claims của access token, không đọc Account từ DB; getName() là username như trước
+@Value
+public class AuthenticatedAccount implements AuthenticatedPrincipal {
+    Long id;
+    String username;
+    String role;
+    List<GrantedAuthority> authorities;
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
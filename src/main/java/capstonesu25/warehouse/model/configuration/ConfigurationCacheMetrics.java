@@ -0,0 +1,21 @@
+package capstonesu25.warehouse.model.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ConfigurationCacheMetrics {
+    private Long cachedVersion;
+    private Long reads;
+    private Long loads;
+    private Long versionChecks;
+    private Long queriesEliminated;
+    private Long requests;
+    private Double readsPerRequest;
+    private Double queriesEliminatedPerRequest;
+}
@@ -0,0 +1,53 @@
+package capstonesu25.warehouse.model.configuration;
+
+import capstonesu25.warehouse.entity.Configuration;
+import lombok.Value;
+
+import java.time.LocalTime;
+import java.util.List;
+
+// Bản sao bất biến của dòng configuration, dùng chung giữa các luồng (xem ConfigurationProvider)
+@Value
+public class ConfigurationSnapshot {
+    Long id;
+    Long version;
+    List<String> itemIds;
+    LocalTime workingTimeStart;
+    LocalTime workingTimeEnd;
+    LocalTime createRequestTimeAtLeast;
+    LocalTime timeToAllowAssign;
+    LocalTime timeToAllowConfirm;
+    LocalTime timeToAllowCancel;
+    LocalTime timeToAllowCounting;
+    Integer dayWillBeCancelRequest;
+    Integer daysToAllowExtend;
+    Integer maxAllowedDaysForExtend;
+    Integer maxAllowedDaysForImportRequestProcess;
+    Integer maxDispatchErrorPercent;
+    Integer maxPercentOfItemForExport;
+    Boolean warehouseIsChecking;
+    Integer periodicCreatingStockCheck;
+
+    public static ConfigurationSnapshot from(Configuration configuration, List<String> itemIds) {
+        return new ConfigurationSnapshot(
+                configuration.getId(),
+                configuration.getVersion() != null ? configuration.getVersion() : 0L,
+                List.copyOf(itemIds),
+                configuration.getWorkingTimeStart(),
+                configuration.getWorkingTimeEnd(),
+                configuration.getCreateRequestTimeAtLeast(),
+                configuration.getTimeToAllowAssign(),
+                configuration.getTimeToAllowConfirm(),
+                configuration.getTimeToAllowCancel(),
+                configuration.getTimeToAllowCounting(),
+                configuration.getDayWillBeCancelRequest(),
+                configuration.getDaysToAllowExtend(),
+                configuration.getMaxAllowedDaysForExtend(),
+                configuration.getMaxAllowedDaysForImportRequestProcess(),
+                configuration.getMaxDispatchErrorPercent(),
+                configuration.getMaxPercentOfItemForExport(),
+                configuration.getWarehouseIsChecking(),
+                configuration.getPeriodicCreatingStockCheck()
+        );
+    }
+}
@@ -0,0 +1,15 @@
+package capstonesu25.warehouse.model.excel;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class ExcelReadResult<T> {
+    List<T> rows;
+    ExcelReadSummary summary;
+
+    public boolean hasErrors() {
+        return !summary.getErrors().isEmpty();
+    }
+}
@@ -0,0 +1,21 @@
+package capstonesu25.warehouse.model.excel;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ExcelReadSummary {
+    private Integer rowsRead;
+    private Integer rowsAccepted;
+    private List<ExcelRowError> errors;
+    // Chỉ giữ tối đa ExcelUtil.MAX_ERRORS lỗi đầu tiên
+    private Boolean errorsTruncated;
+    private Double elapsedMillis;
+}
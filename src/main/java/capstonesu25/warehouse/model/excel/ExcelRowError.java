@@ -0,0 +1,16 @@
+package capstonesu25.warehouse.model.excel;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExcelRowError {
+    // Số dòng như hiển thị trong Excel (header là dòng 1)
+    private Integer rowNumber;
+    private String column;
+    private String value;
+    private String message;
+}
@@ -0,0 +1,36 @@
+package capstonesu25.warehouse.model.exportrequest;
+
+import capstonesu25.warehouse.enums.ExportType;
+import capstonesu25.warehouse.enums.RequestStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+// Các cột của ExportRequestResponse đọc bằng một truy vấn, không nạp entity và các quan hệ eager của nó
+public interface ExportRequestRow {
+    String getId();
+    String getExportReason();
+    String getReceiverName();
+    String getReceiverPhone();
+    String getReceiverAddress();
+    Long getDepartmentId();
+    Long getProviderId();
+    RequestStatus getStatus();
+    ExportType getType();
+    LocalDate getExportDate();
+    LocalDate getExpectedReturnDate();
+    Boolean getIsExtended();
+    LocalDate getExtendedDate();
+    String getExtendedReason();
+    Long getAssignedStaffId();
+    LocalDate getCountingDate();
+    LocalTime getCountingTime();
+    Long getCountingStaffId();
+    Long getPaperId();
+    String getImportOrderId();
+    String getCreatedBy();
+    String getUpdatedBy();
+    LocalDateTime getCreatedDate();
+    LocalDateTime getUpdatedDate();
+}
@@ -0,0 +1,26 @@
+package capstonesu25.warehouse.model.inventoryitem;
+
+import java.time.LocalDateTime;
+
+// Một inventory item cùng item và vị trí đọc bằng native query; depth chỉ có ở recursive CTE, tính từ node bắt đầu truy vấn
+public interface InventoryItemRow {
+    String getId();
+    String getParentId();
+    Integer getDepth();
+    String getReasonForDisposal();
+    Double getMeasurementValue();
+    Integer getStatus();
+    LocalDateTime getExpiredDate();
+    LocalDateTime getImportedDate();
+    LocalDateTime getUpdatedDate();
+    Boolean getIsTrackingForExport();
+    String getItemId();
+    String getItemName();
+    Long getExportRequestDetailId();
+    Long getImportOrderDetailId();
+    Long getStoredLocationId();
+    String getZone();
+    String getFloor();
+    String getLocationRow();
+    String getLocationLine();
+}
@@ -0,0 +1,11 @@
+package capstonesu25.warehouse.model.inventoryitem;
+
+import lombok.Value;
+
+// Ứng viên chọn theo measurement, đọc bằng constructor expression: getter là field thường thay vì proxy projection
+// nên MeasurementSelectionUtil gọi nhiều lần trên hàng chục nghìn ứng viên vẫn rẻ
+@Value
+public class MeasurementCandidate implements PickCandidate {
+    String id;
+    Double measurementValue;
+}
@@ -0,0 +1,15 @@
+package capstonesu25.warehouse.model.inventoryitem;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class MeasurementSelection {
+    List<String> inventoryItemIds;
+    double totalMeasurement;
+    // Tổng measurement nằm trong [yêu cầu, yêu cầu + maxDispatchErrorPercent]
+    boolean withinTolerance;
+    // DP, SINGLE hoặc GREEDY (khi vượt giới hạn kích thước/thời gian của DP)
+    String method;
+}
@@ -0,0 +1,6 @@
+package capstonesu25.warehouse.model.inventoryitem;
+
+public interface PickCandidate {
+    String getId();
+    Double getMeasurementValue();
+}
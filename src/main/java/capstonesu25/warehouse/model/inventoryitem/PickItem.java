@@ -0,0 +1,9 @@
+package capstonesu25.warehouse.model.inventoryitem;
+
+// Inventory item đã được giữ cho phiếu xuất, chỉ gồm các cột cần để xếp lộ trình lấy hàng
+public interface PickItem {
+    String getId();
+    String getItemId();
+    String getExportRequestId();
+    Long getStoredLocationId();
+}
@@ -0,0 +1,9 @@
+package capstonesu25.warehouse.model.inventorystockcounter;
+
+import capstonesu25.warehouse.enums.ItemStatus;
+
+public interface InventoryStatusCount {
+    String getItemId();
+    ItemStatus getStatus();
+    Long getQuantity();
+}
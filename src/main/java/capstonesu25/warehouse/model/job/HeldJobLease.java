@@ -0,0 +1,13 @@
+package capstonesu25.warehouse.model.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Lease mà instance hiện tại đang giữ; mọi lần ghi có điều kiện đều kèm fencingToken này
+@Data
+@AllArgsConstructor
+public class HeldJobLease {
+    private String jobName;
+    private String owner;
+    private Long fencingToken;
+}
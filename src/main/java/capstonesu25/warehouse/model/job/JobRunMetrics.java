@@ -0,0 +1,19 @@
+package capstonesu25.warehouse.model.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobRunMetrics {
+    private String jobName;
+    private Long runs;
+    private Long failed;
+    private Double avgDurationMillis;
+    private Long maxDurationMillis;
+    private LocalDateTime lastStartedAt;
+}
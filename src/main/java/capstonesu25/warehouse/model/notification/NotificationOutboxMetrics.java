@@ -0,0 +1,23 @@
+package capstonesu25.warehouse.model.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NotificationOutboxMetrics {
+    private Long pending;
+    private Long failedInOutbox;
+    private Long oldestPendingAgeMillis;
+    private Long sent;
+    private Long retried;
+    private Long failed;
+    private Long triggerCalls;
+    private Long lastSendLagMillis;
+    private Long maxSendLagMillis;
+    private Long lastTriggerMillis;
+}
@@ -0,0 +1,26 @@
+package capstonesu25.warehouse.model.picklist;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PickList {
+    private List<String> exportRequestIds;
+    // Cửa xuất phát và quay về; null nếu kho chưa khai báo cửa
+    private Long startLocationId;
+    private Integer totalItems;
+    private List<PickStop> stops;
+    // Inventory item chưa có vị trí, không nằm trong lộ trình
+    private List<String> unlocatedInventoryItemIds;
+    private Long routeLength;
+    // Độ dài lộ trình nếu đi theo thứ tự item được trả về như trước
+    private Long unsortedRouteLength;
+    private Double computeMillis;
+}
@@ -0,0 +1,24 @@
+package capstonesu25.warehouse.model.picklist;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PickStop {
+    private Integer sequence;
+    private Long storedLocationId;
+    private String zone;
+    private String floor;
+    private String row;
+    private String line;
+    private Long distanceFromPrevious;
+    private List<String> inventoryItemIds;
+    private List<String> exportRequestIds;
+}
@@ -0,0 +1,23 @@
+package capstonesu25.warehouse.model.report;
+
+import capstonesu25.warehouse.enums.ItemStatus;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+// Một inventory item kèm vị trí đang lưu, đọc bằng constructor expression nên không được quản lý bởi persistence context
+@Value
+public class InventoryLocationReportRow {
+    String zone;
+    String floor;
+    String row;
+    String line;
+    String itemId;
+    String itemName;
+    String measurementUnit;
+    String inventoryItemId;
+    ItemStatus status;
+    Double measurementValue;
+    LocalDateTime importedDate;
+    LocalDateTime expiredDate;
+}
@@ -0,0 +1,23 @@
+package capstonesu25.warehouse.model.report;
+
+import capstonesu25.warehouse.enums.DetailStatus;
+import capstonesu25.warehouse.enums.RequestStatus;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+// Một dòng nhập (import order detail) hoặc xuất (export request detail) trong báo cáo luân chuyển
+@Value
+public class MovementReportRow {
+    String direction;
+    String documentId;
+    LocalDate date;
+    RequestStatus documentStatus;
+    String itemId;
+    String itemName;
+    DetailStatus detailStatus;
+    Integer expectedQuantity;
+    Integer actualQuantity;
+    Double expectedMeasurementValue;
+    Double actualMeasurementValue;
+}
@@ -0,0 +1,8 @@
+package capstonesu25.warehouse.model.report;
+
+import capstonesu25.warehouse.enums.RequestStatus;
+
+public interface RequestStatusCount {
+    RequestStatus getStatus();
+    Long getTotal();
+}
@@ -0,0 +1,29 @@
+package capstonesu25.warehouse.model.report;
+
+import capstonesu25.warehouse.enums.DetailStatus;
+import capstonesu25.warehouse.enums.RequestStatus;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+@Value
+public class StockCheckVarianceReportRow {
+    String stockCheckRequestId;
+    RequestStatus requestStatus;
+    LocalDate countingDate;
+    String itemId;
+    String itemName;
+    DetailStatus detailStatus;
+    Integer quantity;
+    Integer actualQuantity;
+    Double measurementValue;
+    Double actualMeasurementValue;
+
+    public Integer getQuantityVariance() {
+        return quantity == null || actualQuantity == null ? null : actualQuantity - quantity;
+    }
+
+    public Double getMeasurementVariance() {
+        return measurementValue == null || actualMeasurementValue == null ? null : actualMeasurementValue - measurementValue;
+    }
+}
@@ -0,0 +1,48 @@
+package capstonesu25.warehouse.model.responsedto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> items;
+    // Truyền lại làm beforeCreatedDate và beforeId để lấy trang tiếp theo
+    private LocalDateTime nextCreatedDate;
+    private String nextId;
+    private boolean hasNext;
+
+    public static final int MAX_PAGE_SIZE = 200;
+    // Khóa đứng trước mọi dòng: trang đầu dùng chung câu truy vấn với các trang sau, không cần tham số null
+    private static final LocalDateTime FIRST_CREATED_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    public static int pageSize(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    }
+
+    public static LocalDateTime createdDateOrFirst(LocalDateTime beforeCreatedDate) {
+        return beforeCreatedDate != null ? beforeCreatedDate : FIRST_CREATED_DATE;
+    }
+
+    public static String idOrFirst(String beforeId) {
+        return beforeId != null ? beforeId : "";
+    }
+
+    // rows được lấy dư một dòng so với pageSize để biết còn trang sau hay không
+    public static <T> CursorPageDTO<T> of(List<T> rows, int pageSize,
+                                          Function<T, LocalDateTime> createdDate, Function<T, String> id) {
+        boolean hasNext = rows.size() > pageSize;
+        List<T> items = hasNext ? rows.subList(0, pageSize) : rows;
+        T last = hasNext ? items.get(items.size() - 1) : null;
+        return new CursorPageDTO<>(items,
+                last != null ? createdDate.apply(last) : null,
+                last != null ? id.apply(last) : null,
+                hasNext);
+    }
+}
@@ -0,0 +1,6 @@
+package capstonesu25.warehouse.model.staffperformance;
+
+public interface StaffTaskId {
+    Long getStaffId();
+    String getTaskId();
+}
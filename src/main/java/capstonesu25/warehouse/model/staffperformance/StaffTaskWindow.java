@@ -0,0 +1,9 @@
+package capstonesu25.warehouse.model.staffperformance;
+
+import java.time.LocalTime;
+
+public interface StaffTaskWindow {
+    Long getStaffId();
+    LocalTime getStartTime();
+    Long getWorkingMinutes();
+}
@@ -0,0 +1,7 @@
+package capstonesu25.warehouse.model.staffperformance;
+
+public interface StaffWorkload {
+    Long getStaffId();
+    Long getExpectedMinutes();
+    Long getActualMinutes();
+}
@@ -0,0 +1,8 @@
+package capstonesu25.warehouse.model.stockmovement;
+
+// Số lượng/measurement theo status đọc bằng native query (status là ordinal)
+public interface StatusBalanceRow {
+    Integer getStatus();
+    Long getQuantity();
+    Double getMeasurement();
+}
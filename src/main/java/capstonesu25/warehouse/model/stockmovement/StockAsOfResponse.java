@@ -0,0 +1,25 @@
+package capstonesu25.warehouse.model.stockmovement;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StockAsOfResponse {
+    private String itemId;
+    private LocalDateTime asOf;
+    // Ngày của snapshot làm mốc, null nếu chỉ cộng từ stock_movement
+    private LocalDate snapshotDate;
+    private List<StockLevel> levels;
+    // Tồn thực tế: mọi status trừ NO_LONGER_EXIST
+    private Long onHandQuantity;
+    private Double onHandMeasurement;
+}
@@ -0,0 +1,15 @@
+package capstonesu25.warehouse.model.stockmovement;
+
+import capstonesu25.warehouse.enums.ItemStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockLevel {
+    private ItemStatus status;
+    private Long quantity;
+    private Double measurement;
+}
@@ -0,0 +1,31 @@
+package capstonesu25.warehouse.model.stockmovement;
+
+import capstonesu25.warehouse.enums.ItemStatus;
+import capstonesu25.warehouse.enums.MovementType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StockMovementResponse {
+    private Long id;
+    private MovementType movementType;
+    private String inventoryItemId;
+    private String itemId;
+    private ItemStatus fromStatus;
+    private ItemStatus toStatus;
+    private Long fromLocationId;
+    private Long toLocationId;
+    private Double measurementBefore;
+    private Double measurementAfter;
+    private Integer quantityDelta;
+    private Double measurementDelta;
+    private String referenceId;
+    private LocalDateTime occurredAt;
+}
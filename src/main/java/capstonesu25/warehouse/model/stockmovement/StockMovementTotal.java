@@ -0,0 +1,17 @@
+package capstonesu25.warehouse.model.stockmovement;
+
+import capstonesu25.warehouse.enums.MovementType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Tổng biến động của một item theo loại trong một khoảng thời gian
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockMovementTotal {
+    private MovementType movementType;
+    private Long movements;
+    private Long quantityDelta;
+    private Double measurementDelta;
+}
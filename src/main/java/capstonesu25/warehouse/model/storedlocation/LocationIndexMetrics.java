@@ -0,0 +1,20 @@
+package capstonesu25.warehouse.model.storedlocation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LocationIndexMetrics {
+    private Integer locations;
+    private Integer cells;
+    private Long rebuilds;
+    private Long incrementalUpdates;
+    private Long queries;
+    private Double averageQueryMicros;
+    private Double averageVisitedLocations;
+}
@@ -0,0 +1,83 @@
+package capstonesu25.warehouse.model.storedlocation;
+
+import capstonesu25.warehouse.entity.Item;
+import capstonesu25.warehouse.entity.StoredLocation;
+import lombok.Value;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Tọa độ đã parse sẵn của một StoredLocation (xem WarehouseTopologyIndex), bất biến để dùng chung giữa các luồng
+@Value
+public class LocationNode {
+    Long id;
+    int zone;
+    int floor;
+    int row;
+    int line;
+    boolean door;
+    boolean road;
+    boolean fulled;
+    int maximumCapacity;
+    int currentCapacity;
+    // Các item đã gắn với location; rỗng nghĩa là location chưa dành cho item nào
+    Set<String> itemIds;
+
+    public static LocationNode from(StoredLocation location, Set<String> itemIds) {
+        return new LocationNode(
+                location.getId(),
+                location.getZone() == null || location.getZone().isEmpty() ? 0 : location.getZone().charAt(0),
+                parseInt(location.getFloor(), ""),
+                parseInt(location.getRow(), "R"),
+                parseInt(location.getLine(), "L"),
+                location.isDoor(),
+                location.isRoad(),
+                location.isFulled(),
+                location.getMaximumCapacityForItem() == null ? 0 : location.getMaximumCapacityForItem(),
+                location.getCurrentCapacity() == null ? 0 : location.getCurrentCapacity(),
+                Set.copyOf(itemIds));
+    }
+
+    public static Set<String> itemIdsOf(StoredLocation location) {
+        if (location.getItems() == null) {
+            return Set.of();
+        }
+        return location.getItems().stream().map(Item::getId).collect(Collectors.toSet());
+    }
+
+    public LocationNode withItemIds(Set<String> itemIds) {
+        return new LocationNode(id, zone, floor, row, line, door, road, fulled,
+                maximumCapacity, currentCapacity, Set.copyOf(itemIds));
+    }
+
+    public int freeCapacity() {
+        return Math.max(maximumCapacity - currentCapacity, 0);
+    }
+
+    public boolean supportsItem(String itemId) {
+        return itemIds.isEmpty() || itemIds.contains(itemId);
+    }
+
+    // Trọng số ưu tiên theo zone > floor > row > line
+    public int distanceTo(LocationNode other) {
+        return zoneFloorDistance(other.zone, other.floor)
+                + Math.abs(row - other.row) * 10
+                + Math.abs(line - other.line);
+    }
+
+    // Cận dưới của distanceTo cho mọi location cùng zone/floor
+    public int zoneFloorDistance(int otherZone, int otherFloor) {
+        return Math.abs(zone - otherZone) * 1000 + Math.abs(floor - otherFloor) * 100;
+    }
+
+    private static int parseInt(String value, String prefix) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.replace(prefix, ""));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
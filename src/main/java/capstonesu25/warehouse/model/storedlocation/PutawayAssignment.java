@@ -0,0 +1,11 @@
+package capstonesu25.warehouse.model.storedlocation;
+
+import lombok.Value;
+
+@Value
+public class PutawayAssignment {
+    Long importOrderDetailId;
+    String itemId;
+    Long storedLocationId;
+    int quantity;
+}
@@ -0,0 +1,11 @@
+package capstonesu25.warehouse.model.storedlocation;
+
+import lombok.Value;
+
+// Số inventory item của một import order detail cần được xếp vào vị trí
+@Value
+public class PutawayDemand {
+    Long importOrderDetailId;
+    String itemId;
+    int quantity;
+}
@@ -0,0 +1,27 @@
+package capstonesu25.warehouse.model.storedlocation;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+@Value
+public class PutawayPlan {
+    // Theo thứ tự demand, mỗi demand theo thứ tự location được chọn
+    List<PutawayAssignment> assignments;
+    // Số item còn thiếu chỗ theo import order detail (chỉ chứa detail thiếu)
+    Map<Long, Integer> unplacedByDetail;
+    long planningNanos;
+
+    public int placedItems() {
+        return assignments.stream().mapToInt(PutawayAssignment::getQuantity).sum();
+    }
+
+    public int unplacedItems() {
+        return unplacedByDetail.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public List<Long> usedLocationIds() {
+        return assignments.stream().map(PutawayAssignment::getStoredLocationId).distinct().toList();
+    }
+}
@@ -0,0 +1,22 @@
+package capstonesu25.warehouse.model.storedlocation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PutawayReport {
+    private String importOrderId;
+    private Integer placedItems;
+    private Integer unplacedItems;
+    private Integer slotsUsed;
+    private List<Long> storedLocationIds;
+    private List<PutawayAssignment> assignments;
+    private Double planningMillis;
+}
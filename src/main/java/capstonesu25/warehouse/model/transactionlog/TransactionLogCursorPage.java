@@ -0,0 +1,17 @@
+package capstonesu25.warehouse.model.transactionlog;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionLogCursorPage {
+    private List<TransactionLogSummary> items;
+    // Truyền lại làm beforeId để lấy trang tiếp theo
+    private Long nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,21 @@
+package capstonesu25.warehouse.model.transactionlog;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransactionLogFilter {
+    private String type;
+    private String action;
+    private String objectId;
+    private String executorUsername;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+}
@@ -0,0 +1,13 @@
+package capstonesu25.warehouse.model.transactionlog;
+
+import java.time.LocalDateTime;
+
+public interface TransactionLogSummary {
+    Long getId();
+    String getExecutorUsername();
+    String getExecutorFullName();
+    String getType();
+    String getAction();
+    String getObjectId();
+    LocalDateTime getCreatedDate();
+}
@@ -0,0 +1,22 @@
+package capstonesu25.warehouse.model.transactionlog;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransactionLogWriterMetrics {
+    private Integer queueDepth;
+    private Integer queueCapacity;
+    private Long enqueued;
+    private Long dropped;
+    private Long written;
+    private Long failed;
+    private Long flushes;
+    private Long lastFlushMillis;
+    private Long maxFlushMillis;
+}
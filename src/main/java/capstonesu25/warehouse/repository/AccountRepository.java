@@ -19,12 +19,22 @@ import java.util.Optional;
 public interface AccountRepository extends JpaRepository<Account, Long> {
         List<Account> findByRole(AccountRole role);
 
+        @Query("SELECT a.id FROM Account a WHERE a.role = :role")
+        List<Long> findIdsByRole(@Param("role") AccountRole role);
+
         Page<Account> findByRole(AccountRole role, Pageable pageable);
 
+        // Account bị khóa hoặc vô hiệu hóa, access token của các account này bị từ chối
+        @Query("SELECT a.id FROM Account a WHERE a.isBlocked = true OR a.isEnable = false")
+        List<Long> findRevokedIds();
+
         Optional<Account> findByEmail(String email);
 
         Optional<Account> findByUsername(String username);
 
+        @Query("SELECT a.fullName FROM Account a WHERE a.username = :username")
+        Optional<String> findFullNameByUsername(@Param("username") String username);
+
         Boolean existsByEmail(String email);
 
         Boolean existsByUsername(String username);
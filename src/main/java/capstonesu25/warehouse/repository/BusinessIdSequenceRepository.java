@@ -0,0 +1,24 @@
+package capstonesu25.warehouse.repository;
+
+import capstonesu25.warehouse.entity.BusinessIdSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BusinessIdSequenceRepository extends JpaRepository<BusinessIdSequence, String> {
+    // Tăng trong transaction của người gọi, khóa dòng được giữ tới khi transaction đó kết thúc
+    @Query(value = "UPDATE business_id_sequence SET last_value = last_value + 1, updated_date = CURRENT_TIMESTAMP "
+            + "WHERE sequence_key = :sequenceKey RETURNING last_value", nativeQuery = true)
+    Optional<Long> incrementAndGet(@Param("sequenceKey") String sequenceKey);
+
+    // Lần cấp đầu tiên của một key: tạo dòng với giá trị khởi tạo, hoặc tăng nếu transaction khác vừa tạo trước
+    @Query(value = "INSERT INTO business_id_sequence (sequence_key, last_value, updated_date) "
+            + "VALUES (:sequenceKey, :initialValue, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (sequence_key) DO UPDATE SET last_value = business_id_sequence.last_value + 1, "
+            + "updated_date = CURRENT_TIMESTAMP RETURNING last_value", nativeQuery = true)
+    long insertOrIncrement(@Param("sequenceKey") String sequenceKey, @Param("initialValue") long initialValue);
+}
@@ -2,7 +2,15 @@ package capstonesu25.warehouse.repository;
 
 import capstonesu25.warehouse.entity.Configuration;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 public interface ConfigurationRepository extends JpaRepository<Configuration, Long> {
 
+    Optional<Configuration> findFirstByOrderByIdAsc();
+
+    @Query("SELECT COALESCE(c.version, 0) FROM Configuration c WHERE c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
@@ -1,11 +1,57 @@
 package capstonesu25.warehouse.repository;
 
 import capstonesu25.warehouse.entity.ExportRequestDetail;
+import capstonesu25.warehouse.model.report.MovementReportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface ExportRequestDetailRepository extends JpaRepository<ExportRequestDetail, Long> {
     Page<ExportRequestDetail> findExportRequestDetailByExportRequest_Id(String exportRequestId, Pageable pageable);
+
+    // (exportRequestId, detailId) cho cả trang phiếu xuất trong một truy vấn
+    @Query("SELECT d.exportRequest.id, d.id FROM ExportRequestDetail d "
+            + "WHERE d.exportRequest.id IN :exportRequestIds ORDER BY d.id")
+    List<Object[]> findIdPairsByExportRequestIds(@Param("exportRequestIds") Collection<String> exportRequestIds);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new capstonesu25.warehouse.model.report.MovementReportRow('EXPORT', e.id, e.exportDate, e.status, "
+            + "it.id, it.name, d.status, d.quantity, d.actualQuantity, d.measurementValue, d.actualMeasurementValue) "
+            + "FROM ExportRequestDetail d JOIN d.exportRequest e JOIN d.item it "
+            + "WHERE (:fromDate IS NULL OR e.exportDate >= :fromDate) "
+            + "AND (:toDate IS NULL OR e.exportDate <= :toDate) "
+            + "ORDER BY e.exportDate, e.id, d.id")
+    Stream<MovementReportRow> streamMovementReport(@Param("fromDate") LocalDate fromDate,
+                                                   @Param("toDate") LocalDate toDate);
+
+    // Số liệu xuất theo ngày tạo phiếu, dùng cho khoảng thời gian trước khi sổ stock_movement được mở;
+    // phiếu đã có dòng DISPATCH trong sổ được tính ở phần sổ nên bỏ qua ở đây
+    @Query("SELECT COALESCE(SUM(d.actualMeasurementValue), 0) FROM ExportRequestDetail d "
+            + "WHERE d.item.id = :itemId AND d.exportRequest.createdDate >= :from AND d.exportRequest.createdDate < :to "
+            + "AND NOT EXISTS (SELECT 1 FROM StockMovement m WHERE m.referenceId = d.exportRequest.id "
+            + "AND m.movementType = capstonesu25.warehouse.enums.MovementType.DISPATCH)")
+    double sumActualMeasurementByItemIdAndCreatedDate(@Param("itemId") String itemId,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+
+    @Query("SELECT DISTINCT d.exportRequest.id FROM ExportRequestDetail d "
+            + "WHERE d.item.id = :itemId AND d.exportRequest.createdDate >= :from AND d.exportRequest.createdDate < :to "
+            + "AND NOT EXISTS (SELECT 1 FROM StockMovement m WHERE m.referenceId = d.exportRequest.id "
+            + "AND m.movementType = capstonesu25.warehouse.enums.MovementType.DISPATCH)")
+    List<String> findExportRequestIdsByItemIdAndCreatedDate(@Param("itemId") String itemId,
+                                                            @Param("from") LocalDateTime from,
+                                                            @Param("to") LocalDateTime to);
 }
@@ -3,23 +3,41 @@ package capstonesu25.warehouse.repository;
 import capstonesu25.warehouse.entity.ExportRequest;
 import capstonesu25.warehouse.entity.ImportRequest;
 import capstonesu25.warehouse.entity.StockCheckRequest;
+import capstonesu25.warehouse.enums.AccountRole;
+import capstonesu25.warehouse.enums.AccountStatus;
 import capstonesu25.warehouse.enums.RequestStatus;
+import capstonesu25.warehouse.model.exportrequest.ExportRequestRow;
+import capstonesu25.warehouse.model.report.RequestStatusCount;
+import capstonesu25.warehouse.model.staffperformance.StaffTaskId;
+import capstonesu25.warehouse.model.staffperformance.StaffTaskWindow;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ExportRequestRepository extends JpaRepository<ExportRequest, String> {
-    Page<ExportRequest> findAllByAssignedStaff_Id(Long staffId, Pageable pageable);
 
-    Page<ExportRequest> findAllByCountingStaffId(Long staffId, Pageable pageable);
+    String ROW_COLUMNS = "SELECT er.id AS id, er.exportReason AS exportReason, er.receiverName AS receiverName, "
+            + "er.receiverPhone AS receiverPhone, er.receiverAddress AS receiverAddress, "
+            + "er.departmentId AS departmentId, er.providerId AS providerId, er.status AS status, er.type AS type, "
+            + "er.exportDate AS exportDate, er.expectedReturnDate AS expectedReturnDate, "
+            + "er.isExtended AS isExtended, er.extendedDate AS extendedDate, er.extendedReason AS extendedReason, "
+            + "er.assignedStaff.id AS assignedStaffId, er.countingDate AS countingDate, "
+            + "er.countingTime AS countingTime, er.countingStaffId AS countingStaffId, p.id AS paperId, "
+            + "io.id AS importOrderId, er.createdBy AS createdBy, er.updatedBy AS updatedBy, "
+            + "er.createdDate AS createdDate, er.updatedDate AS updatedDate "
+            + "FROM ExportRequest er LEFT JOIN er.paper p LEFT JOIN er.importOrder io ";
 
     List<ExportRequest> findAllByCountingStaffIdAndCountingDate(
             Long staffId, LocalDate date);
@@ -30,11 +48,6 @@ public interface ExportRequestRepository extends JpaRepository<ExportRequest, St
     List<ExportRequest> findByExportDateAndStatusIn(
             LocalDate exportDate, List<RequestStatus> statuses);
 
-    List<ExportRequest> findByStatusIn(List<RequestStatus> statuses);
-
-    List<ExportRequest> findByStatusAndExtendedDateLessThanEqual(
-            RequestStatus status, LocalDate extendedDate);
-
     List<ExportRequest> findByCountingDateAndCountingStaffId(
             LocalDate countingDate, Long countingStaffId);
 
@@ -52,8 +65,100 @@ public interface ExportRequestRepository extends JpaRepository<ExportRequest, St
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
 
-    List<ExportRequest> findByIdStartingWith(String idPrefix);
+    long countByIdStartingWith(String idPrefix);
 
     List<ExportRequest> findAllByStatusIn(List<RequestStatus> statuses);
 
+    @Query(ROW_COLUMNS + "ORDER BY er.id")
+    List<ExportRequestRow> findAllRows();
+
+    @Query(value = ROW_COLUMNS + "ORDER BY er.id",
+            countQuery = "SELECT COUNT(er) FROM ExportRequest er")
+    Page<ExportRequestRow> findAllRows(Pageable pageable);
+
+    @Query(ROW_COLUMNS + "WHERE er.status = :status AND er.createdDate >= :from AND er.createdDate < :to "
+            + "ORDER BY er.createdDate DESC, er.id")
+    List<ExportRequestRow> findRowsByStatusInCreatedDateRange(@Param("status") RequestStatus status,
+                                                              @Param("from") LocalDateTime from,
+                                                              @Param("to") LocalDateTime to);
+
+    @Query(value = ROW_COLUMNS + "WHERE er.status = :status AND er.createdDate >= :from AND er.createdDate < :to "
+            + "ORDER BY er.createdDate DESC, er.id",
+            countQuery = "SELECT COUNT(er) FROM ExportRequest er "
+                    + "WHERE er.status = :status AND er.createdDate >= :from AND er.createdDate < :to")
+    Page<ExportRequestRow> findRowsByStatusInCreatedDateRange(@Param("status") RequestStatus status,
+                                                              @Param("from") LocalDateTime from,
+                                                              @Param("to") LocalDateTime to,
+                                                              Pageable pageable);
+
+    @Query(ROW_COLUMNS + "WHERE er.id IN :ids")
+    List<ExportRequestRow> findRowsByIds(@Param("ids") Collection<String> ids);
+
+    // Phiếu nhân viên xác nhận hoặc kiểm đếm, mới nhất trước, bắt đầu sau khóa (beforeCreatedDate, beforeId).
+    // Hai nhánh không giao nhau (nhánh kiểm đếm bỏ phiếu chính người đó xác nhận) nên dùng UNION ALL:
+    // PostgreSQL ghép hai lần quét ngược index (staff, created_date, id) bằng Merge Append và dừng ở LIMIT,
+    // không phải đọc rồi sắp xếp toàn bộ phiếu của nhân viên
+    @Query(value = "SELECT x.id FROM ("
+            + "SELECT er.id, er.created_date FROM export_request er WHERE er.assigned_staff_id = :staffId "
+            + "AND (er.created_date, er.id) < (:beforeCreatedDate, :beforeId) "
+            + "UNION ALL "
+            + "SELECT er.id, er.created_date FROM export_request er WHERE er.counting_staff_id = :staffId "
+            + "AND (er.assigned_staff_id IS NULL OR er.assigned_staff_id <> :staffId) "
+            + "AND (er.created_date, er.id) < (:beforeCreatedDate, :beforeId)"
+            + ") x ORDER BY x.created_date DESC, x.id DESC LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<String> findIdsOfStaffBefore(@Param("staffId") Long staffId,
+                                      @Param("beforeCreatedDate") LocalDateTime beforeCreatedDate,
+                                      @Param("beforeId") String beforeId,
+                                      @Param("limit") int limit,
+                                      @Param("offset") int offset);
+
+    @Query("SELECT COUNT(er) FROM ExportRequest er "
+            + "WHERE er.assignedStaff.id = :staffId OR er.countingStaffId = :staffId")
+    long countOfStaff(@Param("staffId") Long staffId);
+
+    // Khóa một lô id đến hạn hủy tự động, không nạp entity
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT er.id FROM ExportRequest er WHERE er.status IN :statuses "
+            + "AND er.exportDate >= :threshold ORDER BY er.id")
+    List<String> findIdsToCancelByExportDate(@Param("statuses") Collection<RequestStatus> statuses,
+                                             @Param("threshold") LocalDate threshold,
+                                             Pageable pageable);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE ExportRequest er SET er.status = capstonesu25.warehouse.enums.RequestStatus.CANCELLED, "
+            + "er.note = :note, er.updatedDate = :now WHERE er.id IN :ids")
+    int cancelByIds(@Param("ids") Collection<String> ids, @Param("note") String note, @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT er.id FROM ExportRequest er WHERE er.status = capstonesu25.warehouse.enums.RequestStatus.EXTENDED "
+            + "AND er.extendedDate <= :threshold ORDER BY er.id")
+    List<String> findExtendedIdsToCancel(@Param("threshold") LocalDate threshold, Pageable pageable);
+
+    // Ghi chú giữ ngày gia hạn của từng phiếu
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE ExportRequest er SET er.status = capstonesu25.warehouse.enums.RequestStatus.CANCELLED, "
+            + "er.note = CONCAT(:notePrefix, CAST(er.extendedDate AS String), ')'), er.updatedDate = :now "
+            + "WHERE er.id IN :ids")
+    int cancelExtendedByIds(@Param("ids") Collection<String> ids, @Param("notePrefix") String notePrefix,
+                            @Param("now") LocalDateTime now);
+
+    @Query("SELECT er.status AS status, COUNT(er) AS total FROM ExportRequest er " +
+            "WHERE er.status IN :statuses AND er.createdDate >= :from AND er.createdDate < :to " +
+            "GROUP BY er.status")
+    List<RequestStatusCount> countGroupByStatusInCreatedDateRange(@Param("statuses") Collection<RequestStatus> statuses,
+                                                                  @Param("from") LocalDateTime from,
+                                                                  @Param("to") LocalDateTime to);
+
+    @Query("SELECT er.countingStaffId AS staffId, er.countingTime AS startTime, " +
+            "COALESCE(SUM(d.quantity * i.countingMinutes), 0) AS workingMinutes " +
+            "FROM ExportRequest er LEFT JOIN er.exportRequestDetails d LEFT JOIN d.item i " +
+            "WHERE er.countingDate = :date AND er.countingStaffId IS NOT NULL " +
+            "GROUP BY er.id, er.countingStaffId, er.countingTime")
+    List<StaffTaskWindow> findCountingTaskWindowsOnDate(@Param("date") LocalDate date);
+
+    @Query("SELECT er.assignedStaff.id AS staffId, er.id AS taskId FROM ExportRequest er " +
+            "WHERE er.assignedStaff.role = :role AND er.assignedStaff.status = :status")
+    List<StaffTaskId> findTaskIdsOfStaffs(@Param("role") AccountRole role, @Param("status") AccountStatus status);
+
 }
@@ -1,15 +1,54 @@
 package capstonesu25.warehouse.repository;
 
 import capstonesu25.warehouse.entity.ImportOrderDetail;
+import capstonesu25.warehouse.model.report.MovementReportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ImportOrderDetailRepository extends JpaRepository<ImportOrderDetail, Long> {
     Page<ImportOrderDetail> findImportOrderDetailByImportOrder_Id(String importOrderId, Pageable pageable);
     List<ImportOrderDetail> findImportOrderDetailByImportOrder_Id(String importOrderId);
+
+    // Ngày nhập là ngày nhận thực tế, chưa nhận thì dùng ngày hẹn nhận
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new capstonesu25.warehouse.model.report.MovementReportRow('IMPORT', o.id, "
+            + "COALESCE(o.actualDateReceived, o.dateReceived), o.status, it.id, it.name, d.status, "
+            + "d.expectQuantity, d.actualQuantity, d.expectMeasurementValue, d.actualMeasurementValue) "
+            + "FROM ImportOrderDetail d JOIN d.importOrder o JOIN d.item it "
+            + "WHERE (:fromDate IS NULL OR COALESCE(o.actualDateReceived, o.dateReceived) >= :fromDate) "
+            + "AND (:toDate IS NULL OR COALESCE(o.actualDateReceived, o.dateReceived) <= :toDate) "
+            + "ORDER BY COALESCE(o.actualDateReceived, o.dateReceived), o.id, d.id")
+    Stream<MovementReportRow> streamMovementReport(@Param("fromDate") LocalDate fromDate,
+                                                   @Param("toDate") LocalDate toDate);
+
+    // Số liệu nhập theo ngày tạo phiếu, dùng cho khoảng thời gian trước khi sổ stock_movement được mở;
+    // phiếu đã có dòng RECEIVE trong sổ được tính ở phần sổ nên bỏ qua ở đây
+    @Query("SELECT COALESCE(SUM(d.actualMeasurementValue), 0) FROM ImportOrderDetail d "
+            + "WHERE d.item.id = :itemId AND d.importOrder.createdDate >= :from AND d.importOrder.createdDate < :to "
+            + "AND NOT EXISTS (SELECT 1 FROM StockMovement m WHERE m.referenceId = d.importOrder.id "
+            + "AND m.movementType = capstonesu25.warehouse.enums.MovementType.RECEIVE)")
+    double sumActualMeasurementByItemIdAndCreatedDate(@Param("itemId") String itemId,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+
+    @Query("SELECT DISTINCT d.importOrder.id FROM ImportOrderDetail d "
+            + "WHERE d.item.id = :itemId AND d.importOrder.createdDate >= :from AND d.importOrder.createdDate < :to "
+            + "AND NOT EXISTS (SELECT 1 FROM StockMovement m WHERE m.referenceId = d.importOrder.id "
+            + "AND m.movementType = capstonesu25.warehouse.enums.MovementType.RECEIVE)")
+    List<String> findImportOrderIdsByItemIdAndCreatedDate(@Param("itemId") String itemId,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to);
 }
@@ -1,25 +1,95 @@
 package capstonesu25.warehouse.repository;
 
 import capstonesu25.warehouse.entity.ImportOrder;
+import capstonesu25.warehouse.enums.AccountRole;
+import capstonesu25.warehouse.enums.AccountStatus;
 import capstonesu25.warehouse.enums.RequestStatus;
+import capstonesu25.warehouse.model.staffperformance.StaffTaskId;
+import capstonesu25.warehouse.model.staffperformance.StaffTaskWindow;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ImportOrderRepository extends JpaRepository<ImportOrder, String>{
+    // paper là OneToOne phía mappedBy nên không batch được: nạp kèm trong câu truy vấn danh sách
+    @Override
+    @EntityGraph(attributePaths = "paper")
+    List<ImportOrder> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "paper")
+    Page<ImportOrder> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = "paper")
     List<ImportOrder> findImportOrdersByImportRequest_Id(String id);
-    Page<ImportOrder> findImportOrdersByAssignedStaff_Id(Long staffId, Pageable pageable);
+
+    long countByImportRequest_Id(String importRequestId);
+    // Đọc theo index (assigned_staff_id, created_date, id): mới nhất trước, thứ tự ổn định giữa các trang
+    @EntityGraph(attributePaths = "paper")
+    Page<ImportOrder> findImportOrdersByAssignedStaff_IdOrderByCreatedDateDescIdDesc(Long staffId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "paper")
+    @Query("SELECT io FROM ImportOrder io WHERE io.assignedStaff.id = :staffId "
+            + "AND (io.createdDate, io.id) < (:beforeCreatedDate, :beforeId) "
+            + "ORDER BY io.createdDate DESC, io.id DESC")
+    List<ImportOrder> findOfStaffBefore(@Param("staffId") Long staffId,
+                                        @Param("beforeCreatedDate") LocalDateTime beforeCreatedDate,
+                                        @Param("beforeId") String beforeId,
+                                        Pageable pageable);
     List<ImportOrder> findByAssignedStaff_IdAndDateReceived(Long staffId, LocalDate dateReceived);
     List<ImportOrder> findByDateReceivedAndStatus(LocalDate dateReceived, RequestStatus status);
-    List<ImportOrder> findByStatusIn(List<RequestStatus> statuses);
-    List<ImportOrder> findByStatusAndExtendedDateLessThanEqual(RequestStatus status, LocalDate date);
 
+    @EntityGraph(attributePaths = "paper")
     List<ImportOrder> findAllByStatus(RequestStatus status);
 
+    // Khóa một lô id đến hạn hủy tự động, không nạp entity
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT io.id FROM ImportOrder io WHERE io.status IN :statuses "
+            + "AND io.dateReceived >= :threshold ORDER BY io.id")
+    List<String> findIdsToCancelByDateReceived(@Param("statuses") Collection<RequestStatus> statuses,
+                                               @Param("threshold") LocalDate threshold,
+                                               Pageable pageable);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE ImportOrder io SET io.status = capstonesu25.warehouse.enums.RequestStatus.CANCELLED, "
+            + "io.note = :note, io.updatedDate = :now WHERE io.id IN :ids")
+    int cancelByIds(@Param("ids") Collection<String> ids, @Param("note") String note, @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT io.id FROM ImportOrder io WHERE io.status = capstonesu25.warehouse.enums.RequestStatus.EXTENDED "
+            + "AND io.extendedDate <= :threshold ORDER BY io.id")
+    List<String> findExtendedIdsToCancel(@Param("threshold") LocalDate threshold, Pageable pageable);
+
+    // Ghi chú giữ ngày gia hạn của từng phiếu
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE ImportOrder io SET io.status = capstonesu25.warehouse.enums.RequestStatus.CANCELLED, "
+            + "io.note = CONCAT(:notePrefix, CAST(io.extendedDate AS String), ')'), io.updatedDate = :now "
+            + "WHERE io.id IN :ids")
+    int cancelExtendedByIds(@Param("ids") Collection<String> ids, @Param("notePrefix") String notePrefix,
+                            @Param("now") LocalDateTime now);
+
+    @Query("SELECT io.assignedStaff.id AS staffId, io.timeReceived AS startTime, " +
+            "COALESCE(SUM(d.expectQuantity * i.countingMinutes), 0) AS workingMinutes " +
+            "FROM ImportOrder io LEFT JOIN io.importOrderDetails d LEFT JOIN d.item i " +
+            "WHERE io.dateReceived = :date AND io.assignedStaff IS NOT NULL " +
+            "GROUP BY io.id, io.assignedStaff.id, io.timeReceived")
+    List<StaffTaskWindow> findStaffTaskWindowsOnDate(@Param("date") LocalDate date);
+
+    @Query("SELECT io.assignedStaff.id AS staffId, io.id AS taskId FROM ImportOrder io " +
+            "WHERE io.assignedStaff.role = :role AND io.assignedStaff.status = :status")
+    List<StaffTaskId> findTaskIdsOfStaffs(@Param("role") AccountRole role, @Param("status") AccountStatus status);
 
 }
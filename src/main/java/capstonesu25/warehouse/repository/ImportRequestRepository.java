@@ -3,12 +3,16 @@ package capstonesu25.warehouse.repository;
 import capstonesu25.warehouse.entity.ImportRequest;
 import capstonesu25.warehouse.entity.StockCheckRequest;
 import capstonesu25.warehouse.enums.RequestStatus;
+import capstonesu25.warehouse.model.report.RequestStatusCount;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -24,9 +28,22 @@ public interface ImportRequestRepository extends JpaRepository<ImportRequest, St
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
 
-    List<ImportRequest> findByIdStartingWith(String idPrefix);
+    long countByIdStartingWith(String idPrefix);
 
     List<ImportRequest> findAllByStatus(RequestStatus status);
 
     List<ImportRequest> findAllByStatusIn(List<RequestStatus> statuses);
+
+    List<ImportRequest> findByStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
+            RequestStatus status, LocalDateTime from, LocalDateTime to);
+
+    Page<ImportRequest> findByStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
+            RequestStatus status, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    @Query("SELECT ir.status AS status, COUNT(ir) AS total FROM ImportRequest ir " +
+            "WHERE ir.status IN :statuses AND ir.createdDate >= :from AND ir.createdDate < :to " +
+            "GROUP BY ir.status")
+    List<RequestStatusCount> countGroupByStatusInCreatedDateRange(@Param("statuses") Collection<RequestStatus> statuses,
+                                                                  @Param("from") LocalDateTime from,
+                                                                  @Param("to") LocalDateTime to);
 }
@@ -1,32 +1,103 @@
 package capstonesu25.warehouse.repository;
 
+import capstonesu25.warehouse.entity.ExportRequestDetail;
 import capstonesu25.warehouse.entity.InventoryItem;
 import capstonesu25.warehouse.enums.ItemStatus;
+import capstonesu25.warehouse.model.inventoryitem.InventoryItemRow;
+import capstonesu25.warehouse.model.inventoryitem.MeasurementCandidate;
+import capstonesu25.warehouse.model.inventoryitem.PickCandidate;
+import capstonesu25.warehouse.model.inventoryitem.PickItem;
+import capstonesu25.warehouse.model.inventorystockcounter.InventoryStatusCount;
+import capstonesu25.warehouse.model.report.InventoryLocationReportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface InventoryItemRepository extends JpaRepository<InventoryItem, String> {
-    Page<InventoryItem> findByImportOrderDetailId(Long importOrderDetailId, Pageable pageable);
-    Page<InventoryItem> findByExportRequestDetailId(Long exportRequestDetailId, Pageable pageable);
-    Page<InventoryItem> findByStoredLocationId(Long storedLocationId, Pageable pageable);
 
-    Page<InventoryItem> findByItem_Id(String itemId, Pageable pageable);
-    Page<InventoryItem> findByItem_IdAndParentNullAndStatusAndNeedReturnToProvider(String itemId,ItemStatus status, Boolean needReturnToProvider, Pageable pageable);
+    // Giới hạn độ sâu của recursive CTE, tránh lặp vô hạn nếu dữ liệu cha-con bị vòng
+    int MAX_LINEAGE_DEPTH = 1000;
+
+    String ROW_FIELDS = "ii.id AS id, ii.parent_id AS parentId, "
+            + "ii.reason_for_disposal AS reasonForDisposal, ii.measurement_value AS measurementValue, "
+            + "ii.status AS status, ii.expired_date AS expiredDate, ii.imported_date AS importedDate, "
+            + "ii.updated_date AS updatedDate, ii.is_tracking_for_export AS isTrackingForExport, "
+            + "it.id AS itemId, it.name AS itemName, ii.export_request_detail_id AS exportRequestDetailId, "
+            + "ii.import_order_detail_id AS importOrderDetailId, sl.id AS storedLocationId, sl.zone AS zone, "
+            + "sl.floor AS floor, sl.row AS locationRow, sl.line AS locationLine ";
+
+    String ROW_JOINS = "LEFT JOIN item it ON it.id = ii.item_id "
+            + "LEFT JOIN stored_location sl ON sl.id = ii.stored_location_id ";
+
+    String LINEAGE_COLUMNS = "SELECT " + ROW_FIELDS + ", l.depth AS depth "
+            + "FROM lineage l JOIN inventory_item ii ON ii.id = l.id " + ROW_JOINS;
+
+    // Read model cho các API danh sách: một câu SELECT thay cho entity + các quan hệ eager/lazy của nó
+    String ROW_COLUMNS = "SELECT " + ROW_FIELDS + "FROM inventory_item ii " + ROW_JOINS;
+
+    @Query(value = ROW_COLUMNS + "ORDER BY ii.id", nativeQuery = true)
+    List<InventoryItemRow> findAllRows();
+
+    @Query(value = ROW_COLUMNS + "WHERE ii.id IN (:ids) ORDER BY ii.id", nativeQuery = true)
+    List<InventoryItemRow> findRowsByIds(@Param("ids") Collection<String> ids);
+
+    @Query(value = ROW_COLUMNS + "WHERE ii.item_id = :itemId ORDER BY ii.id",
+            countQuery = "SELECT COUNT(*) FROM inventory_item ii WHERE ii.item_id = :itemId",
+            nativeQuery = true)
+    Page<InventoryItemRow> findRowsByItemId(@Param("itemId") String itemId, Pageable pageable);
+
+    // Item gốc còn trong kho, cần trả nhà cung cấp và chưa gắn với phiếu xuất nào
+    @Query(value = ROW_COLUMNS + "WHERE ii.item_id = :itemId AND ii.parent_id IS NULL AND ii.status = :status "
+            + "AND ii.need_return_to_provider = TRUE AND ii.export_request_detail_id IS NULL ORDER BY ii.id",
+            countQuery = "SELECT COUNT(*) FROM inventory_item ii WHERE ii.item_id = :itemId "
+                    + "AND ii.parent_id IS NULL AND ii.status = :status AND ii.need_return_to_provider = TRUE "
+                    + "AND ii.export_request_detail_id IS NULL",
+            nativeQuery = true)
+    Page<InventoryItemRow> findReturnableRowsByItemId(@Param("itemId") String itemId,
+                                                      @Param("status") int status,
+                                                      Pageable pageable);
+
+    @Query(value = ROW_COLUMNS + "WHERE ii.import_order_detail_id = :importOrderDetailId ORDER BY ii.id",
+            countQuery = "SELECT COUNT(*) FROM inventory_item ii WHERE ii.import_order_detail_id = :importOrderDetailId",
+            nativeQuery = true)
+    Page<InventoryItemRow> findRowsByImportOrderDetailId(@Param("importOrderDetailId") Long importOrderDetailId,
+                                                         Pageable pageable);
+
+    @Query(value = ROW_COLUMNS + "WHERE ii.import_order_detail_id IN (:importOrderDetailIds) ORDER BY ii.id",
+            nativeQuery = true)
+    List<InventoryItemRow> findRowsByImportOrderDetailIds(
+            @Param("importOrderDetailIds") Collection<Long> importOrderDetailIds);
+
+    @Query(value = ROW_COLUMNS + "WHERE ii.export_request_detail_id = :exportRequestDetailId ORDER BY ii.id",
+            countQuery = "SELECT COUNT(*) FROM inventory_item ii WHERE ii.export_request_detail_id = :exportRequestDetailId",
+            nativeQuery = true)
+    Page<InventoryItemRow> findRowsByExportRequestDetailId(@Param("exportRequestDetailId") Long exportRequestDetailId,
+                                                           Pageable pageable);
+
+    @Query(value = ROW_COLUMNS + "WHERE ii.stored_location_id = :storedLocationId ORDER BY ii.id",
+            countQuery = "SELECT COUNT(*) FROM inventory_item ii WHERE ii.stored_location_id = :storedLocationId",
+            nativeQuery = true)
+    Page<InventoryItemRow> findRowsByStoredLocationId(@Param("storedLocationId") Long storedLocationId,
+                                                      Pageable pageable);
+
     List<InventoryItem> findByItem_IdAndParentNullAndStatus(String itemId, ItemStatus status);
     List<InventoryItem> findByItem_IdAndParentNullAndStatusAndNeedReturnToProvider(
             String itemId, ItemStatus status, Boolean needReturnToProvider);
     List<InventoryItem> findByItem_Id(String itemId);
     List<InventoryItem> findByItem_IdAndExpiredDateLessThanEqual(String itemId, LocalDateTime expiredDate);
-    List<InventoryItem> findByImportOrderDetailIdIn(List<Long> importOrderDetailIds);
 
     List<InventoryItem> findByExportRequestDetail_Id(Long exportRequestDetailId);
 
@@ -34,10 +105,10 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, St
 
     List<InventoryItem> findInventoryItemByParent_Id(String id);
 
-    List<InventoryItem> findByIdContaining(String id);
-
     List<InventoryItem> findAllByImportOrderDetailIdAndStoredLocationIsNull(Long id);
 
+    List<InventoryItem> findAllByImportOrderDetail_ImportOrder_IdAndStoredLocationIsNullOrderByIdAsc(String importOrderId);
+
     @Modifying(clearAutomatically = false, flushAutomatically = true)
     @Query("""
            UPDATE InventoryItem i
@@ -47,5 +118,98 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, St
            """)
     int releaseByExportDetailIds(@Param("detailIds") List<Long> detailIds);
 
+    @Query("SELECT i.item.id AS itemId, i.status AS status, COUNT(i) AS quantity FROM InventoryItem i "
+            + "WHERE i.exportRequestDetail.id IN :detailIds AND i.item IS NOT NULL AND i.status IS NOT NULL "
+            + "GROUP BY i.item.id, i.status")
+    List<InventoryStatusCount> countByExportDetailIdsGroupByItemAndStatus(@Param("detailIds") List<Long> detailIds);
+
+    // Item gốc còn nguyên measurement, thứ tự lấy do Pageable (PickingStrategy) quyết định
+    @Query("SELECT i.id AS id, i.measurementValue AS measurementValue FROM InventoryItem i "
+            + "WHERE i.item.id = :itemId AND i.parent IS NULL "
+            + "AND i.status = capstonesu25.warehouse.enums.ItemStatus.AVAILABLE "
+            + "AND i.exportRequestDetail IS NULL "
+            + "AND i.measurementValue = i.item.measurementValue")
+    List<PickCandidate> findFullPickCandidates(@Param("itemId") String itemId, Pageable pageable);
+
+    @Query("SELECT new capstonesu25.warehouse.model.inventoryitem.MeasurementCandidate(i.id, i.measurementValue) "
+            + "FROM InventoryItem i "
+            + "WHERE i.item.id = :itemId "
+            + "AND i.status = capstonesu25.warehouse.enums.ItemStatus.AVAILABLE "
+            + "AND i.exportRequestDetail IS NULL "
+            + "AND i.measurementValue > 0")
+    List<MeasurementCandidate> findMeasurementPickCandidates(@Param("itemId") String itemId, Pageable pageable);
+
+    // Chỉ giữ được item còn AVAILABLE và chưa thuộc phiếu xuất nào, nên hai phiếu xuất chạy song song không lấy trùng
+    @Modifying(clearAutomatically = false, flushAutomatically = true)
+    @Query("""
+           UPDATE InventoryItem i
+              SET i.status = capstonesu25.warehouse.enums.ItemStatus.UNAVAILABLE,
+                  i.exportRequestDetail = :detail,
+                  i.updatedDate = :now
+            WHERE i.id IN :ids
+              AND i.status = capstonesu25.warehouse.enums.ItemStatus.AVAILABLE
+              AND i.exportRequestDetail IS NULL
+           """)
+    int reserveForExportDetail(@Param("ids") List<String> ids,
+                               @Param("detail") ExportRequestDetail detail,
+                               @Param("now") LocalDateTime now);
+
+    @Query("SELECT i.id AS id, i.measurementValue AS measurementValue FROM InventoryItem i "
+            + "WHERE i.exportRequestDetail.id = :detailId")
+    List<PickCandidate> findPickedByExportRequestDetailId(@Param("detailId") Long detailId);
+
+    // LEFT JOIN để item chưa có vị trí vẫn được trả về (nằm ngoài lộ trình)
+    @Query("SELECT i.id AS id, i.item.id AS itemId, d.exportRequest.id AS exportRequestId, "
+            + "l.id AS storedLocationId FROM InventoryItem i "
+            + "JOIN i.exportRequestDetail d LEFT JOIN i.storedLocation l "
+            + "WHERE d.exportRequest.id IN :exportRequestIds ORDER BY i.id")
+    List<PickItem> findPickItemsByExportRequestIds(@Param("exportRequestIds") List<String> exportRequestIds);
+
+    // Đọc bằng cursor JDBC cho báo cáo tồn kho theo vị trí, item chưa có vị trí xếp cuối
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new capstonesu25.warehouse.model.report.InventoryLocationReportRow(l.zone, l.floor, l.row, l.line, "
+            + "it.id, it.name, it.measurementUnit, i.id, i.status, i.measurementValue, i.importedDate, i.expiredDate) "
+            + "FROM InventoryItem i JOIN i.item it LEFT JOIN i.storedLocation l "
+            + "ORDER BY l.zone NULLS LAST, l.floor, l.row, l.line, it.id, i.id")
+    Stream<InventoryLocationReportRow> streamLocationReport();
+
+    // Node :id và các cha của nó, depth 0 là chính node, depth lớn nhất là gốc
+    @Query(value = "WITH RECURSIVE lineage (id, parent_id, depth) AS ("
+            + "SELECT i.id, i.parent_id, 0 FROM inventory_item i WHERE i.id = :id "
+            + "UNION ALL "
+            + "SELECT p.id, p.parent_id, l.depth + 1 FROM inventory_item p JOIN lineage l ON p.id = l.parent_id "
+            + "WHERE l.depth < " + MAX_LINEAGE_DEPTH + ") "
+            + LINEAGE_COLUMNS + "ORDER BY l.depth", nativeQuery = true)
+    List<InventoryItemRow> findAncestorLineage(@Param("id") String id);
+
+    // Node :id và toàn bộ con cháu, sắp theo depth rồi id
+    @Query(value = "WITH RECURSIVE lineage (id, parent_id, depth) AS ("
+            + "SELECT i.id, i.parent_id, 0 FROM inventory_item i WHERE i.id = :id "
+            + "UNION ALL "
+            + "SELECT c.id, c.parent_id, l.depth + 1 FROM inventory_item c JOIN lineage l ON c.parent_id = l.id "
+            + "WHERE l.depth < " + MAX_LINEAGE_DEPTH + ") "
+            + LINEAGE_COLUMNS + "ORDER BY l.depth, ii.id", nativeQuery = true)
+    List<InventoryItemRow> findSubtreeLineage(@Param("id") String id);
+
+    // itemId, số lượng, tổng measurementValue ở trạng thái status của mọi item (item không có hàng thì 0, 0)
+    @Query("SELECT it.id, COUNT(i), COALESCE(SUM(i.measurementValue), 0) FROM Item it "
+            + "LEFT JOIN it.inventoryItems i ON i.status = :status GROUP BY it.id ORDER BY it.id")
+    List<Object[]> sumByItemWithStatus(@Param("status") ItemStatus status);
+
+    // itemId, id, measurementValue
+    @Query("SELECT i.item.id, i.id, i.measurementValue FROM InventoryItem i "
+            + "WHERE i.item.id IN :itemIds AND i.status = :status ORDER BY i.item.id, i.id")
+    List<Object[]> findIdAndMeasurementByItemIdsAndStatus(@Param("itemIds") Collection<String> itemIds,
+                                                          @Param("status") ItemStatus status);
+
+    @Query("SELECT i.parent.id, i.id FROM InventoryItem i WHERE i.parent.id IN :parentIds ORDER BY i.id")
+    List<Object[]> findChildPairsByParentIds(@Param("parentIds") Collection<String> parentIds);
+
+    @Query("SELECT i.id FROM InventoryItem i")
+    List<String> findAllIds();
 
+    // ILIKE '%x%' đi qua GIN index gin_trgm_ops trên id nếu có (PostgreSQL), không thì quét và dừng ở :limit dòng
+    @Query(value = "SELECT ii.id FROM inventory_item ii WHERE ii.id ILIKE :pattern ESCAPE '\\' "
+            + "ORDER BY ii.id LIMIT :limit", nativeQuery = true)
+    List<String> searchIdsByPattern(@Param("pattern") String pattern, @Param("limit") int limit);
 }
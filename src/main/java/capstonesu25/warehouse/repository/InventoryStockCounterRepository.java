@@ -0,0 +1,27 @@
+package capstonesu25.warehouse.repository;
+
+import capstonesu25.warehouse.entity.InventoryStockCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryStockCounterRepository extends JpaRepository<InventoryStockCounter, Long> {
+
+    // Chặn các delta của listener (ROW EXCLUSIVE) cho tới khi transaction dựng lại counter commit
+    @Modifying
+    @Query(value = "LOCK TABLE inventory_stock_counter IN EXCLUSIVE MODE", nativeQuery = true)
+    int lockCounters();
+
+    @Modifying
+    @Query(value = "DELETE FROM inventory_stock_counter", nativeQuery = true)
+    int deleteAllCounters();
+
+    @Modifying
+    @Query(value = "INSERT INTO inventory_stock_counter (item_id, status, quantity, updated_date) "
+            + "SELECT ii.item_id, ii.status, COUNT(*), CURRENT_TIMESTAMP FROM inventory_item ii "
+            + "WHERE ii.item_id IS NOT NULL AND ii.status IS NOT NULL "
+            + "GROUP BY ii.item_id, ii.status", nativeQuery = true)
+    int rebuildCountersFromInventory();
+}
@@ -2,9 +2,12 @@ package capstonesu25.warehouse.repository;
 
 import capstonesu25.warehouse.entity.ItemProvider;
 import capstonesu25.warehouse.entity.pk.ItemProviderPK;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -12,4 +15,10 @@ public interface ItemProviderRepository extends JpaRepository<ItemProvider, Item
     List<ItemProvider> findByProvider_Id(Long providerId);
     List<ItemProvider> findByItem_Id(String itemId);
     Optional<ItemProvider> findByProvider_IdAndItem_Id(Long providerId, String itemId);
+
+    // (providerId, itemId, providerCode) cho cả danh sách phiếu trong một truy vấn
+    @Query("SELECT ip.id.providerId, ip.id.itemId, ip.providerCode FROM ItemProvider ip "
+            + "WHERE ip.id.providerId IN :providerIds AND ip.id.itemId IN :itemIds")
+    List<Object[]> findProviderCodes(@Param("providerIds") Collection<Long> providerIds,
+                                     @Param("itemIds") Collection<String> itemIds);
 }
@@ -1,10 +1,13 @@
 package capstonesu25.warehouse.repository;
 
 import capstonesu25.warehouse.entity.Item;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -13,4 +16,10 @@ public interface ItemRepository extends JpaRepository<Item, String> {
     Page<Item> findByItemProviders_Provider_Id(Long providerId, Pageable pageable);
 
     long countByCategoryId(Long categoryId);
+
+    @Query("SELECT i.id FROM Item i")
+    List<String> findAllIds();
+
+    @Query("SELECT i.id FROM Item i WHERE i.configuration.id = :configurationId")
+    List<String> findIdsByConfigurationId(@Param("configurationId") Long configurationId);
 }
\ No newline at end of file
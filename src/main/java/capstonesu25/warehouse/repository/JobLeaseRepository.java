@@ -0,0 +1,79 @@
+package capstonesu25.warehouse.repository;
+
+import capstonesu25.warehouse.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO job_lease (job_name, fencing_token) SELECT :jobName, 0 "
+            + "WHERE NOT EXISTS (SELECT 1 FROM job_lease WHERE job_name = :jobName)", nativeQuery = true)
+    int insertIfAbsent(@Param("jobName") String jobName);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.fencingToken = l.fencingToken + 1, "
+            + "l.leaseUntil = :leaseUntil, l.heartbeatAt = :now "
+            + "WHERE l.jobName = :jobName AND (l.leaseUntil IS NULL OR l.leaseUntil < :now)")
+    int acquire(@Param("jobName") String jobName,
+                @Param("owner") String owner,
+                @Param("now") LocalDateTime now,
+                @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Chỉ giành lease khi ngày runDate chưa có lần chạy thành công nào
+    @Transactional
+    @Modifying
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.fencingToken = l.fencingToken + 1, "
+            + "l.leaseUntil = :leaseUntil, l.heartbeatAt = :now "
+            + "WHERE l.jobName = :jobName AND (l.leaseUntil IS NULL OR l.leaseUntil < :now) "
+            + "AND (l.lastRunDate IS NULL OR l.lastRunDate < :runDate)")
+    int acquireForDay(@Param("jobName") String jobName,
+                      @Param("owner") String owner,
+                      @Param("now") LocalDateTime now,
+                      @Param("leaseUntil") LocalDateTime leaseUntil,
+                      @Param("runDate") LocalDate runDate);
+
+    @Query("SELECT l.fencingToken FROM JobLease l WHERE l.jobName = :jobName AND l.owner = :owner")
+    Optional<Long> findFencingToken(@Param("jobName") String jobName, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE JobLease l SET l.leaseUntil = :leaseUntil, l.heartbeatAt = :now "
+            + "WHERE l.jobName = :jobName AND l.owner = :owner AND l.fencingToken = :fencingToken "
+            + "AND l.leaseUntil IS NOT NULL")
+    int extend(@Param("jobName") String jobName,
+               @Param("owner") String owner,
+               @Param("fencingToken") Long fencingToken,
+               @Param("now") LocalDateTime now,
+               @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE JobLease l SET l.lastRunDate = :runDate "
+            + "WHERE l.jobName = :jobName AND l.owner = :owner AND l.fencingToken = :fencingToken")
+    int markRun(@Param("jobName") String jobName,
+                @Param("owner") String owner,
+                @Param("fencingToken") Long fencingToken,
+                @Param("runDate") LocalDate runDate);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE JobLease l SET l.leaseUntil = NULL "
+            + "WHERE l.jobName = :jobName AND l.owner = :owner AND l.fencingToken = :fencingToken")
+    int release(@Param("jobName") String jobName,
+                @Param("owner") String owner,
+                @Param("fencingToken") Long fencingToken);
+
+    List<JobLease> findAllByOrderByJobNameAsc();
+}
@@ -0,0 +1,29 @@
+package capstonesu25.warehouse.repository;
+
+import capstonesu25.warehouse.entity.JobRun;
+import capstonesu25.warehouse.model.job.JobRunMetrics;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+    Page<JobRun> findByJobNameOrderByStartedAtDesc(String jobName, Pageable pageable);
+
+    Page<JobRun> findAllByOrderByStartedAtDesc(Pageable pageable);
+
+    @Query("SELECT new capstonesu25.warehouse.model.job.JobRunMetrics("
+            + "r.jobName, COUNT(r), "
+            + "SUM(CASE WHEN r.status IN (capstonesu25.warehouse.enums.JobRunStatus.FAILED, "
+            + "capstonesu25.warehouse.enums.JobRunStatus.LEASE_LOST) THEN 1L ELSE 0L END), "
+            + "AVG(r.durationMillis), MAX(r.durationMillis), MAX(r.startedAt)) "
+            + "FROM JobRun r WHERE r.startedAt >= :from "
+            + "GROUP BY r.jobName ORDER BY r.jobName")
+    List<JobRunMetrics> findMetricsSince(@Param("from") LocalDateTime from);
+}
@@ -1,7 +1,12 @@
 package capstonesu25.warehouse.repository;
 
 import capstonesu25.warehouse.entity.StaffPerformance;
+import capstonesu25.warehouse.enums.AccountRole;
+import capstonesu25.warehouse.enums.AccountStatus;
+import capstonesu25.warehouse.model.staffperformance.StaffWorkload;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -11,4 +16,15 @@ public interface StaffPerformanceRepository extends JpaRepository<StaffPerforman
     StaffPerformance findByImportOrderIdAndAssignedStaff_Id(String importOrderId, Long accountId);
     StaffPerformance findByExportRequestIdAndAssignedStaff_IdAndExportCounting(String exportRequestId, Long accountId, boolean isExportCounting);
     StaffPerformance findByStockCheckRequestIdAndAssignedStaff_Id(String stockCheckRequestId, Long accountId);
+
+    @Query("SELECT sp.assignedStaff.id AS staffId, " +
+            "COALESCE(SUM(EXTRACT(HOUR FROM sp.expectedWorkingTime) * 60 + EXTRACT(MINUTE FROM sp.expectedWorkingTime)), 0) AS expectedMinutes, " +
+            "COALESCE(SUM(EXTRACT(HOUR FROM sp.actualWorkingTime) * 60 + EXTRACT(MINUTE FROM sp.actualWorkingTime)), 0) AS actualMinutes " +
+            "FROM StaffPerformance sp " +
+            "WHERE sp.date = :date AND sp.assignedStaff.role = :role AND sp.assignedStaff.status = :status " +
+            "GROUP BY sp.assignedStaff.id")
+    List<StaffWorkload> sumWorkloadByStaffOnDate(
+            @Param("date") LocalDate date,
+            @Param("role") AccountRole role,
+            @Param("status") AccountStatus status);
 }
@@ -1,12 +1,34 @@
 package capstonesu25.warehouse.repository;
 
 import capstonesu25.warehouse.entity.StockCheckRequestDetail;
+import capstonesu25.warehouse.model.report.StockCheckVarianceReportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface StockCheckRequestDetailRepository extends JpaRepository<StockCheckRequestDetail, Long> {
+    @Query("SELECT COALESCE(SUM(d.quantity * COALESCE(i.countingMinutes, 0)), 0) FROM StockCheckRequestDetail d "
+            + "JOIN d.item i WHERE d.stockCheckRequest.id = :stockCheckRequestId")
+    long sumCountingMinutes(@Param("stockCheckRequestId") String stockCheckRequestId);
+
     List<StockCheckRequestDetail> findByStockCheckRequest_Id(String stockCheckRequestId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new capstonesu25.warehouse.model.report.StockCheckVarianceReportRow(s.id, s.status, s.countingDate, "
+            + "it.id, it.name, d.status, d.quantity, d.actualQuantity, d.measurementValue, d.actualMeasurementValue) "
+            + "FROM StockCheckRequestDetail d JOIN d.stockCheckRequest s JOIN d.item it "
+            + "WHERE (:fromDate IS NULL OR s.countingDate >= :fromDate) "
+            + "AND (:toDate IS NULL OR s.countingDate <= :toDate) "
+            + "ORDER BY s.countingDate, s.id, d.id")
+    Stream<StockCheckVarianceReportRow> streamVarianceReport(@Param("fromDate") LocalDate fromDate,
+                                                             @Param("toDate") LocalDate toDate);
 }
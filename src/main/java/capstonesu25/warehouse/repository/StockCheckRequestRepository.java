@@ -3,19 +3,31 @@ package capstonesu25.warehouse.repository;
 import capstonesu25.warehouse.entity.ExportRequest;
 import capstonesu25.warehouse.entity.StockCheckRequest;
 import capstonesu25.warehouse.enums.RequestStatus;
+import capstonesu25.warehouse.model.report.RequestStatusCount;
+import capstonesu25.warehouse.model.staffperformance.StaffTaskWindow;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface StockCheckRequestRepository extends JpaRepository<StockCheckRequest, String> {
+    // paper là OneToOne phía mappedBy nên không batch được: nạp kèm trong câu truy vấn danh sách
+    @Override
+    @EntityGraph(attributePaths = "paper")
+    List<StockCheckRequest> findAll();
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT COUNT(er) FROM ExportRequest er WHERE er.createdDate BETWEEN :start AND :end")
     int countByCreatedAtBetweenLocked(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
@@ -28,12 +40,56 @@ public interface StockCheckRequestRepository extends JpaRepository<StockCheckReq
     List<StockCheckRequest> findByAssignedStaff_IdAndCountingDate(
             Long staffId, LocalDate countingDate);
 
-    List<StockCheckRequest> findByAssignedStaff_Id(Long staffId);
+    // Đọc theo index (assigned_staff_id, created_date, id), mới nhất trước
+    @EntityGraph(attributePaths = "paper")
+    List<StockCheckRequest> findByAssignedStaff_IdOrderByCreatedDateDescIdDesc(Long staffId);
+
+    @EntityGraph(attributePaths = "paper")
+    @Query("SELECT sc FROM StockCheckRequest sc WHERE sc.assignedStaff.id = :staffId "
+            + "AND (sc.createdDate, sc.id) < (:beforeCreatedDate, :beforeId) "
+            + "ORDER BY sc.createdDate DESC, sc.id DESC")
+    List<StockCheckRequest> findOfStaffBefore(@Param("staffId") Long staffId,
+                                              @Param("beforeCreatedDate") LocalDateTime beforeCreatedDate,
+                                              @Param("beforeId") String beforeId,
+                                              Pageable pageable);
 
-    List<StockCheckRequest> findByIdStartingWith(String idPrefix);
+    long countByIdStartingWith(String idPrefix);
 
     List<StockCheckRequest> findAllByStatus(RequestStatus status);
 
-    List<StockCheckRequest> findAllByStatusIn(List<RequestStatus> statuses);
+    @EntityGraph(attributePaths = "paper")
+    List<StockCheckRequest> findByStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
+            RequestStatus status, LocalDateTime from, LocalDateTime to);
+
+    @EntityGraph(attributePaths = "paper")
+    Page<StockCheckRequest> findByStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
+            RequestStatus status, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    // Khóa một lô id đến hạn hủy tự động, không nạp entity
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT sc.id FROM StockCheckRequest sc WHERE sc.status IN :statuses "
+            + "AND sc.expectedCompletedDate >= :threshold ORDER BY sc.id")
+    List<String> findIdsToCancelByExpectedCompletedDate(@Param("statuses") Collection<RequestStatus> statuses,
+                                                        @Param("threshold") LocalDate threshold,
+                                                        Pageable pageable);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE StockCheckRequest sc SET sc.status = capstonesu25.warehouse.enums.RequestStatus.CANCELLED, "
+            + "sc.note = :note, sc.updatedDate = :now WHERE sc.id IN :ids")
+    int cancelByIds(@Param("ids") Collection<String> ids, @Param("note") String note, @Param("now") LocalDateTime now);
+
+    @Query("SELECT sc.status AS status, COUNT(sc) AS total FROM StockCheckRequest sc " +
+            "WHERE sc.status IN :statuses AND sc.createdDate >= :from AND sc.createdDate < :to " +
+            "GROUP BY sc.status")
+    List<RequestStatusCount> countGroupByStatusInCreatedDateRange(@Param("statuses") Collection<RequestStatus> statuses,
+                                                                  @Param("from") LocalDateTime from,
+                                                                  @Param("to") LocalDateTime to);
+
+    @Query("SELECT sc.assignedStaff.id AS staffId, sc.countingTime AS startTime, " +
+            "COALESCE(SUM(d.quantity * i.countingMinutes), 0) AS workingMinutes " +
+            "FROM StockCheckRequest sc LEFT JOIN sc.stockCheckRequestDetails d LEFT JOIN d.item i " +
+            "WHERE sc.countingDate = :date AND sc.assignedStaff IS NOT NULL " +
+            "GROUP BY sc.id, sc.assignedStaff.id, sc.countingTime")
+    List<StaffTaskWindow> findStaffTaskWindowsOnDate(@Param("date") LocalDate date);
 
 }
@@ -0,0 +1,38 @@
+package capstonesu25.warehouse.repository;
+
+import capstonesu25.warehouse.entity.StockDailySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockDailySnapshotRepository extends JpaRepository<StockDailySnapshot, Long> {
+
+    @Query("SELECT MAX(s.snapshotDate) FROM StockDailySnapshot s")
+    LocalDate findLatestSnapshotDate();
+
+    @Query("SELECT MAX(s.snapshotDate) FROM StockDailySnapshot s WHERE s.snapshotDate < :before")
+    LocalDate findLatestSnapshotDateBefore(@Param("before") LocalDate before);
+
+    List<StockDailySnapshot> findByItemIdAndSnapshotDate(String itemId, LocalDate snapshotDate);
+
+    // Tồn cuối ngày :day = snapshot :previousDay + movement trong [from, to); bỏ các (item, status) đã về 0
+    @Modifying
+    @Query(value = "INSERT INTO stock_daily_snapshot (snapshot_date, item_id, status, quantity, measurement) "
+            + "SELECT :day, x.item_id, x.status, SUM(x.q), SUM(x.mv) FROM ("
+            + "SELECT s.item_id AS item_id, s.status AS status, s.quantity AS q, s.measurement AS mv "
+            + "FROM stock_daily_snapshot s WHERE s.snapshot_date = :previousDay "
+            + "UNION ALL " + StockMovementRepository.STATUS_DELTA_ROWS
+            + ") x WHERE x.item_id IS NOT NULL GROUP BY x.item_id, x.status HAVING SUM(x.q) <> 0",
+            nativeQuery = true)
+    int rollUp(@Param("day") LocalDate day,
+               @Param("previousDay") LocalDate previousDay,
+               @Param("from") LocalDateTime from,
+               @Param("to") LocalDateTime to);
+}
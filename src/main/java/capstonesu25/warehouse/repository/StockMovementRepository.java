@@ -0,0 +1,111 @@
+package capstonesu25.warehouse.repository;
+
+import capstonesu25.warehouse.entity.StockMovement;
+import capstonesu25.warehouse.enums.MovementType;
+import capstonesu25.warehouse.model.stockmovement.StatusBalanceRow;
+import capstonesu25.warehouse.model.stockmovement.StockMovementTotal;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    String INSERT_COLUMNS = "INSERT INTO stock_movement (movement_type, inventory_item_id, item_id, from_status, "
+            + "to_status, from_location_id, to_location_id, measurement_before, measurement_after, quantity_delta, "
+            + "measurement_delta, reference_id, occurred_at) ";
+
+    // Mỗi movement cộng (1, measurement_after) vào to_status và trừ (1, measurement_before) khỏi from_status
+    String STATUS_DELTA_ROWS = "SELECT m.item_id AS item_id, m.to_status AS status, 1 AS q, "
+            + "COALESCE(m.measurement_after, 0) AS mv FROM stock_movement m "
+            + "WHERE m.occurred_at >= :from AND m.occurred_at < :to AND m.to_status IS NOT NULL "
+            + "UNION ALL "
+            + "SELECT m.item_id, m.from_status, -1, -COALESCE(m.measurement_before, 0) FROM stock_movement m "
+            + "WHERE m.occurred_at >= :from AND m.occurred_at < :to AND m.from_status IS NOT NULL ";
+
+    @Query("SELECT m FROM StockMovement m WHERE m.itemId = :itemId "
+            + "AND m.occurredAt >= :from AND m.occurredAt < :to ORDER BY m.occurredAt, m.id")
+    Page<StockMovement> findByItemIdInRange(@Param("itemId") String itemId,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            Pageable pageable);
+
+    @Query("SELECT new capstonesu25.warehouse.model.stockmovement.StockMovementTotal(m.movementType, COUNT(m), "
+            + "SUM(m.quantityDelta), SUM(m.measurementDelta)) FROM StockMovement m "
+            + "WHERE m.itemId = :itemId AND m.occurredAt >= :from AND m.occurredAt < :to "
+            + "GROUP BY m.movementType ORDER BY m.movementType")
+    List<StockMovementTotal> sumByMovementType(@Param("itemId") String itemId,
+                                               @Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to);
+
+    @Query("SELECT DISTINCT m.referenceId FROM StockMovement m WHERE m.itemId = :itemId "
+            + "AND m.movementType = :movementType AND m.occurredAt >= :from AND m.occurredAt < :to "
+            + "AND m.referenceId IS NOT NULL")
+    List<String> findReferenceIds(@Param("itemId") String itemId,
+                                  @Param("movementType") MovementType movementType,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+
+    // Biến động theo status của một item trong [from, to), đi qua index (item_id, occurred_at)
+    @Query(value = "SELECT x.status AS status, SUM(x.q) AS quantity, SUM(x.mv) AS measurement FROM ("
+            + "SELECT m.to_status AS status, 1 AS q, COALESCE(m.measurement_after, 0) AS mv FROM stock_movement m "
+            + "WHERE m.item_id = :itemId AND m.occurred_at >= :from AND m.occurred_at < :to "
+            + "AND m.to_status IS NOT NULL "
+            + "UNION ALL "
+            + "SELECT m.from_status, -1, -COALESCE(m.measurement_before, 0) FROM stock_movement m "
+            + "WHERE m.item_id = :itemId AND m.occurred_at >= :from AND m.occurred_at < :to "
+            + "AND m.from_status IS NOT NULL"
+            + ") x GROUP BY x.status", nativeQuery = true)
+    List<StatusBalanceRow> sumStatusDelta(@Param("itemId") String itemId,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(m.occurredAt) FROM StockMovement m")
+    LocalDateTime findFirstOccurredAt();
+
+    // Sổ bắt đầu từ trạng thái hiện tại của kho: mỗi inventory item một dòng OPENING, chỉ khi sổ còn trống
+    @Modifying
+    @Query(value = INSERT_COLUMNS
+            + "SELECT 'OPENING', ii.id, ii.item_id, NULL, ii.status, NULL, ii.stored_location_id, NULL, "
+            + "ii.measurement_value, CASE WHEN ii.status = :goneStatus THEN 0 ELSE 1 END, "
+            + "CASE WHEN ii.status = :goneStatus THEN 0 ELSE COALESCE(ii.measurement_value, 0) END, NULL, :now "
+            + "FROM inventory_item ii WHERE ii.status IS NOT NULL "
+            + "AND NOT EXISTS (SELECT 1 FROM stock_movement)", nativeQuery = true)
+    int insertOpeningMovements(@Param("goneStatus") int goneStatus, @Param("now") LocalDateTime now);
+
+    // Ghi sau UPDATE hàng loạt giữ hàng: chỉ các item đã thực sự thuộc về detail này
+    @Modifying
+    @Query(value = INSERT_COLUMNS
+            + "SELECT 'RESERVE', ii.id, ii.item_id, :fromStatus, ii.status, ii.stored_location_id, "
+            + "ii.stored_location_id, ii.measurement_value, ii.measurement_value, 0, 0, :referenceId, :now "
+            + "FROM inventory_item ii WHERE ii.id IN (:ids) AND ii.export_request_detail_id = :detailId",
+            nativeQuery = true)
+    int insertReserveMovements(@Param("ids") Collection<String> ids,
+                               @Param("detailId") Long detailId,
+                               @Param("fromStatus") int fromStatus,
+                               @Param("referenceId") String referenceId,
+                               @Param("now") LocalDateTime now);
+
+    // Ghi trước UPDATE hàng loạt trả hàng về AVAILABLE, khi còn đọc được status và phiếu xuất cũ
+    @Modifying
+    @Query(value = INSERT_COLUMNS
+            + "SELECT 'RELEASE', ii.id, ii.item_id, ii.status, :toStatus, ii.stored_location_id, "
+            + "ii.stored_location_id, ii.measurement_value, ii.measurement_value, "
+            + "CASE WHEN ii.status = :goneStatus THEN 1 ELSE 0 END, "
+            + "CASE WHEN ii.status = :goneStatus THEN COALESCE(ii.measurement_value, 0) ELSE 0 END, "
+            + "d.export_request_id, :now "
+            + "FROM inventory_item ii JOIN export_request_detail d ON d.id = ii.export_request_detail_id "
+            + "WHERE ii.export_request_detail_id IN (:detailIds)", nativeQuery = true)
+    int insertReleaseMovements(@Param("detailIds") Collection<Long> detailIds,
+                               @Param("toStatus") int toStatus,
+                               @Param("goneStatus") int goneStatus,
+                               @Param("now") LocalDateTime now);
+}
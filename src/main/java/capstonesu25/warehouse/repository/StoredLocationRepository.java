@@ -4,6 +4,7 @@ import capstonesu25.warehouse.entity.StoredLocation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -19,6 +20,11 @@ public interface StoredLocationRepository extends JpaRepository<StoredLocation,
 
     List<StoredLocation> findByIsFulledFalseOrderByZoneAscFloorAscRowAscLineAsc();
     List<StoredLocation> findByIsFulledFalse();
+    List<StoredLocation> findByIsDoorTrue();
 
     boolean existsByZoneAndFloorAndRowAndLine(String zone, String floor, String row, String line);
+
+    // Cặp (locationId, itemId) để dựng item affinity mà không phải nạp từng collection items
+    @Query("SELECT l.id, i.id FROM StoredLocation l JOIN l.items i")
+    List<Object[]> findLocationItemPairs();
 }
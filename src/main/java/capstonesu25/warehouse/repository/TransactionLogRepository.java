@@ -1,9 +1,56 @@
 package capstonesu25.warehouse.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import capstonesu25.warehouse.entity.TransactionLog;
+import capstonesu25.warehouse.model.transactionlog.TransactionLogSummary;
+import jakarta.persistence.QueryHint;
 
 public interface TransactionLogRepository extends JpaRepository<TransactionLog, Long> {
 
+    // fromDate/toDate luôn có giá trị (xem TransactionLogService): PostgreSQL không suy ra được kiểu của tham số
+    // timestamp null trong "IS NULL"
+    String FILTER = "WHERE (:type IS NULL OR t.type = :type) " +
+            "AND (:action IS NULL OR t.action = :action) " +
+            "AND (:objectId IS NULL OR t.objectId = :objectId) " +
+            "AND (:executorUsername IS NULL OR t.executorUsername = :executorUsername) " +
+            "AND t.createdDate >= :fromDate " +
+            "AND t.createdDate < :toDate ";
+
+    // Keyset pagination theo id giảm dần, không đọc cột response_content
+    @Query("SELECT t.id AS id, t.executorUsername AS executorUsername, t.executorFullName AS executorFullName, " +
+            "t.type AS type, t.action AS action, t.objectId AS objectId, t.createdDate AS createdDate " +
+            "FROM TransactionLog t " + FILTER +
+            "AND (:beforeId IS NULL OR t.id < :beforeId) " +
+            "ORDER BY t.id DESC")
+    List<TransactionLogSummary> findPageByFilter(@Param("type") String type,
+                                                 @Param("action") String action,
+                                                 @Param("objectId") String objectId,
+                                                 @Param("executorUsername") String executorUsername,
+                                                 @Param("fromDate") LocalDateTime fromDate,
+                                                 @Param("toDate") LocalDateTime toDate,
+                                                 @Param("beforeId") Long beforeId,
+                                                 Pageable pageable);
+
+    // Đọc bằng cursor JDBC; kết quả là object mới (không được quản lý bởi persistence context)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new capstonesu25.warehouse.entity.TransactionLog(t.id, t.executorUsername, t.executorFullName, " +
+            "t.type, t.action, t.objectId, t.responseContent, t.createdDate) " +
+            "FROM TransactionLog t " + FILTER +
+            "ORDER BY t.id DESC")
+    Stream<TransactionLog> streamByFilter(@Param("type") String type,
+                                          @Param("action") String action,
+                                          @Param("objectId") String objectId,
+                                          @Param("executorUsername") String executorUsername,
+                                          @Param("fromDate") LocalDateTime fromDate,
+                                          @Param("toDate") LocalDateTime toDate);
 }
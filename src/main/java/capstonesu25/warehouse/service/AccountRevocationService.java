@@ -0,0 +1,96 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.Account;
+import capstonesu25.warehouse.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tập id account bị khóa (isBlocked) hoặc vô hiệu hóa (isEnable = false) để JwtAuthenticationFilter từ chối
+ * access token mà không phải đọc Account mỗi request. Thay đổi trên instance này được áp dụng ngay sau commit
+ * (qua AccountChangeListener); thay đổi từ instance khác được nhận khi nạp lại định kỳ.
+ */
+@Service
+@RequiredArgsConstructor
+public class AccountRevocationService {
+    private final AccountRepository accountRepository;
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccountRevocationService.class);
+
+    private volatile Set<Long> revokedAccountIds;
+    private boolean changedWhileLoading;
+
+    public boolean isRevoked(Long accountId) {
+        Set<Long> revoked = revokedAccountIds;
+        if (revoked == null) {
+            revoked = reload();
+        }
+        return revoked.contains(accountId);
+    }
+
+    @Scheduled(fixedDelayString = "PT30S", initialDelayString = "PT30S")
+    public void refresh() {
+        reload();
+    }
+
+    public void onAccountChanged(Account account) {
+        boolean revoked = Boolean.TRUE.equals(account.getIsBlocked()) || Boolean.FALSE.equals(account.getIsEnable());
+        afterCommit(() -> update(account.getId(), revoked));
+    }
+
+    public void onAccountRemoved(Account account) {
+        afterCommit(() -> update(account.getId(), true));
+    }
+
+    private synchronized void update(Long accountId, boolean revoked) {
+        changedWhileLoading = true;
+        Set<Long> current = revokedAccountIds;
+        if (current == null || current.contains(accountId) == revoked) {
+            return;
+        }
+        Set<Long> updated = new HashSet<>(current);
+        if (revoked) {
+            updated.add(accountId);
+        } else {
+            updated.remove(accountId);
+        }
+        revokedAccountIds = Set.copyOf(updated);
+        LOGGER.info("Account {} access {}", accountId, revoked ? "revoked" : "restored");
+    }
+
+    private Set<Long> reload() {
+        synchronized (this) {
+            changedWhileLoading = false;
+        }
+        List<Long> ids = accountRepository.findRevokedIds();
+        Set<Long> loaded = Set.copyOf(ids);
+        synchronized (this) {
+            // Có thay đổi commit xen giữa lúc đọc DB: giữ tập hiện tại, lần nạp sau sẽ lấy đủ
+            if (!changedWhileLoading || revokedAccountIds == null) {
+                revokedAccountIds = loaded;
+            }
+            return revokedAccountIds;
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.ImportRequest;
+import capstonesu25.warehouse.repository.BusinessIdSequenceRepository;
+import capstonesu25.warehouse.repository.ExportRequestRepository;
+import capstonesu25.warehouse.repository.ImportOrderRepository;
+import capstonesu25.warehouse.repository.ImportRequestRepository;
+import capstonesu25.warehouse.repository.StockCheckRequestRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cấp mã nghiệp vụ (PX/PN/PK theo ngày, DN theo phiếu nhập) từ bảng business_id_sequence.
+ * Mỗi lần cấp là một câu UPDATE ... RETURNING chạy trên connection và trong transaction của người gọi, không mượn
+ * thêm connection từ pool. Dòng sequence bị khóa tới khi transaction tạo phiếu kết thúc nên các lần tạo cùng key
+ * xếp hàng nhau; transaction của người gọi rollback thì số đã cấp được trả lại.
+ */
+@Service
+@RequiredArgsConstructor
+public class BusinessIdService {
+    private final BusinessIdSequenceRepository businessIdSequenceRepository;
+    private final ExportRequestRepository exportRequestRepository;
+    private final ImportRequestRepository importRequestRepository;
+    private final StockCheckRequestRepository stockCheckRequestRepository;
+    private final ImportOrderRepository importOrderRepository;
+    private static final Logger LOGGER = LoggerFactory.getLogger(BusinessIdService.class);
+
+    public static final String EXPORT_REQUEST_PREFIX = "PX";
+    public static final String IMPORT_REQUEST_PREFIX = "PN";
+    public static final String STOCK_CHECK_PREFIX = "PK";
+    public static final String IMPORT_ORDER_PREFIX = "DN";
+
+    @Transactional
+    public String nextExportRequestId() {
+        return nextDailyId(EXPORT_REQUEST_PREFIX, exportRequestRepository::countByIdStartingWith);
+    }
+
+    @Transactional
+    public String nextImportRequestId() {
+        return nextDailyId(IMPORT_REQUEST_PREFIX, importRequestRepository::countByIdStartingWith);
+    }
+
+    @Transactional
+    public String nextStockCheckRequestId() {
+        return nextDailyId(STOCK_CHECK_PREFIX, stockCheckRequestRepository::countByIdStartingWith);
+    }
+
+    @Transactional
+    public String nextImportOrderId(ImportRequest importRequest) {
+        String sequenceKey = IMPORT_ORDER_PREFIX + "-" + importRequest.getId();
+        long sequence = nextValue(sequenceKey,
+                () -> importOrderRepository.countByImportRequest_Id(importRequest.getId()));
+        return sequenceKey + "-" + sequence;
+    }
+
+    private String nextDailyId(String prefix, ToLongFunction<String> countByPrefix) {
+        String datePart = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh")).format(DateTimeFormatter.BASIC_ISO_DATE);
+        String sequenceKey = prefix + "-" + datePart;
+        long sequence = nextValue(sequenceKey, () -> countByPrefix.applyAsLong(sequenceKey + "-"));
+        return String.format("%s-%s-%03d", prefix, datePart, sequence);
+    }
+
+    // Lần đầu cấp mã cho một key, sequence được khởi tạo bằng số mã đã tồn tại (dữ liệu trước khi có bảng này)
+    private long nextValue(String sequenceKey, LongSupplier existingCount) {
+        long value = businessIdSequenceRepository.incrementAndGet(sequenceKey)
+                .orElseGet(() -> businessIdSequenceRepository.insertOrIncrement(sequenceKey,
+                        existingCount.getAsLong() + 1));
+        LOGGER.info("Allocated sequence {} for key {}", value, sequenceKey);
+        return value;
+    }
+}
@@ -0,0 +1,144 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.Configuration;
+import capstonesu25.warehouse.model.configuration.ConfigurationCacheMetrics;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
+import capstonesu25.warehouse.repository.ConfigurationRepository;
+import capstonesu25.warehouse.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Giữ dòng configuration duy nhất trong bộ nhớ dưới dạng snapshot bất biến.
+ * Snapshot bị xóa khi ConfigurationService cập nhật; với nhiều instance, cột version
+ * được kiểm tra lại tối đa mỗi VERSION_CHECK_INTERVAL để nạp lại thay đổi từ instance khác.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConfigurationProvider {
+    private final ConfigurationRepository configurationRepository;
+    private final ItemRepository itemRepository;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationProvider.class);
+
+    private static final long VERSION_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final String REQUEST_COUNTED_ATTRIBUTE = ConfigurationProvider.class.getName() + ".counted";
+
+    private volatile ConfigurationSnapshot snapshot;
+    private volatile long lastVersionCheckNanos;
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong versionChecks = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong requestReads = new AtomicLong();
+    private final AtomicLong requestQueries = new AtomicLong();
+
+    public ConfigurationSnapshot get() {
+        return find().orElseThrow(() -> new NoSuchElementException("Configuration not found"));
+    }
+
+    public Optional<ConfigurationSnapshot> find() {
+        ConfigurationSnapshot current = snapshot;
+        int queries = 0;
+        if (current == null) {
+            current = load();
+            queries++;
+        } else if (System.nanoTime() - lastVersionCheckNanos > VERSION_CHECK_INTERVAL_NANOS) {
+            ConfigurationSnapshot checked = checkVersion(current);
+            queries += checked == current ? 1 : 2;
+            current = checked;
+        }
+        reads.incrementAndGet();
+        recordRequestRead(queries);
+        return Optional.ofNullable(current);
+    }
+
+    public void invalidate() {
+        snapshot = null;
+        // Xóa thêm một lần sau commit để không giữ lại snapshot được nạp lại trước khi thay đổi được commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    snapshot = null;
+                }
+            });
+        }
+        LOGGER.info("Configuration snapshot invalidated");
+    }
+
+    public ConfigurationCacheMetrics getMetrics() {
+        ConfigurationSnapshot current = snapshot;
+        long requestCount = requests.get();
+        long totalReads = reads.get();
+        long eliminatedInRequests = requestReads.get() - requestQueries.get();
+        return ConfigurationCacheMetrics.builder()
+                .cachedVersion(current != null ? current.getVersion() : null)
+                .reads(totalReads)
+                .loads(loads.get())
+                .versionChecks(versionChecks.get())
+                // Mỗi lần đọc trước đây là một câu configurationRepository.findAll()
+                .queriesEliminated(totalReads - loads.get() - versionChecks.get())
+                .requests(requestCount)
+                .readsPerRequest(requestCount == 0 ? 0 : (double) requestReads.get() / requestCount)
+                .queriesEliminatedPerRequest(requestCount == 0 ? 0 : (double) eliminatedInRequests / requestCount)
+                .build();
+    }
+
+    private synchronized ConfigurationSnapshot load() {
+        if (snapshot != null) {
+            return snapshot;
+        }
+        Optional<Configuration> configuration = configurationRepository.findFirstByOrderByIdAsc();
+        loads.incrementAndGet();
+        lastVersionCheckNanos = System.nanoTime();
+        if (configuration.isEmpty()) {
+            return null;
+        }
+        ConfigurationSnapshot loaded = ConfigurationSnapshot.from(configuration.get(),
+                itemRepository.findIdsByConfigurationId(configuration.get().getId()));
+        snapshot = loaded;
+        LOGGER.info("Loaded configuration snapshot version {}", loaded.getVersion());
+        return loaded;
+    }
+
+    private ConfigurationSnapshot checkVersion(ConfigurationSnapshot current) {
+        lastVersionCheckNanos = System.nanoTime();
+        versionChecks.incrementAndGet();
+        Long version = configurationRepository.findVersionById(current.getId()).orElse(null);
+        if (current.getVersion().equals(version)) {
+            return current;
+        }
+        LOGGER.info("Configuration version changed from {} to {}, reloading", current.getVersion(), version);
+        synchronized (this) {
+            if (snapshot == current) {
+                snapshot = null;
+            }
+        }
+        return load();
+    }
+
+    private void recordRequestRead(int queries) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        if (attributes.getAttribute(REQUEST_COUNTED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) == null) {
+            attributes.setAttribute(REQUEST_COUNTED_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            requests.incrementAndGet();
+        }
+        requestReads.incrementAndGet();
+        requestQueries.addAndGet(queries);
+    }
+}
@@ -2,7 +2,9 @@ package capstonesu25.warehouse.service;
 
 import capstonesu25.warehouse.entity.Configuration;
 import capstonesu25.warehouse.entity.Item;
+import capstonesu25.warehouse.model.configuration.ConfigurationCacheMetrics;
 import capstonesu25.warehouse.model.configuration.ConfigurationDto;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
 import capstonesu25.warehouse.repository.ConfigurationRepository;
 import capstonesu25.warehouse.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
@@ -14,16 +16,20 @@ import org.springframework.stereotype.Service;
 public class ConfigurationService {
     private final ConfigurationRepository configurationRepository;
     private final ItemRepository itemRepository;
+    private final ConfigurationProvider configurationProvider;
     private static final Logger logger = org.slf4j.LoggerFactory.getLogger(ConfigurationService.class);
 
     public ConfigurationDto getConfiguration() {
         logger.info("Fetching configuration");
-        Configuration configuration = configurationRepository.findAll().stream()
-                .findFirst()
+        ConfigurationSnapshot configuration = configurationProvider.find()
                 .orElseThrow(() -> new RuntimeException("Configuration not found"));
         return mapToDto(configuration);
     }
 
+    public ConfigurationCacheMetrics getCacheMetrics() {
+        return configurationProvider.getMetrics();
+    }
+
     public ConfigurationDto saveConfiguration(ConfigurationDto configurationDto) {
         logger.info("Updating configuration");
         Configuration configuration = configurationRepository.findById(configurationDto.getId())
@@ -44,8 +50,10 @@ public class ConfigurationService {
         configuration.setMaxDispatchErrorPercent(configurationDto.getMaxDispatchErrorPercent());
         configuration.setMaxPercentOfItemForExport(configurationDto.getMaxPercentOfItemForExport());
         configuration.setWarehouseIsChecking(configurationDto.getWarehouseIsChecking());
+        configuration.setVersion(configuration.getVersion() != null ? configuration.getVersion() + 1 : 1L);
 
         Configuration updatedConfiguration = configurationRepository.save(configuration);
+        configurationProvider.invalidate();
         return mapToDto(updatedConfiguration);
     }
 
@@ -74,5 +82,27 @@ public class ConfigurationService {
         );
     }
 
+    private ConfigurationDto mapToDto(ConfigurationSnapshot configuration) {
+        return new ConfigurationDto(
+                configuration.getId(),
+                configuration.getItemIds(),
+                configuration.getWorkingTimeStart(),
+                configuration.getWorkingTimeEnd(),
+                configuration.getCreateRequestTimeAtLeast(),
+                configuration.getTimeToAllowAssign(),
+                configuration.getTimeToAllowConfirm(),
+                configuration.getTimeToAllowCancel(),
+                configuration.getTimeToAllowCounting(),
+                configuration.getDayWillBeCancelRequest(),
+                configuration.getDaysToAllowExtend(),
+                configuration.getMaxAllowedDaysForExtend(),
+                configuration.getMaxAllowedDaysForImportRequestProcess(),
+                configuration.getMaxDispatchErrorPercent(),
+                configuration.getMaxPercentOfItemForExport(),
+                configuration.getWarehouseIsChecking(),
+                configuration.getPeriodicCreatingStockCheck()
+        );
+    }
+
 
 }
@@ -4,11 +4,12 @@ import capstonesu25.warehouse.entity.*;
 import capstonesu25.warehouse.enums.*;
 import capstonesu25.warehouse.model.account.AccountResponse;
 import capstonesu25.warehouse.model.account.ActiveAccountRequest;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
 import capstonesu25.warehouse.model.exportrequest.exportrequestdetail.ExportRequestDetailRequest;
 import capstonesu25.warehouse.model.exportrequest.exportrequestdetail.ExportRequestDetailResponse;
+import capstonesu25.warehouse.model.inventoryitem.MeasurementSelection;
 import capstonesu25.warehouse.repository.*;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -30,8 +31,9 @@ public class ExportRequestDetailService {
     private final InventoryItemRepository inventoryItemRepository;
     private final AccountService accountService;
     private final AccountRepository accountRepository;
-    private final ConfigurationRepository configurationRepository;
+    private final ConfigurationProvider configurationProvider;
     private final StaffPerformanceRepository staffPerformanceRepository;
+    private final InventoryPickingService inventoryPickingService;
 
     private static final Integer LIQUIDATION = 30;
     private static final Logger LOGGER = LoggerFactory.getLogger(ExportRequestDetailService.class);
@@ -223,26 +225,7 @@ public class ExportRequestDetailService {
         LOGGER.info("Auto choosing inventory items for SELLING for {} details", details.size());
 
         for (ExportRequestDetail detail : details) {
-            int quantity = detail.getQuantity();
-
-            List<InventoryItem> sortedInventoryItems = inventoryItemRepository
-                    .findByItem_IdAndParentNullAndStatus(detail.getItem().getId(), ItemStatus.AVAILABLE)
-                    .stream()
-                    .sorted(Comparator.comparing(InventoryItem::getImportedDate).reversed())
-                    .filter(inventoryItem -> inventoryItem.getMeasurementValue().equals(inventoryItem.getItem().getMeasurementValue()))
-                    .limit(quantity)
-                    .toList();
-
-            if(sortedInventoryItems.size() < detail.getQuantity()) {
-                throw new IllegalArgumentException("not enough inventory item with full measurement value to export");
-            }
-
-            for (InventoryItem inventoryItem : sortedInventoryItems) {
-                inventoryItem.setExportRequestDetail(detail);
-                inventoryItem.setStatus(ItemStatus.UNAVAILABLE);
-                inventoryItemRepository.save(inventoryItem);
-            }
-
+            inventoryPickingService.pickFullItems(detail);
             LOGGER.info("Done choosing inventory for SELLING detail ID: {}", detail.getId());
         }
     }
@@ -285,57 +268,20 @@ public class ExportRequestDetailService {
     private void autoChooseInventoryItemsForProduction(List<ExportRequestDetail> details) {
         LOGGER.info("Auto choosing inventory items for PRODUCTION for {} details", details.size());
 
-        Configuration configuration = configurationRepository.findAll().getFirst();
-        Map<Item, Pair<Double, Integer>> excessMap = new HashMap<>();
+        ConfigurationSnapshot configuration = configurationProvider.get();
 
         for (ExportRequestDetail detail : details) {
-            List<InventoryItem> inventoryItemList = inventoryItemRepository.findByItem_Id(detail.getItem().getId());
-
-            List<InventoryItem> sortedInventoryItems = inventoryItemList.stream().
-                    filter(inventoryItem -> inventoryItem.getExportRequestDetail() == null &&
-                            inventoryItem.getStatus() == ItemStatus.AVAILABLE &&
-                            inventoryItem.getMeasurementValue() > 0)
-                    .sorted(Comparator.comparing(InventoryItem::getMeasurementValue))
-                    .toList();
-
-            double requestedMeasurement = detail.getMeasurementValue();
-            double maxAllowedMeasurement = requestedMeasurement + (requestedMeasurement * configuration.getMaxDispatchErrorPercent() / 100);
-
-            List<InventoryItem> selectedItems = new ArrayList<>();
-            double total = 0.0;
-
-            for (InventoryItem item : sortedInventoryItems) {
-                if (total >= requestedMeasurement) break;
-                selectedItems.add(item);
-                total += item.getMeasurementValue();
+            MeasurementSelection selection = inventoryPickingService.pickByMeasurement(detail,
+                    detail.getMeasurementValue(), configuration.getMaxDispatchErrorPercent());
+            if (!selection.isWithinTolerance()) {
+                LOGGER.warn("Export detail ID {} dispatches {} for requested {}, exceeding max dispatch error {}%",
+                        detail.getId(), selection.getTotalMeasurement(), detail.getMeasurementValue(),
+                        configuration.getMaxDispatchErrorPercent());
             }
 
-            if (total < requestedMeasurement) {
-                throw new IllegalArgumentException("Không thể chọn đủ inventory items cho item " + detail.getItem().getId() + ", yêu cầu: " + requestedMeasurement);
-            }
-
-            if (total > maxAllowedMeasurement) {
-                double excess = total - requestedMeasurement;
-                int quantity = selectedItems.size();
-
-                excessMap.merge(detail.getItem(),
-                        Pair.of(excess, quantity),
-                        (oldVal, newVal) -> Pair.of(
-                                oldVal.getLeft() + newVal.getLeft(),
-                                oldVal.getRight() + newVal.getRight()
-                        )
-                );
-            }
-
-            detail.setQuantity(selectedItems.size());
+            detail.setQuantity(selection.getInventoryItemIds().size());
             exportRequestDetailRepository.save(detail);
 
-            for (InventoryItem item : selectedItems) {
-                item.setExportRequestDetail(detail);
-                item.setStatus(ItemStatus.UNAVAILABLE);
-                inventoryItemRepository.save(item);
-            }
-
             LOGGER.info("Done choosing inventory for PRODUCTION detail ID: {}", detail.getId());
         }
 
@@ -377,7 +323,7 @@ public class ExportRequestDetailService {
         LOGGER.info("Auto assigning confirm staff for export request with ID: " + exportRequest.getId());
         ActiveAccountRequest activeAccountRequest = new ActiveAccountRequest();
         activeAccountRequest.setDate(exportRequest.getExportDate());
-        Configuration configuration = configurationRepository.findAll().getFirst();
+        ConfigurationSnapshot configuration = configurationProvider.get();
         List<AccountResponse> accountResponses = accountService.getAllActiveStaffsInDate(activeAccountRequest);
         List<AccountResponse> responses = new ArrayList<>();
 
@@ -5,6 +5,7 @@ import capstonesu25.warehouse.entity.*;
 import capstonesu25.warehouse.enums.*;
 import capstonesu25.warehouse.model.account.AccountResponse;
 import capstonesu25.warehouse.model.account.ActiveAccountRequest;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
 import capstonesu25.warehouse.model.exportrequest.OverviewExport;
 import capstonesu25.warehouse.model.exportrequest.RenewExportRequestRequest;
 import capstonesu25.warehouse.model.exportrequest.UpdateDepartment;
@@ -12,9 +13,11 @@ import capstonesu25.warehouse.model.exportrequest.exportliquidation.ExportLiquid
 import capstonesu25.warehouse.model.exportrequest.exportpartial.ExportSellingRequest;
 import capstonesu25.warehouse.model.exportrequest.exportproduction.ExportRequestRequest;
 import capstonesu25.warehouse.model.exportrequest.ExportRequestResponse;
+import capstonesu25.warehouse.model.exportrequest.ExportRequestRow;
 import capstonesu25.warehouse.model.exportrequest.exportreturn.ExportReturnRequest;
 import capstonesu25.warehouse.model.importrequest.AssignStaffExportRequest;
 import capstonesu25.warehouse.model.importrequest.OverviewImport;
+import capstonesu25.warehouse.model.responsedto.CursorPageDTO;
 import capstonesu25.warehouse.repository.*;
 import capstonesu25.warehouse.utils.NotificationUtil;
 import lombok.RequiredArgsConstructor;
@@ -30,10 +33,8 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -42,7 +43,7 @@ public class ExportRequestService {
     private final AccountRepository accountRepository;
     private final ImportOrderRepository importOrderRepository;
     private final StaffPerformanceRepository staffPerformanceRepository;
-    private final ConfigurationRepository configurationRepository;
+    private final ConfigurationProvider configurationProvider;
     private final InventoryItemRepository inventoryItemRepository;
     private final StoredLocationRepository storedLocationRepository;
     private final ItemRepository itemRepository;
@@ -53,100 +54,79 @@ public class ExportRequestService {
     private final ImportRequestRepository importRequestRepository;
     private final ImportRequestDetailRepository importRequestDetailRepository;
     private final ImportOrderDetailRepository importOrderDetailRepository;
+    private final BusinessIdService businessIdService;
 
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ExportRequestService.class);
 
+    @Transactional(readOnly = true)
     public List<ExportRequestResponse> getAllExportRequests() {
-        return exportRequestRepository.findAll().stream()
-                .map(this::mapToResponse)
-                .toList();
+        return mapRowsToResponse(exportRequestRepository.findAllRows());
     }
 
+    @Transactional(readOnly = true)
     public Page<ExportRequestResponse> getAllExportRequestsByPage(int page, int limit) {
         Pageable pageable = PageRequest.of(page - 1, limit);
-        Page<ExportRequest> exportRequests = exportRequestRepository.findAll(pageable);
-        return exportRequests.map(this::mapToResponse);
+        Page<ExportRequestRow> rows = exportRequestRepository.findAllRows(pageable);
+        return new PageImpl<>(mapRowsToResponse(rows.getContent()), pageable, rows.getTotalElements());
     }
 
+    @Transactional(readOnly = true)
     public Page<ExportRequestResponse> getAllExportRequestByAssignStaff(Long staffId, int page, int limit) {
-        Pageable pageable = PageRequest.of(page - 1, limit, Sort.by(Sort.Direction.DESC, "createdDate"));
-
-        // Fetch both sets
-        Page<ExportRequest> exportRequestsConfirmStaff = exportRequestRepository.findAllByAssignedStaff_Id(staffId, Pageable.unpaged());
-        Page<ExportRequest> exportRequestsCountingStaff = exportRequestRepository.findAllByCountingStaffId(staffId, Pageable.unpaged());
-
-        // Merge, remove duplicates by ID
-        Map<String, ExportRequest> uniqueRequests = new HashMap<>();
-        Stream.concat(exportRequestsConfirmStaff.getContent().stream(), exportRequestsCountingStaff.getContent().stream())
-                .forEach(req -> uniqueRequests.putIfAbsent(req.getId(), req));
-
-        // Sort by createdDate DESC
-        List<ExportRequest> sortedMergedList = uniqueRequests.values().stream()
-                .sorted(Comparator.comparing(ExportRequest::getCreatedDate).reversed())
-                .collect(Collectors.toList());
-
-        // Manual pagination
-        int start = Math.min((page - 1) * limit, sortedMergedList.size());
-        int end = Math.min(start + limit, sortedMergedList.size());
-        List<ExportRequestResponse> pagedResponses = sortedMergedList.subList(start, end).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
-
-        return new PageImpl<>(pagedResponses, pageable, sortedMergedList.size());
+        LOGGER.info("Get export requests of staff {} page {}", staffId, page);
+        Pageable pageable = PageRequest.of(page - 1, limit);
+        int offset = (int) pageable.getOffset();
+        List<String> ids = exportRequestRepository.findIdsOfStaffBefore(staffId,
+                CursorPageDTO.createdDateOrFirst(null), CursorPageDTO.idOrFirst(null), limit, offset);
+        return new PageImpl<>(mapRowsToResponse(findRowsInOrder(ids)), pageable,
+                exportRequestRepository.countOfStaff(staffId));
     }
 
-
+    // Keyset theo (createdDate, id) giảm dần: trang sâu không phải bỏ qua các dòng phía trước như OFFSET
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ExportRequestResponse> getExportRequestsOfStaffBefore(Long staffId,
+                                                                             LocalDateTime beforeCreatedDate,
+                                                                             String beforeId, int limit) {
+        LOGGER.info("Get export requests of staff {} before ({}, {})", staffId, beforeCreatedDate, beforeId);
+        int pageSize = CursorPageDTO.pageSize(limit);
+        List<String> ids = exportRequestRepository.findIdsOfStaffBefore(staffId,
+                CursorPageDTO.createdDateOrFirst(beforeCreatedDate), CursorPageDTO.idOrFirst(beforeId),
+                pageSize + 1, 0);
+        return CursorPageDTO.of(mapRowsToResponse(findRowsInOrder(ids)), pageSize,
+                ExportRequestResponse::getCreatedDate, ExportRequestResponse::getExportRequestId);
+    }
 
     public ExportRequestResponse getExportRequestById(String id) {
         ExportRequest exportRequest = exportRequestRepository.findById(id).orElseThrow();
         return mapToResponse(exportRequest);
     }
 
+    @Transactional(readOnly = true)
     public List<ExportRequestResponse> getExportRequestsByStatus(RequestStatus status, LocalDate fromDate, LocalDate toDate) {
-        List<ExportRequest> exportRequests = exportRequestRepository.findAllByStatus(status);
-
-        return exportRequests.stream()
-                .filter(er -> {
-                    LocalDate created = er.getCreatedDate().toLocalDate();
-                    return (created.isEqual(fromDate) || created.isAfter(fromDate))
-                            && (created.isEqual(toDate) || created.isBefore(toDate));
-                })
-                .map(this::mapToResponse)
-                .toList();
+        LOGGER.info("Get export requests by status {} from {} to {}", status, fromDate, toDate);
+        return mapRowsToResponse(exportRequestRepository.findRowsByStatusInCreatedDateRange(
+                status, fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay()));
     }
 
-    public OverviewExport getNumberFromDate (LocalDate fromDate, LocalDate toDate) {
-        LOGGER.info("get number export requests");
-        List<RequestStatus> ongoingStatuses = List.of(
-                RequestStatus.IN_PROGRESS,
-                RequestStatus.EXTENDED,
-                RequestStatus.COUNTED,
-                RequestStatus.COUNT_AGAIN_REQUESTED,
-                RequestStatus.COUNT_CONFIRMED,
-                RequestStatus.WAITING_EXPORT,
-                RequestStatus.CONFIRMED
-        );
-
-        List<RequestStatus> finishStatues = List.of(
-                RequestStatus.COMPLETED,
-                RequestStatus.CANCELLED
-        );
+    @Transactional(readOnly = true)
+    public Page<ExportRequestResponse> getExportRequestsByStatus(RequestStatus status, LocalDate fromDate, LocalDate toDate, int page, int limit) {
+        LOGGER.info("Get export requests by status {} from {} to {} by page", status, fromDate, toDate);
+        Pageable pageable = PageRequest.of(page - 1, limit);
+        Page<ExportRequestRow> rows = exportRequestRepository.findRowsByStatusInCreatedDateRange(
+                status, fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay(), pageable);
+        return new PageImpl<>(mapRowsToResponse(rows.getContent()), pageable, rows.getTotalElements());
+    }
 
-        List<ExportRequest> ongoing = exportRequestRepository.findAllByStatusIn(ongoingStatuses).stream().filter(er -> {
-            LocalDate created = er.getCreatedDate().toLocalDate();
-            return (created.isEqual(fromDate) || created.isAfter(fromDate))
-                    && (created.isEqual(toDate) || created.isBefore(toDate));
-        }).toList();
-        List<ExportRequest> finish = exportRequestRepository.findAllByStatusIn(finishStatues).stream().filter(er -> {
-            LocalDate created = er.getCreatedDate().toLocalDate();
-            return (created.isEqual(fromDate) || created.isAfter(fromDate))
-                    && (created.isEqual(toDate) || created.isBefore(toDate));
-        }).toList();;
+    @Transactional(readOnly = true)
+    public OverviewExport getNumberFromDate(LocalDate fromDate, LocalDate toDate) {
+        LOGGER.info("get number export requests");
+        Map<RequestStatusBucket, Long> totals = RequestStatusBucket.tally(
+                exportRequestRepository.countGroupByStatusInCreatedDateRange(RequestStatusBucket.allStatuses(),
+                        fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay()));
 
         return OverviewExport.builder()
-                .numberOfOngoingExport(ongoing.size())
-                .numberOfFinishExport(finish.size())
+                .numberOfOngoingExport(totals.get(RequestStatusBucket.ONGOING).intValue())
+                .numberOfFinishExport(totals.get(RequestStatusBucket.FINISH).intValue())
                 .build();
     }
 
@@ -165,7 +145,7 @@ public class ExportRequestService {
         }
 
         ExportRequest exportRequest = new ExportRequest();
-        exportRequest.setId(createExportRequestId());
+        exportRequest.setId(businessIdService.nextExportRequestId());
 
         exportRequest.setReceiverName(request.getReceiverName());
         exportRequest.setReceiverPhone(request.getReceiverPhone());
@@ -188,7 +168,7 @@ public class ExportRequestService {
             NotificationUtil.EXPORT_REQUEST_CREATED_EVENT,
             export.getId(),
             "Đơn xuất mã #" + export.getId() + " đã được tạo",
-            accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER)
+            AccountRole.WAREHOUSE_MANAGER
         );
         return mapToResponse(export);
     }
@@ -203,7 +183,7 @@ public class ExportRequestService {
         }
 
         ExportRequest exportRequest = new ExportRequest();
-        exportRequest.setId(createExportRequestId());
+        exportRequest.setId(businessIdService.nextExportRequestId());
         exportRequest.setReceiverName(request.getReceiverName());
         exportRequest.setReceiverPhone(request.getReceiverPhone());
         exportRequest.setReceiverAddress(request.getReceiverAddress());
@@ -225,7 +205,7 @@ public class ExportRequestService {
             NotificationUtil.EXPORT_REQUEST_CREATED_EVENT,
             export.getId(),
             "Đơn xuất mã #" + export.getId() + " đã được tạo",
-            accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER)
+            AccountRole.WAREHOUSE_MANAGER
         );
         return autoAssignCountingStaff(exportRequest);
     }
@@ -250,7 +230,7 @@ public class ExportRequestService {
         Provider provider = importOrder.getImportRequest().getProvider();
 
         ExportRequest exportRequest = new ExportRequest();
-        exportRequest.setId(createExportRequestId());
+        exportRequest.setId(businessIdService.nextExportRequestId());
         exportRequest.setExportReason(request.getExportReason());
         exportRequest.setProviderId(provider.getId());
         exportRequest.setReceiverName(provider.getName());
@@ -282,7 +262,7 @@ public class ExportRequestService {
             NotificationUtil.EXPORT_REQUEST_CREATED_EVENT,
             export.getId(),
             "Đơn xuất mã #" + export.getId() + " đã được tạo",
-            accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER)
+            AccountRole.WAREHOUSE_MANAGER
         );
 
         return mapToResponse(export);
@@ -303,7 +283,7 @@ public class ExportRequestService {
         }
 
         ExportRequest exportRequest = new ExportRequest();
-        exportRequest.setId(createExportRequestId());
+        exportRequest.setId(businessIdService.nextExportRequestId());
         exportRequest.setExportReason(request.getExportReason());
         exportRequest.setReceiverName(request.getReceiverName());
         exportRequest.setReceiverPhone(request.getReceiverPhone());
@@ -338,7 +318,7 @@ public class ExportRequestService {
             NotificationUtil.EXPORT_REQUEST_CREATED_EVENT,
             export.getId(),
             "Đơn xuất mã #" + export.getId() + " đã được tạo",
-            accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER)
+            AccountRole.WAREHOUSE_MANAGER
         );
         return mapToResponse(export);
     }
@@ -371,7 +351,7 @@ public class ExportRequestService {
                     () -> new IllegalArgumentException("Staff not found with ID: " + request.getAccountId())
             );
             validateAccountForAssignment(staff);
-            Configuration configuration = configurationRepository.findAll().getFirst();
+            ConfigurationSnapshot configuration = configurationProvider.get();
             StaffPerformance staffPerformance = new StaffPerformance();
             staffPerformance.setExpectedWorkingTime(configuration.getTimeToAllowConfirm());
             staffPerformance.setDate(exportRequest.getExportDate());
@@ -484,7 +464,7 @@ public class ExportRequestService {
                 NotificationUtil.EXPORT_REQUEST_CONFIRMED_EVENT + "-" + savedExportRequest.getId(),
                 savedExportRequest.getId(),
                 "Đơn xuất mã #" + savedExportRequest.getId() + " đã được xác nhận kiểm đếm và sẵn sàng xuất",
-                accountRepository.findByRole(AccountRole.DEPARTMENT)
+                AccountRole.DEPARTMENT
             );
             if(savedExportRequest.getAssignedStaff() != null) {
                 notificationService.handleNotification(
@@ -503,7 +483,7 @@ public class ExportRequestService {
                     NotificationUtil.EXPORT_REQUEST_CONFIRMED_EVENT + "-" + savedExportRequest.getId(),
                     savedExportRequest.getId(),
                     "Đơn xuất mã #" + savedExportRequest.getId() + " đã được xác nhận kiểm đếm nhưng còn thiếu hàng",
-                    accountRepository.findByRole(AccountRole.DEPARTMENT)
+                    AccountRole.DEPARTMENT
                 );
             }
         } else if(savedExportRequest.getStatus() == RequestStatus.CANCELLED) {
@@ -514,7 +494,7 @@ public class ExportRequestService {
                     NotificationUtil.EXPORT_REQUEST_CANCELLED_EVENT + "-" + savedExportRequest.getId(),
                     savedExportRequest.getId(),
                     "Đơn xuất mã #" + savedExportRequest.getId() + " đã bị hủy do thiếu hàng",
-                    accountRepository.findByRole(AccountRole.DEPARTMENT)
+                    AccountRole.DEPARTMENT
                 );
             }
         }
@@ -539,24 +519,6 @@ public class ExportRequestService {
         return "ITM-" + importOrderDetail.getItem().getId() + "-" + importOrderDetail.getImportOrder().getId() + "-" + (index + 1);
     }
 
-    private String createImportOrderId(ImportRequest importRequest) {
-        int size = importRequest.getImportOrders().size();
-        return "DN-" + importRequest.getId() + "-" + (size + 1);
-    }
-    private String createImportRequestId() {
-        String prefix = "PN";
-        LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
-        String datePart = today.format(DateTimeFormatter.BASIC_ISO_DATE);
-        
-        String todayPrefix = prefix + "-" + datePart + "-";
-        List<ImportRequest> existingRequests = importRequestRepository.findByIdStartingWith(todayPrefix);
-        int todayCount = existingRequests.size();
-
-        String sequence = String.format("%03d", todayCount + 1);
-
-        return String.format("%s-%s-%s", prefix, datePart, sequence);
-    }
-
     @TransactionLoggable(type = "EXPORT_REQUEST", action = "COMPLETE", objectIdSource = "exportRequestId")
     public ExportRequestResponse completeExportRequest(String exportRequestId) {
         LOGGER.info("Completing export request with ID: " + exportRequestId);
@@ -608,7 +570,7 @@ public class ExportRequestService {
                 NotificationUtil.EXPORT_REQUEST_COUNTED_EVENT + "-" + exportRequest.getId(),
                 exportRequest.getId(),
                 "Đơn xuất mã #" + exportRequest.getId() + " đã được kiểm đếm",
-                accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER)
+                AccountRole.WAREHOUSE_MANAGER
             );
         }
 
@@ -619,14 +581,14 @@ public class ExportRequestService {
                 NotificationUtil.EXPORT_REQUEST_COMPLETED_EVENT + "-" + exportRequest.getId(),
                 exportRequest.getId(),
                 "Đơn xuất mã #" + exportRequest.getId() + " đã hoàn thành giao hàng",
-                accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER)
+                AccountRole.WAREHOUSE_MANAGER
             );
             notificationService.handleNotification(
                 NotificationUtil.DEPARTMENT_CHANNEL,
                 NotificationUtil.EXPORT_REQUEST_COMPLETED_EVENT + "-" + exportRequest.getId(),
                 exportRequest.getId(),
                 "Đơn xuất mã #" + exportRequest.getId() + " đã hoàn thành giao hàng",
-                accountRepository.findByRole(AccountRole.DEPARTMENT)
+                AccountRole.DEPARTMENT
             );
         }
 
@@ -667,9 +629,7 @@ public class ExportRequestService {
         if(exportRequest.getIsExtended()) {
             throw new IllegalStateException("Export request has already been extended");
         }
-        Configuration configuration = configurationRepository.findAll().stream()
-                .findFirst()
-                .orElseThrow(() -> new NoSuchElementException("Configuration not found"));
+        ConfigurationSnapshot configuration = configurationProvider.get();
         exportRequest.setStatus(RequestStatus.EXTENDED);
         exportRequest.setIsExtended(true);
 
@@ -725,7 +685,7 @@ public class ExportRequestService {
             throw new IllegalArgumentException("Cannot renew export request: Number of items exceeds original request");
         }
         ExportRequest newExportRequest = new ExportRequest();
-        String id = createExportRequestId();
+        String id = businessIdService.nextExportRequestId();
         newExportRequest.setId(id);
         newExportRequest.setExportReason(oldExportRequest.getExportReason());
         newExportRequest.setReceiverName(oldExportRequest.getReceiverName());
@@ -916,6 +876,55 @@ public class ExportRequestService {
         );
     }
 
+    // Danh sách phiếu xuất: một truy vấn cho các cột, một truy vấn cho id detail của cả trang
+    private List<ExportRequestRow> findRowsInOrder(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, ExportRequestRow> byId = exportRequestRepository.findRowsByIds(ids).stream()
+                .collect(Collectors.toMap(ExportRequestRow::getId, row -> row));
+        return ids.stream().map(byId::get).toList();
+    }
+
+    private List<ExportRequestResponse> mapRowsToResponse(List<ExportRequestRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Map<String, List<Long>> detailIds = new HashMap<>();
+        for (Object[] pair : exportRequestDetailRepository.findIdPairsByExportRequestIds(
+                rows.stream().map(ExportRequestRow::getId).toList())) {
+            detailIds.computeIfAbsent((String) pair[0], id -> new ArrayList<>()).add((Long) pair[1]);
+        }
+        return rows.stream()
+                .map(row -> new ExportRequestResponse(
+                        row.getId(),
+                        row.getExportReason(),
+                        row.getReceiverName(),
+                        row.getReceiverPhone(),
+                        row.getReceiverAddress(),
+                        row.getDepartmentId(),
+                        row.getProviderId(),
+                        row.getStatus(),
+                        row.getType(),
+                        row.getExportDate(),
+                        row.getExpectedReturnDate(),
+                        row.getIsExtended(),
+                        row.getExtendedDate(),
+                        row.getExtendedReason(),
+                        row.getAssignedStaffId(),
+                        row.getCountingDate(),
+                        row.getCountingTime(),
+                        row.getCountingStaffId(),
+                        row.getPaperId(),
+                        row.getImportOrderId(),
+                        detailIds.getOrDefault(row.getId(), List.of()),
+                        row.getCreatedBy(),
+                        row.getUpdatedBy(),
+                        row.getCreatedDate(),
+                        row.getUpdatedDate()))
+                .toList();
+    }
+
     private void validateAccountForAssignment(Account account) {
         if (account.getStatus() != AccountStatus.ACTIVE) {
             throw new IllegalStateException("Cannot assign staff: Account is not active");
@@ -941,9 +950,7 @@ public class ExportRequestService {
 
     private void validateForTimeDate(LocalDate date, LocalTime time) {
         LOGGER.info("Validating time and date for export request");
-        Configuration configuration = configurationRepository.findAll().stream()
-                .findFirst()
-                .orElseThrow(() -> new NoSuchElementException("Configuration not found with name: export request"));
+        ConfigurationSnapshot configuration = configurationProvider.get();
 
         long minutesToAdd = configuration.getCreateRequestTimeAtLeast().getHour() * 60
                 + configuration.getCreateRequestTimeAtLeast().getMinute();
@@ -1005,7 +1012,7 @@ public class ExportRequestService {
             activeAccountRequest.setDate(exportRequest.getExportDate());
         }
         activeAccountRequest.setExportRequestId(exportRequest.getId());
-        Configuration configuration = configurationRepository.findAll().getFirst();
+        ConfigurationSnapshot configuration = configurationProvider.get();
         List<AccountResponse> accountResponses = accountService.getAllActiveStaffsInDate(activeAccountRequest);
         List<AccountResponse> responses = new ArrayList<>();
 
@@ -1043,18 +1050,4 @@ public class ExportRequestService {
         );
     }
 
-    private String createExportRequestId() {
-        String prefix = "PX";
-        LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
-        String datePart = today.format(DateTimeFormatter.BASIC_ISO_DATE);
-        
-        String todayPrefix = prefix + "-" + datePart + "-";
-        List<ExportRequest> existingRequests = exportRequestRepository.findByIdStartingWith(todayPrefix);
-        int todayCount = existingRequests.size();
-
-        String sequence = String.format("%03d", todayCount + 1);
-
-        return String.format("%s-%s-%s", prefix, datePart, sequence);
-    }
-
 } 
\ No newline at end of file
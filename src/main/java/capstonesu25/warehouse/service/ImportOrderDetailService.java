@@ -17,10 +17,12 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.aop.framework.AopContext;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalTime;
 import java.util.List;
@@ -45,13 +47,15 @@ public class ImportOrderDetailService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ImportOrderDetailService.class);
 
+    @Transactional(readOnly = true)
     public Page<ImportOrderDetailResponse> getAllByImportOrderId(String importOrderId, int page, int limit) {
         LOGGER.info("Getting all import order detail by import order id: {}", importOrderId);
         Pageable pageable = PageRequest.of(Math.max(0, page - 1), limit);
         Page<ImportOrderDetail> importOrderDetailPage = importOrderDetailRepository
                 .findImportOrderDetailByImportOrder_Id(importOrderId, pageable);
-        return importOrderDetailPage.map(detail ->
-                Mapper.mapToImportOrderDetailResponse(detail, itemProviderRepository));
+        return new PageImpl<>(
+                Mapper.mapToImportOrderDetailResponses(importOrderDetailPage.getContent(), itemProviderRepository),
+                pageable, importOrderDetailPage.getTotalElements());
 
     }
 
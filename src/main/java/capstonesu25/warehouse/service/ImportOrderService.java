@@ -5,20 +5,29 @@ import capstonesu25.warehouse.entity.*;
 import capstonesu25.warehouse.enums.*;
 import capstonesu25.warehouse.model.account.AccountResponse;
 import capstonesu25.warehouse.model.account.ActiveAccountRequest;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
 import capstonesu25.warehouse.model.importorder.ImportOrderCreateRequest;
 import capstonesu25.warehouse.model.importorder.ImportOrderResponse;
 import capstonesu25.warehouse.model.importorder.ImportOrderUpdateRequest;
+import capstonesu25.warehouse.model.responsedto.CursorPageDTO;
+import capstonesu25.warehouse.model.storedlocation.LocationNode;
+import capstonesu25.warehouse.model.storedlocation.PutawayAssignment;
+import capstonesu25.warehouse.model.storedlocation.PutawayDemand;
+import capstonesu25.warehouse.model.storedlocation.PutawayPlan;
+import capstonesu25.warehouse.model.storedlocation.PutawayReport;
 import capstonesu25.warehouse.repository.*;
 import capstonesu25.warehouse.utils.Mapper;
 import capstonesu25.warehouse.utils.NotificationUtil;
-import jakarta.transaction.Transactional;
+import capstonesu25.warehouse.utils.PutawayPlanUtil;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -35,7 +44,7 @@ public class ImportOrderService {
     private final ImportRequestRepository importRequestRepository;
     private final AccountRepository accountRepository;
     private final StaffPerformanceRepository staffPerformanceRepository;
-    private final ConfigurationRepository configurationRepository;
+    private final ConfigurationProvider configurationProvider;
     private final ImportRequestDetailRepository importRequestDetailRepository;
     private final ImportOrderDetailRepository importOrderDetailRepository;
     private final InventoryItemRepository inventoryItemRepository;
@@ -45,6 +54,7 @@ public class ImportOrderService {
     private final AccountService accountService;
     private final ImportOrderDetailService importOrderDetailService;
     private final ItemProviderRepository itemProviderRepository;
+    private final BusinessIdService businessIdService;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ImportOrderService.class);
 
@@ -54,20 +64,18 @@ public class ImportOrderService {
         return Mapper.mapToImportOrderResponse(importOrder,itemProviderRepository);
     }
 
+    @Transactional
     public List<ImportOrderResponse> getAllImportOrdersList() {
         LOGGER.info("Get all import orders list");
-        return importOrderRepository.findAll().stream()
-                .map(im -> Mapper.mapToImportOrderResponse(im, itemProviderRepository))
-                .toList();
+        return Mapper.mapToImportOrderResponses(importOrderRepository.findAll(), itemProviderRepository);
 
     }
 
+    @Transactional
     public List<ImportOrderResponse> getImportOrdersByImportRequestId(String id) {
         LOGGER.info("Get import orders by import request id: " + id);
         List<ImportOrder> importOrders = importOrderRepository.findImportOrdersByImportRequest_Id(id);
-        return importOrders.stream()
-                .map(im -> Mapper.mapToImportOrderResponse(im, itemProviderRepository))
-                .toList();
+        return Mapper.mapToImportOrderResponses(importOrders, itemProviderRepository);
 
 
     }
@@ -121,7 +129,7 @@ public class ImportOrderService {
         }
 
         ImportOrder importOrder = new ImportOrder();
-        importOrder.setId(createImportOrderId(importRequest));
+        importOrder.setId(businessIdService.nextImportOrderId(importRequest));
         importOrder.setImportRequest(importRequest);
         if (request.getDateReceived() != null && request.getTimeReceived() != null) {
             validateForTimeDate(request.getDateReceived(), request.getTimeReceived());
@@ -160,7 +168,7 @@ public class ImportOrderService {
                 NotificationUtil.IMPORT_ORDER_CREATED_EVENT,
                 savedImportOrder.getId(),
                 "Đơn nhập mã #" + savedImportOrder.getId() + " đã được tạo",
-                accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER));
+                AccountRole.WAREHOUSE_MANAGER);
 
         return Mapper.mapToImportOrderResponse(savedImportOrder, itemProviderRepository);
     }
@@ -213,13 +221,13 @@ public class ImportOrderService {
                 NotificationUtil.IMPORT_ORDER_STORED_EVENT + "-" + importOrderId,
                 importOrderId,
                 "Đơn nhập mã #" + importOrderId + " đã được lưu trữ",
-                accountRepository.findByRole(AccountRole.DEPARTMENT));
+                AccountRole.DEPARTMENT);
         notificationService.handleNotification(
                 NotificationUtil.WAREHOUSE_MANAGER_CHANNEL,
                 NotificationUtil.IMPORT_ORDER_STORED_EVENT + "-" + importOrderId,
                 importOrderId,
                 "Đơn nhập mã #" + importOrderId + " đã được lưu trữ",
-                accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER));
+                AccountRole.WAREHOUSE_MANAGER);
         return Mapper.mapToImportOrderResponse(importOrderRepository.save(importOrder), itemProviderRepository);
     }
 
@@ -250,9 +258,7 @@ public class ImportOrderService {
 
     private void validateForTimeDate(LocalDate date, LocalTime time) {
         LOGGER.info("Validating time and date for import order");
-        Configuration configuration = configurationRepository.findAll().stream()
-                .findFirst()
-                .orElseThrow(() -> new NoSuchElementException("Configuration not found with name: importOrder"));
+        ConfigurationSnapshot configuration = configurationProvider.get();
 
         long minutesToAdd = configuration.getCreateRequestTimeAtLeast().getHour() * 60
                 + configuration.getCreateRequestTimeAtLeast().getMinute();
@@ -287,26 +293,45 @@ public class ImportOrderService {
         return importOrderDetailService.assignStaff(importOrderId, accountId);
     }
 
+    @Transactional
     public Page<ImportOrderResponse> getImportOrdersByStaffId(Long staffId, int page, int limit) {
         LOGGER.info("Get import orders by staff id: " + staffId);
         Pageable pageable = PageRequest.of(page - 1, limit);
-        Page<ImportOrder> importOrders = importOrderRepository.findImportOrdersByAssignedStaff_Id(staffId, pageable);
-        return importOrders.map(im -> Mapper.mapToImportOrderResponse(im, itemProviderRepository));
+        Page<ImportOrder> importOrders = importOrderRepository
+                .findImportOrdersByAssignedStaff_IdOrderByCreatedDateDescIdDesc(staffId, pageable);
+        return new PageImpl<>(Mapper.mapToImportOrderResponses(importOrders.getContent(), itemProviderRepository),
+                pageable, importOrders.getTotalElements());
+    }
+
+    // Keyset theo (createdDate, id) giảm dần: trang sâu không phải bỏ qua các dòng phía trước như OFFSET
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ImportOrderResponse> getImportOrdersOfStaffBefore(Long staffId,
+                                                                         LocalDateTime beforeCreatedDate,
+                                                                         String beforeId, int limit) {
+        LOGGER.info("Get import orders of staff {} before ({}, {})", staffId, beforeCreatedDate, beforeId);
+        int pageSize = CursorPageDTO.pageSize(limit);
+        List<ImportOrder> importOrders = importOrderRepository.findOfStaffBefore(staffId,
+                CursorPageDTO.createdDateOrFirst(beforeCreatedDate), CursorPageDTO.idOrFirst(beforeId),
+                PageRequest.of(0, pageSize + 1));
+        return CursorPageDTO.of(Mapper.mapToImportOrderResponses(importOrders, itemProviderRepository), pageSize,
+                ImportOrderResponse::getCreatedDate, ImportOrderResponse::getImportOrderId);
     }
 
+    @Transactional
     public Page<ImportOrderResponse> getImportOrdersByPage(int page, int limit) {
         LOGGER.info("Get all import orders");
         Pageable pageable = PageRequest.of(page - 1, limit);
         Page<ImportOrder> importOrders = importOrderRepository.findAll(pageable);
-        return importOrders.map(im -> Mapper.mapToImportOrderResponse(im, itemProviderRepository));
+        return new PageImpl<>(Mapper.mapToImportOrderResponses(importOrders.getContent(), itemProviderRepository),
+                pageable, importOrders.getTotalElements());
 
     }
 
+    @Transactional
     public List<ImportOrderResponse> getImportOrdersByStatus(RequestStatus status) {
         LOGGER.info("Get import orders by status: " + status);
         List<ImportOrder> importOrders = importOrderRepository.findAllByStatus(status);
-        return importOrders.stream()
-                .map(im -> Mapper.mapToImportOrderResponse(im, itemProviderRepository)).toList();
+        return Mapper.mapToImportOrderResponses(importOrders, itemProviderRepository);
     }
 
     @TransactionLoggable(type = "IMPORT_ORDER", action = "CANCEL", objectIdSource = "importOrderId")
@@ -354,7 +379,7 @@ public class ImportOrderService {
                 NotificationUtil.IMPORT_ORDER_CANCELLED_EVENT + "-" + importOrderId,
                 importOrderId,
                 "Đơn nhập mã #" + importOrderId + " đã bị hủy",
-                accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER));
+                AccountRole.WAREHOUSE_MANAGER);
         return Mapper.mapToImportOrderResponse(importOrderRepository.save(importOrder),itemProviderRepository);
     }
 
@@ -374,7 +399,7 @@ public class ImportOrderService {
                 NotificationUtil.IMPORT_ORDER_COMPLETED_EVENT + "-" + importOrderId,
                 importOrderId,
                 "Đơn nhập mã #" + importOrderId + " đã hoàn tất",
-                accountRepository.findByRole(AccountRole.DEPARTMENT));
+                AccountRole.DEPARTMENT);
         return Mapper.mapToImportOrderResponse(importOrderRepository.save(importOrder),itemProviderRepository);
     }
 
@@ -395,7 +420,7 @@ public class ImportOrderService {
                 NotificationUtil.IMPORT_ORDER_COMPLETED_EVENT + "-" + importOrderId,
                 importOrderId,
                 "Đơn nhập mã #" + importOrderId + " đã hoàn tất",
-                accountRepository.findByRole(AccountRole.DEPARTMENT));
+                AccountRole.DEPARTMENT);
 
         return Mapper.mapToImportOrderResponse(importOrderRepository.save(importOrder),itemProviderRepository);
     }
@@ -417,9 +442,7 @@ public class ImportOrderService {
             throw new IllegalStateException("Cannot extend import order with status: " + importOrder.getStatus());
         }
 
-        Configuration configuration = configurationRepository.findAll().stream()
-                .findFirst()
-                .orElseThrow(() -> new NoSuchElementException("Configuration not found"));
+        ConfigurationSnapshot configuration = configurationProvider.get();
         importOrder.setStatus(RequestStatus.EXTENDED);
         importOrder.setExtended(true);
         if (extendedDate == null) {
@@ -454,7 +477,7 @@ public class ImportOrderService {
                 NotificationUtil.IMPORT_ORDER_EXTENDED_EVENT + "-" + importOrderId,
                 importOrderId,
                 "Đơn nhập mã #" + importOrderId + " đã được gia hạn",
-                accountRepository.findByRole(AccountRole.DEPARTMENT));
+                AccountRole.DEPARTMENT);
         return Mapper.mapToImportOrderResponse(importOrderRepository.save(importOrder),itemProviderRepository);
     }
 
@@ -483,7 +506,7 @@ public class ImportOrderService {
                 NotificationUtil.IMPORT_ORDER_READY_TO_STORE_EVENT + "-" + importOrderId,
                 importOrderId,
                 "Đơn nhập mã #" + importOrderId + " đã sẵn sàng lưu kho",
-                accountRepository.findByRole(AccountRole.DEPARTMENT));
+                AccountRole.DEPARTMENT);
 
         notificationService.handleNotification(
                 NotificationUtil.STAFF_CHANNEL + importOrder.getAssignedStaff().getId(),
@@ -521,7 +544,7 @@ public class ImportOrderService {
                 NotificationUtil.IMPORT_ORDER_COUNT_AGAIN_REQUESTED_EVENT + "-" + importOrderId,
                 importOrderId,
                 "Đơn nhập mã #" + importOrderId + " đã được yêu cầu đếm lại",
-                accountRepository.findByRole(AccountRole.DEPARTMENT));
+                AccountRole.DEPARTMENT);
         notificationService.handleNotification(
                 NotificationUtil.STAFF_CHANNEL + importOrder.getAssignedStaff().getId(),
                 NotificationUtil.IMPORT_ORDER_COUNT_AGAIN_REQUESTED_EVENT + "-" + importOrderId,
@@ -645,117 +668,115 @@ public class ImportOrderService {
         importOrderRepository.save(importOrder);
     }
 
-    // ImportOrderService.java
-
+    // Lập kế hoạch cho cả import order trên một snapshot location rồi ghi một lần
     private void autoFillLocationForImport(ImportOrder importOrder) {
         LOGGER.info("Auto fill location");
-
-        for (ImportOrderDetail detail : importOrder.getImportOrderDetails()) {
-            Item item = detail.getItem();
-
-            // 1) Lấy đúng các item chưa gán vị trí của lô hiện tại
-            List<InventoryItem> unassigned = inventoryItemRepository
-                    .findAllByImportOrderDetailIdAndStoredLocationIsNull(detail.getId());
-
-            if (unassigned.isEmpty()) {
-                LOGGER.info("No unassigned items for detail {}", detail.getId());
-                continue;
-            }
-
-            // 2) Lấy các vị trí còn chỗ (có thể thay bằng truy vấn có khóa/điều kiện)
-            List<StoredLocation> all = storedLocationRepository.findByIsFulledFalse();
-            if (all.isEmpty()) {
-                LOGGER.warn("No candidate locations for detail {}", detail.getId());
-                continue;
-            }
-
-            // 3) Sắp xếp theo zone/floor/row/line
-            all.sort(Comparator
-                    .comparing(StoredLocation::getZone, Comparator.nullsLast(String::compareTo))
-                    .thenComparing(loc -> safeInt(loc.getFloor()))
-                    .thenComparing(loc -> safeInt(strip(loc.getRow(), "R")))
-                    .thenComparing(loc -> safeInt(strip(loc.getLine(), "L")))
-            );
-
-            // 4) Ưu tiên location đã chứa cùng item
-            List<StoredLocation> preferred = new ArrayList<>();
-            List<StoredLocation> others = new ArrayList<>();
-            for (StoredLocation loc : all) {
-                int free = freeCapacity(loc);
-                if (free <= 0) continue;
-                if (loc.getItems() != null && loc.getItems().contains(item)) preferred.add(loc);
-                else others.add(loc);
+        Map<Long, List<InventoryItem>> unassignedByDetail = findUnassignedByDetail(importOrder.getId());
+        if (unassignedByDetail.isEmpty()) {
+            LOGGER.info("No unassigned items for import order {}", importOrder.getId());
+            return;
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        unassignedByDetail.forEach((detailId, items) -> quantities.put(detailId, items.size()));
+
+        List<StoredLocation> locations = storedLocationRepository.findByIsFulledFalse();
+        PutawayPlan plan = planPutaway(importOrder, quantities, locations);
+
+        Map<Long, StoredLocation> locationById = locations.stream()
+                .collect(Collectors.toMap(StoredLocation::getId, loc -> loc));
+        Map<Long, Item> itemByDetail = importOrder.getImportOrderDetails().stream()
+                .collect(Collectors.toMap(ImportOrderDetail::getId, ImportOrderDetail::getItem));
+        Map<Long, Integer> cursors = new HashMap<>();
+        List<InventoryItem> placed = new ArrayList<>();
+        Set<StoredLocation> touched = new LinkedHashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (PutawayAssignment assignment : plan.getAssignments()) {
+            Long detailId = assignment.getImportOrderDetailId();
+            int from = cursors.getOrDefault(detailId, 0);
+            cursors.put(detailId, from + assignment.getQuantity());
+            List<InventoryItem> batch = unassignedByDetail.get(detailId).subList(from, from + assignment.getQuantity());
+            StoredLocation loc = locationById.get(assignment.getStoredLocationId());
+            Item item = itemByDetail.get(detailId);
+
+            // Bảo đảm mapping many-to-many
+            if (loc.getItems() == null) loc.setItems(new ArrayList<>());
+            if (!loc.getItems().contains(item)) loc.getItems().add(item);
+            if (item.getStoredLocations() == null) item.setStoredLocations(new ArrayList<>());
+            if (!item.getStoredLocations().contains(loc)) item.getStoredLocations().add(loc);
+
+            for (InventoryItem it : batch) {
+                it.setStoredLocation(loc);
+                it.setStatus(ItemStatus.AVAILABLE);
+                it.setUpdatedDate(now);
             }
+            placed.addAll(batch);
 
-            int remaining = unassigned.size();
-            int cursor = 0;
-
-            // 5) Thử lấp đầy theo thứ tự ưu tiên rồi đến các slot còn lại
-            for (StoredLocation loc : concat(preferred, others)) {
-                if (remaining == 0) break;
-
-                int free = freeCapacity(loc);
-                if (free <= 0) continue;
-
-                int take = Math.min(free, remaining);
-                List<InventoryItem> batch = unassigned.subList(cursor, cursor + take);
-
-                // Bảo đảm mapping many-to-many
-                if (loc.getItems() == null) loc.setItems(new ArrayList<>());
-                if (!loc.getItems().contains(item)) loc.getItems().add(item);
-                if (item.getStoredLocations() == null) item.setStoredLocations(new ArrayList<>());
-                if (!item.getStoredLocations().contains(loc)) item.getStoredLocations().add(loc);
+            loc.setCurrentCapacity(loc.getCurrentCapacity() + batch.size());
+            loc.setUsed(true);
+            loc.setFulled(loc.getCurrentCapacity() >= loc.getMaximumCapacityForItem());
+            touched.add(loc);
+        }
 
-                // Gán & cập nhật capacity
-                assignItemsToLocation(batch, loc);
+        // Các UPDATE được Hibernate gom thành JDBC batch khi flush (hibernate.jdbc.batch_size)
+        inventoryItemRepository.saveAll(placed);
+        storedLocationRepository.saveAll(touched);
 
-                cursor += take;
-                remaining -= take;
-            }
+        plan.getUnplacedByDetail().forEach((detailId, remaining) ->
+                LOGGER.warn("Còn {} sản phẩm chưa gán vị trí cho detail {} (thiếu tổng dung lượng).", remaining, detailId));
+        LOGGER.info("Placed {} items of import order {} into {} locations, planned in {} ms",
+                plan.placedItems(), importOrder.getId(), touched.size(), plan.getPlanningNanos() / 1_000_000.0);
+    }
 
-            if (remaining > 0) {
-                LOGGER.warn("Còn {} sản phẩm chưa gán vị trí cho detail {} (thiếu tổng dung lượng).",
-                        remaining, detail.getId());
-            } else {
-                LOGGER.info("Placed all {} items for detail {}", unassigned.size(), detail.getId());
+    // Xem trước kế hoạch xếp hàng; import order chưa hoàn tất thì dùng số lượng thực nhận (hoặc dự kiến)
+    public PutawayReport getPutawayPlan(String importOrderId) {
+        ImportOrder importOrder = importOrderRepository.findById(importOrderId)
+                .orElseThrow(() -> new NoSuchElementException("ImportOrder not found with ID: " + importOrderId));
+        Map<Long, Integer> quantities = new HashMap<>();
+        if (importOrder.getStatus() == RequestStatus.COMPLETED) {
+            findUnassignedByDetail(importOrderId).forEach((detailId, items) -> quantities.put(detailId, items.size()));
+        } else {
+            for (ImportOrderDetail detail : importOrder.getImportOrderDetails()) {
+                quantities.put(detail.getId(),
+                        detail.getActualQuantity() > 0 ? detail.getActualQuantity() : detail.getExpectQuantity());
             }
         }
-    }
-
-    /** Gán items vào location: set status, batch save, cập nhật capacity/flags. */
-    private void assignItemsToLocation(List<InventoryItem> items, StoredLocation location) {
-        for (InventoryItem it : items) {
-            it.setStoredLocation(location);
-            it.setStatus(ItemStatus.AVAILABLE);
-            it.setUpdatedDate(LocalDateTime.now());
+        PutawayPlan plan = planPutaway(importOrder, quantities, storedLocationRepository.findByIsFulledFalse());
+        return PutawayReport.builder()
+                .importOrderId(importOrderId)
+                .placedItems(plan.placedItems())
+                .unplacedItems(plan.unplacedItems())
+                .slotsUsed(plan.usedLocationIds().size())
+                .storedLocationIds(plan.usedLocationIds())
+                .assignments(plan.getAssignments())
+                .planningMillis(plan.getPlanningNanos() / 1_000_000.0)
+                .build();
+    }
+
+    private Map<Long, List<InventoryItem>> findUnassignedByDetail(String importOrderId) {
+        return inventoryItemRepository
+                .findAllByImportOrderDetail_ImportOrder_IdAndStoredLocationIsNullOrderByIdAsc(importOrderId).stream()
+                .collect(Collectors.groupingBy(inv -> inv.getImportOrderDetail().getId(),
+                        LinkedHashMap::new, Collectors.toList()));
+    }
+
+    private PutawayPlan planPutaway(ImportOrder importOrder, Map<Long, Integer> quantities,
+                                    List<StoredLocation> locations) {
+        List<PutawayDemand> demands = importOrder.getImportOrderDetails().stream()
+                .filter(detail -> quantities.getOrDefault(detail.getId(), 0) > 0)
+                .map(detail -> new PutawayDemand(detail.getId(), detail.getItem().getId(), quantities.get(detail.getId())))
+                .toList();
+        Map<Long, Set<String>> itemIds = new HashMap<>();
+        for (Object[] pair : storedLocationRepository.findLocationItemPairs()) {
+            itemIds.computeIfAbsent((Long) pair[0], id -> new HashSet<>()).add((String) pair[1]);
         }
-        inventoryItemRepository.saveAll(items);
-
-        location.setCurrentCapacity(location.getCurrentCapacity() + items.size());
-        location.setUsed(true);
-        location.setFulled(location.getCurrentCapacity() >= location.getMaximumCapacityForItem());
-        storedLocationRepository.save(location);
-    }
-
-    /** Helper: số chỗ trống của 1 location (chống NPE). */
-    private static int freeCapacity(StoredLocation loc) {
-        Integer max = loc.getMaximumCapacityForItem();
-        Integer cur = loc.getCurrentCapacity();
-        int m = (max == null ? 0 : max);
-        int c = (cur == null ? 0 : cur);
-        return Math.max(0, m - c);
-    }
-
-    private static int safeInt(String s) {
-        try { return Integer.parseInt(s); } catch (Exception e) { return Integer.MAX_VALUE; }
-    }
-    private static String strip(String s, String p) {
-        if (s == null) return "";
-        return s.startsWith(p) ? s.substring(p.length()) : s;
-    }
-    private static <T> List<T> concat(List<T> a, List<T> b) {
-        List<T> r = new ArrayList<>(a.size() + b.size());
-        r.addAll(a); r.addAll(b); return r;
+        List<LocationNode> nodes = locations.stream()
+                .map(loc -> LocationNode.from(loc, itemIds.getOrDefault(loc.getId(), Set.of())))
+                .toList();
+        List<LocationNode> doors = storedLocationRepository.findByIsDoorTrue().stream()
+                .map(loc -> LocationNode.from(loc, Set.of()))
+                .toList();
+        return PutawayPlanUtil.plan(demands, nodes, doors);
     }
 
     private void createInventoryItem(ImportOrderDetail importOrderDetail) {
@@ -816,11 +837,6 @@ public class ImportOrderService {
         LOGGER.info("Updated {} imported items", updatedItems.size());
     }
 
-    private String createImportOrderId(ImportRequest importRequest) {
-        int size = importRequest.getImportOrders().size();
-        return "DN-" + importRequest.getId() + "-" + (size + 1);
-    }
-
     private String createInventoryItemId(ImportOrderDetail importOrderDetail, int index) {
         return "ITM-" + importOrderDetail.getItem().getId() + "-" + importOrderDetail.getImportOrder().getId() + "-" + (index + 1);
     }
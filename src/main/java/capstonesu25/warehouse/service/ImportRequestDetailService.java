@@ -4,19 +4,23 @@ import capstonesu25.warehouse.annotation.transactionLog.TransactionLoggable;
 import capstonesu25.warehouse.entity.*;
 import capstonesu25.warehouse.enums.ImportType;
 import capstonesu25.warehouse.enums.RequestStatus;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
+import capstonesu25.warehouse.model.excel.ExcelReadResult;
+import capstonesu25.warehouse.model.excel.ExcelReadSummary;
 import capstonesu25.warehouse.model.importrequest.ImportRequestResponse;
 import capstonesu25.warehouse.model.importrequest.importrequestdetail.ImportRequestCreateWithDetailRequest;
 import capstonesu25.warehouse.model.importrequest.importrequestdetail.ImportRequestDetailResponse;
 import capstonesu25.warehouse.repository.*;
+import capstonesu25.warehouse.utils.ExcelUtil;
 import capstonesu25.warehouse.utils.Mapper;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 
@@ -26,10 +30,11 @@ public class ImportRequestDetailService {
     private final ImportRequestRepository importRequestRepository;
     private final ImportRequestDetailRepository importRequestDetailRepository;
     private final ItemRepository itemRepository;
-    private final ConfigurationRepository configurationRepository;
+    private final ConfigurationProvider configurationProvider;
     private static final Logger LOGGER = LoggerFactory.getLogger(ImportRequestDetailService.class);
     private final ProviderRepository providerRepository;
     private final ItemProviderRepository itemProviderRepository;
+    private final BusinessIdService businessIdService;
 
     @TransactionLoggable(type = "IMPORT_REQUEST", action = "CREATE", objectIdSource = "importRequestId")
     public List<ImportRequestResponse> createImportRequestWithDetails(List<ImportRequestCreateWithDetailRequest> detailRequests) {
@@ -39,7 +44,13 @@ public class ImportRequestDetailService {
         ImportRequestCreateWithDetailRequest firstRequest = detailRequests.get(0);
         String importReason = firstRequest.getImportReason();
         ImportType importType = firstRequest.getImportType();
-        checkSameProvider(detailRequests);
+        // Nạp item một lần cho cả danh sách, file Excel có thể có hàng nghìn dòng
+        Map<String, Item> items = new HashMap<>();
+        for (Item item : itemRepository.findAllById(detailRequests.stream()
+                .map(ImportRequestCreateWithDetailRequest::getItemId).distinct().toList())) {
+            items.put(item.getId(), item);
+        }
+        checkSameProvider(detailRequests, items);
 
         OptionalInt latestBatchSuffix = findLatestBatchSuffixForToday();
         int batchSuffix = latestBatchSuffix.isPresent() ? latestBatchSuffix.getAsInt() + 1 : 1;
@@ -58,17 +69,14 @@ public class ImportRequestDetailService {
             List<ImportRequestCreateWithDetailRequest> requests = entry.getValue();
 
             ImportRequest importRequest = new ImportRequest();
-            String uniqueId = createImportRequestId() + "-P" + providerId;
+            String uniqueId = businessIdService.nextImportRequestId() + "-P" + providerId;
             importRequest.setId(uniqueId);
             importRequest.setImportReason(importReason);
             importRequest.setStatus(RequestStatus.NOT_STARTED);
             importRequest.setType(importType);
             importRequest.setBatchCode(getTodayPrefix() + batchSuffix);
 
-            Configuration configuration = configurationRepository.findAll()
-                    .stream()
-                    .findFirst()
-                    .orElseThrow(() -> new NoSuchElementException("Configuration not found"));
+            ConfigurationSnapshot configuration = configurationProvider.get();
 
             LocalDate startDate = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
             LocalDate endDate = startDate.plusDays(configuration.getMaxAllowedDaysForImportRequestProcess());
@@ -117,15 +125,14 @@ public class ImportRequestDetailService {
                 detail.setImportRequest(savedImportRequest);
                 detail.setExpectMeasurementValue(req.getMeasurementValue());
                 detail.setExpectQuantity(req.getQuantity());
-                detail.setItem(itemRepository.findById(req.getItemId())
-                        .orElseThrow(() -> new RuntimeException("Item not found with ID: " + req.getItemId())));
+                detail.setItem(items.get(req.getItemId()));
                 detail.setActualMeasurementValue(0.0);
                 detail.setOrderedMeasurementValue(0.0);
                 detail.setActualQuantity(0);
                 detail.setOrderedQuantity(0);
-                ImportRequestDetail savedDetail = importRequestDetailRepository.save(detail);
-                savedDetails.add(savedDetail);
+                savedDetails.add(detail);
             }
+            savedDetails = importRequestDetailRepository.saveAll(savedDetails);
 
             savedImportRequest.setDetails(savedDetails);
             ImportRequestResponse response = Mapper.mapToImportRequestResponse(savedImportRequest, itemProviderRepository);
@@ -136,6 +143,31 @@ public class ImportRequestDetailService {
     }
 
 
+    // Đọc file Excel theo từng dòng, dòng thiếu dữ liệu bắt buộc được ghi vào danh sách lỗi thay vì dừng cả file
+    public ExcelReadResult<ImportRequestCreateWithDetailRequest> readImportRequestsFromExcel(MultipartFile file) {
+        LOGGER.info("Reading import requests from Excel file: {}", file.getOriginalFilename());
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Excel file is empty");
+        }
+        List<ImportRequestCreateWithDetailRequest> rows = new ArrayList<>();
+        ExcelReadSummary summary = ExcelUtil.processExcelFile(file, ImportRequestCreateWithDetailRequest.class, row -> {
+            if (row.getItemId() == null || row.getItemId().isBlank()) {
+                throw new IllegalArgumentException("Item ID is required");
+            }
+            if (row.getProviderId() == null) {
+                throw new IllegalArgumentException("Provider ID is required");
+            }
+            if (row.getImportReason() == null || row.getImportReason().isBlank()) {
+                throw new IllegalArgumentException("Import reason cannot be blank");
+            }
+            if (row.getQuantity() == null && row.getMeasurementValue() == null) {
+                throw new IllegalArgumentException("Quantity or measurement value is required");
+            }
+            rows.add(row);
+        });
+        return new ExcelReadResult<>(rows, summary);
+    }
+
     public void deleteImportRequestDetail(Long importRequestDetailId) {
         LOGGER.info("Deleting import request detail");
         importRequestDetailRepository.deleteById(importRequestDetailId);
@@ -148,9 +180,7 @@ public class ImportRequestDetailService {
 
 //        return importRequestDetails.stream().map(Mapper::mapToImportRequestDetailResponse).toList();
 
-        return importRequestDetails.stream().map(
-                d -> Mapper.mapToImportRequestDetailResponse(d,itemProviderRepository))
-                .toList();
+        return Mapper.mapToImportRequestDetailResponses(importRequestDetails, itemProviderRepository);
     }
 
     public ImportRequestDetailResponse getImportRequestDetailById(Long importRequestDetailId) {
@@ -170,10 +200,12 @@ public class ImportRequestDetailService {
                 .max(); // returns OptionalInt
     }
 
-    private void checkSameProvider(List<ImportRequestCreateWithDetailRequest> request) {
+    private void checkSameProvider(List<ImportRequestCreateWithDetailRequest> request, Map<String, Item> items) {
         for(ImportRequestCreateWithDetailRequest itemOrder : request) {
-            Item item = itemRepository.findById(itemOrder.getItemId())
-                    .orElseThrow(() -> new NoSuchElementException("Item not found with ID: " + itemOrder.getItemId()));
+            Item item = items.get(itemOrder.getItemId());
+            if (item == null) {
+                throw new NoSuchElementException("Item not found with ID: " + itemOrder.getItemId());
+            }
             boolean providerMatch = item.getItemProviders().stream()
                     .anyMatch(ip -> Objects.equals(ip.getProvider().getId(), itemOrder.getProviderId()));
 
@@ -185,20 +217,6 @@ public class ImportRequestDetailService {
         }
     }
 
-    private String createImportRequestId() {
-        String prefix = "PN";
-        LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
-        String datePart = today.format(DateTimeFormatter.BASIC_ISO_DATE);
-        
-        String todayPrefix = prefix + "-" + datePart + "-";
-        List<ImportRequest> existingRequests = importRequestRepository.findByIdStartingWith(todayPrefix);
-        int todayCount = existingRequests.size();
-
-        String sequence = String.format("%03d", todayCount + 1);
-
-        return String.format("%s-%s-%s", prefix, datePart, sequence);
-    }
-
     private String getTodayPrefix() {
         return LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh")) + "_";
     }
@@ -4,6 +4,8 @@ import capstonesu25.warehouse.annotation.transactionLog.TransactionLoggable;
 import capstonesu25.warehouse.entity.*;
 import capstonesu25.warehouse.enums.ImportType;
 import capstonesu25.warehouse.enums.RequestStatus;
+import capstonesu25.warehouse.enums.RequestStatusBucket;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
 import capstonesu25.warehouse.model.importrequest.OverviewImport;
 import capstonesu25.warehouse.model.importrequest.ImportRequestCreateRequest;
 import capstonesu25.warehouse.model.importrequest.ImportRequestResponse;
@@ -14,17 +16,19 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 @Service
@@ -32,69 +36,57 @@ import java.util.NoSuchElementException;
 public class ImportRequestService {
     private final ImportRequestRepository importRequestRepository;
     private static final Logger LOGGER = LoggerFactory.getLogger(ImportRequestService.class);
-    private final ConfigurationRepository configurationRepository;
+    private final ConfigurationProvider configurationProvider;
     private final DepartmentRepository departmentRepository;
     private final InventoryItemRepository inventoryItemRepository;
     private final ItemProviderRepository itemProviderRepository;
+    private final BusinessIdService businessIdService;
 
+    @Transactional(readOnly = true)
     public List<ImportRequestResponse> getAllImportRequests() {
         LOGGER.info("Get all import requests");
-        return importRequestRepository.findAll().stream()
-                .map(d -> Mapper.mapToImportRequestResponse(d, itemProviderRepository))
-                .toList();
+        return Mapper.mapToImportRequestResponses(importRequestRepository.findAll(), itemProviderRepository);
     }
 
+    @Transactional(readOnly = true)
     public Page<ImportRequestResponse> getAllImportRequestsByPage(int page, int limit) {
         LOGGER.info("Get all import requests by page");
         Pageable pageable = PageRequest.of(page - 1, limit);
         Page<ImportRequest> importRequests = importRequestRepository.findAll(pageable);
-        return importRequests.map(d -> Mapper.mapToImportRequestResponse(d,itemProviderRepository));
+        return new PageImpl<>(Mapper.mapToImportRequestResponses(importRequests.getContent(), itemProviderRepository),
+                pageable, importRequests.getTotalElements());
     }
 
+    @Transactional(readOnly = true)
     public List<ImportRequestResponse> getImportRequestsByStatus(RequestStatus status, LocalDate fromDate, LocalDate toDate) {
-        LOGGER.info("Get import requests by status: " + status);
-        List<ImportRequest> importRequests = importRequestRepository.findAllByStatus(status);
-        return importRequests.stream()
-                .filter(er -> {
-                    LocalDate created = er.getCreatedDate().toLocalDate();
-                    return (created.isEqual(fromDate) || created.isAfter(fromDate))
-                            && (created.isEqual(toDate) || created.isBefore(toDate));
-                })
-                .map(d-> Mapper.mapToImportRequestResponse(d,itemProviderRepository))
-                .toList();
+        LOGGER.info("Get import requests by status {} from {} to {}", status, fromDate, toDate);
+        return Mapper.mapToImportRequestResponses(
+                importRequestRepository.findByStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
+                        status, fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay()),
+                itemProviderRepository);
     }
 
+    @Transactional(readOnly = true)
+    public Page<ImportRequestResponse> getImportRequestsByStatus(RequestStatus status, LocalDate fromDate, LocalDate toDate, int page, int limit) {
+        LOGGER.info("Get import requests by status {} from {} to {} by page", status, fromDate, toDate);
+        Pageable pageable = PageRequest.of(page - 1, limit, Sort.by(Sort.Direction.DESC, "createdDate"));
+        Page<ImportRequest> importRequests = importRequestRepository
+                .findByStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
+                        status, fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay(), pageable);
+        return new PageImpl<>(Mapper.mapToImportRequestResponses(importRequests.getContent(), itemProviderRepository),
+                pageable, importRequests.getTotalElements());
+    }
+
+    @Transactional(readOnly = true)
     public OverviewImport getNumberFromDate(LocalDate fromDate, LocalDate toDate) {
         LOGGER.info("get number import requests");
-        List<RequestStatus> ongoingStatuses = List.of(
-                RequestStatus.IN_PROGRESS,
-                RequestStatus.EXTENDED,
-                RequestStatus.COUNTED,
-                RequestStatus.COUNT_AGAIN_REQUESTED,
-                RequestStatus.COUNT_CONFIRMED,
-                RequestStatus.WAITING_EXPORT,
-                RequestStatus.CONFIRMED
-        );
-
-        List<RequestStatus> finishStatues = List.of(
-                RequestStatus.COMPLETED,
-                RequestStatus.CANCELLED
-        );
-
-        List<ImportRequest> ongoing = importRequestRepository.findAllByStatusIn(ongoingStatuses).stream().filter(er -> {
-            LocalDate created = er.getCreatedDate().toLocalDate();
-            return (created.isEqual(fromDate) || created.isAfter(fromDate))
-                    && (created.isEqual(toDate) || created.isBefore(toDate));
-        }).toList();
-        List<ImportRequest> finish = importRequestRepository.findAllByStatusIn(finishStatues).stream().filter(er -> {
-            LocalDate created = er.getCreatedDate().toLocalDate();
-            return (created.isEqual(fromDate) || created.isAfter(fromDate))
-                    && (created.isEqual(toDate) || created.isBefore(toDate));
-        }).toList();
+        Map<RequestStatusBucket, Long> totals = RequestStatusBucket.tally(
+                importRequestRepository.countGroupByStatusInCreatedDateRange(RequestStatusBucket.allStatuses(),
+                        fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay()));
 
         return OverviewImport.builder()
-                .numberOfOngoingImport(ongoing.size())
-                .numberOfFinishImport(finish.size())
+                .numberOfOngoingImport(totals.get(RequestStatusBucket.ONGOING).intValue())
+                .numberOfFinishImport(totals.get(RequestStatusBucket.FINISH).intValue())
                 .build();
     }
 
@@ -115,9 +107,9 @@ public class ImportRequestService {
         }
         Department department = departmentRepository.findById(request.getDepartmentId()).orElseThrow(
                 () -> new NoSuchElementException("Department not found with ID: " + request.getDepartmentId()));
-        Configuration config = configurationRepository.findAll().getFirst();
+        ConfigurationSnapshot config = configurationProvider.get();
 
-        importRequest.setId(createImportRequestId());
+        importRequest.setId(businessIdService.nextImportRequestId());
         importRequest.setImportReason(request.getImportReason());
         importRequest.setType(request.getImportType());
         importRequest.setStatus(RequestStatus.NOT_STARTED);
@@ -184,20 +176,6 @@ public class ImportRequestService {
         return Mapper.mapToImportRequestResponse(importRequestRepository.save(importRequest),itemProviderRepository);
     }
 
-    private String createImportRequestId() {
-        String prefix = "PN";
-        LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
-        String datePart = today.format(DateTimeFormatter.BASIC_ISO_DATE);
-        
-        String todayPrefix = prefix + "-" + datePart + "-";
-        List<ImportRequest> existingRequests = importRequestRepository.findByIdStartingWith(todayPrefix);
-        int todayCount = existingRequests.size();
-
-        String sequence = String.format("%03d", todayCount + 1);
-
-        return String.format("%s-%s-%s", prefix, datePart, sequence);
-    }
-
     // private OptionalInt findLatestBatchSuffixForToday() {
     // LOGGER.info("Finding latest batch suffix for today");
     // List<ImportRequest> requests =
@@ -218,9 +196,4 @@ public class ImportRequestService {
     // importOrderDetail.getImportOrder().getId() + "-" + (index + 1);
     // }
 
-    // private String createImportOrderId(ImportRequest importRequest) {
-    // int size = importRequest.getImportOrders().size();
-    // return "DN-" + importRequest.getId() + "-" + (size + 1);
-    // }
-
 }
@@ -0,0 +1,272 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.repository.InventoryItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tìm inventory item theo một phần id (quét mã, gõ từng ký tự trên web), trả về tối đa limit kết quả theo thứ tự id.
+ * Trên PostgreSQL luôn tìm bằng SQL ILIKE '%x%' ... LIMIT: nếu đã tạo GIN index gin_trgm_ops trên inventory_item.id
+ * bằng db/inventory_item_id_trgm.sql (cần quyền CREATE EXTENSION nên không tạo lúc khởi động) thì đi qua index đó,
+ * chưa có thì là quét tuần tự dừng ở limit dòng, chậm hơn nhưng không tốn bộ nhớ của ứng dụng.
+ * DB khác (H2 khi dev/test) dùng chỉ mục trigram trong bộ nhớ khi bảng có tối đa MAX_MEMORY_IDS id (khoảng 130 byte
+ * mỗi id): id được sắp một lần, mỗi trigram (không phân biệt hoa thường) trỏ tới danh sách vị trí tăng dần, nên duyệt
+ * danh sách ngắn nhất là đã theo thứ tự id và dừng ngay khi đủ limit; vượt ngưỡng đó thì cũng tìm bằng SQL.
+ * Id mới/bị xóa được InventoryItemIdIndexListener đưa vào sau commit;
+ * chỉ mục được dựng lại tối đa mỗi REBUILD_INTERVAL để nhận thay đổi từ instance khác.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryItemIdSearchIndex {
+    private final InventoryItemRepository inventoryItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private static final Logger LOGGER = LoggerFactory.getLogger(InventoryItemIdSearchIndex.class);
+
+    private static final int MAX_LIMIT = 100;
+    private static final int GRAM = 3;
+    private static final long REBUILD_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int MAX_MEMORY_IDS = 200_000;
+    private static final String TRIGRAM_INDEX = "idx_inventory_item_id_trgm";
+
+    private enum Mode { DATABASE, MEMORY }
+
+    private volatile Mode mode;
+    private volatile Snapshot snapshot;
+    private volatile long builtAtNanos;
+    private boolean changedWhileBuilding;
+
+    public List<String> search(String fragment, int limit) {
+        if (fragment == null || fragment.isBlank()) {
+            throw new IllegalArgumentException("Search keyword must not be blank");
+        }
+        String keyword = fragment.trim();
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (mode() == Mode.MEMORY) {
+            Snapshot current = current();
+            if (current != null) {
+                return searchMemory(current, keyword.toUpperCase(Locale.ROOT), boundedLimit);
+            }
+        }
+        return inventoryItemRepository.searchIdsByPattern("%" + escapeLike(keyword) + "%", boundedLimit);
+    }
+
+    public synchronized void add(String id) {
+        changedWhileBuilding = true;
+        Snapshot current = snapshot;
+        if (current == null || id == null) {
+            return;
+        }
+        current.removed.remove(id);
+        if (Arrays.binarySearch(current.ids, id) < 0) {
+            current.added.add(id);
+        }
+    }
+
+    public synchronized void remove(String id) {
+        changedWhileBuilding = true;
+        Snapshot current = snapshot;
+        if (current == null || id == null) {
+            return;
+        }
+        current.added.remove(id);
+        if (Arrays.binarySearch(current.ids, id) >= 0) {
+            current.removed.add(id);
+        }
+    }
+
+    private List<String> searchMemory(Snapshot current, String keyword, int limit) {
+        List<String> found = new ArrayList<>(limit);
+        if (keyword.length() < GRAM) {
+            // Chuỗi quá ngắn để có trigram: quét theo thứ tự id, chuỗi ngắn khớp dày nên dừng sớm
+            for (int position = 0; position < current.ids.length && found.size() < limit; position++) {
+                collect(current, position, keyword, found);
+            }
+        } else {
+            int[] shortest = null;
+            for (int i = 0; i + GRAM <= keyword.length(); i++) {
+                int[] positions = current.postings.get(trigramKey(keyword, i));
+                if (positions == null) {
+                    shortest = new int[0];
+                    break;
+                }
+                if (shortest == null || positions.length < shortest.length) {
+                    shortest = positions;
+                }
+            }
+            for (int p = 0; p < shortest.length && found.size() < limit; p++) {
+                collect(current, shortest[p], keyword, found);
+            }
+        }
+
+        // Id thêm sau lần dựng không nằm trong danh sách đã sắp: hợp lại rồi cắt theo thứ tự id
+        boolean merged = false;
+        for (String id : current.added) {
+            if (containsIgnoreCase(id, keyword)) {
+                found.add(id);
+                merged = true;
+            }
+        }
+        if (merged) {
+            found.sort(Comparator.naturalOrder());
+            return found.subList(0, Math.min(limit, found.size()));
+        }
+        return found;
+    }
+
+    private void collect(Snapshot current, int position, String keyword, List<String> found) {
+        String id = current.ids[position];
+        if (containsIgnoreCase(id, keyword) && !current.removed.contains(id)) {
+            found.add(id);
+        }
+    }
+
+    private Mode mode() {
+        Mode current = mode;
+        if (current == null) {
+            synchronized (this) {
+                if (mode == null) {
+                    mode = detectMode();
+                }
+                current = mode;
+            }
+        }
+        return current;
+    }
+
+    private Mode detectMode() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            LOGGER.info("Inventory item id search uses the in-memory trigram index on {} (up to {} ids)", product,
+                    MAX_MEMORY_IDS);
+            return Mode.MEMORY;
+        }
+        Boolean valid = jdbcTemplate.queryForObject("SELECT bool_and(i.indisvalid) FROM pg_index i "
+                + "JOIN pg_class c ON c.oid = i.indexrelid WHERE c.relname = ?", Boolean.class, TRIGRAM_INDEX);
+        if (!Boolean.TRUE.equals(valid)) {
+            LOGGER.warn("Trigram index {} is missing or invalid, inventory item id search scans inventory_item up to "
+                    + "the result limit; create it with db/inventory_item_id_trgm.sql", TRIGRAM_INDEX);
+        } else {
+            LOGGER.info("Inventory item id search uses trigram index {}", TRIGRAM_INDEX);
+        }
+        return Mode.DATABASE;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null || System.nanoTime() - builtAtNanos > REBUILD_INTERVAL_NANOS) {
+            current = rebuild(current);
+        }
+        return current;
+    }
+
+    private Snapshot rebuild(Snapshot stale) {
+        synchronized (this) {
+            if (snapshot != stale && snapshot != null) {
+                return snapshot;
+            }
+            changedWhileBuilding = false;
+        }
+
+        long count = inventoryItemRepository.count();
+        if (count > MAX_MEMORY_IDS) {
+            synchronized (this) {
+                mode = Mode.DATABASE;
+                snapshot = null;
+            }
+            LOGGER.warn("Inventory table has {} ids, more than the in-memory index limit {}; inventory item id "
+                    + "search now uses SQL", count, MAX_MEMORY_IDS);
+            return null;
+        }
+        long started = System.nanoTime();
+        String[] ids = inventoryItemRepository.findAllIds().toArray(new String[0]);
+        Arrays.sort(ids);
+        Snapshot built = new Snapshot(ids, buildPostings(ids));
+
+        synchronized (this) {
+            snapshot = built;
+            // Có commit xen giữa lúc đọc DB: dùng tạm bản vừa dựng nhưng dựng lại ở lần truy vấn sau
+            builtAtNanos = changedWhileBuilding ? System.nanoTime() - REBUILD_INTERVAL_NANOS - 1 : System.nanoTime();
+        }
+        LOGGER.info("Built inventory item id index with {} ids and {} trigrams in {} ms", ids.length,
+                built.postings.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return built;
+    }
+
+    // Vị trí được thêm theo thứ tự tăng dần nên trigram lặp lại trong cùng một id chỉ ghi một lần
+    private static Map<Long, int[]> buildPostings(String[] ids) {
+        Map<Long, Postings> building = new HashMap<>();
+        for (int position = 0; position < ids.length; position++) {
+            String upper = ids[position].toUpperCase(Locale.ROOT);
+            for (int i = 0; i + GRAM <= upper.length(); i++) {
+                building.computeIfAbsent(trigramKey(upper, i), key -> new Postings()).add(position);
+            }
+        }
+        Map<Long, int[]> postings = new HashMap<>(building.size() * 2);
+        for (Map.Entry<Long, Postings> entry : building.entrySet()) {
+            postings.put(entry.getKey(), Arrays.copyOf(entry.getValue().positions, entry.getValue().size));
+        }
+        return postings;
+    }
+
+    private static long trigramKey(String upper, int from) {
+        return ((long) upper.charAt(from) << 32) | ((long) upper.charAt(from + 1) << 16) | upper.charAt(from + 2);
+    }
+
+    private static boolean containsIgnoreCase(String id, String upperKeyword) {
+        for (int i = 0; i + upperKeyword.length() <= id.length(); i++) {
+            if (id.regionMatches(true, i, upperKeyword, 0, upperKeyword.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String escapeLike(String keyword) {
+        return keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static class Snapshot {
+        private final String[] ids;
+        private final Map<Long, int[]> postings;
+        private final NavigableSet<String> added = new ConcurrentSkipListSet<>();
+        private final Set<String> removed = ConcurrentHashMap.newKeySet();
+
+        private Snapshot(String[] ids, Map<Long, int[]> postings) {
+            this.ids = ids;
+            this.postings = postings;
+        }
+    }
+
+    private static class Postings {
+        private int[] positions = new int[8];
+        private int size;
+
+        private void add(int position) {
+            if (size > 0 && positions[size - 1] == position) {
+                return;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+    }
+}
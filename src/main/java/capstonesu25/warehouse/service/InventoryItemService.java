@@ -31,86 +31,135 @@ public class InventoryItemService {
     private final ExportRequestDetailRepository exportRequestDetailRepository;
     private final ImportOrderDetailRepository importOrderDetailRepository;
     private final StoredLocationRepository storedLocationRepository;
+    private final InventoryStockCounterService inventoryStockCounterService;
+    private final InventoryItemIdSearchIndex inventoryItemIdSearchIndex;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(InventoryItemService.class);
 
+    @Transactional(readOnly = true)
     public List<InventoryItemResponse> getAllInventoryItems() {
         LOGGER.info("Getting all inventory items ");
-        return inventoryItemRepository.findAll()
-                .stream()
-                .map(this::mapToResponse)
-                .toList();
+        return mapRows(inventoryItemRepository.findAllRows());
     }
 
-//    @Transactional(readOnly = true)
-//    public List<InventoryItemResponse> getInventoryItemHistory(String id) {
-//        LOGGER.info("Getting inventory item history with id: {}", id);
-//
-//        // 1. Tìm item hiện tại
-//        InventoryItem current = inventoryItemRepository.findById(id)
-//                .orElseThrow(() -> new EntityNotFoundException("Inventory item not found with id: " + id));
-//
-//        // 2. Tìm node root (cha xa nhất)
-//        InventoryItem root = current;
-//        while (root.getParent() != null) {
-//            root = root.getParent();
-//        }
-//
-//        // 3. Duyệt preorder để gom list từ cha → con
-//        List<InventoryItemResponse> result = new ArrayList<>();
-//        preorderFlatten(root, result);
-//        return result;
-//    }
-
+    // Lịch sử tách item theo thứ tự con → ... → gốc, đọc bằng một recursive CTE thay vì nạp lazy từng cha
     @Transactional(readOnly = true)
     public List<InventoryItemResponse> getInventoryItemHistory(String id) {
         LOGGER.info("Getting inventory item history (child → parent) with id: {}", id);
+        List<InventoryItemRow> rows = findAncestorLineage(id);
+        return mapRows(rows, childrenIdsOf(rows));
+    }
 
-        // 1. Lấy item hiện tại
-        InventoryItem current = inventoryItemRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Inventory item not found with id: " + id));
+    // Item gốc (cha xa nhất) của item đã bị tách
+    @Transactional(readOnly = true)
+    public InventoryItemResponse getRootInventoryItem(String id) {
+        LOGGER.info("Getting root inventory item of id: {}", id);
+        List<InventoryItemRow> rows = findAncestorLineage(id);
+        List<InventoryItemRow> root = List.of(rows.get(rows.size() - 1));
+        return mapRows(root, childrenIdsOf(root)).get(0);
+    }
 
-        // 2. Duyệt ngược từ con lên cha và map sang DTO
-        List<InventoryItemResponse> history = new ArrayList<>();
-        for (InventoryItem node = current; node != null; node = node.getParent()) {
-            history.add(mapToResponse(node));
+    // Item và toàn bộ các item được tách ra từ nó, duyệt preorder (cha trước con)
+    @Transactional(readOnly = true)
+    public List<InventoryItemResponse> getInventoryItemSubtree(String id) {
+        LOGGER.info("Getting inventory item subtree with id: {}", id);
+        List<InventoryItemRow> rows = inventoryItemRepository.findSubtreeLineage(id);
+        if (rows.isEmpty()) {
+            throw new EntityNotFoundException("Inventory item not found with id: " + id);
+        }
+
+        // Con của mọi node đều nằm trong kết quả nên không cần truy vấn thêm
+        Map<String, List<String>> childrenIds = new HashMap<>();
+        Map<String, InventoryItemRow> byId = new HashMap<>();
+        for (InventoryItemRow row : rows) {
+            byId.put(row.getId(), row);
+            if (row.getDepth() > 0) {
+                childrenIds.computeIfAbsent(row.getParentId(), parentId -> new ArrayList<>()).add(row.getId());
+            }
         }
 
-        return history; // kết quả theo thứ tự: con → ... → gốc
+        List<InventoryItemRow> preorder = new ArrayList<>(rows.size());
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push(rows.get(0).getId());
+        while (!stack.isEmpty()) {
+            String nodeId = stack.pop();
+            preorder.add(byId.get(nodeId));
+            List<String> children = childrenIds.getOrDefault(nodeId, List.of());
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+        return mapRows(preorder, childrenIds);
     }
 
+    // Tối đa limit kết quả (chặn ở InventoryItemIdSearchIndex.MAX_LIMIT), cùng dạng response với các API danh sách
     @Transactional(readOnly = true)
-    public List<InventoryItemResponse> searchByScarfId(String id) {
+    public List<InventoryItemResponse> searchByScarfId(String id, int limit) {
         LOGGER.info("Searching inventory item");
-        return inventoryItemRepository.findByIdContaining(id).stream().map(this::mapToResponse).toList();
+        List<String> ids = inventoryItemIdSearchIndex.search(id, limit);
+        return ids.isEmpty() ? List.of() : mapRows(inventoryItemRepository.findRowsByIds(ids));
     }
 
+    private List<InventoryItemRow> findAncestorLineage(String id) {
+        List<InventoryItemRow> rows = inventoryItemRepository.findAncestorLineage(id);
+        if (rows.isEmpty()) {
+            throw new EntityNotFoundException("Inventory item not found with id: " + id);
+        }
+        return rows;
+    }
 
-    private void preorderFlatten(InventoryItem entity, List<InventoryItemResponse> acc) {
-        // Map sang DTO bằng mapper có sẵn
-        InventoryItemResponse response = mapToResponse(entity);
-        acc.add(response);
+    private Map<String, List<String>> childrenIdsOf(List<InventoryItemRow> rows) {
+        Map<String, List<String>> childrenIds = new HashMap<>();
+        for (Object[] pair : inventoryItemRepository.findChildPairsByParentIds(
+                rows.stream().map(InventoryItemRow::getId).toList())) {
+            childrenIds.computeIfAbsent((String) pair[0], parentId -> new ArrayList<>()).add((String) pair[1]);
+        }
+        return childrenIds;
+    }
 
-        // Lấy danh sách con từ entity (nếu đã có quan hệ children)
-        if (entity.getChildren() != null && !entity.getChildren().isEmpty()) {
-            for (InventoryItem child : entity.getChildren()) {
-                preorderFlatten(child, acc);
-            }
-        } else {
-            // fallback: query repo nếu bạn không bật fetch children trong entity
-            List<InventoryItem> children = inventoryItemRepository.findInventoryItemByParent_Id(entity.getId());
-            for (InventoryItem child : children) {
-                preorderFlatten(child, acc);
+    // Danh sách/trang inventory item: một truy vấn cho các cột và một truy vấn cho id con của cả trang
+    private List<InventoryItemResponse> mapRows(List<InventoryItemRow> rows) {
+        return rows.isEmpty() ? List.of() : mapRows(rows, childrenIdsOf(rows));
+    }
+
+    private Page<InventoryItemResponse> mapRows(Page<InventoryItemRow> rows) {
+        return new PageImpl<>(mapRows(rows.getContent()), rows.getPageable(), rows.getTotalElements());
+    }
+
+    private List<InventoryItemResponse> mapRows(List<InventoryItemRow> rows, Map<String, List<String>> childrenIds) {
+        ItemStatus[] statuses = ItemStatus.values();
+        List<InventoryItemResponse> responses = new ArrayList<>(rows.size());
+        for (InventoryItemRow row : rows) {
+            InventoryItemResponse response = new InventoryItemResponse();
+            response.setId(row.getId());
+            response.setReasonForDisposal(row.getReasonForDisposal());
+            response.setMeasurementValue(row.getMeasurementValue());
+            response.setStatus(row.getStatus() != null ? statuses[row.getStatus()] : null);
+            response.setExpiredDate(row.getExpiredDate());
+            response.setImportedDate(row.getImportedDate());
+            response.setUpdatedDate(row.getUpdatedDate());
+            response.setIsTrackingForExport(row.getIsTrackingForExport());
+            response.setParentId(row.getParentId());
+            response.setChildrenIds(new ArrayList<>(childrenIds.getOrDefault(row.getId(), List.of())));
+            response.setItemId(row.getItemId());
+            response.setItemName(row.getItemName());
+            response.setExportRequestDetailId(row.getExportRequestDetailId());
+            response.setImportOrderDetailId(row.getImportOrderDetailId());
+            if (row.getStoredLocationId() != null) {
+                response.setStoredLocationId(row.getStoredLocationId());
+                response.setStoredLocationName(String.format("Zone: %s, Floor: %s, Row: %s, Line: %s",
+                        row.getZone(), row.getFloor(), row.getLocationRow(), row.getLocationLine()));
             }
+            responses.add(response);
         }
+        return responses;
     }
 
-
+    @Transactional(readOnly = true)
     public Page<InventoryItemResponse> getAllInventoryItemsByItemId(String itemId,int page, int limit) {
         LOGGER.info("Getting all inventory items by item id: {}", itemId);
         Pageable pageable = PageRequest.of(page - 1, limit);
-        return inventoryItemRepository.findByItem_Id(itemId, pageable)
-                .map(this::mapToResponse);
+        return mapRows(inventoryItemRepository.findRowsByItemId(itemId, pageable));
     }
 
     public InventoryItemResponse getInventoryItemById(String id) {
@@ -120,20 +169,12 @@ public class InventoryItemService {
         return mapToResponse(inventoryItem);
     }
 
+    @Transactional(readOnly = true)
     public Page<InventoryItemResponse> getAllNeedToReturnByItemId(String itemId, int page, int limit) {
         LOGGER.info("Getting all inventory items that need to return by item id: {}", itemId);
         Pageable pageable = PageRequest.of(page - 1, limit);
-
-        Page<InventoryItem> inventoryItemsPage = inventoryItemRepository
-                .findByItem_IdAndParentNullAndStatusAndNeedReturnToProvider(itemId, ItemStatus.AVAILABLE, true, pageable);
-
-        List<InventoryItemResponse> filteredList = inventoryItemsPage
-                .stream()
-                .filter(inventoryItem -> inventoryItem.getExportRequestDetail() == null)
-                .map(this::mapToResponse)
-                .toList();
-
-        return new PageImpl<>(filteredList, pageable, filteredList.size());
+        return mapRows(inventoryItemRepository.findReturnableRowsByItemId(
+                itemId, ItemStatus.AVAILABLE.ordinal(), pageable));
     }
 
     @Transactional
@@ -151,94 +192,54 @@ public class InventoryItemService {
         return mapToResponse(inventoryItemRepository.save(existingItem));
     }
 
+    @Transactional(readOnly = true)
     public Page<InventoryItemResponse> getByImportOrderDetailId(Long importOrderDetailId, int page, int limit) {
         LOGGER.info("Getting inventory items by import order detail id: {}", importOrderDetailId);
         Pageable pageable = PageRequest.of(page - 1, limit);
-        return inventoryItemRepository.findByImportOrderDetailId(importOrderDetailId, pageable)
-                .map(this::mapToResponse);
+        return mapRows(inventoryItemRepository.findRowsByImportOrderDetailId(importOrderDetailId, pageable));
     }
 
+    @Transactional(readOnly = true)
     public List<InventoryItemResponse> getByListImportOrderDetailIds(List<Long> importOrderDetailIds) {
         LOGGER.info("Getting inventory items by list import order detail ids: {}", importOrderDetailIds);
-        List<InventoryItem> inventoryItems = inventoryItemRepository.findByImportOrderDetailIdIn(importOrderDetailIds);
-        return inventoryItems.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        if (importOrderDetailIds.isEmpty()) {
+            return List.of();
+        }
+        return mapRows(inventoryItemRepository.findRowsByImportOrderDetailIds(importOrderDetailIds));
     }
 
 
+    @Transactional(readOnly = true)
     public Page<InventoryItemResponse> getByExportRequestDetailId(Long exportRequestDetailId, int page, int limit) {
         LOGGER.info("Getting inventory items by export request detail id: {}", exportRequestDetailId);
         Pageable pageable = PageRequest.of(page - 1, limit);
-        Page<InventoryItem> inventoryItems = inventoryItemRepository.findByExportRequestDetailId(exportRequestDetailId, pageable);
-        return inventoryItems.map(this::mapToResponse);
+        return mapRows(inventoryItemRepository.findRowsByExportRequestDetailId(exportRequestDetailId, pageable));
     }
 
+    @Transactional(readOnly = true)
     public Page<InventoryItemResponse> getByStoredLocationId(Long storedLocationId, int page, int limit) {
         LOGGER.info("Getting inventory items by stored location id: {}", storedLocationId);
         Pageable pageable = PageRequest.of(page - 1, limit);
-        return inventoryItemRepository.findByStoredLocationId(storedLocationId, pageable)
-                .map(this::mapToResponse);
+        return mapRows(inventoryItemRepository.findRowsByStoredLocationId(storedLocationId, pageable));
     }
 
     @Transactional(readOnly = true)
     public List<InventoryFigure> getInventoryItemsFigure() {
         LOGGER.info("Getting inventory items figure");
-
-        List<Item> items = itemRepository.findAll();
-        List<InventoryFigure> figures = new ArrayList<>(items.size());
-
-        for (Item item : items) {
-            List<InventoryItem> list = inventoryItemRepository.findByItem_Id(item.getId());
-
-            long available = list.stream()
-                    // available = free & AVAILABLE (tweak if your rule differs)
-                    .filter(ii -> ii.getStatus() == ItemStatus.AVAILABLE )
-                    .count();
-
-            long needLiquid = list.stream()
-                    // define your own rule here:
-                    // e.g. statuses that imply liquidation OR any custom predicate like expiry, damaged, etc.
-                    .filter(ii -> ii.getStatus() == ItemStatus.NEED_LIQUID)
-                    .count();
-
-            long unavailable = list.stream()
-                    // define your own rule here:
-                    // e.g. statuses that imply liquidation OR any custom predicate like expiry, damaged, etc.
-                    .filter(ii -> ii.getStatus() == ItemStatus.UNAVAILABLE)
-                    .count();
-
-            long readyToStore = list.stream()
-                    .filter(ii -> ii.getStatus() == ItemStatus.READY_TO_STORE)
-                    .count();
-
-            long noLongerExist = list.stream()
-                    .filter(ii -> ii.getStatus() == ItemStatus.NO_LONGER_EXIST)
-                    .count();
-
-            figures.add(new InventoryFigure(
-                    item.getId(),
-                    (int) available,
-                    (int) unavailable,
-                    (int) needLiquid,
-                    (int) readyToStore,
-                    (int) noLongerExist
-            ));
-        }
-        return figures;
+        return inventoryStockCounterService.getInventoryFigures();
     }
 
     /** Centralize your liquidation rule here */
 
 
 
+    @Transactional(readOnly = true)
     public List<InventoryItemResponse> getListQrCodes(List<String> inventoryItemIds) {
         LOGGER.info("Getting QR codes by inventory item IDs: {}", inventoryItemIds);
-        List<InventoryItem> inventoryItems = inventoryItemRepository.findAllById(inventoryItemIds);
-        
-        return inventoryItems.stream()
-            .map(this::mapToResponse)
-            .collect(Collectors.toList());
+        if (inventoryItemIds.isEmpty()) {
+            return List.of();
+        }
+        return mapRows(inventoryItemRepository.findRowsByIds(inventoryItemIds));
     }
 
     @Transactional
@@ -0,0 +1,187 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.ExportRequestDetail;
+import capstonesu25.warehouse.entity.InventoryItem;
+import capstonesu25.warehouse.enums.ExportType;
+import capstonesu25.warehouse.enums.ItemStatus;
+import capstonesu25.warehouse.enums.PickingStrategy;
+import capstonesu25.warehouse.model.inventoryitem.MeasurementSelection;
+import capstonesu25.warehouse.model.inventoryitem.PickCandidate;
+import capstonesu25.warehouse.repository.InventoryItemRepository;
+import capstonesu25.warehouse.utils.MeasurementSelectionUtil;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chọn và giữ inventory item cho phiếu xuất: ứng viên được lấy bằng câu truy vấn có ORDER BY + LIMIT
+ * theo PickingStrategy của loại phiếu, rồi giữ bằng một câu UPDATE hàng loạt chỉ tác động lên item còn AVAILABLE.
+ * Nếu phiếu xuất khác đã lấy mất một phần ứng viên thì chọn bổ sung ở vòng kế tiếp.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryPickingService {
+    private final InventoryItemRepository inventoryItemRepository;
+    private final InventoryStockCounterService inventoryStockCounterService;
+    private final StockMovementService stockMovementService;
+    private final EntityManager entityManager;
+    private static final Logger LOGGER = LoggerFactory.getLogger(InventoryPickingService.class);
+
+    private static final int MAX_ROUNDS = 10;
+    // Mỗi lần tải tối đa chừng này ứng viên theo thứ tự PickingStrategy; không đủ thì vòng sau tải tiếp phần còn lại
+    private static final int MAX_MEASUREMENT_CANDIDATES = 10_000;
+    private static final long SELECTION_TIME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final int RESERVE_CHUNK_SIZE = 1000;
+    private static final double MEASUREMENT_EPSILON = 1e-6;
+
+    @Value("${warehouse.picking.selling:FEFO}")
+    private PickingStrategy sellingStrategy;
+
+    @Value("${warehouse.picking.internal:FIFO}")
+    private PickingStrategy internalStrategy;
+
+    public PickingStrategy getStrategy(ExportType type) {
+        return type == ExportType.SELLING ? sellingStrategy : internalStrategy;
+    }
+
+    // Giữ đúng detail.quantity item gốc còn nguyên measurement
+    @Transactional
+    public int pickFullItems(ExportRequestDetail detail) {
+        String itemId = detail.getItem().getId();
+        PickingStrategy strategy = getStrategy(detail.getExportRequest().getType());
+        int reserved = 0;
+        for (int round = 0; round < MAX_ROUNDS && reserved < detail.getQuantity(); round++) {
+            int remaining = detail.getQuantity() - reserved;
+            List<PickCandidate> candidates = inventoryItemRepository.findFullPickCandidates(itemId,
+                    PageRequest.of(0, remaining, strategy.getSort()));
+            if (candidates.isEmpty()) {
+                break;
+            }
+            reserved += reserve(detail, candidates.stream().map(PickCandidate::getId).toList());
+        }
+        if (reserved < detail.getQuantity()) {
+            throw new IllegalArgumentException("not enough inventory item with full measurement value to export");
+        }
+        LOGGER.info("Picked {} inventory items of item {} by {} for export detail {}",
+                reserved, itemId, strategy, detail.getId());
+        return reserved;
+    }
+
+    // Giữ tập item (kể cả item đã bị cắt) có tổng measurement đủ yêu cầu, trong sai số cho phép và ít item nhất
+    @Transactional
+    public MeasurementSelection pickByMeasurement(ExportRequestDetail detail, double requestedMeasurement,
+                                                  double tolerancePercent) {
+        String itemId = detail.getItem().getId();
+        PickingStrategy strategy = getStrategy(detail.getExportRequest().getType());
+        double maxMeasurement = requestedMeasurement * (1 + Math.max(0, tolerancePercent) / 100);
+        double picked = 0;
+        String method = null;
+        // Ứng viên chỉ được tải lại khi phần còn lại trong bộ nhớ không đủ, các vòng sau bỏ đi những item đã thử giữ
+        List<PickCandidate> candidates = null;
+        for (int round = 0; round < MAX_ROUNDS && picked < requestedMeasurement - MEASUREMENT_EPSILON; round++) {
+            double remaining = requestedMeasurement - picked;
+            double remainingTolerance = Math.max(0, (maxMeasurement - picked) / remaining - 1) * 100;
+            MeasurementSelection selection = candidates != null
+                    ? MeasurementSelectionUtil.select(candidates, remaining, remainingTolerance, SELECTION_TIME_BUDGET_NANOS)
+                    : null;
+            if (selection == null) {
+                candidates = new ArrayList<PickCandidate>(inventoryItemRepository.findMeasurementPickCandidates(itemId,
+                        PageRequest.of(0, MAX_MEASUREMENT_CANDIDATES, strategy.getSort())));
+                selection = MeasurementSelectionUtil.select(candidates, remaining, remainingTolerance,
+                        SELECTION_TIME_BUDGET_NANOS);
+                if (selection == null && candidates.size() == MAX_MEASUREMENT_CANDIDATES) {
+                    // Cả lần tải chưa đủ phần còn lại: giữ hết rồi vòng sau tải tiếp các ứng viên kế tiếp
+                    selection = takeAll(candidates);
+                }
+            }
+            if (selection == null) {
+                break;
+            }
+            method = selection.getMethod();
+            Set<String> tried = new HashSet<>(selection.getInventoryItemIds());
+            candidates.removeIf(candidate -> tried.contains(candidate.getId()));
+            int reserved = reserve(detail, selection.getInventoryItemIds());
+            picked = reserved == selection.getInventoryItemIds().size()
+                    ? picked + selection.getTotalMeasurement()
+                    : sumMeasurement(inventoryItemRepository.findPickedByExportRequestDetailId(detail.getId()));
+        }
+        if (picked < requestedMeasurement - MEASUREMENT_EPSILON) {
+            throw new IllegalArgumentException("Không thể chọn đủ inventory items cho item " + itemId
+                    + ", yêu cầu: " + requestedMeasurement);
+        }
+
+        List<PickCandidate> pickedItems = inventoryItemRepository.findPickedByExportRequestDetailId(detail.getId());
+        double total = sumMeasurement(pickedItems);
+        MeasurementSelection result = new MeasurementSelection(
+                pickedItems.stream().map(PickCandidate::getId).toList(),
+                total,
+                total <= maxMeasurement + MEASUREMENT_EPSILON,
+                method);
+        LOGGER.info("Picked {} inventory items ({} of {}, max {}) of item {} by {}/{} for export detail {}",
+                pickedItems.size(), total, requestedMeasurement, maxMeasurement, itemId, strategy, method, detail.getId());
+        return result;
+    }
+
+    private MeasurementSelection takeAll(List<PickCandidate> candidates) {
+        return new MeasurementSelection(candidates.stream().map(PickCandidate::getId).toList(),
+                sumMeasurement(candidates), false, "GREEDY");
+    }
+
+    private double sumMeasurement(List<PickCandidate> items) {
+        double total = 0;
+        for (PickCandidate item : items) {
+            total += item.getMeasurementValue();
+        }
+        return total;
+    }
+
+    // UPDATE hàng loạt bỏ qua InventoryItemStockListener nên tự chuyển counter từ AVAILABLE sang UNAVAILABLE và ghi stock_movement
+    private int reserve(ExportRequestDetail detail, List<String> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        int reserved = 0;
+        for (int from = 0; from < ids.size(); from += RESERVE_CHUNK_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + RESERVE_CHUNK_SIZE, ids.size()));
+            int taken = inventoryItemRepository.reserveForExportDetail(chunk, detail, now);
+            if (taken > 0) {
+                stockMovementService.recordReserved(chunk, detail.getId(), detail.getExportRequest().getId(), now);
+            }
+            reserved += taken;
+        }
+        refreshManaged(ids);
+        if (reserved < ids.size()) {
+            LOGGER.info("{} of {} candidates for export detail {} were taken by another export",
+                    ids.size() - reserved, ids.size(), detail.getId());
+        }
+        String itemId = detail.getItem().getId();
+        inventoryStockCounterService.applyDelta(itemId, ItemStatus.AVAILABLE, -reserved);
+        inventoryStockCounterService.applyDelta(itemId, ItemStatus.UNAVAILABLE, reserved);
+        return reserved;
+    }
+
+    // UPDATE hàng loạt không đi qua persistence context: item đã được load trước đó trong transaction vẫn giữ
+    // status/phiếu xuất cũ, nếu bị flush lại sẽ xóa mất việc giữ hàng và listener tính delta từ trạng thái cũ.
+    // Chỉ refresh các item bị ảnh hưởng thay vì clearAutomatically để không detach detail và các entity khác của caller.
+    // getReference trả về entity đang được quản lý nếu có (không chạy SQL), còn không thì là proxy chưa load,
+    // proxy đó khi được dùng sẽ đọc trạng thái mới từ database nên không cần refresh.
+    private void refreshManaged(List<String> ids) {
+        for (String id : ids) {
+            InventoryItem inventoryItem = entityManager.getReference(InventoryItem.class, id);
+            if (Hibernate.isInitialized(inventoryItem)) {
+                entityManager.refresh(inventoryItem);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.InventoryStockCounter;
+import capstonesu25.warehouse.enums.ItemStatus;
+import capstonesu25.warehouse.model.inventoryitem.InventoryFigure;
+import capstonesu25.warehouse.model.inventorystockcounter.InventoryStatusCount;
+import capstonesu25.warehouse.repository.InventoryItemRepository;
+import capstonesu25.warehouse.repository.InventoryStockCounterRepository;
+import capstonesu25.warehouse.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Quản lý bảng inventory_stock_counter: số lượng inventory item theo (item, status).
+ * Delta được ghi bằng JDBC trên cùng connection của transaction hiện tại vì nó được gọi
+ * từ entity listener trong lúc Hibernate đang flush.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryStockCounterService {
+    private final InventoryStockCounterRepository inventoryStockCounterRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final ItemRepository itemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final StockMovementService stockMovementService;
+    private static final Logger LOGGER = LoggerFactory.getLogger(InventoryStockCounterService.class);
+
+    private static final String UPSERT_COUNTER_SQL = "INSERT INTO inventory_stock_counter (item_id, status, quantity, updated_date) "
+            + "VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (item_id, status) DO UPDATE "
+            + "SET quantity = inventory_stock_counter.quantity + EXCLUDED.quantity, updated_date = EXCLUDED.updated_date";
+
+    public void applyDelta(String itemId, ItemStatus status, long delta) {
+        if (itemId == null || status == null || delta == 0) {
+            return;
+        }
+        jdbcTemplate.update(UPSERT_COUNTER_SQL, itemId, status.ordinal(), delta, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public void moveStatus(String oldItemId, ItemStatus oldStatus, String newItemId, ItemStatus newStatus) {
+        if (oldStatus == newStatus && Objects.equals(oldItemId, newItemId)) {
+            return;
+        }
+        applyDelta(oldItemId, oldStatus, -1);
+        applyDelta(newItemId, newStatus, 1);
+    }
+
+    // Bulk update bỏ qua entity listener nên phải tự chuyển counter của các item bị release về AVAILABLE và ghi stock_movement
+    @Transactional
+    public int releaseByExportDetailIds(List<Long> detailIds) {
+        List<InventoryStatusCount> counts = inventoryItemRepository.countByExportDetailIdsGroupByItemAndStatus(detailIds);
+        stockMovementService.recordReleased(detailIds, LocalDateTime.now());
+        int released = inventoryItemRepository.releaseByExportDetailIds(detailIds);
+        for (InventoryStatusCount count : counts) {
+            if (count.getStatus() == ItemStatus.AVAILABLE) {
+                continue;
+            }
+            applyDelta(count.getItemId(), count.getStatus(), -count.getQuantity());
+            applyDelta(count.getItemId(), ItemStatus.AVAILABLE, count.getQuantity());
+        }
+        return released;
+    }
+
+    // Khóa bảng counter trước khi đọc inventory_item: transaction nào đã ghi delta phải commit xong thì mới khóa được,
+    // transaction đến sau phải chờ bản dựng lại commit, nên không delta nào bị mất hay áp lên dòng đã xóa
+    @Transactional
+    public int reconcile() {
+        inventoryStockCounterRepository.lockCounters();
+        int deleted = inventoryStockCounterRepository.deleteAllCounters();
+        int rebuilt = inventoryStockCounterRepository.rebuildCountersFromInventory();
+        LOGGER.info("Reconciled inventory stock counters: {} old rows, {} new rows", deleted, rebuilt);
+        return rebuilt;
+    }
+
+    @Transactional(readOnly = true)
+    public List<InventoryFigure> getInventoryFigures() {
+        Map<String, Map<ItemStatus, Long>> countersByItem = new HashMap<>();
+        for (InventoryStockCounter counter : inventoryStockCounterRepository.findAll()) {
+            countersByItem.computeIfAbsent(counter.getItemId(), id -> new EnumMap<>(ItemStatus.class))
+                    .put(counter.getStatus(), counter.getQuantity());
+        }
+
+        List<String> itemIds = itemRepository.findAllIds();
+        List<InventoryFigure> figures = new ArrayList<>(itemIds.size());
+        for (String itemId : itemIds) {
+            Map<ItemStatus, Long> counters = countersByItem.getOrDefault(itemId, Map.of());
+            figures.add(new InventoryFigure(
+                    itemId,
+                    count(counters, ItemStatus.AVAILABLE),
+                    count(counters, ItemStatus.UNAVAILABLE),
+                    count(counters, ItemStatus.NEED_LIQUID),
+                    count(counters, ItemStatus.READY_TO_STORE),
+                    count(counters, ItemStatus.NO_LONGER_EXIST)
+            ));
+        }
+        return figures;
+    }
+
+    private int count(Map<ItemStatus, Long> counters, ItemStatus status) {
+        return Math.max(0, counters.getOrDefault(status, 0L).intValue());
+    }
+}
@@ -3,21 +3,20 @@ package capstonesu25.warehouse.service;
 import capstonesu25.warehouse.entity.*;
 import capstonesu25.warehouse.entity.pk.ItemProviderPK;
 import capstonesu25.warehouse.enums.ItemStatus;
+import capstonesu25.warehouse.enums.MovementType;
 import capstonesu25.warehouse.model.item.ImExNumberItem;
 import capstonesu25.warehouse.model.item.ItemFigure;
 import capstonesu25.warehouse.model.item.ItemRequest;
 import capstonesu25.warehouse.model.item.ItemResponse;
+import capstonesu25.warehouse.model.stockmovement.StockMovementTotal;
 import capstonesu25.warehouse.repository.CategoryRepository;
-import capstonesu25.warehouse.repository.ExportRequestRepository;
-import capstonesu25.warehouse.repository.ImportOrderRepository;
+import capstonesu25.warehouse.repository.ExportRequestDetailRepository;
+import capstonesu25.warehouse.repository.ImportOrderDetailRepository;
 import capstonesu25.warehouse.repository.ItemRepository;
 import capstonesu25.warehouse.repository.ProviderRepository;
+import capstonesu25.warehouse.repository.StockMovementRepository;
 import java.time.LocalDate;
-import java.util.Collections;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.function.Function;
-import java.util.function.Predicate;
+import java.time.LocalDateTime;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,7 +27,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,8 +39,9 @@ public class ItemService {
     private final ItemRepository itemRepository;
     private final CategoryRepository categoryRepository;
     private final ProviderRepository providerRepository;
-    private final ImportOrderRepository importOrderRepository;
-    private final ExportRequestRepository exportRequestRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final ImportOrderDetailRepository importOrderDetailRepository;
+    private final ExportRequestDetailRepository exportRequestDetailRepository;
 
     public Page<ItemResponse> getAllItems(int page, int limit) {
         LOGGER.info("Getting all items with page: {}, limit: {}", page, limit);
@@ -115,84 +117,44 @@ public class ItemService {
         return itemFigure;
     }
 
+    // Đọc từ stock_movement trong khoảng [fromDate, toDate) thay vì nạp toàn bộ phiếu nhập/xuất.
+    // Phần trước khi sổ được mở không có dòng RECEIVE/DISPATCH nên tính như cũ theo ngày tạo phiếu, bằng truy vấn tổng
+    @Transactional(readOnly = true)
     public ImExNumberItem getImEXNumberItem(String itemId, LocalDate fromDate, LocalDate toDate) {
         LOGGER.info("getting im ex number");
-
-        List<ImportOrder> importOrders = Optional.ofNullable(importOrderRepository.findAll())
-                .orElse(Collections.emptyList());
-
-        importOrders =   importOrders.stream()
-                .filter(importOrder ->
-                        importOrder.getCreatedDate() != null &&
-                                importOrder.getCreatedDate().isAfter(fromDate.atStartOfDay()) &&
-                                importOrder.getCreatedDate().isBefore(toDate.atStartOfDay())
-                )
-                .toList();
-
-        List<ExportRequest> exportRequests = Optional.ofNullable(exportRequestRepository.findAll())
-                .orElse(Collections.emptyList());
-
-        exportRequests = exportRequests.stream()
-                .filter(importOrder ->
-                        importOrder.getCreatedDate() != null &&
-                                importOrder.getCreatedDate().isAfter(fromDate.atStartOfDay()) &&
-                                importOrder.getCreatedDate().isBefore(toDate.atStartOfDay())
-                )
-                .toList();
-
-        // helper: trả về list details an toàn
-        Function<ImportOrder, List<ImportOrderDetail>> safeImportDetails =
-                io -> Optional.ofNullable(io)
-                        .map(ImportOrder::getImportOrderDetails)
-                        .orElse(Collections.emptyList());
-
-        Function<ExportRequest, List<ExportRequestDetail>> safeExportDetails =
-                er -> Optional.ofNullable(er)
-                        .map(ExportRequest::getExportRequestDetails)
-                        .orElse(Collections.emptyList());
-
-        Predicate<ImportOrderDetail> matchItemImport =
-                d -> d != null && d.getItem() != null && itemId.equals(d.getItem().getId());
-
-        Predicate<ExportRequestDetail> matchItemExport =
-                d -> d != null && d.getItem() != null && itemId.equals(d.getItem().getId());
-
-        // Lọc orders/requests có ít nhất 1 detail khớp itemId
-        importOrders = importOrders.stream()
-                .filter(Objects::nonNull)
-                .filter(io -> safeImportDetails.apply(io).stream().anyMatch(matchItemImport))
-                .toList();
-
-        exportRequests = exportRequests.stream()
-                .filter(Objects::nonNull)
-                .filter(er -> safeExportDetails.apply(er).stream().anyMatch(matchItemExport))
-                .toList();
-
-        // Tổng measurement input (null -> 0)
-        double measurementInput = importOrders.stream()
-                .flatMap(io -> safeImportDetails.apply(io).stream())
-                .filter(matchItemImport)
-                .mapToDouble(d -> {
-                    Double v = d.getActualMeasurementValue(); // nếu bạn muốn dùng measurement khác thì đổi getter tại đây
-                    return v == null ? 0d : v.doubleValue();
-                })
-                .sum();
-
-        // Tổng measurement output (null -> 0)
-        double measurementOutput = exportRequests.stream()
-                .flatMap(er -> safeExportDetails.apply(er).stream())
-                .filter(matchItemExport)
-                .mapToDouble(d -> {
-                    Double v = d.getActualMeasurementValue();
-                    return v == null ? 0d : v.doubleValue();
-                })
-                .sum();
+        LocalDateTime from = fromDate.atStartOfDay();
+        LocalDateTime to = toDate.atStartOfDay();
+        LocalDateTime ledgerOpenedAt = stockMovementRepository.findFirstOccurredAt();
+        LocalDateTime ledgerFrom = ledgerOpenedAt != null && ledgerOpenedAt.isAfter(from) ? ledgerOpenedAt : from;
+        LocalDateTime legacyTo = ledgerOpenedAt == null || ledgerOpenedAt.isAfter(to) ? to : ledgerOpenedAt;
+
+        double measurementInput = 0;
+        double measurementOutput = 0;
+        Set<String> importOrderIds = new LinkedHashSet<>();
+        Set<String> exportRequestIds = new LinkedHashSet<>();
+        if (from.isBefore(legacyTo)) {
+            measurementInput += importOrderDetailRepository.sumActualMeasurementByItemIdAndCreatedDate(itemId, from, legacyTo);
+            measurementOutput += exportRequestDetailRepository.sumActualMeasurementByItemIdAndCreatedDate(itemId, from, legacyTo);
+            importOrderIds.addAll(importOrderDetailRepository.findImportOrderIdsByItemIdAndCreatedDate(itemId, from, legacyTo));
+            exportRequestIds.addAll(exportRequestDetailRepository.findExportRequestIdsByItemIdAndCreatedDate(itemId, from, legacyTo));
+        }
+        if (ledgerFrom.isBefore(to)) {
+            for (StockMovementTotal total : stockMovementRepository.sumByMovementType(itemId, ledgerFrom, to)) {
+                if (total.getMovementType() == MovementType.RECEIVE) {
+                    measurementInput += total.getMeasurementDelta();
+                } else if (total.getMovementType() == MovementType.DISPATCH) {
+                    measurementOutput -= total.getMeasurementDelta();
+                }
+            }
+            importOrderIds.addAll(stockMovementRepository.findReferenceIds(itemId, MovementType.RECEIVE, ledgerFrom, to));
+            exportRequestIds.addAll(stockMovementRepository.findReferenceIds(itemId, MovementType.DISPATCH, ledgerFrom, to));
+        }
 
         ImExNumberItem result = new ImExNumberItem();
         result.setImportMeasurementValue(measurementInput);
         result.setExportMeasurementValue(measurementOutput);
-        result.setImportOrderIds(importOrders.stream().map(ImportOrder::getId).filter(Objects::nonNull).toList());
-        result.setExportRequestIds(exportRequests.stream().map(ExportRequest::getId).filter(Objects::nonNull).toList());
+        result.setImportOrderIds(new ArrayList<>(importOrderIds));
+        result.setExportRequestIds(new ArrayList<>(exportRequestIds));
         return result;
     }
 
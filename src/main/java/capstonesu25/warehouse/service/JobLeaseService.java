@@ -0,0 +1,239 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.JobLease;
+import capstonesu25.warehouse.entity.JobRun;
+import capstonesu25.warehouse.enums.JobRunStatus;
+import capstonesu25.warehouse.model.job.HeldJobLease;
+import capstonesu25.warehouse.model.job.JobRunMetrics;
+import capstonesu25.warehouse.repository.JobLeaseRepository;
+import capstonesu25.warehouse.repository.JobRunRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cho mỗi job định kỳ chỉ chạy trên một instance tại một thời điểm bằng lease trong bảng job_lease:
+ * giành lease bằng một UPDATE có điều kiện hết hạn, gia hạn bằng heartbeat trên luồng riêng trong lúc chạy
+ * (scheduler mặc định chỉ có một luồng) và trả lease khi xong. Mỗi lần chạy được ghi vào job_run kèm thời lượng.
+ * Hạn lease tính theo đồng hồ của từng instance nên các node phải đồng bộ giờ, độ lệch nhỏ hơn nhiều so với LEASE_DURATION.
+ */
+@Service
+@RequiredArgsConstructor
+public class JobLeaseService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobLeaseService.class);
+
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(2);
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(30);
+    private static final int ERROR_MAX_LENGTH = 1000;
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final JobRunRepository jobRunRepository;
+
+    private final String owner = resolveOwner();
+    // Dòng job_lease đã biết là tồn tại, không cần thử insert lại
+    private final Set<String> knownJobs = ConcurrentHashMap.newKeySet();
+    private final Map<String, HeldJobLease> heldLeases = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService heartbeatExecutor;
+
+    @PostConstruct
+    public void start() {
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_INTERVAL.toMillis(),
+                HEARTBEAT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeatExecutor.shutdownNow();
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    // Chạy task nếu không instance nào khác đang giữ lease của job, trả về false nếu bỏ qua
+    public boolean runExclusively(String jobName, ToIntFunction<HeldJobLease> task) {
+        return run(jobName, null, task);
+    }
+
+    // Như runExclusively nhưng chỉ chạy khi runDate chưa có lần chạy thành công, trên bất kỳ instance nào
+    public boolean runOncePerDay(String jobName, LocalDate runDate, ToIntFunction<HeldJobLease> task) {
+        return run(jobName, runDate, task);
+    }
+
+    // Gọi trong transaction ghi dữ liệu của job: UPDATE theo fencing token khóa dòng lease đến khi commit,
+    // nên lô chỉ được commit khi lease vẫn thuộc về instance này
+    public void assertHeld(HeldJobLease lease) {
+        if (!extend(lease)) {
+            throw new IllegalStateException("Lease of job " + lease.getJobName() + " with token "
+                    + lease.getFencingToken() + " is no longer held by " + owner);
+        }
+    }
+
+    public List<JobLease> getLeases() {
+        return jobLeaseRepository.findAllByOrderByJobNameAsc();
+    }
+
+    public Page<JobRun> getRuns(String jobName, int page, int limit) {
+        PageRequest pageable = PageRequest.of(Math.max(page - 1, 0), limit);
+        return jobName != null
+                ? jobRunRepository.findByJobNameOrderByStartedAtDesc(jobName, pageable)
+                : jobRunRepository.findAllByOrderByStartedAtDesc(pageable);
+    }
+
+    public List<JobRunMetrics> getMetrics(int days) {
+        return jobRunRepository.findMetricsSince(LocalDateTime.now().minusDays(days));
+    }
+
+    private boolean run(String jobName, LocalDate runDate, ToIntFunction<HeldJobLease> task) {
+        HeldJobLease lease;
+        JobRun run;
+        try {
+            Optional<HeldJobLease> acquired = tryAcquire(jobName, runDate);
+            if (acquired.isEmpty()) {
+                return false;
+            }
+            lease = acquired.get();
+            heldLeases.put(jobName, lease);
+            run = jobRunRepository.save(new JobRun(null, jobName, owner, lease.getFencingToken(),
+                    JobRunStatus.RUNNING, LocalDateTime.now(), null, null, null, null));
+        } catch (Exception e) {
+            LOGGER.error("Failed to start job {}", jobName, e);
+            Optional.ofNullable(heldLeases.remove(jobName)).ifPresent(this::release);
+            return false;
+        }
+
+        long startedNanos = System.nanoTime();
+        try {
+            run.setProcessed(task.applyAsInt(lease));
+            boolean held = runDate != null
+                    ? jobLeaseRepository.markRun(jobName, owner, lease.getFencingToken(), runDate) == 1
+                    : extend(lease);
+            run.setStatus(held ? JobRunStatus.SUCCEEDED : JobRunStatus.LEASE_LOST);
+        } catch (Exception e) {
+            LOGGER.error("Job {} failed", jobName, e);
+            run.setStatus(isStillHeld(lease) ? JobRunStatus.FAILED : JobRunStatus.LEASE_LOST);
+            run.setError(truncate(e.toString()));
+        } finally {
+            heldLeases.remove(jobName);
+            run.setFinishedAt(LocalDateTime.now());
+            run.setDurationMillis((System.nanoTime() - startedNanos) / 1_000_000);
+            try {
+                jobRunRepository.save(run);
+            } catch (Exception e) {
+                LOGGER.error("Failed to record run of job {}", jobName, e);
+            }
+            release(lease);
+        }
+        if (run.getStatus() == JobRunStatus.LEASE_LOST) {
+            LOGGER.warn("Job {} lost its lease (token {}) while running", jobName, lease.getFencingToken());
+        }
+        LOGGER.info("Job {} finished with {} in {} ms", jobName, run.getStatus(), run.getDurationMillis());
+        return true;
+    }
+
+    private Optional<HeldJobLease> tryAcquire(String jobName, LocalDate runDate) {
+        if (acquire(jobName, runDate) == 0) {
+            // Không giành được: hoặc lease đang bị giữ / đã chạy hôm nay, hoặc job chưa có dòng nào
+            if (knownJobs.contains(jobName) || jobLeaseRepository.existsById(jobName)) {
+                knownJobs.add(jobName);
+                return Optional.empty();
+            }
+            try {
+                jobLeaseRepository.insertIfAbsent(jobName);
+            } catch (DataIntegrityViolationException e) {
+                // Instance khác vừa tạo cùng dòng
+            }
+            knownJobs.add(jobName);
+            if (acquire(jobName, runDate) == 0) {
+                return Optional.empty();
+            }
+        }
+        knownJobs.add(jobName);
+        return jobLeaseRepository.findFencingToken(jobName, owner)
+                .map(token -> new HeldJobLease(jobName, owner, token));
+    }
+
+    private int acquire(String jobName, LocalDate runDate) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(LEASE_DURATION);
+        return runDate != null
+                ? jobLeaseRepository.acquireForDay(jobName, owner, now, leaseUntil, runDate)
+                : jobLeaseRepository.acquire(jobName, owner, now, leaseUntil);
+    }
+
+    private boolean extend(HeldJobLease lease) {
+        LocalDateTime now = LocalDateTime.now();
+        return jobLeaseRepository.extend(lease.getJobName(), lease.getOwner(), lease.getFencingToken(),
+                now, now.plus(LEASE_DURATION)) == 1;
+    }
+
+    private boolean isStillHeld(HeldJobLease lease) {
+        try {
+            return extend(lease);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void release(HeldJobLease lease) {
+        try {
+            jobLeaseRepository.release(lease.getJobName(), lease.getOwner(), lease.getFencingToken());
+        } catch (Exception e) {
+            LOGGER.error("Failed to release lease of job {}, it will expire on its own", lease.getJobName(), e);
+        }
+    }
+
+    private void heartbeat() {
+        for (HeldJobLease lease : heldLeases.values()) {
+            try {
+                if (!extend(lease)) {
+                    LOGGER.warn("Lease of job {} (token {}) was taken over", lease.getJobName(),
+                            lease.getFencingToken());
+                }
+            } catch (Exception e) {
+                LOGGER.error("Failed to extend lease of job {}", lease.getJobName(), e);
+            }
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() > ERROR_MAX_LENGTH ? message.substring(0, ERROR_MAX_LENGTH) : message;
+    }
+
+    private static String resolveOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
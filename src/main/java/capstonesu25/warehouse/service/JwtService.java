@@ -1,22 +1,33 @@
 package capstonesu25.warehouse.service;
 
+import capstonesu25.warehouse.model.account.AuthenticatedAccount;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import capstonesu25.warehouse.enums.TokenType;
 import capstonesu25.warehouse.entity.Account;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Service
@@ -30,6 +41,65 @@ public class JwtService {
     @Value("${spring.application.security.jwt.refresh_token.expiration}")
     private Long jwtRefreshTokenExpiration;
 
+    // Số access token đã xác thực được giữ lại; vượt quá thì bỏ token hết hạn, vẫn đầy thì xóa hết
+    private static final int MAX_VERIFIED_TOKENS = 10_000;
+
+    private Key accessSecretKey;
+    private Key refreshSecretKey;
+    private JwtParser accessTokenParser;
+    private JwtParser refreshTokenParser;
+
+    // Key là SHA-256 của token nên không giữ token gốc trong bộ nhớ
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        accessSecretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(accessTokenSecret));
+        refreshSecretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(refreshTokenSecret));
+        accessTokenParser = Jwts.parserBuilder().setSigningKey(accessSecretKey).build();
+        refreshTokenParser = Jwts.parserBuilder().setSigningKey(refreshSecretKey).build();
+    }
+
+    /**
+     * Xác thực access token (chữ ký, hạn dùng, token_type) với đúng một lần parse và dựng principal từ claims.
+     * Token đã xác thực được cache tới khi hết hạn nên các request sau chỉ tốn một lần hash.
+     */
+    public Optional<AuthenticatedAccount> verifyAccessToken(String token) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                return Optional.of(cached.account());
+            }
+            verifiedTokens.remove(key);
+            return Optional.empty();
+        }
+
+        Claims claims;
+        try {
+            claims = accessTokenParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        String tokenType = claims.get("token_type", String.class);
+        String username = claims.get("username", String.class);
+        Long accountId = accountIdOf(claims);
+        if ((tokenType != null && !TokenType.ACCESS.name().equals(tokenType))
+                || username == null || accountId == null || claims.getExpiration() == null) {
+            return Optional.empty();
+        }
+
+        String role = claims.get("role", String.class);
+        List<GrantedAuthority> authorities = role == null ? List.of() : List.of(new SimpleGrantedAuthority(role));
+        AuthenticatedAccount account = new AuthenticatedAccount(accountId, username, role, authorities);
+        if (verifiedTokens.size() >= MAX_VERIFIED_TOKENS) {
+            evict(now);
+        }
+        verifiedTokens.put(key, new VerifiedToken(account, claims.getExpiration().getTime()));
+        return Optional.of(account);
+    }
+
     public String extractAccountId(String token, TokenType tokenType) {
         return extractClaim(token, Claims::getSubject, tokenType);
     }
@@ -40,9 +110,7 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token, TokenType tokenType) {
-        return Jwts.parserBuilder()
-                .setSigningKey(tokenType.equals(TokenType.ACCESS) ? getAccessSecretKey() : getRefreshSecretKey())
-                .build()
+        return (tokenType.equals(TokenType.ACCESS) ? accessTokenParser : refreshTokenParser)
                 .parseClaimsJws(token)
                 .getBody();
     }
@@ -61,7 +129,7 @@ public class JwtService {
             claims,
             account.getId().toString(),
             jwtTokenExpiration,
-            getAccessSecretKey()
+            accessSecretKey
         );
     }
 
@@ -75,7 +143,7 @@ public class JwtService {
             claims,
             account.getId().toString(),
             jwtRefreshTokenExpiration,
-            getRefreshSecretKey()
+            refreshSecretKey
         );
     }
 
@@ -96,31 +164,15 @@ public class JwtService {
                 .compact();
     }
 
-    private Key getAccessSecretKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(accessTokenSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
-    private Key getRefreshSecretKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(refreshTokenSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
     public boolean isAccessToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getAccessSecretKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return verifyAccessToken(token).isPresent();
     }
 
+    // Parse một lần rồi kiểm tra username và hạn dùng trên cùng claims
     public Boolean isTokenValid(String token, UserDetails userDetails, TokenType tokenType) {
-        final String username = extractClaim(token, claims -> claims.get("username", String.class), tokenType);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token, tokenType));
+        final Claims claims = extractAllClaims(token, tokenType);
+        final String username = claims.get("username", String.class);
+        return (username.equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
     }
 
     public boolean isTokenExpired(String token, TokenType tokenType) {
@@ -130,5 +182,35 @@ public class JwtService {
     private Date extractExpiration(String token, TokenType tokenType) {
         return extractClaim(token, Claims::getExpiration, tokenType);
     }
-}
 
+    private Long accountIdOf(Claims claims) {
+        Object id = claims.get("id");
+        if (id instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return claims.getSubject() == null ? null : Long.valueOf(claims.getSubject());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void evict(long now) {
+        verifiedTokens.values().removeIf(token -> token.expiresAtMillis() <= now);
+        if (verifiedTokens.size() >= MAX_VERIFIED_TOKENS) {
+            verifiedTokens.clear();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return new String(digest, StandardCharsets.ISO_8859_1);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedToken(AuthenticatedAccount account, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,153 @@
+package capstonesu25.warehouse.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gom các thông báo phát sinh trong cùng một transaction: bỏ trùng, insert toàn bộ bằng một JDBC batch
+ * trước khi commit, cùng với các sự kiện Pusher vào notification_outbox.
+ * Sau khi commit, NotificationOutboxSender mới gửi các sự kiện này lên Pusher.
+ * Nếu không có transaction thì ghi ngay.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationDispatcher {
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationOutboxSender notificationOutboxSender;
+    private final ObjectMapper objectMapper;
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final String INSERT_SQL = "INSERT INTO notification "
+            + "(receiver_id, object_id, event_type, content, created_date, is_viewed, is_clicked) "
+            + "VALUES (?, ?, ?, ?, ?, false, false)";
+
+    private static final String INSERT_OUTBOX_SQL = "INSERT INTO notification_outbox "
+            + "(channel, event, payload, status, attempts, next_attempt_at, created_date) "
+            + "VALUES (?, ?, ?, 'PENDING', 0, ?, ?)";
+
+    private static final Object PENDING_RESOURCE_KEY = new Object();
+
+    public void dispatch(String channel, String event, String objectId, String content, Collection<Long> receiverIds) {
+        LocalDateTime now = LocalDateTime.now();
+        PendingNotifications pending = currentTransactionPending();
+        if (pending == null) {
+            PendingNotifications immediate = new PendingNotifications();
+            immediate.add(channel, event, objectId, content, receiverIds, now);
+            insertRows(immediate);
+            notificationOutboxSender.wakeUp();
+            return;
+        }
+        pending.add(channel, event, objectId, content, receiverIds, now);
+    }
+
+    private PendingNotifications currentTransactionPending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        PendingNotifications pending = (PendingNotifications) TransactionSynchronizationManager.getResource(PENDING_RESOURCE_KEY);
+        if (pending != null) {
+            return pending;
+        }
+        PendingNotifications created = new PendingNotifications();
+        TransactionSynchronizationManager.bindResource(PENDING_RESOURCE_KEY, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                insertRows(created);
+            }
+
+            @Override
+            public void afterCommit() {
+                notificationOutboxSender.wakeUp();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_RESOURCE_KEY);
+            }
+        });
+        return created;
+    }
+
+    private void insertRows(PendingNotifications pending) {
+        insertOutbox(pending);
+        if (pending.rows.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(pending.rows.size());
+        for (NotificationRow row : pending.rows.keySet()) {
+            rows.add(new Object[]{row.receiverId(), row.objectId(), row.event(), row.content(),
+                    Timestamp.valueOf(pending.rows.get(row))});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        LOGGER.info("Inserted {} notifications in one batch", rows.size());
+    }
+
+    private void insertOutbox(PendingNotifications pending) {
+        if (pending.pushes.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(pending.pushes.size());
+        pending.pushes.forEach((push, payload) -> {
+            Timestamp createdDate = Timestamp.valueOf(LocalDateTime.parse((String) payload.get("createdDate")));
+            rows.add(new Object[]{push.channel(), push.event(), toJson(payload), createdDate, createdDate});
+        });
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_SQL, rows);
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize notification payload", e);
+        }
+    }
+
+    private record NotificationRow(Long receiverId, String event, String objectId, String content) {
+    }
+
+    private record PushEvent(String channel, String event, String objectId, String content) {
+    }
+
+    private static class PendingNotifications {
+        private final Map<NotificationRow, LocalDateTime> rows = new LinkedHashMap<>();
+        private final Map<PushEvent, Map<String, Object>> pushes = new LinkedHashMap<>();
+
+        // Cùng một sự kiện phát nhiều lần trong transaction chỉ được ghi và đẩy một lần
+        private void add(String channel, String event, String objectId, String content,
+                         Collection<Long> receiverIds, LocalDateTime now) {
+            pushes.computeIfAbsent(new PushEvent(channel, event, objectId, content), key -> {
+                Map<String, Object> payload = new HashMap<>();
+                payload.put("objectId", objectId);
+                payload.put("content", content);
+                payload.put("isViewed", false);
+                payload.put("isClicked", false);
+                payload.put("eventType", event);
+                payload.put("createdDate", now.toString());
+                return payload;
+            });
+            for (Long receiverId : receiverIds) {
+                if (receiverId != null) {
+                    rows.putIfAbsent(new NotificationRow(receiverId, event, objectId, content), now);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.enums.OutboxStatus;
+import capstonesu25.warehouse.model.notification.NotificationOutboxMetrics;
+import capstonesu25.warehouse.utils.NotificationUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pusher.rest.data.Event;
+import com.pusher.rest.data.Result;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gửi các sự kiện trong notification_outbox lên Pusher bằng một luồng riêng:
+ * mỗi vòng nhận một lô dòng PENDING đã tới hạn trong một transaction ngắn (SKIP LOCKED để nhiều instance không
+ * nhận trùng, next_attempt_at được đẩy thêm CLAIM_LEASE làm hạn giữ lô) rồi mới gọi Pusher ngoài transaction,
+ * nên lời gọi HTTP không giữ connection hay khóa dòng nào. Mỗi nhóm tối đa 10 event được gửi bằng batch trigger,
+ * thất bại tạm thời thì lùi lịch gửi lại theo cấp số nhân; instance chết giữa chừng thì lô được gửi lại khi hết hạn giữ.
+ */
+@Service
+public class NotificationOutboxSender {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationOutboxSender.class);
+
+    private static final int CLAIM_SIZE = 100;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long POLL_INTERVAL_MILLIS = 1_000;
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(2);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+    private static final Duration SENT_RETENTION = Duration.ofDays(7);
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(2);
+    private static final String PURGE_JOB = "notification-outbox-purge";
+
+    private static final String CLAIM_SQL = "SELECT id, channel, event, payload, attempts, created_date "
+            + "FROM notification_outbox "
+            + "WHERE status = 'PENDING' AND next_attempt_at <= ? "
+            + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String EXTEND_CLAIM_SQL = "UPDATE notification_outbox SET next_attempt_at = ? WHERE id = ?";
+
+    private static final String MARK_SENT_SQL = "UPDATE notification_outbox "
+            + "SET status = 'SENT', attempts = attempts + 1, sent_date = ?, last_error = NULL WHERE id = ?";
+
+    private static final String MARK_RETRY_SQL = "UPDATE notification_outbox "
+            + "SET status = ?, attempts = ?, next_attempt_at = ?, last_error = ? WHERE id = ?";
+
+    private static final String BACKLOG_SQL = "SELECT status, COUNT(*), MIN(created_date) FROM notification_outbox "
+            + "WHERE status IN ('PENDING', 'FAILED') GROUP BY status";
+
+    private static final String PURGE_SQL = "DELETE FROM notification_outbox WHERE status = 'SENT' AND sent_date < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationUtil notificationUtil;
+    private final ObjectMapper objectMapper;
+    private final JobLeaseService jobLeaseService;
+
+    private final BlockingQueue<Boolean> wakeUpSignal = new ArrayBlockingQueue<>(1);
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong triggerCalls = new AtomicLong();
+    private final AtomicLong lastSendLagMillis = new AtomicLong();
+    private final AtomicLong maxSendLagMillis = new AtomicLong();
+    private final AtomicLong lastTriggerMillis = new AtomicLong();
+
+    // Tắt luồng gửi nền (vd. khi test gọi sendDueEvents trực tiếp)
+    @Value("${warehouse.notification.outbox-sender-enabled:true}")
+    private boolean senderEnabled;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public NotificationOutboxSender(JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    NotificationUtil notificationUtil,
+                                    ObjectMapper objectMapper,
+                                    JobLeaseService jobLeaseService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.notificationUtil = notificationUtil;
+        this.objectMapper = objectMapper;
+        this.jobLeaseService = jobLeaseService;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!senderEnabled) {
+            LOGGER.info("Notification outbox sender thread is disabled");
+            return;
+        }
+        running = true;
+        worker = new Thread(this::sendLoop, "notification-outbox-sender");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    // Gọi sau khi commit để gửi ngay thay vì chờ tới vòng poll kế tiếp
+    public void wakeUp() {
+        wakeUpSignal.offer(Boolean.TRUE);
+    }
+
+    public NotificationOutboxMetrics getMetrics() {
+        long pending = 0;
+        long failedInOutbox = 0;
+        Long oldestPendingAgeMillis = null;
+        List<Object[]> backlog = jdbcTemplate.query(BACKLOG_SQL,
+                (rs, rowNum) -> new Object[]{rs.getString(1), rs.getLong(2), rs.getTimestamp(3)});
+        for (Object[] row : backlog) {
+            if (OutboxStatus.PENDING.name().equals(row[0])) {
+                pending = (Long) row[1];
+                Timestamp oldest = (Timestamp) row[2];
+                if (oldest != null) {
+                    oldestPendingAgeMillis = Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).toMillis();
+                }
+            } else {
+                failedInOutbox = (Long) row[1];
+            }
+        }
+        return NotificationOutboxMetrics.builder()
+                .pending(pending)
+                .failedInOutbox(failedInOutbox)
+                .oldestPendingAgeMillis(oldestPendingAgeMillis)
+                .sent(sent.get())
+                .retried(retried.get())
+                .failed(failed.get())
+                .triggerCalls(triggerCalls.get())
+                .lastSendLagMillis(lastSendLagMillis.get())
+                .maxSendLagMillis(maxSendLagMillis.get())
+                .lastTriggerMillis(lastTriggerMillis.get())
+                .build();
+    }
+
+    @Scheduled(cron = "0 15 1 * * *", zone = "Asia/Ho_Chi_Minh")
+    public void purgeSentEvents() {
+        jobLeaseService.runOncePerDay(PURGE_JOB, LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh")), lease -> {
+            int deleted = jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(LocalDateTime.now().minus(SENT_RETENTION)));
+            LOGGER.info("Purged {} sent notification outbox events", deleted);
+            return deleted;
+        });
+    }
+
+    private void sendLoop() {
+        while (running) {
+            try {
+                int claimed = sendDueEvents();
+                // Lô đầy nghĩa là còn tồn, gửi tiếp ngay
+                if (claimed == CLAIM_SIZE) {
+                    continue;
+                }
+                wakeUpSignal.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOGGER.error("Unexpected error in notification outbox sender", e);
+                try {
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Một vòng gửi: nhận lô tới hạn rồi gửi từng nhóm, trả về số event đã nhận
+    int sendDueEvents() {
+        List<OutboxEvent> events = transactionTemplate.execute(status -> claimDueEvents());
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+        for (int from = 0; from < events.size(); from += NotificationUtil.MAX_EVENTS_PER_TRIGGER) {
+            send(events.subList(from, Math.min(from + NotificationUtil.MAX_EVENTS_PER_TRIGGER, events.size())));
+        }
+        return events.size();
+    }
+
+    private List<OutboxEvent> claimDueEvents() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = jdbcTemplate.query(CLAIM_SQL,
+                (rs, rowNum) -> new OutboxEvent(
+                        rs.getLong("id"),
+                        rs.getString("channel"),
+                        rs.getString("event"),
+                        rs.getString("payload"),
+                        rs.getInt("attempts"),
+                        rs.getTimestamp("created_date").toLocalDateTime()),
+                Timestamp.valueOf(now), CLAIM_SIZE);
+        if (events.isEmpty()) {
+            return events;
+        }
+        Timestamp claimedUntil = Timestamp.valueOf(now.plus(CLAIM_LEASE));
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            rows.add(new Object[]{claimedUntil, event.id()});
+        }
+        jdbcTemplate.batchUpdate(EXTEND_CLAIM_SQL, rows);
+        return events;
+    }
+
+    private void send(List<OutboxEvent> chunk) {
+        long start = System.nanoTime();
+        Result result;
+        try {
+            List<Event> pusherEvents = new ArrayList<>(chunk.size());
+            for (OutboxEvent event : chunk) {
+                pusherEvents.add(new Event(event.channel(), event.event(), toData(event.payload())));
+            }
+            result = notificationUtil.trigger(pusherEvents);
+        } catch (Exception e) {
+            LOGGER.error("Failed to build Pusher batch of {} events", chunk.size(), e);
+            reschedule(chunk, false, e.getMessage());
+            return;
+        } finally {
+            triggerCalls.incrementAndGet();
+            lastTriggerMillis.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+
+        if (result.getStatus() == Result.Status.SUCCESS) {
+            markSent(chunk);
+            return;
+        }
+        String error = result.getStatus() + " (" + result.getHttpStatus() + "): " + result.getMessage();
+        LOGGER.warn("Pusher batch of {} events failed: {}", chunk.size(), error);
+        reschedule(chunk, result.getStatus().shouldRetry(), error);
+    }
+
+    private Map<String, Object> toData(String payload) throws Exception {
+        return objectMapper.readValue(payload, new TypeReference<>() {
+        });
+    }
+
+    private void markSent(List<OutboxEvent> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        for (OutboxEvent event : chunk) {
+            rows.add(new Object[]{Timestamp.valueOf(now), event.id()});
+            long lag = Duration.between(event.createdDate(), now).toMillis();
+            lastSendLagMillis.set(lag);
+            maxSendLagMillis.accumulateAndGet(lag, Math::max);
+        }
+        jdbcTemplate.batchUpdate(MARK_SENT_SQL, rows);
+        sent.addAndGet(chunk.size());
+    }
+
+    // Lỗi không thể gửi lại (sai cấu hình, dữ liệu hỏng) hoặc đã quá số lần thử thì chuyển FAILED
+    private void reschedule(List<OutboxEvent> chunk, boolean retryable, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        String lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        for (OutboxEvent event : chunk) {
+            int attempts = event.attempts() + 1;
+            boolean giveUp = !retryable || attempts >= MAX_ATTEMPTS;
+            OutboxStatus status = giveUp ? OutboxStatus.FAILED : OutboxStatus.PENDING;
+            rows.add(new Object[]{status.name(), attempts, Timestamp.valueOf(now.plus(backoff(attempts))),
+                    lastError, event.id()});
+            if (giveUp) {
+                failed.incrementAndGet();
+            } else {
+                retried.incrementAndGet();
+            }
+        }
+        jdbcTemplate.batchUpdate(MARK_RETRY_SQL, rows);
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = BASE_BACKOFF.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private record OutboxEvent(Long id, String channel, String event, String payload, int attempts,
+                               LocalDateTime createdDate) {
+    }
+}
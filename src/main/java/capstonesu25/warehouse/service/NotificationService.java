@@ -1,25 +1,25 @@
 package capstonesu25.warehouse.service;
 
 import capstonesu25.warehouse.entity.Notification;
+import capstonesu25.warehouse.model.notification.NotificationOutboxMetrics;
 import capstonesu25.warehouse.model.notification.NotificationResponse;
 import capstonesu25.warehouse.repository.NotificationRepository;
-import capstonesu25.warehouse.utils.NotificationUtil;
 import capstonesu25.warehouse.entity.Account;
+import capstonesu25.warehouse.enums.AccountRole;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Map;
-import java.util.HashMap;
-import java.time.LocalDateTime;
 
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
     private final NotificationRepository notificationRepository;
-    private final NotificationUtil notificationUtil;
+    private final NotificationDispatcher notificationDispatcher;
+    private final RoleRecipientCache roleRecipientCache;
+    private final NotificationOutboxSender notificationOutboxSender;
     private static final Logger LOGGER = LoggerFactory.getLogger(NotificationService.class);
 
     public NotificationResponse deleteNotification(Long id) {
@@ -29,6 +29,10 @@ public class NotificationService {
         return mapToResponse(notification);
     }
 
+    public NotificationOutboxMetrics getOutboxMetrics() {
+        return notificationOutboxSender.getMetrics();
+    }
+
     public List<NotificationResponse> getAllNotificationsByAccountId(Long accountId) {
         LOGGER.info("Getting all notifications for accountId={}", accountId);
         return notificationRepository.findAllByReceiverIdOrderByCreatedDateDesc(accountId).stream()
@@ -54,27 +58,14 @@ public class NotificationService {
 
     public void handleNotification(String channel, String event, String objectId, String content, List<Account> receivers) {
         LOGGER.info("Handling notification: channel={}, event={}, objectId={}, content={}", channel, event, objectId, content);
-        LocalDateTime now = LocalDateTime.now();
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("objectId", objectId);
-        payload.put("content", content);
-        payload.put("isViewed", false);
-        payload.put("isClicked", false);
-        payload.put("eventType", event);
-        payload.put("createdDate", now.toString());
-        notificationUtil.notify(channel, event, payload);
-        for (Account receiver : receivers) {
-            Notification notification = Notification.builder()
-                .receiver(receiver)
-                .objectId(objectId)
-                .eventType(event)
-                .content(content)
-                .isViewed(false)
-                .isClicked(false)
-                .createdDate(now)
-                .build();
-            notificationRepository.save(notification);
-        }
+        notificationDispatcher.dispatch(channel, event, objectId, content,
+                receivers.stream().map(Account::getId).toList());
+    }
+
+    public void handleNotification(String channel, String event, String objectId, String content, AccountRole receiverRole) {
+        LOGGER.info("Handling notification: channel={}, event={}, objectId={}, role={}", channel, event, objectId, receiverRole);
+        notificationDispatcher.dispatch(channel, event, objectId, content,
+                roleRecipientCache.getAccountIds(receiverRole));
     }
 
     public void deleteAllNotificationsByReceiverId(Long receiverId) {
@@ -30,7 +30,6 @@ public class PaperService {
     private final ExportRequestRepository exportRequestRepository;
     private final CloudinaryUtil cloudinaryUtil;
     private final NotificationService notificationService;
-    private final AccountRepository accountRepository;
     private final StockCheckRequestRepository stockCheckRequestRepository;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PaperService.class);
@@ -92,14 +91,14 @@ public class PaperService {
                     NotificationUtil.IMPORT_ORDER_COUNTED_EVENT + "-" + request.getImportOrderId(),
                     request.getImportOrderId(),
                     "Đơn nhập mã #" + request.getImportOrderId() + " đã được đếm",
-                    accountRepository.findByRole(AccountRole.DEPARTMENT)
+                    AccountRole.DEPARTMENT
             );
             notificationService.handleNotification(
                     NotificationUtil.WAREHOUSE_MANAGER_CHANNEL,
                     NotificationUtil.IMPORT_ORDER_COUNTED_EVENT + "-" + request.getImportOrderId(),
                     request.getImportOrderId(),
                     "Đơn nhập mã #" + request.getImportOrderId() + " đã được đếm",
-                    accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER)
+                    AccountRole.WAREHOUSE_MANAGER
             );
         }
         if(request.getExportRequestId() != null) {
@@ -128,14 +127,14 @@ public class PaperService {
                     NotificationUtil.EXPORT_REQUEST_COUNTED_EVENT + "-" + request.getExportRequestId(),
                     request.getExportRequestId(),
                     "Đơn xuất mã #" + request.getExportRequestId() + " đã hoàn thành",
-                    accountRepository.findByRole(AccountRole.DEPARTMENT)
+                    AccountRole.DEPARTMENT
             );
             notificationService.handleNotification(
                     NotificationUtil.WAREHOUSE_MANAGER_CHANNEL,
                     NotificationUtil.EXPORT_REQUEST_COUNTED_EVENT + "-" + request.getExportRequestId(),
                     request.getExportRequestId(),
                     "Đơn xuất mã #" + request.getExportRequestId() + " đã hoàn thành",
-                    accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER)
+                    AccountRole.WAREHOUSE_MANAGER
             );
         }
         if(request.getStockCheckRequestId() != null) {
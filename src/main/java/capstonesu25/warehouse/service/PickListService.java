@@ -0,0 +1,150 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.StoredLocation;
+import capstonesu25.warehouse.model.inventoryitem.PickItem;
+import capstonesu25.warehouse.model.picklist.PickList;
+import capstonesu25.warehouse.model.picklist.PickStop;
+import capstonesu25.warehouse.model.storedlocation.LocationNode;
+import capstonesu25.warehouse.repository.ExportRequestRepository;
+import capstonesu25.warehouse.repository.InventoryItemRepository;
+import capstonesu25.warehouse.repository.StoredLocationRepository;
+import capstonesu25.warehouse.utils.PickRouteUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sắp các inventory item đã giữ cho phiếu xuất thành lộ trình lấy hàng: item cùng vị trí gộp thành một điểm dừng,
+ * các điểm dừng được xếp bởi PickRouteUtil (nearest-neighbour + 2-opt) xuất phát và quay về cửa kho cho vòng ngắn nhất.
+ */
+@Service
+@RequiredArgsConstructor
+public class PickListService {
+    private final InventoryItemRepository inventoryItemRepository;
+    private final StoredLocationRepository storedLocationRepository;
+    private final ExportRequestRepository exportRequestRepository;
+    private final AccountService accountService;
+    private static final Logger LOGGER = LoggerFactory.getLogger(PickListService.class);
+
+    private static final long ROUTE_TIME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    public PickList getPickList(String exportRequestId) {
+        LOGGER.info("Building pick list for export request: {}", exportRequestId);
+        if (!exportRequestRepository.existsById(exportRequestId)) {
+            throw new NoSuchElementException("Export request not found with ID: " + exportRequestId);
+        }
+        return buildPickList(List.of(exportRequestId));
+    }
+
+    // Một lộ trình chung cho mọi phiếu xuất của nhân viên trong ngày
+    public PickList getPickListOfStaff(Long staffId, LocalDate date) {
+        LOGGER.info("Building pick list for staff {} on {}", staffId, date);
+        List<String> exportRequestIds = accountService.getTasksOfStaffPerDate(staffId, date).getExportRequestIds();
+        return buildPickList(exportRequestIds);
+    }
+
+    private PickList buildPickList(List<String> exportRequestIds) {
+        long started = System.nanoTime();
+        List<PickItem> items = exportRequestIds.isEmpty()
+                ? List.of()
+                : inventoryItemRepository.findPickItemsByExportRequestIds(exportRequestIds);
+
+        Map<Long, List<PickItem>> byLocation = new LinkedHashMap<>();
+        List<String> unlocated = new ArrayList<>();
+        for (PickItem item : items) {
+            if (item.getStoredLocationId() == null) {
+                unlocated.add(item.getId());
+            } else {
+                byLocation.computeIfAbsent(item.getStoredLocationId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+
+        Map<Long, StoredLocation> locations = storedLocationRepository.findAllById(byLocation.keySet()).stream()
+                .collect(Collectors.toMap(StoredLocation::getId, Function.identity()));
+        List<LocationNode> stops = byLocation.keySet().stream()
+                .map(id -> LocationNode.from(locations.get(id), Set.of()))
+                .toList();
+        List<LocationNode> doors = storedLocationRepository.findByIsDoorTrue().stream()
+                .map(door -> LocationNode.from(door, Set.of()))
+                .toList();
+
+        LocationNode start = null;
+        int[] order = new int[0];
+        long routeLength = 0;
+        long unsortedLength = 0;
+        if (!stops.isEmpty()) {
+            List<LocationNode> starts = doors.isEmpty() ? List.of(lowestCoordinate(stops)) : doors;
+            int[] identity = new int[stops.size()];
+            for (int i = 0; i < identity.length; i++) {
+                identity[i] = i;
+            }
+            long budget = ROUTE_TIME_BUDGET_NANOS / starts.size();
+            for (LocationNode candidate : starts) {
+                int[] candidateOrder = PickRouteUtil.route(candidate, stops, budget);
+                long candidateLength = PickRouteUtil.length(candidate, stops, candidateOrder);
+                if (start == null || candidateLength < routeLength) {
+                    start = candidate;
+                    order = candidateOrder;
+                    routeLength = candidateLength;
+                    unsortedLength = PickRouteUtil.length(candidate, stops, identity);
+                }
+            }
+        }
+
+        List<PickStop> pickStops = new ArrayList<>(order.length);
+        LocationNode previous = start;
+        for (int index : order) {
+            LocationNode node = stops.get(index);
+            StoredLocation location = locations.get(node.getId());
+            List<PickItem> stopItems = byLocation.get(node.getId());
+            pickStops.add(PickStop.builder()
+                    .sequence(pickStops.size() + 1)
+                    .storedLocationId(node.getId())
+                    .zone(location.getZone())
+                    .floor(location.getFloor())
+                    .row(location.getRow())
+                    .line(location.getLine())
+                    .distanceFromPrevious((long) previous.distanceTo(node))
+                    .inventoryItemIds(stopItems.stream().map(PickItem::getId).toList())
+                    .exportRequestIds(stopItems.stream().map(PickItem::getExportRequestId).distinct().toList())
+                    .build());
+            previous = node;
+        }
+
+        double computeMillis = (System.nanoTime() - started) / 1_000_000.0;
+        LOGGER.info("Pick list for {}: {} items, {} stops, route {} (unsorted {}) in {} ms",
+                exportRequestIds, items.size(), pickStops.size(), routeLength, unsortedLength, computeMillis);
+        return PickList.builder()
+                .exportRequestIds(exportRequestIds)
+                .startLocationId(doors.isEmpty() || start == null ? null : start.getId())
+                .totalItems(items.size())
+                .stops(pickStops)
+                .unlocatedInventoryItemIds(unlocated)
+                .routeLength(routeLength)
+                .unsortedRouteLength(unsortedLength)
+                .computeMillis(computeMillis)
+                .build();
+    }
+
+    private LocationNode lowestCoordinate(List<LocationNode> stops) {
+        return stops.stream()
+                .min(Comparator.comparingInt(LocationNode::getZone)
+                        .thenComparingInt(LocationNode::getFloor)
+                        .thenComparingInt(LocationNode::getRow)
+                        .thenComparingInt(LocationNode::getLine))
+                .orElseThrow();
+    }
+}
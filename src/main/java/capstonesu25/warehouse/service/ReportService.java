@@ -0,0 +1,112 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.enums.ReportFormat;
+import capstonesu25.warehouse.model.report.InventoryLocationReportRow;
+import capstonesu25.warehouse.model.report.MovementReportRow;
+import capstonesu25.warehouse.model.report.StockCheckVarianceReportRow;
+import capstonesu25.warehouse.repository.ExportRequestDetailRepository;
+import capstonesu25.warehouse.repository.ImportOrderDetailRepository;
+import capstonesu25.warehouse.repository.InventoryItemRepository;
+import capstonesu25.warehouse.repository.StockCheckRequestDetailRepository;
+import capstonesu25.warehouse.utils.ReportWriter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Báo cáo được đọc bằng cursor JDBC (fetch size 500) và ghi ngay ra outputStream từng dòng,
+ * nên bộ nhớ không phụ thuộc số dòng. Gọi trong StreamingResponseBody, transaction giữ cursor mở tới khi ghi xong.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReportService {
+    private final InventoryItemRepository inventoryItemRepository;
+    private final StockCheckRequestDetailRepository stockCheckRequestDetailRepository;
+    private final ImportOrderDetailRepository importOrderDetailRepository;
+    private final ExportRequestDetailRepository exportRequestDetailRepository;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportService.class);
+
+    @Transactional(readOnly = true)
+    public long exportInventoryByLocation(ReportFormat format, OutputStream outputStream) {
+        LOGGER.info("Export inventory by location report as {}", format);
+        try (ReportWriter writer = ReportWriter.of(format, outputStream);
+             Stream<InventoryLocationReportRow> rows = inventoryItemRepository.streamLocationReport()) {
+            writer.header("Zone", "Floor", "Row", "Line", "Item ID", "Item name", "Measurement unit",
+                    "Inventory item ID", "Status", "Measurement value", "Imported date", "Expired date");
+            long count = write(writer, rows, row -> new Object[]{
+                    row.getZone(), row.getFloor(), row.getRow(), row.getLine(), row.getItemId(), row.getItemName(),
+                    row.getMeasurementUnit(), row.getInventoryItemId(), row.getStatus(), row.getMeasurementValue(),
+                    row.getImportedDate(), row.getExpiredDate()});
+            LOGGER.info("Exported {} inventory by location rows", count);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportStockCheckVariance(LocalDate fromDate, LocalDate toDate, ReportFormat format,
+                                         OutputStream outputStream) {
+        LOGGER.info("Export stock check variance report from {} to {} as {}", fromDate, toDate, format);
+        try (ReportWriter writer = ReportWriter.of(format, outputStream);
+             Stream<StockCheckVarianceReportRow> rows =
+                     stockCheckRequestDetailRepository.streamVarianceReport(fromDate, toDate)) {
+            writer.header("Stock check request ID", "Request status", "Counting date", "Item ID", "Item name",
+                    "Detail status", "Quantity", "Actual quantity", "Quantity variance", "Measurement value",
+                    "Actual measurement value", "Measurement variance");
+            long count = write(writer, rows, row -> new Object[]{
+                    row.getStockCheckRequestId(), row.getRequestStatus(), row.getCountingDate(), row.getItemId(),
+                    row.getItemName(), row.getDetailStatus(), row.getQuantity(), row.getActualQuantity(),
+                    row.getQuantityVariance(), row.getMeasurementValue(), row.getActualMeasurementValue(),
+                    row.getMeasurementVariance()});
+            LOGGER.info("Exported {} stock check variance rows", count);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Phần nhập ghi trước, phần xuất ghi sau, mỗi phần sắp theo ngày
+    @Transactional(readOnly = true)
+    public long exportMovement(LocalDate fromDate, LocalDate toDate, ReportFormat format, OutputStream outputStream) {
+        LOGGER.info("Export import/export movement report from {} to {} as {}", fromDate, toDate, format);
+        Function<MovementReportRow, Object[]> columns = row -> new Object[]{
+                row.getDirection(), row.getDocumentId(), row.getDate(), row.getDocumentStatus(), row.getItemId(),
+                row.getItemName(), row.getDetailStatus(), row.getExpectedQuantity(), row.getActualQuantity(),
+                row.getExpectedMeasurementValue(), row.getActualMeasurementValue()};
+        try (ReportWriter writer = ReportWriter.of(format, outputStream)) {
+            writer.header("Direction", "Document ID", "Date", "Document status", "Item ID", "Item name",
+                    "Detail status", "Expected quantity", "Actual quantity", "Expected measurement value",
+                    "Actual measurement value");
+            long count;
+            try (Stream<MovementReportRow> imports = importOrderDetailRepository.streamMovementReport(fromDate, toDate)) {
+                count = write(writer, imports, columns);
+            }
+            try (Stream<MovementReportRow> exports = exportRequestDetailRepository.streamMovementReport(fromDate, toDate)) {
+                count += write(writer, exports, columns);
+            }
+            LOGGER.info("Exported {} movement rows", count);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> long write(ReportWriter writer, Stream<T> rows, Function<T, Object[]> columns) throws IOException {
+        long count = 0;
+        for (T row : (Iterable<T>) rows::iterator) {
+            writer.row(columns.apply(row));
+            count++;
+        }
+        return count;
+    }
+}
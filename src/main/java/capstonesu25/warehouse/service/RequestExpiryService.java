@@ -0,0 +1,133 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.enums.AccountRole;
+import capstonesu25.warehouse.enums.RequestStatus;
+import capstonesu25.warehouse.model.job.HeldJobLease;
+import capstonesu25.warehouse.repository.ExportRequestDetailRepository;
+import capstonesu25.warehouse.repository.ExportRequestRepository;
+import capstonesu25.warehouse.repository.ImportOrderRepository;
+import capstonesu25.warehouse.repository.StockCheckRequestRepository;
+import capstonesu25.warehouse.utils.NotificationUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Hủy tự động các phiếu quá hạn bằng câu lệnh theo tập, không nạp entity: mỗi lô CHUNK_SIZE id được khóa,
+ * cập nhật bằng một UPDATE (phiếu xuất thì trả luôn inventory item) rồi commit trong transaction riêng,
+ * nên một lần quét tỉ lệ với số phiếu bị hủy. Mỗi lô chỉ commit khi job vẫn giữ lease, tránh hai instance cùng hủy.
+ * Mỗi lần quét có phiếu bị hủy gửi một thông báo tổng hợp.
+ */
+@Service
+@RequiredArgsConstructor
+public class RequestExpiryService {
+    private final ExportRequestRepository exportRequestRepository;
+    private final ExportRequestDetailRepository exportRequestDetailRepository;
+    private final ImportOrderRepository importOrderRepository;
+    private final StockCheckRequestRepository stockCheckRequestRepository;
+    private final InventoryStockCounterService inventoryStockCounterService;
+    private final NotificationService notificationService;
+    private final JobLeaseService jobLeaseService;
+    private final TransactionTemplate transactionTemplate;
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestExpiryService.class);
+
+    private static final int CHUNK_SIZE = 500;
+
+    public int cancelExportRequests(HeldJobLease lease, Collection<RequestStatus> statuses, LocalDate exportDateFrom,
+                                    String note) {
+        int cancelled = inChunks(lease, page -> {
+            List<String> ids = exportRequestRepository.findIdsToCancelByExportDate(statuses, exportDateFrom, page);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            int updated = exportRequestRepository.cancelByIds(ids, note, LocalDateTime.now());
+            List<Long> detailIds = exportRequestDetailRepository.findIdPairsByExportRequestIds(ids).stream()
+                    .map(pair -> (Long) pair[1])
+                    .toList();
+            int released = detailIds.isEmpty() ? 0 : inventoryStockCounterService.releaseByExportDetailIds(detailIds);
+            LOGGER.info("Auto cancelled {} export requests, released {} inventory items", updated, released);
+            return updated;
+        });
+        notifyCancelled(cancelled, NotificationUtil.EXPORT_REQUEST_CANCELLED_EVENT, "đơn xuất");
+        return cancelled;
+    }
+
+    public int cancelExtendedExportRequests(HeldJobLease lease, LocalDate extendedDateTo, String notePrefix) {
+        int cancelled = inChunks(lease, page -> {
+            List<String> ids = exportRequestRepository.findExtendedIdsToCancel(extendedDateTo, page);
+            return ids.isEmpty() ? 0 : exportRequestRepository.cancelExtendedByIds(ids, notePrefix, LocalDateTime.now());
+        });
+        notifyCancelled(cancelled, NotificationUtil.EXPORT_REQUEST_CANCELLED_EVENT, "đơn xuất đã gia hạn");
+        return cancelled;
+    }
+
+    public int cancelImportOrders(HeldJobLease lease, Collection<RequestStatus> statuses, LocalDate dateReceivedFrom,
+                                  String note) {
+        int cancelled = inChunks(lease, page -> {
+            List<String> ids = importOrderRepository.findIdsToCancelByDateReceived(statuses, dateReceivedFrom, page);
+            return ids.isEmpty() ? 0 : importOrderRepository.cancelByIds(ids, note, LocalDateTime.now());
+        });
+        notifyCancelled(cancelled, NotificationUtil.IMPORT_ORDER_CANCELLED_EVENT, "đơn nhập");
+        return cancelled;
+    }
+
+    public int cancelExtendedImportOrders(HeldJobLease lease, LocalDate extendedDateTo, String notePrefix) {
+        int cancelled = inChunks(lease, page -> {
+            List<String> ids = importOrderRepository.findExtendedIdsToCancel(extendedDateTo, page);
+            return ids.isEmpty() ? 0 : importOrderRepository.cancelExtendedByIds(ids, notePrefix, LocalDateTime.now());
+        });
+        notifyCancelled(cancelled, NotificationUtil.IMPORT_ORDER_CANCELLED_EVENT, "đơn nhập đã gia hạn");
+        return cancelled;
+    }
+
+    public int cancelStockCheckRequests(HeldJobLease lease, Collection<RequestStatus> statuses,
+                                        LocalDate expectedCompletedDateFrom, String note) {
+        int cancelled = inChunks(lease, page -> {
+            List<String> ids = stockCheckRequestRepository.findIdsToCancelByExpectedCompletedDate(
+                    statuses, expectedCompletedDateFrom, page);
+            return ids.isEmpty() ? 0 : stockCheckRequestRepository.cancelByIds(ids, note, LocalDateTime.now());
+        });
+        notifyCancelled(cancelled, NotificationUtil.STOCK_CHECK_CANCELLED_EVENT, "phiếu kiểm kho");
+        return cancelled;
+    }
+
+    // Phiếu đã hủy không còn khớp điều kiện nên lô sau luôn bắt đầu lại từ trang đầu; lô chưa đầy là lô cuối
+    private int inChunks(HeldJobLease lease, Function<Pageable, Integer> cancelChunk) {
+        Pageable firstChunk = PageRequest.of(0, CHUNK_SIZE);
+        int total = 0;
+        while (true) {
+            Integer cancelled = transactionTemplate.execute(status -> {
+                jobLeaseService.assertHeld(lease);
+                return cancelChunk.apply(firstChunk);
+            });
+            total += cancelled;
+            if (cancelled < CHUNK_SIZE) {
+                return total;
+            }
+        }
+    }
+
+    private void notifyCancelled(int cancelled, String event, String requestName) {
+        if (cancelled == 0) {
+            return;
+        }
+        LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+        notificationService.handleNotification(
+                NotificationUtil.WAREHOUSE_MANAGER_CHANNEL,
+                event + "-auto-" + today,
+                today.toString(),
+                "Đã tự động hủy " + cancelled + " " + requestName + " quá hạn",
+                AccountRole.WAREHOUSE_MANAGER);
+    }
+}
@@ -0,0 +1,55 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.enums.AccountRole;
+import capstonesu25.warehouse.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache danh sách id account theo role để gửi thông báo. Trên instance này cache bị xóa khi account được tạo, xóa
+ * hoặc đổi role / trạng thái (xem AccountChangeListener); thay đổi từ instance khác được nhận khi hết TTL.
+ */
+@Service
+@RequiredArgsConstructor
+public class RoleRecipientCache {
+    private final AccountRepository accountRepository;
+    private final Map<AccountRole, CachedRecipients> accountIdsByRole = new ConcurrentHashMap<>();
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoleRecipientCache.class);
+
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    public List<Long> getAccountIds(AccountRole role) {
+        CachedRecipients cached = accountIdsByRole.get(role);
+        if (cached == null || System.nanoTime() - cached.loadedNanos() > TTL_NANOS) {
+            cached = new CachedRecipients(List.copyOf(accountRepository.findIdsByRole(role)), System.nanoTime());
+            accountIdsByRole.put(role, cached);
+        }
+        return cached.accountIds();
+    }
+
+    public void invalidate() {
+        accountIdsByRole.clear();
+        // Xóa thêm một lần sau commit để không giữ lại dữ liệu được nạp lại trước khi thay đổi được commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accountIdsByRole.clear();
+                }
+            });
+        }
+        LOGGER.debug("Role recipient cache invalidated");
+    }
+
+    private record CachedRecipients(List<Long> accountIds, long loadedNanos) {
+    }
+}
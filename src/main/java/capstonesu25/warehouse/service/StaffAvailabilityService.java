@@ -0,0 +1,200 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.Account;
+import capstonesu25.warehouse.entity.ExportRequest;
+import capstonesu25.warehouse.entity.ImportOrder;
+import capstonesu25.warehouse.entity.StockCheckRequest;
+import capstonesu25.warehouse.enums.AccountRole;
+import capstonesu25.warehouse.enums.AccountStatus;
+import capstonesu25.warehouse.model.account.AccountResponse;
+import capstonesu25.warehouse.model.account.ActiveAccountRequest;
+import capstonesu25.warehouse.model.staffperformance.StaffTaskId;
+import capstonesu25.warehouse.model.staffperformance.StaffTaskWindow;
+import capstonesu25.warehouse.model.staffperformance.StaffWorkload;
+import capstonesu25.warehouse.repository.AccountRepository;
+import capstonesu25.warehouse.repository.ExportRequestRepository;
+import capstonesu25.warehouse.repository.ImportOrderRepository;
+import capstonesu25.warehouse.repository.StaffPerformanceRepository;
+import capstonesu25.warehouse.repository.StockCheckRequestRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tính khối lượng công việc của toàn bộ staff trong một ngày bằng vài câu truy vấn gộp
+ * (không duyệt từng account và các collection lazy của nó).
+ */
+@Service
+@RequiredArgsConstructor
+public class StaffAvailabilityService {
+    private final AccountRepository accountRepository;
+    private final StaffPerformanceRepository staffPerformanceRepository;
+    private final ImportOrderRepository importOrderRepository;
+    private final ExportRequestRepository exportRequestRepository;
+    private final StockCheckRequestRepository stockCheckRequestRepository;
+    private static final Logger LOGGER = LoggerFactory.getLogger(StaffAvailabilityService.class);
+
+    @Transactional(readOnly = true)
+    public List<AccountResponse> getAllActiveStaffsInDate(ActiveAccountRequest request) {
+        if (request.getExportRequestId() != null && request.getImportOrderId() != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid request");
+        }
+        LocalDate date = request.getDate();
+        List<AccountResponse> rankedStaffs = rankActiveStaffsByWorkload(date);
+        if (request.getImportOrderId() == null && request.getExportRequestId() == null) {
+            LOGGER.info("Get all active staffs in date {} with no import order Id and export request Id", date);
+            return rankedStaffs;
+        }
+
+        List<AccountResponse> responses = new ArrayList<>();
+        if (request.getImportOrderId() != null) {
+            ImportOrder importOrder = importOrderRepository.findById(request.getImportOrderId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import order not found"));
+            if (!importOrder.getDateReceived().equals(date)) {
+                LOGGER.info("Import order date {} does not match request date {}", importOrder.getDateReceived(), date);
+                return rankedStaffs;
+            }
+            responses.addAll(filterFreeStaffs(rankedStaffs,
+                    importOrderRepository.findStaffTaskWindowsOnDate(importOrder.getDateReceived()),
+                    importOrder.getTimeReceived()));
+        }
+
+        if (request.getExportRequestId() != null) {
+            ExportRequest exportRequest = exportRequestRepository.findById(request.getExportRequestId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Export request not found"));
+            if (!exportRequest.getExportDate().equals(date)) {
+                return rankedStaffs;
+            }
+            responses.addAll(filterFreeStaffs(rankedStaffs,
+                    exportRequestRepository.findCountingTaskWindowsOnDate(exportRequest.getCountingDate()),
+                    exportRequest.getCountingTime()));
+        }
+
+        if (request.getStockCheckRequestId() != null) {
+            StockCheckRequest stockCheckRequest = stockCheckRequestRepository.findById(request.getStockCheckRequestId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Stock check request not found"));
+            if (!stockCheckRequest.getExpectedCompletedDate().equals(date)) {
+                return rankedStaffs;
+            }
+            responses.addAll(filterFreeStaffs(rankedStaffs,
+                    stockCheckRequestRepository.findStaffTaskWindowsOnDate(stockCheckRequest.getCountingDate()),
+                    stockCheckRequest.getCountingTime()));
+        }
+        LOGGER.info("Total available staff in date {}: {}", date, responses.size());
+        return responses;
+    }
+
+    // Staff còn đủ thời gian rảnh trong ngày để nhận thêm requiredMinutes phút công việc
+    @Transactional(readOnly = true)
+    public List<AccountResponse> getStaffsWithFreeTime(LocalDate date, long requiredMinutes, long workingMinutesPerDay) {
+        Map<Long, StaffWorkload> workloads = getWorkloadsOnDate(date);
+        List<AccountResponse> availableStaffs = new ArrayList<>();
+        for (AccountResponse staff : rankActiveStaffsByWorkload(workloads)) {
+            StaffWorkload workload = workloads.get(staff.getId());
+            long busyMinutes = workload != null ? workload.getExpectedMinutes() : 0;
+            if (workload != null && workingMinutesPerDay - busyMinutes < requiredMinutes) {
+                continue;
+            }
+            staff.setTotalActualWorkingTimeOfRequestInDay(toTime(busyMinutes));
+            staff.setTotalExpectedWorkingTimeOfRequestInDay(toTime(workingMinutesPerDay));
+            availableStaffs.add(staff);
+        }
+        LOGGER.info("Total staff with {} free minutes in date {}: {}", requiredMinutes, date, availableStaffs.size());
+        return availableStaffs;
+    }
+
+    // Danh sách staff ACTIVE sắp xếp theo tổng thời gian dự kiến trong ngày tăng dần
+    @Transactional(readOnly = true)
+    public List<AccountResponse> rankActiveStaffsByWorkload(LocalDate date) {
+        return rankActiveStaffsByWorkload(getWorkloadsOnDate(date));
+    }
+
+    public Map<Long, StaffWorkload> getWorkloadsOnDate(LocalDate date) {
+        return staffPerformanceRepository.sumWorkloadByStaffOnDate(date, AccountRole.STAFF, AccountStatus.ACTIVE)
+                .stream()
+                .collect(Collectors.toMap(StaffWorkload::getStaffId, Function.identity()));
+    }
+
+    private List<AccountResponse> rankActiveStaffsByWorkload(Map<Long, StaffWorkload> workloads) {
+        List<Account> accounts = accountRepository.findByRoleAndStatus(AccountRole.STAFF, AccountStatus.ACTIVE);
+        Map<Long, List<String>> importOrderIds = groupTaskIds(
+                importOrderRepository.findTaskIdsOfStaffs(AccountRole.STAFF, AccountStatus.ACTIVE));
+        Map<Long, List<String>> exportRequestIds = groupTaskIds(
+                exportRequestRepository.findTaskIdsOfStaffs(AccountRole.STAFF, AccountStatus.ACTIVE));
+
+        Map<Long, Long> expectedMinutes = new HashMap<>();
+        List<AccountResponse> responses = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            StaffWorkload workload = workloads.get(account.getId());
+            long expected = workload != null ? workload.getExpectedMinutes() : 0;
+            long actual = workload != null ? workload.getActualMinutes() : 0;
+            expectedMinutes.put(account.getId(), expected);
+            responses.add(new AccountResponse(
+                    account.getId(),
+                    account.getUsername(),
+                    account.getEmail(),
+                    account.getPhone(),
+                    account.getFullName(),
+                    account.getStatus(),
+                    account.getIsEnable(),
+                    account.getIsBlocked(),
+                    account.getRole(),
+                    toTime(actual),
+                    toTime(expected),
+                    importOrderIds.getOrDefault(account.getId(), List.of()),
+                    exportRequestIds.getOrDefault(account.getId(), List.of())
+            ));
+        }
+        responses.sort(Comparator.<AccountResponse>comparingLong(r -> expectedMinutes.get(r.getId()))
+                .thenComparing(AccountResponse::getId));
+        return responses;
+    }
+
+    // Staff rảnh khi mọi task đã nhận trong ngày đều kết thúc trước startTime
+    private List<AccountResponse> filterFreeStaffs(List<AccountResponse> candidates,
+                                                   List<StaffTaskWindow> windows,
+                                                   LocalTime startTime) {
+        Map<Long, List<StaffTaskWindow>> windowsByStaff = windows.stream()
+                .collect(Collectors.groupingBy(StaffTaskWindow::getStaffId));
+        return candidates.stream()
+                .filter(candidate -> isFree(windowsByStaff.getOrDefault(candidate.getId(), List.of()), startTime))
+                .toList();
+    }
+
+    private boolean isFree(List<StaffTaskWindow> windows, LocalTime startTime) {
+        for (StaffTaskWindow window : windows) {
+            if (startTime == null || window.getStartTime() == null) {
+                return false;
+            }
+            long windowEnd = window.getStartTime().toSecondOfDay() / 60 + window.getWorkingMinutes();
+            if (startTime.toSecondOfDay() / 60 <= windowEnd) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<Long, List<String>> groupTaskIds(List<StaffTaskId> taskIds) {
+        return taskIds.stream()
+                .collect(Collectors.groupingBy(StaffTaskId::getStaffId,
+                        Collectors.mapping(StaffTaskId::getTaskId, Collectors.toList())));
+    }
+
+    private LocalTime toTime(long minutes) {
+        return LocalTime.of(0, 0).plusMinutes(minutes);
+    }
+}
@@ -10,8 +10,10 @@ import capstonesu25.warehouse.model.stockcheck.detail.StockCheckRequestDetailReq
 import capstonesu25.warehouse.model.stockcheck.detail.StockCheckRequestDetailResponse;
 import capstonesu25.warehouse.model.stockcheck.detail.UpdateActualStockCheck;
 import capstonesu25.warehouse.repository.*;
+import capstonesu25.warehouse.utils.CheckedStockCheckListConverter;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,8 +30,16 @@ public class StockCheckDetailService {
     private final AccountService accountService;
     private final AccountRepository accountRepository;
     private final StaffPerformanceRepository staffPerformanceRepository;
+    private final JdbcTemplate jdbcTemplate;
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(StockCheckDetailService.class);
 
+    private static final int PERIODIC_CHUNK_SIZE = 500;
+    private static final CheckedStockCheckListConverter CHECKED_LIST_CONVERTER = new CheckedStockCheckListConverter();
+    private static final String INSERT_PERIODIC_DETAIL_SQL = "INSERT INTO stock_check_request_detail "
+            + "(stock_check_request_id, item_id, quantity, measurement_value, actual_quantity, "
+            + "actual_measurement_value, is_checked, inventory_item_ids, checked_inventory_items) "
+            + "VALUES (?, ?, ?, ?, 0, 0, FALSE, ?, '[]')";
+
 
     public List<StockCheckRequestDetailResponse> getAllByStockCheckRequestId(String stockCheckRequestId) {
         StockCheckRequest stockCheckRequest = stockCheckRequestRepository.findById(stockCheckRequestId)
@@ -49,39 +59,36 @@ public class StockCheckDetailService {
     public void create (List<StockCheckRequestDetailRequest> requests, String stockCheckRequestId) {
         StockCheckRequest stockCheckRequest = stockCheckRequestRepository.findById(stockCheckRequestId)
                 .orElseThrow(() -> new RuntimeException("Stock check request not found"));
+        Set<String> itemIds = new HashSet<>();
+        requests.forEach(request -> itemIds.add(request.getItemId()));
+        Map<String, Item> items = new HashMap<>();
+        itemRepository.findAllById(itemIds).forEach(item -> items.put(item.getId(), item));
+        Map<String, List<CheckedStockCheck>> plannedItems = findPlannedInventoryItems(itemIds);
+
         List<StockCheckRequestDetail> requestDetails = new ArrayList<>();
         for( StockCheckRequestDetailRequest request : requests) {
             StockCheckRequestDetail detail = new StockCheckRequestDetail();
-            Item item = itemRepository.findById(request.getItemId())
-                    .orElseThrow(() -> new RuntimeException("Item not found"));
+            Item item = items.get(request.getItemId());
+            if (item == null) {
+                throw new RuntimeException("Item not found");
+            }
             detail.setItem(item);
             detail.setQuantity(request.getQuantity());
             detail.setMeasurementValue(request.getMeasurementValue());
             detail.setStockCheckRequest(stockCheckRequest);
             detail.setActualMeasurementValue(0.0);
             detail.setActualQuantity(0);
-            List<InventoryItem> inventoryItems = inventoryItemRepository.findByItem_IdAndStatus(
-                    request.getItemId(), ItemStatus.AVAILABLE);
+            List<CheckedStockCheck> inventoryItems = plannedItems.getOrDefault(request.getItemId(), List.of());
             if(request.getQuantity() == null || request.getQuantity() == 0) {
                 detail.setQuantity(inventoryItems.size());
             }
             if(request.getMeasurementValue() == null || request.getMeasurementValue() == 0.0) {
                 detail.setMeasurementValue(inventoryItems.stream()
-                        .map(InventoryItem::getMeasurementValue)
+                        .map(CheckedStockCheck::getMeasurementValue)
                         .reduce(0.0, Double::sum));
             }
 
-            detail.setInventoryItemsId(
-                    inventoryItems.stream()
-                            .map(inventoryItem -> {
-                                CheckedStockCheck needCheck = new CheckedStockCheck();
-                                needCheck.setInventoryItemId(inventoryItem.getId());
-                                needCheck.setMeasurementValue(inventoryItem.getMeasurementValue());
-                                return needCheck;
-                            })
-                            .toList()
-            );
-            LOGGER.info("view req: {}",detail.getInventoryItemsId());
+            detail.setInventoryItemsId(inventoryItems);
             requestDetails.add(detail);
         }
         stockCheckRequestDetailRepository.saveAll(requestDetails);
@@ -89,6 +96,51 @@ public class StockCheckDetailService {
         autoAssignCountingStaff(stockCheckRequest);
     }
 
+    // Kiểm kê định kỳ toàn kho: mỗi item một detail, kể cả item đang hết hàng (số lượng 0).
+    // Số lượng và tổng measurementValue AVAILABLE của mọi item lấy bằng một câu GROUP BY,
+    // danh sách inventory item cần kiểm lấy và insert theo từng lô PERIODIC_CHUNK_SIZE item bằng JDBC batch
+    @Transactional
+    public int createForAvailableItems(String stockCheckRequestId) {
+        StockCheckRequest stockCheckRequest = stockCheckRequestRepository.findById(stockCheckRequestId)
+                .orElseThrow(() -> new NoSuchElementException("Stock check request not found"));
+        List<Object[]> stocks = inventoryItemRepository.sumByItemWithStatus(ItemStatus.AVAILABLE);
+
+        int created = 0;
+        for (int from = 0; from < stocks.size(); from += PERIODIC_CHUNK_SIZE) {
+            List<Object[]> chunk = stocks.subList(from, Math.min(from + PERIODIC_CHUNK_SIZE, stocks.size()));
+            Map<String, List<CheckedStockCheck>> plannedItems = findPlannedInventoryItems(
+                    chunk.stream().map(stock -> (String) stock[0]).toList());
+
+            List<Object[]> rows = new ArrayList<>(chunk.size());
+            for (Object[] stock : chunk) {
+                String itemId = (String) stock[0];
+                rows.add(new Object[]{stockCheckRequestId, itemId, ((Long) stock[1]).intValue(),
+                        ((Number) stock[2]).doubleValue(),
+                        CHECKED_LIST_CONVERTER.convertToDatabaseColumn(plannedItems.getOrDefault(itemId, List.of()))});
+            }
+            jdbcTemplate.batchUpdate(INSERT_PERIODIC_DETAIL_SQL, rows);
+            created += rows.size();
+            LOGGER.info("Created {}/{} details of periodic stock check {}", created, stocks.size(), stockCheckRequestId);
+        }
+
+        autoAssignCountingStaff(stockCheckRequest);
+        return created;
+    }
+
+    private Map<String, List<CheckedStockCheck>> findPlannedInventoryItems(Collection<String> itemIds) {
+        Map<String, List<CheckedStockCheck>> plannedItems = new HashMap<>();
+        if (itemIds.isEmpty()) {
+            return plannedItems;
+        }
+        for (Object[] row : inventoryItemRepository.findIdAndMeasurementByItemIdsAndStatus(itemIds, ItemStatus.AVAILABLE)) {
+            CheckedStockCheck needCheck = new CheckedStockCheck();
+            needCheck.setInventoryItemId((String) row[1]);
+            needCheck.setMeasurementValue((Double) row[2]);
+            plannedItems.computeIfAbsent((String) row[0], itemId -> new ArrayList<>()).add(needCheck);
+        }
+        return plannedItems;
+    }
+
     @Transactional
     public StockCheckRequestDetailResponse updateActualQuantity(UpdateActualStockCheck request) {
         LOGGER.info("Updating actual measurement for stockCheckDetailId={}, inventoryItemId={}",
@@ -223,11 +275,7 @@ public class StockCheckDetailService {
 
     }
     private void setTimeForCountingStaffPerformance(Account account, StockCheckRequest request) {
-        int totalMinutes = 0;
-        for (StockCheckRequestDetail detail : request.getStockCheckRequestDetails()) {
-            LOGGER.info("Calculating expected working time for item " );
-            totalMinutes += detail.getQuantity() * detail.getItem().getCountingMinutes();
-        }
+        long totalMinutes = stockCheckRequestDetailRepository.sumCountingMinutes(request.getId());
         LocalTime expectedWorkingTime = LocalTime.of(0, 0).plusMinutes(totalMinutes);
         StaffPerformance staffPerformance = new StaffPerformance();
         staffPerformance.setExpectedWorkingTime(expectedWorkingTime);
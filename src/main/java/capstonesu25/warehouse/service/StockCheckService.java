@@ -5,6 +5,8 @@ import capstonesu25.warehouse.entity.*;
 import capstonesu25.warehouse.enums.*;
 import capstonesu25.warehouse.model.account.AccountResponse;
 import capstonesu25.warehouse.model.account.ActiveAccountRequest;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
+import capstonesu25.warehouse.model.responsedto.CursorPageDTO;
 import capstonesu25.warehouse.model.stockcheck.AssignStaffStockCheck;
 import capstonesu25.warehouse.model.stockcheck.CompleteStockCheckRequest;
 import capstonesu25.warehouse.model.stockcheck.OverviewStockCheck;
@@ -15,6 +17,10 @@ import capstonesu25.warehouse.repository.*;
 import capstonesu25.warehouse.utils.NotificationUtil;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,7 +28,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -39,8 +44,10 @@ public class StockCheckService {
     private final NotificationService notificationService;
     private final ExportRequestRepository exportRequestRepository;
     private final ExportRequestDetailRepository exportRequestDetailRepository;
-    private final ConfigurationRepository configurationRepository;
+    private final ConfigurationProvider configurationProvider;
     private final AccountService accountService;
+    private final StockMovementService stockMovementService;
+    private final BusinessIdService businessIdService;
 
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(StockCheckService.class);
 
@@ -51,6 +58,7 @@ public class StockCheckService {
         return mapToResponse(stockCheckRequest);
     }
 
+    @Transactional(readOnly = true)
     public List<StockCheckRequestResponse> getAllStockCheckRequests() {
         LOGGER.info("Fetching all stock check requests");
         List<StockCheckRequest> stockCheckRequests = stockCheckRequestRepository.findAll();
@@ -59,58 +67,59 @@ public class StockCheckService {
                 .toList();
     }
 
+    @Transactional(readOnly = true)
     public List<StockCheckRequestResponse> getAllStockCheckRequestsByStaffId(Long staffId) {
         LOGGER.info("Fetching all stock check requests by staff ID: {}", staffId);
-        List<StockCheckRequest> stockCheckRequests = stockCheckRequestRepository.findByAssignedStaff_Id(staffId);
+        List<StockCheckRequest> stockCheckRequests =
+                stockCheckRequestRepository.findByAssignedStaff_IdOrderByCreatedDateDescIdDesc(staffId);
         return stockCheckRequests.stream()
                 .map(this::mapToResponse)
                 .toList();
     }
 
+    // Keyset theo (createdDate, id) giảm dần: trang sâu không phải bỏ qua các dòng phía trước như OFFSET
+    @Transactional(readOnly = true)
+    public CursorPageDTO<StockCheckRequestResponse> getStockCheckRequestsOfStaffBefore(Long staffId,
+                                                                                     LocalDateTime beforeCreatedDate,
+                                                                                     String beforeId, int limit) {
+        LOGGER.info("Get stock check requests of staff {} before ({}, {})", staffId, beforeCreatedDate, beforeId);
+        int pageSize = CursorPageDTO.pageSize(limit);
+        List<StockCheckRequest> stockCheckRequests = stockCheckRequestRepository.findOfStaffBefore(staffId,
+                CursorPageDTO.createdDateOrFirst(beforeCreatedDate), CursorPageDTO.idOrFirst(beforeId),
+                PageRequest.of(0, pageSize + 1));
+        return CursorPageDTO.of(stockCheckRequests.stream().map(this::mapToResponse).toList(), pageSize,
+                StockCheckRequestResponse::getCreatedDate, StockCheckRequestResponse::getId);
+    }
+
+    @Transactional(readOnly = true)
     public List<StockCheckRequestResponse> getStockCheckRequestsByStatus(RequestStatus status, LocalDate fromDate, LocalDate toDate) {
-        LOGGER.info("Fetching stock check requests by status: {}", status);
-        List<StockCheckRequest> stockCheckRequests = stockCheckRequestRepository.findAllByStatus(status);
-        return stockCheckRequests.stream()
-                .filter(er -> {
-                    LocalDate created = er.getCreatedDate().toLocalDate();
-                    return (created.isEqual(fromDate) || created.isAfter(fromDate))
-                            && (created.isEqual(toDate) || created.isBefore(toDate));
-                })
+        LOGGER.info("Get stock check requests by status {} from {} to {}", status, fromDate, toDate);
+        return stockCheckRequestRepository.findByStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
+                        status, fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay())
+                .stream()
                 .map(this::mapToResponse)
                 .toList();
     }
 
+    @Transactional(readOnly = true)
+    public Page<StockCheckRequestResponse> getStockCheckRequestsByStatus(RequestStatus status, LocalDate fromDate, LocalDate toDate, int page, int limit) {
+        LOGGER.info("Get stock check requests by status {} from {} to {} by page", status, fromDate, toDate);
+        Pageable pageable = PageRequest.of(page - 1, limit, Sort.by(Sort.Direction.DESC, "createdDate"));
+        return stockCheckRequestRepository.findByStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
+                        status, fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay(), pageable)
+                .map(this::mapToResponse);
+    }
+
+    @Transactional(readOnly = true)
     public OverviewStockCheck getNumberFromDate(LocalDate fromDate, LocalDate toDate) {
         LOGGER.info("get number stock check requests");
-        List<RequestStatus> ongoingStatuses = List.of(
-                RequestStatus.IN_PROGRESS,
-                RequestStatus.EXTENDED,
-                RequestStatus.COUNTED,
-                RequestStatus.COUNT_AGAIN_REQUESTED,
-                RequestStatus.COUNT_CONFIRMED,
-                RequestStatus.WAITING_EXPORT,
-                RequestStatus.CONFIRMED
-        );
-
-        List<RequestStatus> finishStatues = List.of(
-                RequestStatus.COMPLETED,
-                RequestStatus.CANCELLED
-        );
-
-        List<StockCheckRequest> ongoing = stockCheckRequestRepository.findAllByStatusIn(ongoingStatuses).stream().filter(er -> {
-            LocalDate created = er.getCreatedDate().toLocalDate();
-            return (created.isEqual(fromDate) || created.isAfter(fromDate))
-                    && (created.isEqual(toDate) || created.isBefore(toDate));
-        }).toList();
-        List<StockCheckRequest> finish = stockCheckRequestRepository.findAllByStatusIn(finishStatues).stream().filter(er -> {
-            LocalDate created = er.getCreatedDate().toLocalDate();
-            return (created.isEqual(fromDate) || created.isAfter(fromDate))
-                    && (created.isEqual(toDate) || created.isBefore(toDate));
-        }).toList();
+        Map<RequestStatusBucket, Long> totals = RequestStatusBucket.tally(
+                stockCheckRequestRepository.countGroupByStatusInCreatedDateRange(RequestStatusBucket.allStatuses(),
+                        fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay()));
 
         return OverviewStockCheck.builder()
-                .numberOfOngoingStockCheck(ongoing.size())
-                .numberOfFinishStockCheck(finish.size())
+                .numberOfOngoingStockCheck(totals.get(RequestStatusBucket.ONGOING).intValue())
+                .numberOfFinishStockCheck(totals.get(RequestStatusBucket.FINISH).intValue())
                 .build();
     }
 
@@ -120,7 +129,7 @@ public class StockCheckService {
         LOGGER.info("Creating stock check request with data: {}", request);
         StockCheckRequest stockCheckRequest = new StockCheckRequest();
         LOGGER.info("Setting stock check request properties");
-        String id = createStockCheckID();
+        String id = businessIdService.nextStockCheckRequestId();
         LOGGER.info("ID is : {}", id);
         stockCheckRequest.setId(id);
         stockCheckRequest.setStockCheckReason(request.getStockCheckReason());
@@ -149,7 +158,7 @@ public class StockCheckService {
             NotificationUtil.STOCK_CHECK_CREATED_EVENT,
             savedStockCheck.getId(),
             "Đơn kiểm kê mã #" + savedStockCheck.getId() + " đã được tạo",
-            accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER)
+            AccountRole.WAREHOUSE_MANAGER
         );
         
         notificationService.handleNotification(
@@ -157,7 +166,7 @@ public class StockCheckService {
             NotificationUtil.STOCK_CHECK_CREATED_EVENT,
             savedStockCheck.getId(),
             "Đơn kiểm kê mã #" + savedStockCheck.getId() + " đã được tạo",
-            accountRepository.findByRole(AccountRole.MANAGER)
+            AccountRole.MANAGER
         );
         
         return mapToResponse(savedStockCheck);
@@ -167,7 +176,7 @@ public class StockCheckService {
         LOGGER.info("Auto assigning confirm staff for export request with ID: " + exportRequest.getId());
         ActiveAccountRequest activeAccountRequest = new ActiveAccountRequest();
         activeAccountRequest.setDate(exportRequest.getExportDate());
-        Configuration configuration = configurationRepository.findAll().getFirst();
+        ConfigurationSnapshot configuration = configurationProvider.get();
         List<AccountResponse> accountResponses = accountService.getAllActiveStaffsInDate(activeAccountRequest);
         List<AccountResponse> responses = new ArrayList<>();
 
@@ -268,7 +277,7 @@ public class StockCheckService {
                 NotificationUtil.STOCK_CHECK_COUNTED_EVENT + "-" + savedStockCheck.getId(),
                 savedStockCheck.getId(),
                 "Đơn kiểm kê mã #" + savedStockCheck.getId() + " đã được kiểm đếm",
-                accountRepository.findByRole(AccountRole.WAREHOUSE_MANAGER)
+                AccountRole.WAREHOUSE_MANAGER
             );
         }
         
@@ -279,7 +288,7 @@ public class StockCheckService {
                 NotificationUtil.STOCK_CHECK_CONFIRMED_EVENT + "-" + savedStockCheck.getId(),
                 savedStockCheck.getId(),
                 "Đơn kiểm kê mã #" + savedStockCheck.getId() + " đã được xác nhận kiểm đếm",
-                accountRepository.findByRole(AccountRole.DEPARTMENT)
+                AccountRole.DEPARTMENT
             );
             
             notificationService.handleNotification(
@@ -287,7 +296,7 @@ public class StockCheckService {
                 NotificationUtil.STOCK_CHECK_CONFIRMED_EVENT + "-" + savedStockCheck.getId(),
                 savedStockCheck.getId(),
                 "Đơn kiểm kê mã #" + savedStockCheck.getId() + " đã được xác nhận kiểm đếm",
-                accountRepository.findByRole(AccountRole.MANAGER)
+                AccountRole.MANAGER
             );
         }
         
@@ -325,6 +334,10 @@ public class StockCheckService {
 
             LOGGER.info("Processing stock check {} for {} selected details", stockCheckId, selectedDetails.size());
 
+            // Ghi thay đổi của phiếu trước xuống DB để stock_movement mang đúng mã phiếu kiểm kê
+            inventoryItemRepository.flush();
+            stockMovementService.markReason(MovementType.STOCK_CHECK_ADJUSTMENT, stockCheckId);
+
             // Hai danh sách tổng hợp cho request hiện tại
             List<String> unavailableInventoryItemIds = new ArrayList<>();
             List<String> needLiquidateInventoryItemIds = new ArrayList<>();
@@ -457,7 +470,7 @@ public class StockCheckService {
                     NotificationUtil.STOCK_CHECK_COMPLETED_EVENT + "-" + stockCheck.getId(),
                     stockCheck.getId(),
                     "Đơn kiểm kê mã #" + stockCheck.getId() + " đã hoàn thành",
-                    accountRepository.findByRole(AccountRole.MANAGER)
+                    AccountRole.MANAGER
             );
 
             // -------- Step 3: Map response (bổ sung 2 list) --------
@@ -486,7 +499,7 @@ public class StockCheckService {
                 .collect(Collectors.groupingBy(InventoryItem::getItem));
 
         ExportRequest newExportRequest = new ExportRequest();
-        String id = createExportRequestId();
+        String id = businessIdService.nextExportRequestId();
         newExportRequest.setId(id);
         newExportRequest.setExportReason("Xuất thanh lý do kiểm kê");
         newExportRequest.setReceiverName("Phòng thanh lý");
@@ -536,7 +549,7 @@ public class StockCheckService {
                 .collect(Collectors.groupingBy(InventoryItem::getItem));
 
         ExportRequest newExportRequest = new ExportRequest();
-        String id = createExportRequestId();
+        String id = businessIdService.nextExportRequestId();
         newExportRequest.setId(id);
         newExportRequest.setExportReason("Xuất thanh lý do kiểm kê");
         newExportRequest.setReceiverName("Phòng thanh lý");
@@ -577,20 +590,6 @@ public class StockCheckService {
 
         autoAssignConfirmStaff(newExportRequest);
     }
-    private String createExportRequestId() {
-        String prefix = "PX";
-        LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
-        String datePart = today.format(DateTimeFormatter.BASIC_ISO_DATE);
-
-        String todayPrefix = prefix + "-" + datePart + "-";
-        List<ExportRequest> existingRequests = exportRequestRepository.findByIdStartingWith(todayPrefix);
-        int todayCount = existingRequests.size();
-
-        String sequence = String.format("%03d", todayCount + 1);
-
-        return String.format("%s-%s-%s", prefix, datePart, sequence);
-    }
-
 
     private static Map<String, Integer> buildFreq(List<String> ids) {
         Map<String, Integer> freq = new HashMap<>();
@@ -666,19 +665,6 @@ public class StockCheckService {
         }
     }
 
-    private String createStockCheckID() {
-        String prefix = "PK";
-        LocalDate today = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"));
-        String datePart = today.format(DateTimeFormatter.BASIC_ISO_DATE);
-        
-        String todayPrefix = prefix + "-" + datePart + "-";
-        List<StockCheckRequest> existingRequests = stockCheckRequestRepository.findByIdStartingWith(todayPrefix);
-        int todayCount = existingRequests.size();
-
-        String sequence = String.format("%03d", todayCount + 1);
-
-        return String.format("%s-%s-%s", prefix, datePart, sequence);
-    }
     private StockCheckRequestResponse mapToResponse(StockCheckRequest request) {
         return new StockCheckRequestResponse(
                 request.getId(),
@@ -0,0 +1,339 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.InventoryItem;
+import capstonesu25.warehouse.entity.StockDailySnapshot;
+import capstonesu25.warehouse.entity.StockMovement;
+import capstonesu25.warehouse.enums.ItemStatus;
+import capstonesu25.warehouse.enums.MovementType;
+import capstonesu25.warehouse.model.stockmovement.StatusBalanceRow;
+import capstonesu25.warehouse.model.stockmovement.StockAsOfResponse;
+import capstonesu25.warehouse.model.stockmovement.StockLevel;
+import capstonesu25.warehouse.model.stockmovement.StockMovementResponse;
+import capstonesu25.warehouse.model.stockmovement.StockMovementTotal;
+import capstonesu25.warehouse.repository.StockDailySnapshotRepository;
+import capstonesu25.warehouse.repository.StockMovementRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Sổ biến động tồn kho (stock_movement) và snapshot tồn cuối ngày (stock_daily_snapshot).
+ * Thay đổi từng entity được InventoryItemStockListener chuyển tới đây và ghi bằng JDBC trên connection
+ * của transaction hiện tại; các UPDATE hàng loạt tự ghi bằng INSERT ... SELECT.
+ * Truy vấn theo khoảng thời gian chỉ đọc các dòng trong khoảng đó; tồn tại một ngày bắt đầu từ snapshot gần nhất.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockMovementService {
+    private final StockMovementRepository stockMovementRepository;
+    private final StockDailySnapshotRepository stockDailySnapshotRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private static final Logger LOGGER = LoggerFactory.getLogger(StockMovementService.class);
+
+    private static final String INSERT_MOVEMENT_SQL = StockMovementRepository.INSERT_COLUMNS
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final Object REASON_KEY = new Object();
+
+    private static final LocalDate LEDGER_EPOCH = LocalDate.of(1970, 1, 1);
+
+    /**
+     * Gắn loại biến động và phiếu gây ra nó cho mọi thay đổi inventory item còn lại của transaction hiện tại,
+     * dùng khi không suy ra được từ thay đổi status (ví dụ hoàn tất kiểm kê).
+     */
+    public void markReason(MovementType movementType, String referenceId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(REASON_KEY);
+        TransactionSynchronizationManager.bindResource(REASON_KEY, new Reason(movementType, referenceId));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REASON_KEY);
+            }
+        });
+    }
+
+    public void recordPersisted(InventoryItem inventoryItem) {
+        Reason reason = currentReason();
+        insert(reason != null ? reason.movementType() : MovementType.RECEIVE,
+                inventoryItem.getId(), itemIdOf(inventoryItem),
+                null, inventoryItem.getStatus(),
+                null, storedLocationIdOf(inventoryItem),
+                null, inventoryItem.getMeasurementValue(),
+                reason != null ? reason.referenceId() : importOrderIdOf(inventoryItem));
+    }
+
+    public void recordUpdated(InventoryItem inventoryItem) {
+        Reason reason = currentReason();
+        String itemId = itemIdOf(inventoryItem);
+        Long locationId = storedLocationIdOf(inventoryItem);
+        if (!Objects.equals(inventoryItem.getCountedItemId(), itemId)) {
+            // Đổi item: ghi như rời item cũ rồi vào item mới để tồn theo item vẫn đúng
+            MovementType movementType = reason != null ? reason.movementType() : MovementType.ADJUSTMENT;
+            String referenceId = reason != null ? reason.referenceId() : null;
+            insert(movementType, inventoryItem.getId(), inventoryItem.getCountedItemId(),
+                    inventoryItem.getCountedStatus(), null, inventoryItem.getCountedStoredLocationId(), null,
+                    inventoryItem.getCountedMeasurementValue(), null, referenceId);
+            insert(movementType, inventoryItem.getId(), itemId, null, inventoryItem.getStatus(), null, locationId,
+                    null, inventoryItem.getMeasurementValue(), referenceId);
+            return;
+        }
+
+        Long exportRequestDetailId = exportRequestDetailIdOf(inventoryItem);
+        boolean statusChanged = inventoryItem.getCountedStatus() != inventoryItem.getStatus();
+        boolean exportChanged = !Objects.equals(inventoryItem.getCountedExportRequestDetailId(), exportRequestDetailId);
+        boolean locationChanged = !Objects.equals(inventoryItem.getCountedStoredLocationId(), locationId);
+        boolean measurementChanged = !Objects.equals(inventoryItem.getCountedMeasurementValue(),
+                inventoryItem.getMeasurementValue());
+        if (!statusChanged && !exportChanged && !locationChanged && !measurementChanged) {
+            return;
+        }
+
+        MovementType movementType = reason != null ? reason.movementType()
+                : classify(inventoryItem, exportRequestDetailId, statusChanged, exportChanged, locationChanged);
+        String referenceId;
+        if (reason != null) {
+            referenceId = reason.referenceId();
+        } else if (movementType == MovementType.PUTAWAY) {
+            referenceId = importOrderIdOf(inventoryItem);
+        } else if (movementType == MovementType.RELEASE) {
+            referenceId = inventoryItem.getCountedExportRequestId();
+        } else {
+            referenceId = exportRequestIdOf(inventoryItem) != null
+                    ? exportRequestIdOf(inventoryItem) : inventoryItem.getCountedExportRequestId();
+        }
+        insert(movementType, inventoryItem.getId(), itemId,
+                inventoryItem.getCountedStatus(), inventoryItem.getStatus(),
+                inventoryItem.getCountedStoredLocationId(), locationId,
+                inventoryItem.getCountedMeasurementValue(), inventoryItem.getMeasurementValue(),
+                referenceId);
+    }
+
+    public void recordRemoved(InventoryItem inventoryItem) {
+        Reason reason = currentReason();
+        insert(reason != null ? reason.movementType() : MovementType.ADJUSTMENT,
+                inventoryItem.getId(), inventoryItem.getCountedItemId(),
+                inventoryItem.getCountedStatus(), null,
+                inventoryItem.getCountedStoredLocationId(), null,
+                inventoryItem.getCountedMeasurementValue(), null,
+                reason != null ? reason.referenceId() : null);
+    }
+
+    // UPDATE hàng loạt bỏ qua entity listener: ghi RESERVE cho các item vừa được giữ cho detail
+    public int recordReserved(Collection<String> inventoryItemIds, Long exportRequestDetailId, String exportRequestId,
+                              LocalDateTime now) {
+        if (inventoryItemIds.isEmpty()) {
+            return 0;
+        }
+        return stockMovementRepository.insertReserveMovements(inventoryItemIds, exportRequestDetailId,
+                ItemStatus.AVAILABLE.ordinal(), exportRequestId, now);
+    }
+
+    // Gọi trước UPDATE hàng loạt trả item về AVAILABLE
+    public int recordReleased(Collection<Long> exportRequestDetailIds, LocalDateTime now) {
+        if (exportRequestDetailIds.isEmpty()) {
+            return 0;
+        }
+        return stockMovementRepository.insertReleaseMovements(exportRequestDetailIds,
+                ItemStatus.AVAILABLE.ordinal(), ItemStatus.NO_LONGER_EXIST.ordinal(), now);
+    }
+
+    @Transactional
+    public int openLedgerIfEmpty() {
+        int opened = stockMovementRepository.insertOpeningMovements(ItemStatus.NO_LONGER_EXIST.ordinal(),
+                LocalDateTime.now());
+        if (opened > 0) {
+            LOGGER.info("Opened stock movement ledger with {} inventory items", opened);
+        }
+        return opened;
+    }
+
+    // Ngày đầu tiên chưa có snapshot, null nếu sổ còn trống
+    public LocalDate firstDayToRollUp() {
+        LocalDate latest = stockDailySnapshotRepository.findLatestSnapshotDate();
+        if (latest != null) {
+            return latest.plusDays(1);
+        }
+        LocalDateTime first = stockMovementRepository.findFirstOccurredAt();
+        return first != null ? first.toLocalDate() : null;
+    }
+
+    @Transactional
+    public int rollUp(LocalDate day) {
+        LocalDate previousDay = stockDailySnapshotRepository.findLatestSnapshotDateBefore(day);
+        LocalDate base = previousDay != null ? previousDay : LEDGER_EPOCH;
+        int rows = stockDailySnapshotRepository.rollUp(day, base,
+                base.plusDays(1).atStartOfDay(), day.plusDays(1).atStartOfDay());
+        LOGGER.info("Rolled up stock snapshot of {} from {}: {} rows", day, previousDay, rows);
+        return rows;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<StockMovementResponse> getMovements(String itemId, LocalDate fromDate, LocalDate toDate,
+                                                    int page, int limit) {
+        LOGGER.info("Getting stock movements of item {} from {} to {}", itemId, fromDate, toDate);
+        return stockMovementRepository.findByItemIdInRange(itemId, fromDate.atStartOfDay(),
+                        toDate.plusDays(1).atStartOfDay(), PageRequest.of(Math.max(page - 1, 0), limit))
+                .map(this::mapToResponse);
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockMovementTotal> getMovementTotals(String itemId, LocalDate fromDate, LocalDate toDate) {
+        LOGGER.info("Getting stock movement totals of item {} from {} to {}", itemId, fromDate, toDate);
+        return stockMovementRepository.sumByMovementType(itemId, fromDate.atStartOfDay(),
+                toDate.plusDays(1).atStartOfDay());
+    }
+
+    // Tồn cuối ngày date theo từng status
+    @Transactional(readOnly = true)
+    public StockAsOfResponse getStockAsOf(String itemId, LocalDate date) {
+        LOGGER.info("Getting stock of item {} as of {}", itemId, date);
+        LocalDateTime asOf = date.plusDays(1).atStartOfDay();
+        LocalDate snapshotDate = stockDailySnapshotRepository.findLatestSnapshotDateBefore(date.plusDays(1));
+
+        Map<ItemStatus, StockLevel> levels = new EnumMap<>(ItemStatus.class);
+        if (snapshotDate != null) {
+            for (StockDailySnapshot snapshot : stockDailySnapshotRepository.findByItemIdAndSnapshotDate(itemId, snapshotDate)) {
+                levels.put(snapshot.getStatus(), new StockLevel(snapshot.getStatus(), snapshot.getQuantity(),
+                        snapshot.getMeasurement()));
+            }
+        }
+        LocalDateTime from = (snapshotDate != null ? snapshotDate : LEDGER_EPOCH).plusDays(1).atStartOfDay();
+        ItemStatus[] statuses = ItemStatus.values();
+        for (StatusBalanceRow row : stockMovementRepository.sumStatusDelta(itemId, from, asOf)) {
+            ItemStatus status = statuses[row.getStatus()];
+            StockLevel level = levels.computeIfAbsent(status, s -> new StockLevel(s, 0L, 0.0));
+            level.setQuantity(level.getQuantity() + row.getQuantity());
+            level.setMeasurement(level.getMeasurement() + row.getMeasurement());
+        }
+
+        List<StockLevel> nonEmpty = new ArrayList<>();
+        long onHandQuantity = 0;
+        double onHandMeasurement = 0;
+        for (StockLevel level : levels.values()) {
+            if (level.getQuantity() == 0) {
+                continue;
+            }
+            nonEmpty.add(level);
+            if (level.getStatus() != ItemStatus.NO_LONGER_EXIST) {
+                onHandQuantity += level.getQuantity();
+                onHandMeasurement += level.getMeasurement();
+            }
+        }
+        return StockAsOfResponse.builder()
+                .itemId(itemId)
+                .asOf(asOf)
+                .snapshotDate(snapshotDate)
+                .levels(nonEmpty)
+                .onHandQuantity(onHandQuantity)
+                .onHandMeasurement(onHandMeasurement)
+                .build();
+    }
+
+    public static Long storedLocationIdOf(InventoryItem inventoryItem) {
+        return inventoryItem.getStoredLocation() != null ? inventoryItem.getStoredLocation().getId() : null;
+    }
+
+    public static Long exportRequestDetailIdOf(InventoryItem inventoryItem) {
+        return inventoryItem.getExportRequestDetail() != null ? inventoryItem.getExportRequestDetail().getId() : null;
+    }
+
+    public static String exportRequestIdOf(InventoryItem inventoryItem) {
+        return inventoryItem.getExportRequestDetail() != null
+                && inventoryItem.getExportRequestDetail().getExportRequest() != null
+                ? inventoryItem.getExportRequestDetail().getExportRequest().getId() : null;
+    }
+
+    private static String importOrderIdOf(InventoryItem inventoryItem) {
+        return inventoryItem.getImportOrderDetail() != null
+                && inventoryItem.getImportOrderDetail().getImportOrder() != null
+                ? inventoryItem.getImportOrderDetail().getImportOrder().getId() : null;
+    }
+
+    private static String itemIdOf(InventoryItem inventoryItem) {
+        return inventoryItem.getItem() != null ? inventoryItem.getItem().getId() : null;
+    }
+
+    private MovementType classify(InventoryItem inventoryItem, Long exportRequestDetailId,
+                                  boolean statusChanged, boolean exportChanged, boolean locationChanged) {
+        ItemStatus from = inventoryItem.getCountedStatus();
+        ItemStatus to = inventoryItem.getStatus();
+        if (statusChanged && to == ItemStatus.NO_LONGER_EXIST) {
+            return MovementType.DISPATCH;
+        }
+        if (statusChanged && to == ItemStatus.NEED_LIQUID) {
+            return MovementType.LIQUIDATION;
+        }
+        if (statusChanged && from == ItemStatus.READY_TO_STORE && to == ItemStatus.AVAILABLE) {
+            return MovementType.PUTAWAY;
+        }
+        if (exportChanged) {
+            return exportRequestDetailId != null ? MovementType.RESERVE : MovementType.RELEASE;
+        }
+        if (!statusChanged && locationChanged) {
+            return inventoryItem.getCountedStoredLocationId() == null ? MovementType.PUTAWAY : MovementType.TRANSFER;
+        }
+        return MovementType.ADJUSTMENT;
+    }
+
+    private void insert(MovementType movementType, String inventoryItemId, String itemId,
+                        ItemStatus fromStatus, ItemStatus toStatus, Long fromLocationId, Long toLocationId,
+                        Double measurementBefore, Double measurementAfter, String referenceId) {
+        boolean wasOnHand = fromStatus != null && fromStatus != ItemStatus.NO_LONGER_EXIST;
+        boolean isOnHand = toStatus != null && toStatus != ItemStatus.NO_LONGER_EXIST;
+        double before = wasOnHand && measurementBefore != null ? measurementBefore : 0;
+        double after = isOnHand && measurementAfter != null ? measurementAfter : 0;
+        jdbcTemplate.update(INSERT_MOVEMENT_SQL,
+                movementType.name(), inventoryItemId, itemId,
+                fromStatus != null ? fromStatus.ordinal() : null,
+                toStatus != null ? toStatus.ordinal() : null,
+                fromLocationId, toLocationId, measurementBefore, measurementAfter,
+                (isOnHand ? 1 : 0) - (wasOnHand ? 1 : 0), after - before,
+                referenceId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private Reason currentReason() {
+        return (Reason) TransactionSynchronizationManager.getResource(REASON_KEY);
+    }
+
+    private StockMovementResponse mapToResponse(StockMovement movement) {
+        return StockMovementResponse.builder()
+                .id(movement.getId())
+                .movementType(movement.getMovementType())
+                .inventoryItemId(movement.getInventoryItemId())
+                .itemId(movement.getItemId())
+                .fromStatus(movement.getFromStatus())
+                .toStatus(movement.getToStatus())
+                .fromLocationId(movement.getFromLocationId())
+                .toLocationId(movement.getToLocationId())
+                .measurementBefore(movement.getMeasurementBefore())
+                .measurementAfter(movement.getMeasurementAfter())
+                .quantityDelta(movement.getQuantityDelta())
+                .measurementDelta(movement.getMeasurementDelta())
+                .referenceId(movement.getReferenceId())
+                .occurredAt(movement.getOccurredAt())
+                .build();
+    }
+
+    private record Reason(MovementType movementType, String referenceId) {
+    }
+}
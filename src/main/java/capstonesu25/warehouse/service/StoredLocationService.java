@@ -3,6 +3,8 @@ package capstonesu25.warehouse.service;
 import capstonesu25.warehouse.entity.InventoryItem;
 import capstonesu25.warehouse.entity.Item;
 import capstonesu25.warehouse.entity.StoredLocation;
+import capstonesu25.warehouse.model.storedlocation.LocationIndexMetrics;
+import capstonesu25.warehouse.model.storedlocation.LocationNode;
 import capstonesu25.warehouse.model.storedlocation.StoredLocationRequest;
 import capstonesu25.warehouse.model.storedlocation.StoredLocationResponse;
 import capstonesu25.warehouse.repository.InventoryItemRepository;
@@ -23,7 +25,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,6 +34,7 @@ public class StoredLocationService {
     private final StoredLocationRepository storedLocationRepository;
     private final ItemRepository itemRepository;
     private final InventoryItemRepository inventoryItemRepository;
+    private final WarehouseTopologyIndex topologyIndex;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(StoredLocationService.class);
 
@@ -121,13 +123,8 @@ public class StoredLocationService {
                 .filter(Objects::nonNull)
                 .collect(Collectors.groupingBy(InventoryItem::getItem));
 
-        List<StoredLocation> allCandidates = storedLocationRepository.findByIsFulledFalse();
-
+        // Capacity còn lại của các location đã thay đổi trong lần chọn này (chưa commit nên chỉ mục chưa biết)
         Map<Long, Integer> remainingCapacity = new HashMap<>();
-        for (StoredLocation loc : allCandidates) {
-            remainingCapacity.put(loc.getId(), getRemainingCapacity(loc));
-        }
-
         Map<Long, StoredLocation> touched = new HashMap<>();
         List<StoredLocationResponse> results = new ArrayList<>();
 
@@ -142,24 +139,8 @@ public class StoredLocationService {
                     .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
 
-            // ============== THAY ĐỔI QUAN TRỌNG 1: loại các currentLocations ==============
-            List<StoredLocation> feasible = allCandidates.stream()
-                    .filter(loc -> supportsItem(loc, item))
-                    .filter(loc -> !currentLocations.contains(loc)) // <<-- bắt buộc khác vị trí hiện tại
-                    .filter(loc -> remainingCapacity.getOrDefault(loc.getId(), getRemainingCapacity(loc)) >= groupSize)
-                    .toList();
-
-            if (feasible.isEmpty()) {
-                throw new IllegalStateException("No different location can host item " + item.getId()
-                        + " for group size " + groupSize);
-            }
-
-            // Chọn location tối ưu theo tổng khoảng cách tới các vị trí hiện tại
-            StoredLocation chosen = feasible.stream()
-                    .min(Comparator
-                            .comparingInt((StoredLocation loc) -> totalDistanceToMany(loc, currentLocations.stream().toList()))
-                            .thenComparing(StoredLocation::getId))
-                    .orElseThrow();
+            // Chọn location tối ưu theo tổng khoảng cách tới các vị trí hiện tại, bắt buộc khác vị trí hiện tại
+            StoredLocation chosen = chooseNearest(item, groupSize, currentLocations, remainingCapacity, touched);
 
             int moveCount = groupSize;
 
@@ -197,13 +178,33 @@ public class StoredLocationService {
 
 
 
-    private int totalDistanceToMany(StoredLocation target, List<StoredLocation> bases) {
-        if (bases == null || bases.isEmpty()) return 0;
-        int sum = 0;
-        for (StoredLocation base : bases) {
-            sum += computeDistance(base, target);
+    private StoredLocation chooseNearest(Item item, int groupSize, Set<StoredLocation> currentLocations,
+                                         Map<Long, Integer> remainingCapacity, Map<Long, StoredLocation> touched) {
+        List<LocationNode> bases = currentLocations.stream()
+                .map(loc -> LocationNode.from(loc, Set.of()))
+                .toList();
+        Set<Long> rejected = currentLocations.stream().map(StoredLocation::getId).collect(Collectors.toSet());
+        while (true) {
+            List<LocationNode> nearest = topologyIndex.findNearest(bases, 1, node ->
+                    !rejected.contains(node.getId())
+                            && node.supportsItem(item.getId())
+                            && remainingCapacity.getOrDefault(node.getId(), node.isFulled() ? 0 : node.freeCapacity())
+                            >= groupSize);
+            if (nearest.isEmpty()) {
+                throw new IllegalStateException("No different location can host item " + item.getId()
+                        + " for group size " + groupSize);
+            }
+            Long id = nearest.getFirst().getId();
+            StoredLocation loc = touched.containsKey(id)
+                    ? touched.get(id)
+                    : storedLocationRepository.findById(id).orElse(null);
+            // Chỉ mục có thể chưa nhận thay đổi của transaction khác nên kiểm tra lại trên entity
+            if (loc != null && supportsItem(loc, item)
+                    && remainingCapacity.getOrDefault(id, loc.isFulled() ? 0 : getRemainingCapacity(loc)) >= groupSize) {
+                return loc;
+            }
+            rejected.add(id);
         }
-        return sum;
     }
 
     private int getRemainingCapacity(StoredLocation loc) {
@@ -220,39 +221,34 @@ public class StoredLocationService {
         return locItems.contains(item);
     }
 
-    public List<StoredLocationResponse> suggestNearestStoredLocations(String itemId, Long locationId) {
+    public List<StoredLocationResponse> suggestNearestStoredLocations(String itemId, Long locationId, Integer limit) {
+        if (limit != null && limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1, got: " + limit);
+        }
         Item item = itemRepository.findById(itemId).orElseThrow(() ->
                 new IllegalArgumentException("Item not found with id: " + itemId));
 
         StoredLocation baseLocation = storedLocationRepository.findById(locationId).orElseThrow(() ->
                 new IllegalArgumentException("StoredLocation not found with id: " + locationId));
 
-        List<StoredLocation> allLocations = storedLocationRepository.findByIsFulledFalse();
-
-        return allLocations.stream()
-                .filter(loc -> !loc.getId().equals(baseLocation.getId()))
-                .filter(loc -> {
-                    List<Item> locItems = loc.getItems();
-                    return locItems == null || locItems.isEmpty() || locItems.contains(item);
-                })
-                .sorted(Comparator.comparingInt(loc -> computeDistance(baseLocation, loc)))
+        List<LocationNode> nearest = topologyIndex.findNearest(
+                List.of(LocationNode.from(baseLocation, Set.of())),
+                limit == null ? Integer.MAX_VALUE : limit,
+                node -> !node.isFulled() && !node.getId().equals(baseLocation.getId())
+                        && node.supportsItem(item.getId()));
+
+        Map<Long, StoredLocation> byId = storedLocationRepository
+                .findAllById(nearest.stream().map(LocationNode::getId).toList()).stream()
+                .collect(Collectors.toMap(StoredLocation::getId, loc -> loc));
+        return nearest.stream()
+                .map(node -> byId.get(node.getId()))
+                .filter(loc -> loc != null && !loc.isFulled())
                 .map(this::mapToResponse)
                 .toList();
     }
-    private int computeDistance(StoredLocation a, StoredLocation b) {
-        int zoneDiff = Math.abs(a.getZone().charAt(0) - b.getZone().charAt(0));
-        int floorDiff = Math.abs(parseInt(a.getFloor()) - parseInt(b.getFloor()));
-        int rowDiff = Math.abs(parseInt(a.getRow().replace("R", "")) - parseInt(b.getRow().replace("R", "")));
-        int lineDiff = Math.abs(parseInt(a.getLine().replace("L", "")) - parseInt(b.getLine().replace("L", "")));
-        return zoneDiff * 1000 + floorDiff * 100 + rowDiff * 10 + lineDiff; // trọng số ưu tiên theo zone > floor > row > line
-    }
 
-    private int parseInt(String value) {
-        try {
-            return Integer.parseInt(value);
-        } catch (Exception e) {
-            return 0;
-        }
+    public LocationIndexMetrics getIndexMetrics() {
+        return topologyIndex.getMetrics();
     }
 
     @Transactional
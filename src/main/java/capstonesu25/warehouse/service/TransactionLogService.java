@@ -1,23 +1,106 @@
 package capstonesu25.warehouse.service;
 
+import capstonesu25.warehouse.annotation.transactionLog.TransactionLogWriter;
 import capstonesu25.warehouse.entity.TransactionLog;
+import capstonesu25.warehouse.model.transactionlog.TransactionLogCursorPage;
+import capstonesu25.warehouse.model.transactionlog.TransactionLogFilter;
+import capstonesu25.warehouse.model.transactionlog.TransactionLogSummary;
+import capstonesu25.warehouse.model.transactionlog.TransactionLogWriterMetrics;
 import capstonesu25.warehouse.repository.TransactionLogRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionLogService {
     private final TransactionLogRepository transactionLogRepository;
+    private final TransactionLogWriter transactionLogWriter;
+    private final ObjectMapper objectMapper;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TransactionLogService.class);
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final byte[] NEW_LINE = "\n".getBytes(StandardCharsets.UTF_8);
+    // Cận mặc định khi không lọc theo ngày, để câu truy vấn không nhận tham số thời gian null
+    private static final LocalDateTime EARLIEST_CREATED_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST_CREATED_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
 
-    public List<TransactionLog> getAllTransactionLogs() {
-        LOGGER.info("Get all transaction logs");
-        return transactionLogRepository.findAll();
+    @Transactional(readOnly = true)
+    public TransactionLogCursorPage getTransactionLogs(TransactionLogFilter filter, Long beforeId, int limit) {
+        LOGGER.info("Get transaction logs with filter {} before id {}", filter, beforeId);
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        // Lấy dư một dòng để biết còn trang sau hay không
+        List<TransactionLogSummary> rows = transactionLogRepository.findPageByFilter(
+                filter.getType(),
+                filter.getAction(),
+                filter.getObjectId(),
+                filter.getExecutorUsername(),
+                startOf(filter),
+                endOf(filter),
+                beforeId,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<TransactionLogSummary> items = hasNext ? rows.subList(0, pageSize) : rows;
+        Long nextCursor = hasNext ? items.get(items.size() - 1).getId() : null;
+        return new TransactionLogCursorPage(items, nextCursor, hasNext);
+    }
+
+    public TransactionLog getTransactionLogById(Long id) {
+        LOGGER.info("Get transaction log by id {}", id);
+        return transactionLogRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Transaction log not found with ID: " + id));
+    }
+
+    // Ghi từng dòng JSON (NDJSON) ra outputStream ngay khi đọc được từ cursor
+    @Transactional(readOnly = true)
+    public long exportTransactionLogs(TransactionLogFilter filter, OutputStream outputStream) {
+        LOGGER.info("Export transaction logs with filter {}", filter);
+        long count = 0;
+        try (Stream<TransactionLog> logs = transactionLogRepository.streamByFilter(
+                filter.getType(),
+                filter.getAction(),
+                filter.getObjectId(),
+                filter.getExecutorUsername(),
+                startOf(filter),
+                endOf(filter))) {
+            for (TransactionLog log : (Iterable<TransactionLog>) logs::iterator) {
+                outputStream.write(objectMapper.writeValueAsBytes(log));
+                outputStream.write(NEW_LINE);
+                if (++count % 500 == 0) {
+                    outputStream.flush();
+                }
+            }
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOGGER.info("Exported {} transaction logs", count);
+        return count;
+    }
+
+    public TransactionLogWriterMetrics getWriterMetrics() {
+        return transactionLogWriter.getMetrics();
+    }
+
+    private LocalDateTime startOf(TransactionLogFilter filter) {
+        return filter.getFromDate() != null ? filter.getFromDate().atStartOfDay() : EARLIEST_CREATED_DATE;
+    }
+
+    private LocalDateTime endOf(TransactionLogFilter filter) {
+        return filter.getToDate() != null ? filter.getToDate().plusDays(1).atStartOfDay() : LATEST_CREATED_DATE;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,224 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.StoredLocation;
+import capstonesu25.warehouse.model.storedlocation.LocationIndexMetrics;
+import capstonesu25.warehouse.model.storedlocation.LocationNode;
+import capstonesu25.warehouse.repository.StoredLocationRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Chỉ mục bộ nhớ của toàn bộ StoredLocation: tọa độ zone/floor/row/line được parse một lần thành số nguyên
+ * và các location được chia theo ô (zone, floor). Truy vấn top-K duyệt các ô theo cận dưới khoảng cách tăng dần,
+ * giữ K kết quả tốt nhất trong heap và dừng khi cận dưới của ô kế tiếp vượt kết quả xa nhất trong heap.
+ * Thay đổi capacity/flag được StoredLocationIndexListener đưa vào sau commit; chỉ mục được dựng lại
+ * tối đa mỗi REBUILD_INTERVAL để nhận thay đổi từ instance khác.
+ */
+@Service
+@RequiredArgsConstructor
+public class WarehouseTopologyIndex {
+    private final StoredLocationRepository storedLocationRepository;
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarehouseTopologyIndex.class);
+
+    private static final long REBUILD_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private static final Comparator<Scored> NEAREST_FIRST = Comparator
+            .comparingLong(Scored::distance)
+            .thenComparing(scored -> scored.node().getId());
+
+    private volatile Topology topology;
+    private volatile long builtAtNanos;
+    private boolean changedWhileBuilding;
+
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong incrementalUpdates = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong queryNanos = new AtomicLong();
+    private final AtomicLong visitedLocations = new AtomicLong();
+
+    /**
+     * Tối đa limit location thỏa filter, sắp theo tổng khoảng cách tới các base rồi theo id.
+     * Không có base thì mọi location cách đều nhau và kết quả theo id. limit <= 0 trả về danh sách rỗng.
+     */
+    public List<LocationNode> findNearest(Collection<LocationNode> bases, int limit, Predicate<LocationNode> filter) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        long started = System.nanoTime();
+        Topology current = current();
+
+        List<ScoredCell> cells = new ArrayList<>(current.cells.size());
+        for (Map.Entry<Cell, Set<Long>> entry : current.cells.entrySet()) {
+            Cell cell = entry.getKey();
+            long bound = 0;
+            for (LocationNode base : bases) {
+                bound += base.zoneFloorDistance(cell.zone(), cell.floor());
+            }
+            cells.add(new ScoredCell(bound, entry.getValue()));
+        }
+        cells.sort(Comparator.comparingLong(ScoredCell::bound));
+
+        // Heap đảo ngược: phần tử đầu là kết quả xa nhất hiện có
+        PriorityQueue<Scored> heap = new PriorityQueue<>(NEAREST_FIRST.reversed());
+        int visited = 0;
+        for (ScoredCell cell : cells) {
+            if (heap.size() >= limit && cell.bound() > heap.peek().distance()) {
+                break;
+            }
+            for (Long id : cell.locationIds()) {
+                LocationNode node = current.nodes.get(id);
+                visited++;
+                if (node == null || !filter.test(node)) {
+                    continue;
+                }
+                long distance = 0;
+                for (LocationNode base : bases) {
+                    distance += base.distanceTo(node);
+                }
+                Scored scored = new Scored(distance, node);
+                if (heap.size() < limit) {
+                    heap.add(scored);
+                } else if (NEAREST_FIRST.compare(scored, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(scored);
+                }
+            }
+        }
+
+        List<Scored> sorted = new ArrayList<>(heap);
+        sorted.sort(NEAREST_FIRST);
+        queries.incrementAndGet();
+        visitedLocations.addAndGet(visited);
+        queryNanos.addAndGet(System.nanoTime() - started);
+        return sorted.stream().map(Scored::node).toList();
+    }
+
+    // Giữ item affinity cũ khi collection items của entity chưa được nạp (itemIdsKnown = false)
+    public synchronized void apply(LocationNode node, boolean itemIdsKnown) {
+        changedWhileBuilding = true;
+        Topology current = topology;
+        if (current == null) {
+            return;
+        }
+        LocationNode previous = current.nodes.get(node.getId());
+        LocationNode updated = itemIdsKnown || previous == null ? node : node.withItemIds(previous.getItemIds());
+        current.nodes.put(updated.getId(), updated);
+        if (previous == null || previous.getZone() != updated.getZone() || previous.getFloor() != updated.getFloor()) {
+            if (previous != null) {
+                current.removeFromCell(previous);
+            }
+            current.cells.computeIfAbsent(new Cell(updated.getZone(), updated.getFloor()),
+                    cell -> ConcurrentHashMap.newKeySet()).add(updated.getId());
+        }
+        incrementalUpdates.incrementAndGet();
+    }
+
+    public synchronized void remove(Long locationId) {
+        changedWhileBuilding = true;
+        Topology current = topology;
+        if (current == null) {
+            return;
+        }
+        LocationNode previous = current.nodes.remove(locationId);
+        if (previous != null) {
+            current.removeFromCell(previous);
+        }
+        incrementalUpdates.incrementAndGet();
+    }
+
+    public void invalidate() {
+        topology = null;
+        LOGGER.info("Warehouse topology index invalidated");
+    }
+
+    public LocationIndexMetrics getMetrics() {
+        Topology current = topology;
+        long queryCount = queries.get();
+        return LocationIndexMetrics.builder()
+                .locations(current != null ? current.nodes.size() : 0)
+                .cells(current != null ? current.cells.size() : 0)
+                .rebuilds(rebuilds.get())
+                .incrementalUpdates(incrementalUpdates.get())
+                .queries(queryCount)
+                .averageQueryMicros(queryCount == 0 ? 0 : queryNanos.get() / 1000.0 / queryCount)
+                .averageVisitedLocations(queryCount == 0 ? 0 : (double) visitedLocations.get() / queryCount)
+                .build();
+    }
+
+    private Topology current() {
+        Topology current = topology;
+        if (current == null || System.nanoTime() - builtAtNanos > REBUILD_INTERVAL_NANOS) {
+            current = rebuild(current);
+        }
+        return current;
+    }
+
+    private Topology rebuild(Topology stale) {
+        synchronized (this) {
+            if (topology != stale && topology != null) {
+                return topology;
+            }
+            changedWhileBuilding = false;
+        }
+
+        List<StoredLocation> locations = storedLocationRepository.findAll();
+        Map<Long, Set<String>> itemIds = new HashMap<>();
+        for (Object[] pair : storedLocationRepository.findLocationItemPairs()) {
+            itemIds.computeIfAbsent((Long) pair[0], id -> new HashSet<>()).add((String) pair[1]);
+        }
+        Topology built = new Topology();
+        for (StoredLocation location : locations) {
+            LocationNode node = LocationNode.from(location, itemIds.getOrDefault(location.getId(), Set.of()));
+            built.nodes.put(node.getId(), node);
+            built.cells.computeIfAbsent(new Cell(node.getZone(), node.getFloor()),
+                    cell -> ConcurrentHashMap.newKeySet()).add(node.getId());
+        }
+
+        synchronized (this) {
+            topology = built;
+            // Có commit xen giữa lúc đọc DB: dùng tạm bản vừa dựng nhưng dựng lại ở lần truy vấn sau
+            builtAtNanos = changedWhileBuilding ? System.nanoTime() - REBUILD_INTERVAL_NANOS - 1 : System.nanoTime();
+        }
+        rebuilds.incrementAndGet();
+        LOGGER.info("Built warehouse topology index with {} locations in {} cells",
+                built.nodes.size(), built.cells.size());
+        return built;
+    }
+
+    private static class Topology {
+        private final Map<Long, LocationNode> nodes = new ConcurrentHashMap<>();
+        private final Map<Cell, Set<Long>> cells = new ConcurrentHashMap<>();
+
+        private void removeFromCell(LocationNode node) {
+            Set<Long> ids = cells.get(new Cell(node.getZone(), node.getFloor()));
+            if (ids != null) {
+                ids.remove(node.getId());
+            }
+        }
+    }
+
+    private record Cell(int zone, int floor) {
+    }
+
+    private record ScoredCell(long bound, Set<Long> locationIds) {
+    }
+
+    private record Scored(long distance, LocationNode node) {
+    }
+}
@@ -1,15 +1,10 @@
 package capstonesu25.warehouse.service.serviceImpl;
 
 import capstonesu25.warehouse.entity.Account;
-import capstonesu25.warehouse.entity.Configuration;
 import capstonesu25.warehouse.entity.ExportRequest;
-import capstonesu25.warehouse.entity.ExportRequestDetail;
 import capstonesu25.warehouse.entity.ImportOrder;
-import capstonesu25.warehouse.entity.ImportOrderDetail;
 import capstonesu25.warehouse.entity.Item;
-import capstonesu25.warehouse.entity.StaffPerformance;
 import capstonesu25.warehouse.entity.StockCheckRequest;
-import capstonesu25.warehouse.entity.StockCheckRequestDetail;
 import capstonesu25.warehouse.enums.AccountRole;
 import capstonesu25.warehouse.enums.AccountStatus;
 import capstonesu25.warehouse.enums.RequestStatus;
@@ -24,19 +19,20 @@ import capstonesu25.warehouse.model.account.RegisterRequest;
 import capstonesu25.warehouse.model.account.RegisterResponse;
 import capstonesu25.warehouse.model.account.TaskOfStaffPerDate;
 import capstonesu25.warehouse.model.account.UpdateAccountRequest;
+import capstonesu25.warehouse.model.configuration.ConfigurationSnapshot;
 import capstonesu25.warehouse.repository.AccountRepository;
-import capstonesu25.warehouse.repository.ConfigurationRepository;
 import capstonesu25.warehouse.repository.ExportRequestRepository;
 import capstonesu25.warehouse.repository.ImportOrderRepository;
 import capstonesu25.warehouse.repository.ItemRepository;
 import capstonesu25.warehouse.repository.StockCheckRequestRepository;
 import capstonesu25.warehouse.service.AccountService;
+import capstonesu25.warehouse.service.ConfigurationProvider;
 import capstonesu25.warehouse.service.JwtService;
+import capstonesu25.warehouse.service.StaffAvailabilityService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
@@ -73,8 +69,9 @@ public class AccountServiceImpl implements AccountService, LogoutHandler {
     private final ImportOrderRepository importOrderRepository;
     private final ExportRequestRepository exportRequestRepository;
     private final ItemRepository itemRepository;
-    private final ConfigurationRepository configurationRepository;
+    private final ConfigurationProvider configurationProvider;
     private final StockCheckRequestRepository stockCheckRequestRepository;
+    private final StaffAvailabilityService staffAvailabilityService;
     private static final Logger LOGGER = LoggerFactory.getLogger(AccountServiceImpl.class);
 
     @Override
@@ -85,7 +82,7 @@ public class AccountServiceImpl implements AccountService, LogoutHandler {
 
         Account account = accountRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found"));
-        Configuration configuration = configurationRepository.findAll().getFirst();
+        ConfigurationSnapshot configuration = configurationProvider.get();
 
         if (configuration.getWarehouseIsChecking() && account.getRole() == AccountRole.STAFF) {
             LOGGER.info("warehouse is checking and account is: {}",account.getEmail());
@@ -226,80 +223,11 @@ public class AccountServiceImpl implements AccountService, LogoutHandler {
 
         LOGGER.info("Total required working time for task: {} minutes", totalMinutes);
 
-        // Lấy danh sách nhân viên có vai trò STAFF và đang ACTIVE
-        List<Account> accounts = accountRepository.findByRoleAndStatus(AccountRole.STAFF, AccountStatus.ACTIVE);
-        Configuration config = configurationRepository.findAll().stream()
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Configuration not found"));
+        ConfigurationSnapshot config = configurationProvider.get();
 
         long expectedWorkingMinutesPerDay = Duration.between(config.getWorkingTimeStart(), config.getWorkingTimeEnd()).toMinutes();
         LOGGER.info("Expected working time per day: {} minutes", expectedWorkingMinutesPerDay);
-        List<AccountResponse> availableStaffs = new ArrayList<>();
-
-        for (Account account : accounts) {
-            List<StaffPerformance> performancesOnDate = account.getStaffPerformances().stream()
-                    .filter(p -> p.getDate().equals(date))
-                    .toList();
-
-            if (performancesOnDate.isEmpty()) {
-                LOGGER.info("Account {} has no performance record on {}", account.getEmail(), date);
-                availableStaffs.add(new AccountResponse(
-                        account.getId(),
-                        account.getUsername(),
-                        account.getEmail(),
-                        account.getPhone(),
-                        account.getFullName(),
-                        account.getStatus(),
-                        account.getIsEnable(),
-                        account.getIsBlocked(),
-                        account.getRole(),
-                        LocalTime.of(0, 0),
-                        LocalTime.ofSecondOfDay(expectedWorkingMinutesPerDay * 60),
-                        account.getImportOrders() != null ?
-                                account.getImportOrders().stream().map(ImportOrder::getId).toList() :
-                                List.of(),
-                        account.getExportRequests() != null ?
-                                account.getExportRequests().stream().map(ExportRequest::getId).toList() :
-                                List.of()
-                ));
-                continue;
-            }
-
-            // Total actual working time trong ngày
-            long actualMinutes = performancesOnDate.stream()
-                    .filter(p -> p.getExpectedWorkingTime() != null)
-                    .mapToLong(p -> p.getExpectedWorkingTime().toSecondOfDay() / 60)
-                    .sum();
-
-            long freeTime = expectedWorkingMinutesPerDay - actualMinutes;
-
-            if (freeTime >= totalMinutes) {
-                LOGGER.info("Account {} has enough free time: {} minutes", account.getEmail(), freeTime);
-                availableStaffs.add(new AccountResponse(
-                        account.getId(),
-                        account.getUsername(),
-                        account.getEmail(),
-                        account.getPhone(),
-                        account.getFullName(),
-                        account.getStatus(),
-                        account.getIsEnable(),
-                        account.getIsBlocked(),
-                        account.getRole(),
-                        LocalTime.ofSecondOfDay(actualMinutes * 60),
-                        LocalTime.ofSecondOfDay(expectedWorkingMinutesPerDay * 60),
-                        account.getImportOrders() != null ?
-                                account.getImportOrders().stream().map(ImportOrder::getId).toList() :
-                                List.of(),
-                        account.getExportRequests() != null ?
-                                account.getExportRequests().stream().map(ExportRequest::getId).toList() :
-                                List.of()
-                ));
-            }
-        }
-
-
-        LOGGER.info("Total available staff: {}", availableStaffs.size());
-        return availableStaffs;
+        return staffAvailabilityService.getStaffsWithFreeTime(date, totalMinutes, expectedWorkingMinutesPerDay);
     }
 
     @Override
@@ -497,174 +425,10 @@ public class AccountServiceImpl implements AccountService, LogoutHandler {
 
     @Override
     public List<AccountResponse> getAllActiveStaffsInDate(ActiveAccountRequest request) {
-        LOGGER.info("Get all active staffs ");
-        LocalDate date = request.getDate();
-        List<Account> accounts = accountRepository.findByRoleAndStatus(
-                AccountRole.STAFF,
-                AccountStatus.ACTIVE
-        );
-
-        if((request.getExportRequestId() != null && request.getImportOrderId() != null)) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid request");
-
-        }
-
-        List <AccountResponse> accountResponses = new ArrayList<>();
-        List<AccountResponse> responses = new ArrayList<>();
-        for(Account account : accounts) {
-            List<StaffPerformance> staffPerformances = account.getStaffPerformances()
-                    .stream()
-                    .filter(staffPerformance -> staffPerformance.getDate().equals(date))
-                    .toList();
-            if (staffPerformances.isEmpty()) {
-                LOGGER.warn("Account {} has no performance on date {}", account.getEmail(), date);
-            }
-            LocalTime totalActualWorkingTimeOfRequestInDay = LocalTime.of(0, 0);
-            LocalTime totalExpectedWorkingTimeOfRequestInDay = LocalTime.of(0, 0);
-
-            for(StaffPerformance performance : staffPerformances) {
-                totalExpectedWorkingTimeOfRequestInDay = totalExpectedWorkingTimeOfRequestInDay.
-                        plusMinutes(performance.getExpectedWorkingTime().toSecondOfDay() / 60);
-
-                if (performance.getActualWorkingTime() != null) {
-                    totalActualWorkingTimeOfRequestInDay = totalActualWorkingTimeOfRequestInDay.
-                            plusMinutes(performance.getActualWorkingTime().toSecondOfDay() / 60);
-                }
-            }
-            AccountResponse accountResponse = new AccountResponse(
-                    account.getId(),
-                    account.getUsername(),
-                    account.getEmail(),
-                    account.getPhone(),
-                    account.getFullName(),
-                    account.getStatus(),
-                    account.getIsEnable(),
-                    account.getIsBlocked(),
-                    account.getRole(),
-                    totalActualWorkingTimeOfRequestInDay,
-                    totalExpectedWorkingTimeOfRequestInDay,
-                    account.getImportOrders() != null ?
-                            account.getImportOrders().stream().map(ImportOrder::getId).toList() :
-                            List.of(),
-                    account.getExportRequests() != null ?
-                            account.getExportRequests().stream().map(ExportRequest::getId).toList() :
-                            List.of()
-            );
-            accountResponses.add(accountResponse);
-        }
-        accountResponses.forEach(accountResponse -> {
-            if (accountResponse.getTotalExpectedWorkingTimeOfRequestInDay() == null) {
-                accountResponse.setTotalActualWorkingTimeOfRequestInDay(LocalTime.of(0, 0));
-            }
-        });
-        LOGGER.info("Total expected working time of request in day: {}", accountResponses.size());
-        accountResponses.sort(Comparator.comparing(AccountResponse::getTotalExpectedWorkingTimeOfRequestInDay));
-        if(request.getImportOrderId() == null && request.getExportRequestId() == null) {
-            LOGGER.info("Get all active staffs in date {} with no import order Id and export request Id", date);
-            return accountResponses;
-        }
-        if(request.getImportOrderId() != null) {
-            LOGGER.info("Get all active staffs in date {} for import order", date);
-            ImportOrder importOrder = importOrderRepository.findById(request.getImportOrderId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import order not found"));
-            LOGGER.info("Import order date: {} and Request date: {}", importOrder.getDateReceived(), request.getDate());
-            if(!importOrder.getDateReceived().equals(request.getDate())) {
-                LOGGER.info("Import order date {} does not match request date {}", importOrder.getDateReceived(), request.getDate());
-                return accountResponses;
-            }
-
-            for(AccountResponse accountResponse : accountResponses) {
-                List<ImportOrder> checkImportOrder = importOrderRepository.findByAssignedStaff_IdAndDateReceived(
-                        accountResponse.getId(),
-                        importOrder.getDateReceived()
-                );
-                if(checkImportOrder.isEmpty()) {
-                    LOGGER.info("Account {} has no import order on date {}", accountResponse.getEmail(), date);
-                    responses.add(accountResponse);
-                }
-                else {
-                    for (ImportOrder orderCheck : checkImportOrder) {
-                        int totalMinutes = 0;
-                        for (ImportOrderDetail detail : orderCheck.getImportOrderDetails()) {
-                            LOGGER.info("Calculating expected working time for item: " + detail.getItem().getName());
-                            totalMinutes += detail.getExpectQuantity() * detail.getItem().getCountingMinutes();
-                        }
-                        LocalTime expectedWorkingTime = LocalTime.of(0, 0).plusMinutes(totalMinutes);
-                        if (importOrder.getTimeReceived().isAfter(orderCheck.getTimeReceived().plusMinutes(expectedWorkingTime.toSecondOfDay() / 60))) {
-                            responses.add(accountResponse);
-                        }
-                    }
-                }
-            }
-        }
-
-        if(request.getExportRequestId() != null) {
-            LOGGER.info("Get all active staffs in date {} for export request", date);
-            ExportRequest exportRequest = exportRequestRepository.findById(request.getExportRequestId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Export request not found"));
-
-            if(!exportRequest.getExportDate().equals(request.getDate())) {
-                return accountResponses;
-            }
-
-            for(AccountResponse accountResponse : accountResponses) {
-                List<ExportRequest> checkExportRequest = exportRequestRepository.findAllByCountingStaffIdAndCountingDate(
-                        accountResponse.getId(),
-                        exportRequest.getCountingDate()
-                );
-                if(checkExportRequest.isEmpty()) {
-                    responses.add(accountResponse);
-                }
-                for(ExportRequest exportCheck : checkExportRequest) {
-                    int totalMinutes = 0;
-                    for (ExportRequestDetail detail : exportCheck.getExportRequestDetails()) {
-                        LOGGER.info("Calculating expected working time for item: " + detail.getItem().getName());
-                        totalMinutes += detail.getQuantity() * detail.getItem().getCountingMinutes();
-                    }
-                    LocalTime expectedWorkingTime = LocalTime.of(0, 0).plusMinutes(totalMinutes);
-                    if(exportCheck.getCountingTime().isAfter(exportCheck.getCountingTime().plusMinutes(expectedWorkingTime.toSecondOfDay() / 60))) {
-                        responses.add(accountResponse);
-                    }
-                }
-            }
-        }
-
-        if(request.getStockCheckRequestId() != null) {
-            LOGGER.info("Get all active staffs in date {} for export request", date);
-            StockCheckRequest stockCheckRequest = stockCheckRequestRepository.findById(request.getStockCheckRequestId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Stock check request not found"));
-
-            if(!stockCheckRequest.getExpectedCompletedDate().equals(request.getDate())) {
-                return accountResponses;
-            }
-
-            for(AccountResponse accountResponse : accountResponses) {
-                List<StockCheckRequest> checkStock = stockCheckRequestRepository.findByAssignedStaff_IdAndCountingDate(
-                        accountResponse.getId(),
-                        stockCheckRequest.getCountingDate()
-                );
-                if(checkStock.isEmpty()) {
-                    responses.add(accountResponse);
-                }
-                for(StockCheckRequest check : checkStock) {
-                    int totalMinutes = 0;
-                    for (StockCheckRequestDetail detail : check.getStockCheckRequestDetails()) {
-                        LOGGER.info("Calculating expected working time for item: " + detail.getItem().getName());
-                        totalMinutes += detail.getQuantity() * detail.getItem().getCountingMinutes();
-                    }
-                    LocalTime expectedWorkingTime = LocalTime.of(0, 0).plusMinutes(totalMinutes);
-                    if(check.getCountingTime().isAfter(check.getCountingTime().plusMinutes(expectedWorkingTime.toSecondOfDay() / 60))) {
-                        responses.add(accountResponse);
-                    }
-                }
-            }
-        }
-
-        return responses;
+        LOGGER.info("Get all active staffs in date {}", request.getDate());
+        return staffAvailabilityService.getAllActiveStaffsInDate(request);
     }
 
-
-
     @Override
     public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
         final String authHeader = request.getHeader("Authorization");
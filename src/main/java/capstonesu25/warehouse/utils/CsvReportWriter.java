@@ -0,0 +1,65 @@
+package capstonesu25.warehouse.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+// CSV theo RFC 4180, có BOM để Excel nhận đúng tiếng Việt; flush định kỳ để client nhận dữ liệu ngay
+public class CsvReportWriter implements ReportWriter {
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private final Writer writer;
+    private long rows;
+
+    public CsvReportWriter(OutputStream outputStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public void header(String... columns) throws IOException {
+        writer.write('\uFEFF');
+        row((Object[]) columns);
+    }
+
+    @Override
+    public void row(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeValue(values[i]);
+        }
+        writer.write("\r\n");
+        if (++rows % FLUSH_EVERY_ROWS == 0) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text;
+        if (value instanceof Double number) {
+            text = BigDecimal.valueOf(number).stripTrailingZeros().toPlainString();
+        } else {
+            text = value.toString();
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
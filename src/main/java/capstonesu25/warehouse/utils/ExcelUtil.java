@@ -1,134 +1,405 @@
 package capstonesu25.warehouse.utils;
 
 
-import org.apache.poi.ss.usermodel.*;
+import capstonesu25.warehouse.model.excel.ExcelReadResult;
+import capstonesu25.warehouse.model.excel.ExcelReadSummary;
+import capstonesu25.warehouse.model.excel.ExcelRowError;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.ZoneId;
-import java.util.Date;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-
+/**
+ * Đọc sheet đầu tiên của file .xlsx theo kiểu SAX (XSSF event API) nên bộ nhớ không tăng theo số dòng.
+ * File .xls (OLE2, tối đa 65536 dòng) vẫn được đọc bằng HSSF usermodel và đưa qua cùng bộ xử lý dòng;
+ * định dạng khác bị từ chối bằng IllegalArgumentException.
+ * Dòng đầu là header chứa tên field của class đích; setter của từng field được dựng một lần cho mỗi class
+ * bằng MethodHandle. Lỗi chuyển kiểu, cột không tồn tại và lỗi do rowConsumer ném ra (IllegalArgumentException)
+ * được ghi lại theo từng dòng thay vì bị bỏ qua.
+ */
 public class ExcelUtil {
     private ExcelUtil() {
     }
     private static final Logger log = LoggerFactory.getLogger(ExcelUtil.class);
 
-    public static <T> List<T> processExcelFile(MultipartFile file, Class<T> clazz) {
-        List<T> dataList = new ArrayList<>();
+    public static final int MAX_ERRORS = 1000;
 
-        try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rowIterator = sheet.iterator();
+    private static final Map<Class<?>, RowBinder<?>> BINDERS = new ConcurrentHashMap<>();
 
-            boolean firstRow = true;
-            List<String> fieldNames = new ArrayList<>();
+    public static <T> ExcelReadResult<T> processExcelFile(MultipartFile file, Class<T> clazz) {
+        List<T> rows = new ArrayList<>();
+        ExcelReadSummary summary = processExcelFile(file, clazz, rows::add);
+        return new ExcelReadResult<>(rows, summary);
+    }
 
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-                if (firstRow) {
-                    // Read header row to map fields
-                    for (Cell cell : row) {
-                        fieldNames.add(cell.getStringCellValue());
-                    }
-                    firstRow = false;
-                    continue;
+    public static <T> ExcelReadSummary processExcelFile(MultipartFile file, Class<T> clazz, Consumer<T> rowConsumer) {
+        Path temp = null;
+        try {
+            // OPCPackage đọc từ File chỉ giải nén từng phần khi cần, còn đọc từ InputStream sẽ nạp cả file vào bộ nhớ
+            temp = Files.createTempFile("excel-import-", ".xlsx");
+            file.transferTo(temp);
+            return processExcelFile(temp, clazz, rowConsumer);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read Excel file: " + e.getMessage(), e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.warn("Cannot delete temporary Excel file {}", temp, e);
                 }
+            }
+        }
+    }
 
-                T instance = clazz.getDeclaredConstructor().newInstance();
-                for (int i = 0; i < fieldNames.size(); i++) {
-                    Cell cell = row.getCell(i);
-                    String fieldName = fieldNames.get(i);
+    public static <T> ExcelReadSummary processExcelFile(Path path, Class<T> clazz, Consumer<T> rowConsumer) {
+        long started = System.nanoTime();
+        @SuppressWarnings("unchecked")
+        RowBinder<T> binder = (RowBinder<T>) BINDERS.computeIfAbsent(clazz, RowBinder::new);
+        SheetReader<T> reader = new SheetReader<>(binder, rowConsumer);
 
-                    Field field = clazz.getDeclaredField(fieldName);
-                    field.setAccessible(true);
+        FileMagic magic;
+        try (InputStream in = FileMagic.prepareToCheckMagic(Files.newInputStream(path))) {
+            magic = FileMagic.valueOf(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read Excel file: " + e.getMessage(), e);
+        }
+        if (magic == FileMagic.OLE2) {
+            readXls(path, reader);
+        } else if (magic == FileMagic.OOXML) {
+            readXlsx(path, reader);
+        } else {
+            throw new IllegalArgumentException("Unsupported file format, only Excel .xlsx and .xls files are accepted");
+        }
 
-                    Object cellValue = getCellValue(cell, field.getType());
-                    field.set(instance, cellValue);
-                }
+        ExcelReadSummary summary = ExcelReadSummary.builder()
+                .rowsRead(reader.rowsRead)
+                .rowsAccepted(reader.rowsAccepted)
+                .errors(reader.errors)
+                .errorsTruncated(reader.errorsTruncated)
+                .elapsedMillis((System.nanoTime() - started) / 1_000_000.0)
+                .build();
+        log.info("Read {} Excel rows into {}: {} accepted, {} errors in {} ms", summary.getRowsRead(),
+                clazz.getSimpleName(), summary.getRowsAccepted(), reader.errors.size(), summary.getElapsedMillis());
+        return summary;
+    }
 
-                // Only add if at least itemId or quantity is not null
-                Object itemIdValue = null;
-                Object quantityValue = null;
-                try {
-                    Field itemIdField = clazz.getDeclaredField("itemId");
-                    itemIdField.setAccessible(true);
-                    itemIdValue = itemIdField.get(instance);
-                    Field quantityField = clazz.getDeclaredField("quantity");
-                    quantityField.setAccessible(true);
-                    quantityValue = quantityField.get(instance);
-                } catch (NoSuchFieldException | IllegalAccessException e) {
-                    log.warn("Could not check itemId/quantity for row: {}", instance, e);
-                }
-                if (itemIdValue == null && quantityValue == null) {
-                    log.info("Skipped empty Excel row: {}", instance);
-                    continue;
+    private static void readXlsx(Path path, SheetReader<?> reader) {
+        try (OPCPackage pkg = OPCPackage.open(path.toFile(), PackageAccess.READ)) {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = xssfReader.getStylesTable();
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IllegalArgumentException("Excel file has no sheet");
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        styles, null, strings, reader, new RawValueFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot read Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    // .xls tối đa 65536 dòng nên đọc cả workbook vào bộ nhớ vẫn chấp nhận được
+    private static void readXls(Path path, SheetReader<?> reader) {
+        try (POIFSFileSystem fs = new POIFSFileSystem(path.toFile(), true);
+             HSSFWorkbook workbook = new HSSFWorkbook(fs.getRoot(), true)) {
+            if (workbook.getNumberOfSheets() == 0) {
+                throw new IllegalArgumentException("Excel file has no sheet");
+            }
+            boolean use1904Windowing = workbook.getInternalWorkbook().isUsing1904DateWindowing();
+            RawValueFormatter formatter = new RawValueFormatter();
+            for (Row row : workbook.getSheetAt(0)) {
+                reader.startRow(row.getRowNum());
+                for (Cell cell : row) {
+                    String value = rawValue(cell, formatter, use1904Windowing);
+                    if (value != null) {
+                        reader.cell(cell.getAddress().formatAsString(), value, null);
+                    }
                 }
-                log.info("Parsed Excel row: {}", instance);
-                dataList.add(instance);
+                reader.endRow(row.getRowNum());
             }
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Error processing Excel file", e);
+            throw new IllegalArgumentException("Cannot read Excel file: " + e.getMessage(), e);
         }
+    }
 
-        return dataList;
+    // Cùng dạng giá trị mà XSSFSheetXMLHandler đưa ra: số/ngày qua RawValueFormatter, công thức lấy kết quả đã lưu
+    private static String rawValue(Cell cell, RawValueFormatter formatter, boolean use1904Windowing) {
+        CellType type = cell.getCellType() == CellType.FORMULA ? cell.getCachedFormulaResultType() : cell.getCellType();
+        return switch (type) {
+            case NUMERIC -> {
+                CellStyle style = cell.getCellStyle();
+                yield formatter.formatRawCellContents(cell.getNumericCellValue(), style.getDataFormat(),
+                        style.getDataFormatString(), use1904Windowing);
+            }
+            case STRING -> cell.getRichStringCellValue().getString();
+            case BOOLEAN -> cell.getBooleanCellValue() ? "TRUE" : "FALSE";
+            default -> null;
+        };
     }
 
-    private static Object getCellValue(Cell cell, Class<?> fieldType) {
-        if (cell == null) {
-            return null;
+    private static final class SheetReader<T> implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowBinder<T> binder;
+        private final Consumer<T> rowConsumer;
+        private final List<ExcelRowError> errors = new ArrayList<>();
+        private boolean errorsTruncated;
+        private int rowsRead;
+        private int rowsAccepted;
+
+        private boolean headerRead;
+        private List<String> headers = new ArrayList<>();
+        private FieldBinding[] columns = new FieldBinding[0];
+        private String[] values = new String[0];
+        private int nextColumn;
+        private int currentRow;
+
+        private SheetReader(RowBinder<T> binder, Consumer<T> rowConsumer) {
+            this.binder = binder;
+            this.rowConsumer = rowConsumer;
         }
 
-        if (fieldType == LocalDate.class && DateUtil.isCellDateFormatted(cell)) {
-            Date date = cell.getDateCellValue();
-            if (date == null) return null;
-            return date.toInstant()
-                    .atZone(ZoneId.systemDefault())
-                    .toLocalDate();
+        @Override
+        public void startRow(int rowNum) {
+            currentRow = rowNum;
+            nextColumn = 0;
+            Arrays.fill(values, null);
         }
 
-        if (fieldType == LocalTime.class && DateUtil.isCellDateFormatted(cell)) {
-            Date date = cell.getDateCellValue();
-            if (date == null) return null;
-            return date.toInstant()
-                    .atZone(ZoneId.systemDefault())
-                    .toLocalTime();
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            nextColumn = column + 1;
+            if (!headerRead) {
+                while (headers.size() <= column) {
+                    headers.add(null);
+                }
+                headers.set(column, formattedValue);
+            } else if (column < values.length) {
+                values[column] = formattedValue;
+            }
         }
 
-        return switch (cell.getCellType()) {
-            case STRING -> {
-                if (fieldType == Integer.class || fieldType == int.class) {
-                    yield Integer.parseInt(cell.getStringCellValue());
-                } else if (fieldType == Long.class) {
-                    yield Long.parseLong(cell.getStringCellValue());
-                } else if (fieldType == Double.class) {
-                    yield Double.parseDouble(cell.getStringCellValue());
+        @Override
+        public void endRow(int rowNum) {
+            if (!headerRead) {
+                bindHeader();
+                return;
+            }
+            boolean empty = true;
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] != null && values[i] != null && !values[i].isBlank()) {
+                    empty = false;
+                    break;
                 }
-                yield cell.getStringCellValue();
             }
-            case NUMERIC -> {
-                double numericValue = cell.getNumericCellValue();
-                if (fieldType == Long.class) {
-                    yield (long) numericValue;
-                } else if (fieldType == Integer.class || fieldType == int.class) {
-                    yield (int) numericValue;
-                } else if (fieldType == Double.class) {
-                    yield numericValue;
-                } else {
-                    yield numericValue; // fallback
+            if (empty) {
+                return;
+            }
+            rowsRead++;
+
+            T instance = binder.newInstance();
+            boolean valid = true;
+            for (int i = 0; i < columns.length; i++) {
+                FieldBinding binding = columns[i];
+                String value = values[i];
+                if (binding == null || value == null || value.isBlank()) {
+                    continue;
+                }
+                try {
+                    binding.set(instance, value.trim());
+                } catch (RuntimeException e) {
+                    addError(binding.name(), value, "Invalid " + binding.typeName() + " value");
+                    valid = false;
                 }
             }
-            case BOOLEAN -> cell.getBooleanCellValue();
-            default -> null;
-        };
+            if (!valid) {
+                return;
+            }
+            try {
+                rowConsumer.accept(instance);
+                rowsAccepted++;
+            } catch (IllegalArgumentException e) {
+                addError(null, null, e.getMessage());
+            }
+        }
+
+        private void bindHeader() {
+            headerRead = true;
+            columns = new FieldBinding[headers.size()];
+            values = new String[headers.size()];
+            for (int i = 0; i < headers.size(); i++) {
+                String header = headers.get(i) == null ? null : headers.get(i).trim();
+                if (header == null || header.isEmpty()) {
+                    continue;
+                }
+                columns[i] = binder.fields.get(header);
+                if (columns[i] == null) {
+                    addError(header, header, "Unknown column");
+                }
+            }
+            headers = null;
+        }
+
+        private void addError(String column, String value, String message) {
+            if (errors.size() >= MAX_ERRORS) {
+                errorsTruncated = true;
+                return;
+            }
+            errors.add(new ExcelRowError(currentRow + 1, column, value, message));
+        }
     }
 
+    // Setter và bộ chuyển kiểu của từng field, dựng một lần cho mỗi class đích
+    private static final class RowBinder<T> {
+        private final Class<T> clazz;
+        private final MethodHandle constructor;
+        private final Map<String, FieldBinding> fields = new HashMap<>();
+
+        private RowBinder(Class<?> type) {
+            @SuppressWarnings("unchecked")
+            Class<T> target = (Class<T>) type;
+            this.clazz = target;
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(target, MethodHandles.lookup());
+                this.constructor = lookup.findConstructor(target, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+                for (Field field : target.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                        continue;
+                    }
+                    Function<String, Object> converter = converterFor(field.getType());
+                    if (converter == null) {
+                        continue;
+                    }
+                    MethodHandle setter = lookup.unreflectSetter(field)
+                            .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                    fields.put(field.getName(),
+                            new FieldBinding(field.getName(), field.getType().getSimpleName(), setter, converter));
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Cannot bind Excel rows to " + type.getName(), e);
+            }
+        }
 
+        private T newInstance() {
+            try {
+                return clazz.cast(constructor.invokeExact());
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot create " + clazz.getName(), e);
+            }
+        }
+    }
+
+    private record FieldBinding(String name, String typeName, MethodHandle setter, Function<String, Object> converter) {
+        private void set(Object instance, String value) {
+            Object converted = converter.apply(value);
+            try {
+                setter.invokeExact(instance, converted);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<String, Object> converterFor(Class<?> type) {
+        if (type == String.class) {
+            return value -> value;
+        }
+        if (type == Integer.class || type == int.class) {
+            return value -> new BigDecimal(value).intValueExact();
+        }
+        if (type == Long.class || type == long.class) {
+            return value -> new BigDecimal(value).longValueExact();
+        }
+        if (type == Double.class || type == double.class) {
+            return Double::parseDouble;
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return value -> "1".equals(value) || Boolean.parseBoolean(value);
+        }
+        if (type == LocalDate.class) {
+            return value -> value.indexOf('T') >= 0 ? LocalDateTime.parse(value).toLocalDate() : LocalDate.parse(value);
+        }
+        if (type == LocalTime.class) {
+            return value -> value.indexOf('T') >= 0 ? LocalDateTime.parse(value).toLocalTime() : LocalTime.parse(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime::parse;
+        }
+        if (type.isEnum()) {
+            return value -> Enum.valueOf((Class<? extends Enum>) type, value.toUpperCase());
+        }
+        return null;
+    }
+
+    // Trả giá trị thô thay vì chuỗi đã định dạng: ô ngày giờ thành ISO-8601, ô số không có dấu phân cách
+    private static final class RawValueFormatter extends DataFormatter {
+        // DateUtil.isADateFormat chạy regex trên format string, kết quả cố định theo từng style của file
+        private final Map<Integer, Boolean> dateFormats = new HashMap<>();
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            boolean dateFormat = dateFormats.computeIfAbsent(formatIndex,
+                    index -> DateUtil.isADateFormat(index, formatString));
+            if (dateFormat && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toString();
+            }
+            return NumberToTextConverter.toText(value);
+        }
+    }
 }
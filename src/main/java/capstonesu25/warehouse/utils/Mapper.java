@@ -4,7 +4,7 @@ import capstonesu25.warehouse.entity.ImportRequest;
 import capstonesu25.warehouse.entity.ImportRequestDetail;
 import capstonesu25.warehouse.entity.ImportOrder;
 import capstonesu25.warehouse.entity.ImportOrderDetail;
-import capstonesu25.warehouse.entity.ItemProvider;
+import capstonesu25.warehouse.entity.Item;
 import capstonesu25.warehouse.enums.ImportType;
 import capstonesu25.warehouse.model.importrequest.ImportRequestResponse;
 import capstonesu25.warehouse.model.importrequest.importrequestdetail.ImportRequestDetailResponse;
@@ -15,32 +15,43 @@ import java.util.NoSuchElementException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Component
 @RequiredArgsConstructor
 public class Mapper {
 
     public static ImportRequestDetailResponse mapToImportRequestDetailResponse(ImportRequestDetail importRequestDetail, ItemProviderRepository itemProviderRepository) {
-        ItemProvider itemProvider = new ItemProvider();
-        if(importRequestDetail.getImportRequest().getType().equals(ImportType.ORDER)) {
-            Long providerId = importRequestDetail.getImportRequest()
-                    .getProvider()
-                    .getId();
+        return mapToImportRequestDetailResponse(importRequestDetail, singleLookup(itemProviderRepository));
+    }
 
-            String itemId = importRequestDetail.getItem().getId();
+    public static List<ImportRequestDetailResponse> mapToImportRequestDetailResponses(
+            List<ImportRequestDetail> importRequestDetails,
+            ItemProviderRepository itemProviderRepository) {
+        ProviderCodes providerCodes = new ProviderCodes();
+        importRequestDetails.forEach(d -> providerCodes.require(providerIdOf(d.getImportRequest()), d.getItem()));
+        providerCodes.load(itemProviderRepository);
+        return importRequestDetails.stream()
+                .map(d -> mapToImportRequestDetailResponse(d, providerCodes))
+                .toList();
+    }
 
-            itemProvider = itemProviderRepository
-                    .findByProvider_IdAndItem_Id(providerId, itemId)
-                    .orElseThrow(() -> new NoSuchElementException(
-                            "No ItemProvider found for providerId=" + providerId + " and itemId=" + itemId
-                    ));
+    private static ImportRequestDetailResponse mapToImportRequestDetailResponse(ImportRequestDetail importRequestDetail,
+                                                                                ProviderCodeLookup providerCodes) {
+        String providerCode = null;
+        if(importRequestDetail.getImportRequest().getType().equals(ImportType.ORDER)) {
+            providerCode = providerCodes.get(importRequestDetail.getImportRequest().getProvider().getId(),
+                    importRequestDetail.getItem().getId());
         }
 
         return new ImportRequestDetailResponse(
                 importRequestDetail.getId(),
                 importRequestDetail.getImportRequest() != null ? importRequestDetail.getImportRequest().getId() : null,
-                itemProvider != null? itemProvider.getProviderCode() : null,
+                providerCode,
                 importRequestDetail.getItem() != null ? importRequestDetail.getItem().getId() : null,
                 importRequestDetail.getItem() != null ? importRequestDetail.getItem().getName() : null,
                 importRequestDetail.getInventoryItemId(),
@@ -55,9 +66,29 @@ public class Mapper {
     }
     
     public static ImportRequestResponse mapToImportRequestResponse(ImportRequest importRequest, ItemProviderRepository itemProviderRepository) {
+        return mapToImportRequestResponse(importRequest, singleLookup(itemProviderRepository));
+    }
+
+    // Mã hàng của nhà cung cấp cho mọi detail trong danh sách được đọc bằng một truy vấn
+    public static List<ImportRequestResponse> mapToImportRequestResponses(List<ImportRequest> importRequests,
+                                                                          ItemProviderRepository itemProviderRepository) {
+        ProviderCodes providerCodes = new ProviderCodes();
+        for (ImportRequest importRequest : importRequests) {
+            if (importRequest.getDetails() != null) {
+                importRequest.getDetails().forEach(d -> providerCodes.require(providerIdOf(importRequest), d.getItem()));
+            }
+        }
+        providerCodes.load(itemProviderRepository);
+        return importRequests.stream()
+                .map(importRequest -> mapToImportRequestResponse(importRequest, providerCodes))
+                .toList();
+    }
+
+    private static ImportRequestResponse mapToImportRequestResponse(ImportRequest importRequest,
+                                                                    ProviderCodeLookup providerCodes) {
         List<ImportRequestDetailResponse> details = importRequest.getDetails() != null
                 ? importRequest.getDetails().stream()
-                .map(d -> Mapper.mapToImportRequestDetailResponse(d, itemProviderRepository))
+                .map(d -> mapToImportRequestDetailResponse(d, providerCodes))
                 .toList()
                 : List.of();
 
@@ -86,28 +117,34 @@ public class Mapper {
     public static ImportOrderDetailResponse mapToImportOrderDetailResponse(
             ImportOrderDetail importOrderDetail,
             ItemProviderRepository itemProviderRepository) {
-        ItemProvider itemProvider = new ItemProvider();
+        return mapToImportOrderDetailResponse(importOrderDetail, singleLookup(itemProviderRepository));
+    }
+
+    public static List<ImportOrderDetailResponse> mapToImportOrderDetailResponses(
+            List<ImportOrderDetail> importOrderDetails,
+            ItemProviderRepository itemProviderRepository) {
+        ProviderCodes providerCodes = new ProviderCodes();
+        importOrderDetails.forEach(d -> providerCodes.require(
+                providerIdOf(d.getImportOrder().getImportRequest()), d.getItem()));
+        providerCodes.load(itemProviderRepository);
+        return importOrderDetails.stream()
+                .map(d -> mapToImportOrderDetailResponse(d, providerCodes))
+                .toList();
+    }
 
+    private static ImportOrderDetailResponse mapToImportOrderDetailResponse(ImportOrderDetail importOrderDetail,
+                                                                            ProviderCodeLookup providerCodes) {
+        String providerCode = null;
         if(importOrderDetail.getImportOrder().getImportRequest().getType().equals(ImportType.ORDER)) {
-            Long providerId = importOrderDetail.getImportOrder()
-                    .getImportRequest()
-                    .getProvider()
-                    .getId();
-
-            String itemId = importOrderDetail.getItem().getId();
-
-           itemProvider = itemProviderRepository
-                    .findByProvider_IdAndItem_Id(providerId, itemId)
-                    .orElseThrow(() -> new NoSuchElementException(
-                            "No ItemProvider found for providerId=" + providerId + " and itemId=" + itemId
-                    ));
+            providerCode = providerCodes.get(
+                    importOrderDetail.getImportOrder().getImportRequest().getProvider().getId(),
+                    importOrderDetail.getItem().getId());
         }
 
-
         return new ImportOrderDetailResponse(
                 importOrderDetail.getId(),
                 importOrderDetail.getImportOrder().getId(),
-                itemProvider != null ? itemProvider.getProviderCode() : null,
+                providerCode,
                 importOrderDetail.getItem().getId(),
                 importOrderDetail.getItem().getName(),
                 importOrderDetail.getInventoryItemId(),
@@ -121,9 +158,30 @@ public class Mapper {
 
 
     public static ImportOrderResponse mapToImportOrderResponse(ImportOrder importOrder, ItemProviderRepository itemProviderRepository) {
+        return mapToImportOrderResponse(importOrder, singleLookup(itemProviderRepository));
+    }
+
+    // Mã hàng của nhà cung cấp cho mọi detail trong danh sách được đọc bằng một truy vấn
+    public static List<ImportOrderResponse> mapToImportOrderResponses(List<ImportOrder> importOrders,
+                                                                      ItemProviderRepository itemProviderRepository) {
+        ProviderCodes providerCodes = new ProviderCodes();
+        for (ImportOrder importOrder : importOrders) {
+            if (importOrder.getImportOrderDetails() != null) {
+                importOrder.getImportOrderDetails().forEach(d -> providerCodes.require(
+                        providerIdOf(importOrder.getImportRequest()), d.getItem()));
+            }
+        }
+        providerCodes.load(itemProviderRepository);
+        return importOrders.stream()
+                .map(importOrder -> mapToImportOrderResponse(importOrder, providerCodes))
+                .toList();
+    }
+
+    private static ImportOrderResponse mapToImportOrderResponse(ImportOrder importOrder,
+                                                                ProviderCodeLookup providerCodes) {
         List<ImportOrderDetailResponse> details = importOrder.getImportOrderDetails() != null
                 ? importOrder.getImportOrderDetails().stream()
-                .map(d -> Mapper.mapToImportOrderDetailResponse(d, itemProviderRepository))
+                .map(d -> mapToImportOrderDetailResponse(d, providerCodes))
                 .toList()
                 : List.of();
 
@@ -151,4 +209,55 @@ public class Mapper {
                 importOrder.getImportRequest().getType()
         );
     }
-}
\ No newline at end of file
+
+    private static ProviderCodeLookup singleLookup(ItemProviderRepository itemProviderRepository) {
+        return (providerId, itemId) -> itemProviderRepository
+                .findByProvider_IdAndItem_Id(providerId, itemId)
+                .orElseThrow(() -> new NoSuchElementException(
+                        "No ItemProvider found for providerId=" + providerId + " and itemId=" + itemId
+                ))
+                .getProviderCode();
+    }
+
+    // Provider chỉ có nghĩa với phiếu nhập theo đơn đặt hàng
+    private static Long providerIdOf(ImportRequest importRequest) {
+        return importRequest != null && ImportType.ORDER.equals(importRequest.getType())
+                && importRequest.getProvider() != null ? importRequest.getProvider().getId() : null;
+    }
+
+    private interface ProviderCodeLookup {
+        String get(Long providerId, String itemId);
+    }
+
+    private static class ProviderCodes implements ProviderCodeLookup {
+        private final Set<Long> providerIds = new HashSet<>();
+        private final Set<String> itemIds = new HashSet<>();
+        private final Map<Long, Map<String, String>> codes = new HashMap<>();
+
+        private void require(Long providerId, Item item) {
+            if (providerId != null && item != null) {
+                providerIds.add(providerId);
+                itemIds.add(item.getId());
+            }
+        }
+
+        private void load(ItemProviderRepository itemProviderRepository) {
+            if (providerIds.isEmpty()) {
+                return;
+            }
+            for (Object[] row : itemProviderRepository.findProviderCodes(providerIds, itemIds)) {
+                codes.computeIfAbsent((Long) row[0], id -> new HashMap<>()).put((String) row[1], (String) row[2]);
+            }
+        }
+
+        @Override
+        public String get(Long providerId, String itemId) {
+            Map<String, String> byItem = codes.get(providerId);
+            if (byItem == null || !byItem.containsKey(itemId)) {
+                throw new NoSuchElementException(
+                        "No ItemProvider found for providerId=" + providerId + " and itemId=" + itemId);
+            }
+            return byItem.get(itemId);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package capstonesu25.warehouse.utils;
+
+import capstonesu25.warehouse.model.inventoryitem.MeasurementSelection;
+import capstonesu25.warehouse.model.inventoryitem.PickCandidate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chọn tập inventory item có tổng measurement nằm trong [target, target * (1 + tolerance%)] với ít item nhất
+ * (bài toán subset-sum có giới hạn). Measurement được rời rạc hóa thành khoảng MAX_CELLS ô để chạy DP;
+ * khi bảng DP quá lớn hoặc hết thời gian cho phép thì dùng greedy (item lớn trước) với phần vượt nhỏ nhất.
+ * Thứ tự của candidates (theo PickingStrategy) được giữ khi có nhiều item cùng measurement.
+ */
+public class MeasurementSelectionUtil {
+    private static final int MAX_CELLS = 5_000;
+    private static final int MIN_CELLS = 250;
+    private static final long MAX_DP_BITS = 64L * 1024 * 1024;
+    private static final int SLACK_DIVISOR = 50;
+    private static final double EPSILON = 1e-9;
+
+    private MeasurementSelectionUtil() {
+    }
+
+    // Trả về null nếu tổng measurement của candidates không đủ target
+    public static MeasurementSelection select(List<PickCandidate> candidates, double target,
+                                              double tolerancePercent, long timeBudgetNanos) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        double max = target * (1 + Math.max(0, tolerancePercent) / 100);
+
+        double available = 0;
+        for (PickCandidate candidate : candidates) {
+            available += candidate.getMeasurementValue();
+        }
+        if (available < target) {
+            return null;
+        }
+
+        // Một item là đủ và không vượt quá sai số cho phép
+        PickCandidate single = null;
+        for (PickCandidate candidate : candidates) {
+            double value = candidate.getMeasurementValue();
+            if (value >= target && value <= max && (single == null || value < single.getMeasurementValue())) {
+                single = candidate;
+            }
+        }
+        if (single != null) {
+            return new MeasurementSelection(List.of(single.getId()), single.getMeasurementValue(), true, "SINGLE");
+        }
+
+        List<PickCandidate> usable = candidates.stream()
+                .filter(candidate -> candidate.getMeasurementValue() <= max)
+                .toList();
+        MeasurementSelection selection = selectByDp(usable, target, max, deadline);
+        return selection != null ? selection : selectGreedy(candidates, target, max);
+    }
+
+    private static MeasurementSelection selectByDp(List<PickCandidate> usable, double target, double max, long deadline) {
+        for (int cells = MAX_CELLS; cells >= MIN_CELLS; cells /= 2) {
+            double resolution = max / cells;
+            // Trọng số được làm tròn nên mỗi ô giữ thêm tổng thực tế, chỉ chấp nhận ô có tổng thực tế trong [target, max]
+            int upper = cells + cells / SLACK_DIVISOR;
+
+            Map<Integer, List<PickCandidate>> byWeight = new LinkedHashMap<>();
+            for (PickCandidate candidate : usable) {
+                int weight = (int) Math.round(candidate.getMeasurementValue() / resolution);
+                if (weight > 0) {
+                    byWeight.computeIfAbsent(weight, w -> new ArrayList<>()).add(candidate);
+                }
+            }
+            List<Bundle> bundles = splitIntoBundles(byWeight, upper);
+            if ((long) bundles.size() * (upper + 1) > MAX_DP_BITS) {
+                continue;
+            }
+            return solve(bundles, target, max, upper, deadline);
+        }
+        return null;
+    }
+
+    // Các item cùng trọng số được gộp theo lũy thừa 2 (1, 2, 4, ...) để DP 0/1 vẫn chọn được số lượng bất kỳ
+    private static List<Bundle> splitIntoBundles(Map<Integer, List<PickCandidate>> byWeight, int upper) {
+        List<Bundle> bundles = new ArrayList<>();
+        for (Map.Entry<Integer, List<PickCandidate>> entry : byWeight.entrySet()) {
+            int weight = entry.getKey();
+            List<PickCandidate> pieces = entry.getValue();
+            int limit = Math.min(pieces.size(), upper / weight);
+            int from = 0;
+            for (int size = 1; from < limit; size *= 2) {
+                int to = Math.min(from + size, limit);
+                List<PickCandidate> bundlePieces = pieces.subList(from, to);
+                double total = 0;
+                for (PickCandidate piece : bundlePieces) {
+                    total += piece.getMeasurementValue();
+                }
+                bundles.add(new Bundle(weight * (to - from), bundlePieces, total));
+                from = to;
+            }
+        }
+        return bundles;
+    }
+
+    private static MeasurementSelection solve(List<Bundle> bundles, double target, double max, int upper, long deadline) {
+        int unreachable = Integer.MAX_VALUE;
+        int[] pieces = new int[upper + 1];
+        double[] totals = new double[upper + 1];
+        Arrays.fill(pieces, unreachable);
+        pieces[0] = 0;
+        int words = (upper >> 6) + 1;
+        long[][] taken = new long[bundles.size()][];
+
+        for (int b = 0; b < bundles.size(); b++) {
+            if (System.nanoTime() > deadline) {
+                return null;
+            }
+            Bundle bundle = bundles.get(b);
+            int bundlePieces = bundle.pieces().size();
+            long[] bits = new long[words];
+            for (int sum = upper; sum >= bundle.weight(); sum--) {
+                int previous = pieces[sum - bundle.weight()];
+                if (previous != unreachable && previous + bundlePieces < pieces[sum]) {
+                    pieces[sum] = previous + bundlePieces;
+                    totals[sum] = totals[sum - bundle.weight()] + bundle.total();
+                    bits[sum >> 6] |= 1L << (sum & 63);
+                }
+            }
+            taken[b] = bits;
+        }
+
+        // Ít item nhất, cùng số item thì vượt ít nhất
+        int best = -1;
+        for (int sum = 1; sum <= upper; sum++) {
+            if (pieces[sum] == unreachable || totals[sum] < target - EPSILON || totals[sum] > max + EPSILON) {
+                continue;
+            }
+            if (best < 0 || pieces[sum] < pieces[best]
+                    || (pieces[sum] == pieces[best] && totals[sum] < totals[best])) {
+                best = sum;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+
+        List<String> ids = new ArrayList<>(pieces[best]);
+        int sum = best;
+        for (int b = bundles.size() - 1; b >= 0 && sum > 0; b--) {
+            if ((taken[b][sum >> 6] & (1L << (sum & 63))) == 0) {
+                continue;
+            }
+            for (PickCandidate piece : bundles.get(b).pieces()) {
+                ids.add(piece.getId());
+            }
+            sum -= bundles.get(b).weight();
+        }
+        return new MeasurementSelection(ids, totals[best], true, "DP");
+    }
+
+    // Lấy item lớn trước khi còn nằm trong sai số; nếu vẫn thiếu thì bù bằng item nhỏ nhất đủ bù phần thiếu
+    private static MeasurementSelection selectGreedy(List<PickCandidate> candidates, double target, double max) {
+        List<PickCandidate> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparing(PickCandidate::getMeasurementValue).reversed());
+        List<PickCandidate> selected = new ArrayList<>();
+        List<PickCandidate> skipped = new ArrayList<>();
+        double total = 0;
+        for (PickCandidate candidate : sorted) {
+            if (total >= target) {
+                break;
+            }
+            if (total + candidate.getMeasurementValue() <= max) {
+                selected.add(candidate);
+                total += candidate.getMeasurementValue();
+            } else {
+                skipped.add(candidate);
+            }
+        }
+        while (total < target) {
+            double missing = target - total;
+            // skipped giảm dần nên item cuối cùng còn >= missing là item bù vượt ít nhất
+            PickCandidate filler = null;
+            for (PickCandidate candidate : skipped) {
+                if (candidate.getMeasurementValue() >= missing) {
+                    filler = candidate;
+                }
+            }
+            if (filler == null) {
+                filler = skipped.getFirst();
+            }
+            skipped.remove(filler);
+            selected.add(filler);
+            total += filler.getMeasurementValue();
+        }
+        return new MeasurementSelection(selected.stream().map(PickCandidate::getId).toList(),
+                total, total <= max, "GREEDY");
+    }
+
+    private record Bundle(int weight, List<PickCandidate> pieces, double total) {
+    }
+}
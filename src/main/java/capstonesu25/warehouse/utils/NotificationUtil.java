@@ -1,9 +1,12 @@
 package capstonesu25.warehouse.utils;
 
 import com.pusher.rest.Pusher;
-import org.springframework.scheduling.annotation.Async;
+import com.pusher.rest.data.Event;
+import com.pusher.rest.data.Result;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class NotificationUtil {
 
@@ -41,18 +44,21 @@ public class NotificationUtil {
     public static final String STOCK_CHECK_COUNTED_EVENT = "stock-check-counted";
     public static final String STOCK_CHECK_CONFIRMED_EVENT = "stock-check-confirmed";
     public static final String STOCK_CHECK_COMPLETED_EVENT = "stock-check-completed";
+    public static final String STOCK_CHECK_CANCELLED_EVENT = "stock-check-cancelled";
 
     public NotificationUtil(Pusher pusher) {
         this.pusher = pusher;
     }
 
-    @Async
-    public void notify(String channel, String event, Object notificationData) {
-        try {
-            pusher.trigger(channel, event, notificationData);
-        } catch (Exception e) {
-            System.err.println("Error sending Pusher notification: " + e.getMessage());
-            e.printStackTrace();
+    // Pusher giới hạn tối đa 10 event cho mỗi lần gọi batch trigger
+    public static final int MAX_EVENTS_PER_TRIGGER = 10;
+
+    // Gửi đồng bộ để NotificationOutboxSender biết kết quả và quyết định có gửi lại hay không
+    public Result trigger(List<Event> events) {
+        if (events.size() > MAX_EVENTS_PER_TRIGGER) {
+            throw new IllegalArgumentException("Pusher batch trigger accepts at most "
+                    + MAX_EVENTS_PER_TRIGGER + " events, got " + events.size());
         }
+        return pusher.trigger(events);
     }
-}
\ No newline at end of file
+}
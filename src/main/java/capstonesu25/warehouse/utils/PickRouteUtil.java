@@ -0,0 +1,110 @@
+package capstonesu25.warehouse.utils;
+
+import capstonesu25.warehouse.model.storedlocation.LocationNode;
+
+import java.util.List;
+
+/**
+ * Sắp thứ tự các điểm lấy hàng thành một vòng xuất phát và quay về start (thường là cửa kho):
+ * dựng vòng bằng nearest-neighbour rồi cải thiện bằng 2-opt cho tới khi không còn cải thiện hoặc hết thời gian.
+ * Khoảng cách là LocationNode.distanceTo (zone > floor > row > line), thỏa bất đẳng thức tam giác nên 2-opt hợp lệ.
+ */
+public class PickRouteUtil {
+
+    private PickRouteUtil() {
+    }
+
+    // Trả về thứ tự chỉ số của stops
+    public static int[] route(LocationNode start, List<LocationNode> stops, long timeBudgetNanos) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        int n = stops.size();
+        // Điểm 0 là start, điểm i + 1 là stops[i]
+        LocationNode[] points = new LocationNode[n + 1];
+        points[0] = start;
+        for (int i = 0; i < n; i++) {
+            points[i + 1] = stops.get(i);
+        }
+
+        int[] tour = nearestNeighbour(points);
+        twoOpt(points, tour, deadline);
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = tour[i + 1] - 1;
+        }
+        return order;
+    }
+
+    // Độ dài vòng start -> stops theo order -> start
+    public static long length(LocationNode start, List<LocationNode> stops, int[] order) {
+        long total = 0;
+        LocationNode previous = start;
+        for (int index : order) {
+            total += previous.distanceTo(stops.get(index));
+            previous = stops.get(index);
+        }
+        return total + previous.distanceTo(start);
+    }
+
+    private static int[] nearestNeighbour(LocationNode[] points) {
+        int size = points.length;
+        int[] tour = new int[size];
+        boolean[] visited = new boolean[size];
+        visited[0] = true;
+        for (int position = 1; position < size; position++) {
+            LocationNode current = points[tour[position - 1]];
+            int best = -1;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int candidate = 1; candidate < size; candidate++) {
+                if (visited[candidate]) {
+                    continue;
+                }
+                int distance = current.distanceTo(points[candidate]);
+                if (distance < bestDistance) {
+                    best = candidate;
+                    bestDistance = distance;
+                }
+            }
+            tour[position] = best;
+            visited[best] = true;
+        }
+        return tour;
+    }
+
+    // Đảo đoạn tour[i..j] khi nối (i-1, j) và (i, j+1) ngắn hơn; start luôn giữ vị trí 0
+    private static void twoOpt(LocationNode[] points, int[] tour, long deadline) {
+        int size = tour.length;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 1; i < size - 1; i++) {
+                if (System.nanoTime() > deadline) {
+                    return;
+                }
+                LocationNode before = points[tour[i - 1]];
+                LocationNode first = points[tour[i]];
+                for (int j = i + 1; j < size; j++) {
+                    LocationNode last = points[tour[j]];
+                    LocationNode after = points[tour[(j + 1) % size]];
+                    int delta = before.distanceTo(last) + first.distanceTo(after)
+                            - before.distanceTo(first) - last.distanceTo(after);
+                    if (delta < 0) {
+                        reverse(tour, i, j);
+                        first = points[tour[i]];
+                        improved = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void reverse(int[] tour, int from, int to) {
+        while (from < to) {
+            int swap = tour[from];
+            tour[from] = tour[to];
+            tour[to] = swap;
+            from++;
+            to--;
+        }
+    }
+}
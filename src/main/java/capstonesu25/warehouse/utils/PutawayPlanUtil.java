@@ -0,0 +1,157 @@
+package capstonesu25.warehouse.utils;
+
+import capstonesu25.warehouse.model.storedlocation.LocationNode;
+import capstonesu25.warehouse.model.storedlocation.PutawayAssignment;
+import capstonesu25.warehouse.model.storedlocation.PutawayDemand;
+import capstonesu25.warehouse.model.storedlocation.PutawayPlan;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lập kế hoạch xếp hàng cho cả import order trên một snapshot location duy nhất.
+ * Location được sắp một lần theo khoảng cách tới cửa gần nhất (rồi zone/floor/row/line), sau đó mỗi demand
+ * được xếp lần lượt vào: location đã chứa cùng item, location trống, cuối cùng là location đang chứa item khác.
+ * Capacity và item affinity được cập nhật ngay trong kế hoạch nên các detail cùng item dùng chung location.
+ */
+public class PutawayPlanUtil {
+
+    private PutawayPlanUtil() {
+    }
+
+    public static PutawayPlan plan(List<PutawayDemand> demands, List<LocationNode> locations, List<LocationNode> doors) {
+        long started = System.nanoTime();
+        List<Slot> ordered = new ArrayList<>(locations.size());
+        for (LocationNode location : locations) {
+            if (!location.isFulled() && location.freeCapacity() > 0) {
+                ordered.add(new Slot(location, distanceToDoor(location, doors)));
+            }
+        }
+        ordered.sort(Comparator.comparingInt((Slot slot) -> slot.doorDistance)
+                .thenComparingInt(slot -> slot.node.getZone())
+                .thenComparingInt(slot -> slot.node.getFloor())
+                .thenComparingInt(slot -> slot.node.getRow())
+                .thenComparingInt(slot -> slot.node.getLine())
+                .thenComparing(slot -> slot.node.getId()));
+
+        Map<String, List<Slot>> byItem = new HashMap<>();
+        for (Slot slot : ordered) {
+            for (String itemId : slot.itemIds) {
+                byItem.computeIfAbsent(itemId, id -> new ArrayList<>()).add(slot);
+            }
+        }
+
+        int[] remaining = new int[demands.size()];
+        Map<Long, List<PutawayAssignment>> assigned = new LinkedHashMap<>();
+        for (int i = 0; i < demands.size(); i++) {
+            remaining[i] = demands.get(i).getQuantity();
+            assigned.put(demands.get(i).getImportOrderDetailId(), new ArrayList<>());
+        }
+
+        // 1) Location đã chứa cùng item, rồi location trống: demand lớn trước để lấy các location gần cửa liền nhau.
+        // Con trỏ location trống chỉ đi tới vì location đã qua hoặc đã đầy, hoặc đã thuộc về một item (xét ở affinity)
+        List<Integer> byRemaining = new ArrayList<>();
+        for (int i = 0; i < demands.size(); i++) {
+            byRemaining.add(i);
+        }
+        byRemaining.sort(Comparator.comparingInt((Integer i) -> remaining[i]).reversed());
+        int emptyCursor = 0;
+        for (int i : byRemaining) {
+            PutawayDemand demand = demands.get(i);
+            remaining[i] = fillAffinity(demand, remaining[i], byItem, assigned);
+            while (remaining[i] > 0 && emptyCursor < ordered.size()) {
+                Slot slot = ordered.get(emptyCursor);
+                if (slot.free == 0 || !slot.itemIds.isEmpty()) {
+                    emptyCursor++;
+                    continue;
+                }
+                remaining[i] = take(demand, remaining[i], slot, assigned);
+                slot.itemIds.add(demand.getItemId());
+                byItem.computeIfAbsent(demand.getItemId(), id -> new ArrayList<>()).add(slot);
+            }
+        }
+
+        // 2) Hết location phù hợp thì xếp chung với item khác như cách làm trước đây
+        int anyCursor = 0;
+        for (int i = 0; i < demands.size(); i++) {
+            PutawayDemand demand = demands.get(i);
+            while (remaining[i] > 0 && anyCursor < ordered.size()) {
+                Slot slot = ordered.get(anyCursor);
+                if (slot.free == 0) {
+                    anyCursor++;
+                    continue;
+                }
+                remaining[i] = take(demand, remaining[i], slot, assigned);
+                slot.itemIds.add(demand.getItemId());
+            }
+        }
+
+        List<PutawayAssignment> assignments = new ArrayList<>();
+        Map<Long, Integer> unplaced = new LinkedHashMap<>();
+        for (int i = 0; i < demands.size(); i++) {
+            Long detailId = demands.get(i).getImportOrderDetailId();
+            assignments.addAll(merge(assigned.get(detailId)));
+            if (remaining[i] > 0) {
+                unplaced.merge(detailId, remaining[i], Integer::sum);
+            }
+        }
+        return new PutawayPlan(assignments, unplaced, System.nanoTime() - started);
+    }
+
+    private static int fillAffinity(PutawayDemand demand, int remaining, Map<String, List<Slot>> byItem,
+                                    Map<Long, List<PutawayAssignment>> assigned) {
+        List<Slot> slots = byItem.getOrDefault(demand.getItemId(), List.of());
+        for (int s = 0; s < slots.size() && remaining > 0; s++) {
+            if (slots.get(s).free > 0) {
+                remaining = take(demand, remaining, slots.get(s), assigned);
+            }
+        }
+        return remaining;
+    }
+
+    private static int take(PutawayDemand demand, int remaining, Slot slot, Map<Long, List<PutawayAssignment>> assigned) {
+        int quantity = Math.min(slot.free, remaining);
+        slot.free -= quantity;
+        assigned.get(demand.getImportOrderDetailId()).add(new PutawayAssignment(
+                demand.getImportOrderDetailId(), demand.getItemId(), slot.node.getId(), quantity));
+        return remaining - quantity;
+    }
+
+    // Một detail có thể quay lại cùng location ở bước sau, gộp lại thành một dòng
+    private static List<PutawayAssignment> merge(List<PutawayAssignment> assignments) {
+        Map<Long, PutawayAssignment> byLocation = new LinkedHashMap<>();
+        for (PutawayAssignment assignment : assignments) {
+            byLocation.merge(assignment.getStoredLocationId(), assignment, (a, b) -> new PutawayAssignment(
+                    a.getImportOrderDetailId(), a.getItemId(), a.getStoredLocationId(), a.getQuantity() + b.getQuantity()));
+        }
+        return new ArrayList<>(byLocation.values());
+    }
+
+    private static int distanceToDoor(LocationNode location, List<LocationNode> doors) {
+        int best = doors.isEmpty() ? 0 : Integer.MAX_VALUE;
+        for (LocationNode door : doors) {
+            best = Math.min(best, door.distanceTo(location));
+        }
+        return best;
+    }
+
+    private static class Slot {
+        private final LocationNode node;
+        private final int doorDistance;
+        private final Set<String> itemIds;
+        private int free;
+
+        private Slot(LocationNode node, int doorDistance) {
+            this.node = node;
+            this.doorDistance = doorDistance;
+            this.itemIds = new HashSet<>(node.getItemIds());
+            this.free = node.freeCapacity();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package capstonesu25.warehouse.utils;
+
+import capstonesu25.warehouse.enums.ReportFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Ghi báo cáo dạng bảng theo từng dòng. close() hoàn tất file nhưng không đóng outputStream bên dưới.
+ */
+public interface ReportWriter extends Closeable {
+
+    void header(String... columns) throws IOException;
+
+    void row(Object... values) throws IOException;
+
+    static ReportWriter of(ReportFormat format, OutputStream outputStream) {
+        return switch (format) {
+            case CSV -> new CsvReportWriter(outputStream);
+            case XLSX -> new XlsxReportWriter(outputStream);
+        };
+    }
+}
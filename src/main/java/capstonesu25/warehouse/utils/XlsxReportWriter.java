@@ -0,0 +1,108 @@
+package capstonesu25.warehouse.utils;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * File .xlsx ghi bằng SXSSFWorkbook: chỉ giữ WINDOW_SIZE dòng gần nhất trong bộ nhớ, các dòng cũ được xả ra
+ * file tạm (nén). Định dạng zip của xlsx chỉ cho phép ghi ra outputStream khi close(). Sheet đầy
+ * (1.048.576 dòng) thì sang sheet mới với cùng header.
+ */
+public class XlsxReportWriter implements ReportWriter {
+    private static final int WINDOW_SIZE = 100;
+    private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private final OutputStream outputStream;
+    private final SXSSFWorkbook workbook;
+    private final CellStyle headerStyle;
+    private final CellStyle dateStyle;
+    private final CellStyle dateTimeStyle;
+    private String[] columns = new String[0];
+    private Sheet sheet;
+    private int nextRow;
+
+    public XlsxReportWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+        this.workbook = new SXSSFWorkbook(WINDOW_SIZE);
+        this.workbook.setCompressTempFiles(true);
+        Font bold = workbook.createFont();
+        bold.setBold(true);
+        this.headerStyle = workbook.createCellStyle();
+        this.headerStyle.setFont(bold);
+        this.dateStyle = workbook.createCellStyle();
+        this.dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+        this.dateTimeStyle = workbook.createCellStyle();
+        this.dateTimeStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+    }
+
+    @Override
+    public void header(String... columns) {
+        this.columns = columns;
+        newSheet();
+    }
+
+    @Override
+    public void row(Object... values) {
+        if (sheet == null || nextRow >= MAX_ROWS_PER_SHEET) {
+            newSheet();
+        }
+        Row row = sheet.createRow(nextRow++);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            Cell cell = row.createCell(i);
+            if (value instanceof Number number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value instanceof LocalDateTime dateTime) {
+                cell.setCellValue(dateTime);
+                cell.setCellStyle(dateTimeStyle);
+            } else if (value instanceof LocalDate date) {
+                cell.setCellValue(date);
+                cell.setCellStyle(dateStyle);
+            } else if (value instanceof Boolean bool) {
+                cell.setCellValue(bool);
+            } else {
+                cell.setCellValue(value.toString());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (sheet == null) {
+                newSheet();
+            }
+            workbook.write(outputStream);
+            outputStream.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void newSheet() {
+        sheet = workbook.createSheet("Sheet" + (workbook.getNumberOfSheets() + 1));
+        nextRow = 0;
+        if (columns.length > 0) {
+            Row header = sheet.createRow(nextRow++);
+            for (int i = 0; i < columns.length; i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellValue(columns[i]);
+                cell.setCellStyle(headerStyle);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+-- Chỉ mục trigram cho tìm kiếm inventory item theo một phần id (GET /inventory-item/search/{id}).
+-- Chạy một lần bằng tài khoản có quyền CREATE EXTENSION (thường là superuser hoặc owner của database).
+-- CONCURRENTLY không chạy được trong transaction: chạy từng câu bằng psql ở chế độ autocommit.
+-- Khi index chưa có hoặc không hợp lệ, ứng dụng dùng chỉ mục trigram trong bộ nhớ.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Nếu lần tạo trước bị ngắt giữa chừng, index còn lại ở trạng thái không hợp lệ: xóa rồi tạo lại
+-- SELECT c.relname, i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+--  WHERE c.relname = 'idx_inventory_item_id_trgm';
+-- DROP INDEX CONCURRENTLY IF EXISTS idx_inventory_item_id_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_inventory_item_id_trgm
+    ON inventory_item USING gin (id gin_trgm_ops);
@@ -0,0 +1,93 @@
+package capstonesu25.warehouse.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pusher HTTP API giả lập chạy trên localhost cho profile test: nhận /apps/{appId}/events và /batch_events, ghi lại
+ * các event đã nhận và trả 200, hoặc trả mã lỗi đã xếp hàng bằng {@link #failNext(int...)}.
+ * Một instance dùng chung cho mọi Spring context trong JVM test.
+ */
+public final class PusherStub {
+    private static final PusherStub INSTANCE = new PusherStub();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final Queue<Integer> scriptedStatuses = new ConcurrentLinkedQueue<>();
+    private final List<Call> calls = new CopyOnWriteArrayList<>();
+
+    private PusherStub() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.createContext("/apps/", this::handle);
+        server.setExecutor(null);
+        server.start();
+    }
+
+    public static PusherStub get() {
+        return INSTANCE;
+    }
+
+    public String host() {
+        return server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    // Các lần gọi kế tiếp trả lần lượt các mã này, sau đó lại trả 200
+    public void failNext(int... statuses) {
+        for (int status : statuses) {
+            scriptedStatuses.add(status);
+        }
+    }
+
+    public List<Call> calls() {
+        return List.copyOf(calls);
+    }
+
+    public void reset() {
+        scriptedStatuses.clear();
+        calls.clear();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            JsonNode request = objectMapper.readTree(body);
+            List<String> channels = new ArrayList<>();
+            // batch_events: {"batch": [{"channel": ...}]}, events: {"channels": [...]}
+            if (request.has("batch")) {
+                request.get("batch").forEach(event -> channels.add(event.get("channel").asText()));
+            } else if (request.has("channels")) {
+                request.get("channels").forEach(channel -> channels.add(channel.asText()));
+            }
+            Integer scripted = scriptedStatuses.poll();
+            int status = scripted != null ? scripted : 200;
+            calls.add(new Call(exchange.getRequestURI().getPath(), channels, status, System.currentTimeMillis()));
+
+            byte[] response = (status == 200 ? "{}" : "stub error " + status).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        }
+    }
+
+    public record Call(String path, List<String> channels, int status, long receivedAtMillis) {
+    }
+}
@@ -0,0 +1,30 @@
+package capstonesu25.warehouse.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Đưa địa chỉ của {@link PusherStub} vào môi trường của mọi Spring context trong JVM test (pusher-stub.host, dùng
+ * trong application-test.yml), để test không gọi ra api-*.pusher.com. Context không bật profile test
+ * (WarehouseApplicationTests) đọc application.yml nên cũng nhận PUSHER_HOST trỏ tới stub, trừ khi đã được đặt sẵn,
+ * và tắt luồng gửi outbox nền như profile test.
+ */
+public class PusherStubEnvironmentPostProcessor implements EnvironmentPostProcessor {
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String host = PusherStub.get().host();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("pusher-stub.host", host);
+        if (!environment.containsProperty("PUSHER_HOST")) {
+            properties.put("PUSHER_HOST", host);
+            properties.put("PUSHER_ENCRYPTED", "false");
+        }
+        properties.put("warehouse.notification.outbox-sender-enabled", "false");
+        environment.getPropertySources().addLast(new MapPropertySource("pusherStub", properties));
+    }
+}
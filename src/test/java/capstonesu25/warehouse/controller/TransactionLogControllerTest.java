@@ -0,0 +1,84 @@
+package capstonesu25.warehouse.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Gọi API transaction log không có fromDate/toDate (trường hợp mặc định của màn hình), cả trang keyset lẫn export
+ * NDJSON. Chạy được trên H2 và PostgreSQL (TEST_DATASOURCE_URL).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionLogControllerTest {
+    private static final String EXECUTOR = "zlog-user";
+    private static final int LOGS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seedLogs() {
+        LocalDateTime createdDate = LocalDateTime.now().minusDays(3);
+        for (int i = 0; i < LOGS; i++) {
+            jdbcTemplate.update("INSERT INTO transaction_log (executor_username, type, action, object_id, "
+                    + "response_content, created_date) VALUES (?, 'IMPORT', 'CREATE', ?, '{}', ?)",
+                    EXECUTOR, "ZLOG" + i, createdDate.plusMinutes(i));
+        }
+    }
+
+    @Test
+    void pageWithoutDateFilter() throws Exception {
+        mockMvc.perform(get("/transaction-log").param("executorUsername", EXECUTOR).param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.items.length()").value(3))
+                .andExpect(jsonPath("$.content.items[0].objectId").value("ZLOG4"))
+                .andExpect(jsonPath("$.content.hasNext").value(true));
+    }
+
+    @Test
+    void pageWithDateFilter() throws Exception {
+        String day = LocalDateTime.now().minusDays(3).toLocalDate().toString();
+        mockMvc.perform(get("/transaction-log").param("executorUsername", EXECUTOR)
+                        .param("fromDate", day).param("toDate", day))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.items.length()").value(LOGS));
+        mockMvc.perform(get("/transaction-log").param("executorUsername", EXECUTOR)
+                        .param("fromDate", LocalDateTime.now().toLocalDate().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.items.length()").value(0));
+    }
+
+    @Test
+    void exportWithoutDateFilter() throws Exception {
+        MvcResult result = mockMvc.perform(get("/transaction-log/export").param("executorUsername", EXECUTOR))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(LOGS, body.lines().filter(line -> line.contains(EXECUTOR)).count(), body);
+    }
+}
@@ -0,0 +1,125 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.ImportRequest;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cấp mã trong transaction tạo phiếu với số luồng gấp nhiều lần pool connection: mỗi lần tạo chỉ giữ một connection,
+ * không lần nào chờ pool tới timeout và không có mã trùng. Sau đó so độ trễ một lần cấp với cách cũ (đọc mọi mã cùng
+ * tiền tố rồi lấy số lượng + 1) khi tiền tố đã có vài nghìn mã. Bảng sequence dùng ON CONFLICT ... RETURNING nên chỉ
+ * chạy trên PostgreSQL.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfEnvironmentVariable(named = "TEST_DATASOURCE_URL", matches = "jdbc:postgresql:.*")
+class BusinessIdServiceTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BusinessIdServiceTest.class);
+
+    private static final String IMPORT_REQUEST_ID = "ZBI-REQ1";
+    private static final int CREATES = 3000;
+    private static final int THREADS = 64;
+    private static final int LATENCY_RUNS = 200;
+
+    @Autowired
+    private BusinessIdService businessIdService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void parallelCreatesGetDistinctIdsWithoutExhaustingThePool() throws Exception {
+        int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        assertTrue(THREADS > poolSize, "Test needs more threads than the pool (" + poolSize + ")");
+        ImportRequest importRequest = new ImportRequest();
+        importRequest.setId(IMPORT_REQUEST_ID);
+
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CREATES; i++) {
+                // Giống ImportOrderService.create: cấp mã rồi ghi đơn nhập trong cùng một transaction
+                futures.add(executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                    String id = businessIdService.nextImportOrderId(importRequest);
+                    jdbcTemplate.update("INSERT INTO import_order (id, status, is_extended, created_by, created_date) "
+                            + "VALUES (?, 0, false, 'x', CURRENT_TIMESTAMP)", id);
+                    ids.add(id);
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        LOGGER.info("{} creates on {} threads with a pool of {}: {} ms, {} creates/s", CREATES, THREADS, poolSize,
+                elapsedMillis, CREATES * 1000L / Math.max(1, elapsedMillis));
+        assertEquals(CREATES, ids.size(), "Every create must get its own id");
+        String prefix = "DN-" + IMPORT_REQUEST_ID + "-";
+        for (int i = 1; i <= CREATES; i++) {
+            assertTrue(ids.contains(prefix + i), "Missing " + prefix + i);
+        }
+
+        long[] sequenceMicros = new long[LATENCY_RUNS];
+        long[] prefixScanMicros = new long[LATENCY_RUNS];
+        for (int run = 0; run < LATENCY_RUNS; run++) {
+            long t0 = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> businessIdService.nextImportOrderId(importRequest));
+            long t1 = System.nanoTime();
+            // Cách cũ: đọc toàn bộ mã cùng tiền tố, lấy số lượng + 1
+            transactionTemplate.executeWithoutResult(status -> {
+                List<String> existing = jdbcTemplate.queryForList("SELECT id FROM import_order WHERE id LIKE ?",
+                        String.class, prefix + "%");
+                assertTrue(existing.size() >= CREATES);
+            });
+            long t2 = System.nanoTime();
+            sequenceMicros[run] = (t1 - t0) / 1_000;
+            prefixScanMicros[run] = (t2 - t1) / 1_000;
+        }
+        Arrays.sort(sequenceMicros);
+        Arrays.sort(prefixScanMicros);
+        long sequenceMedian = sequenceMicros[LATENCY_RUNS / 2];
+        long prefixScanMedian = prefixScanMicros[LATENCY_RUNS / 2];
+        LOGGER.info("Allocation with {} existing ids: sequence median {} us (p99 {} us), prefix scan median {} us "
+                + "(p99 {} us)", CREATES, sequenceMedian, sequenceMicros[LATENCY_RUNS * 99 / 100], prefixScanMedian,
+                prefixScanMicros[LATENCY_RUNS * 99 / 100]);
+        assertTrue(sequenceMedian < prefixScanMedian, "Sequence median " + sequenceMedian
+                + " us should beat prefix scan median " + prefixScanMedian + " us with " + CREATES + " ids");
+    }
+
+    @AfterEach
+    void deleteCreatedOrders() {
+        // Đơn nhập giả không có phiếu nhập, các test liệt kê đơn nhập dùng chung database
+        jdbcTemplate.update("DELETE FROM import_order WHERE id LIKE ?", "DN-" + IMPORT_REQUEST_ID + "-%");
+    }
+}
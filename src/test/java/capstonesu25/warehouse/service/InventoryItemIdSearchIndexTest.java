@@ -0,0 +1,74 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.repository.InventoryItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Trên PostgreSQL tìm id bằng SQL kể cả khi chưa có trigram index, không dựng chỉ mục trong bộ nhớ; DB khác dựng chỉ
+ * mục trong bộ nhớ. Cả hai trả cùng kết quả: không phân biệt hoa thường, theo thứ tự id, tối đa limit.
+ * Mỗi test dùng một instance mới để không phụ thuộc chế độ/bản dựng của bean dùng chung giữa các test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryItemIdSearchIndexTest {
+    private static final List<String> IDS = List.of("ZIS-A-Q01", "ZIS-A-Q02", "ZIS-A-Q10", "ZIS-B-Q01");
+
+    // INSERT ... ON CONFLICT của counter không chạy trên H2
+    @MockitoBean
+    private InventoryStockCounterService inventoryStockCounterService;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seedInventory() {
+        jdbcTemplate.update("INSERT INTO item (id, name, measurement_value, counting_minutes) VALUES ('ZIS-ITEM', "
+                + "'Item', 1.0, 1)");
+        for (String id : IDS) {
+            jdbcTemplate.update("INSERT INTO inventory_item (id, item_id, measurement_value, status) "
+                    + "VALUES (?, 'ZIS-ITEM', 1.0, 0)", id);
+        }
+    }
+
+    @AfterEach
+    void deleteInventory() {
+        jdbcTemplate.update("DELETE FROM inventory_item WHERE id LIKE 'ZIS-%'");
+        jdbcTemplate.update("DELETE FROM item WHERE id = 'ZIS-ITEM'");
+    }
+
+    @Test
+    void searchesSqlOnPostgresAndMemoryElsewhere() {
+        InventoryItemIdSearchIndex index = new InventoryItemIdSearchIndex(inventoryItemRepository, jdbcTemplate);
+
+        assertEquals(List.of("ZIS-A-Q01", "ZIS-A-Q02"), index.search("zis-a-q0", 10));
+        assertEquals(List.of("ZIS-A-Q01", "ZIS-A-Q02", "ZIS-A-Q10"), index.search("zis-a", 3));
+        assertEquals(List.of("ZIS-A-Q01", "ZIS-B-Q01"), index.search("-Q01", 10));
+        assertEquals(List.of(), index.search("ZIS-C", 10));
+
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        Object snapshot = ReflectionTestUtils.getField(index, "snapshot");
+        if ("PostgreSQL".equalsIgnoreCase(product)) {
+            assertNull(snapshot, "PostgreSQL must not build the in-memory index");
+        } else {
+            assertNotNull(snapshot, product + " should use the in-memory index");
+        }
+    }
+}
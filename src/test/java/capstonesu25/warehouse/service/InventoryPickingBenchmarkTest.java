@@ -0,0 +1,187 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.ExportRequestDetail;
+import capstonesu25.warehouse.entity.InventoryItem;
+import capstonesu25.warehouse.enums.ExportType;
+import capstonesu25.warehouse.enums.ItemStatus;
+import capstonesu25.warehouse.enums.RequestStatus;
+import capstonesu25.warehouse.model.inventoryitem.MeasurementSelection;
+import capstonesu25.warehouse.model.inventoryitem.PickCandidate;
+import capstonesu25.warehouse.repository.ExportRequestDetailRepository;
+import capstonesu25.warehouse.repository.InventoryItemRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Giữ hàng cho phiếu xuất khi một SKU có 100k inventory item, với persistence context rỗng và với persistence
+ * context đã load toàn bộ 100k item của SKU. Sau UPDATE hàng loạt, các item đang được quản lý phải mang trạng thái
+ * đã giữ (không bị flush đè lại khi commit). So với cách cũ duyệt toàn bộ persistence context sau mỗi lần giữ.
+ * Giữ theo measurement với yêu cầu vượt tổng của một lần tải ứng viên thì giữ cả lần tải đó rồi tải tiếp.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class InventoryPickingBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InventoryPickingBenchmarkTest.class);
+
+    private static final String ITEM_ID = "ZPB-ITEM";
+    private static final String EXPORT_REQUEST_ID = "ZPB-ER";
+    private static final int INVENTORY_ITEMS = 100_000;
+    private static final int PICK_QUANTITY = 1_000;
+    private static final long COLD_DETAIL_ID = 933_001L;
+    // Lần đầu refresh các entity vừa load tốn thêm chi phí khởi động, lượt đầu chỉ để làm nóng
+    private static final long WARM_UP_DETAIL_ID = 933_002L;
+    private static final long WARM_DETAIL_ID = 933_003L;
+    private static final List<Long> DETAIL_IDS = List.of(COLD_DETAIL_ID, WARM_UP_DETAIL_ID, WARM_DETAIL_ID);
+    // Nhiều hơn số ứng viên được tải một lần (10k) để phải tải thêm
+    private static final long MEASUREMENT_DETAIL_ID = 933_004L;
+    private static final double REQUESTED_MEASUREMENT = 15_000;
+
+    // INSERT ... ON CONFLICT của counter không chạy trên H2
+    @MockitoBean
+    private InventoryStockCounterService inventoryStockCounterService;
+
+    @Autowired
+    private InventoryPickingService inventoryPickingService;
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+    @Autowired
+    private ExportRequestDetailRepository exportRequestDetailRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    void seedInventory() {
+        jdbcTemplate.update("INSERT INTO item (id, name, measurement_value, counting_minutes) VALUES (?, 'Item', 1.0, 1)",
+                ITEM_ID);
+        LocalDateTime imported = LocalDateTime.of(2026, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>(INVENTORY_ITEMS);
+        for (int i = 0; i < INVENTORY_ITEMS; i++) {
+            rows.add(new Object[]{String.format("ZPB-%06d", i), Timestamp.valueOf(imported.plusMinutes(i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_item (id, item_id, measurement_value, status, imported_date) "
+                + "VALUES (?, '" + ITEM_ID + "', 1.0, " + ItemStatus.AVAILABLE.ordinal() + ", ?)", rows);
+        jdbcTemplate.update("INSERT INTO export_request (id, status, type, is_extended, created_by, created_date) "
+                + "VALUES (?, ?, ?, false, 'x', CURRENT_TIMESTAMP)", EXPORT_REQUEST_ID,
+                RequestStatus.IN_PROGRESS.ordinal(), ExportType.INTERNAL.ordinal());
+        for (long detailId : List.of(COLD_DETAIL_ID, WARM_UP_DETAIL_ID, WARM_DETAIL_ID, MEASUREMENT_DETAIL_ID)) {
+            jdbcTemplate.update("INSERT INTO export_request_detail (id, export_request_id, item_id, quantity, "
+                    + "actual_quantity) VALUES (?, ?, ?, ?, 0)", detailId, EXPORT_REQUEST_ID, ITEM_ID, PICK_QUANTITY);
+        }
+    }
+
+    @Test
+    void pickFromHundredThousandItemsPerSku() {
+        long coldMillis = timed(() -> transactionTemplate.executeWithoutResult(status ->
+                inventoryPickingService.pickFullItems(detail(COLD_DETAIL_ID))));
+
+        pickWithAllItemsManaged(WARM_UP_DETAIL_ID);
+        long[] warm = pickWithAllItemsManaged(WARM_DETAIL_ID);
+
+        LOGGER.info("Picking {} of {} items per SKU: empty persistence context {} ms; with all {} items managed "
+                + "(loaded in {} ms) {} ms; old persistence-context scan alone {} ms per reserve call",
+                PICK_QUANTITY, INVENTORY_ITEMS, coldMillis, INVENTORY_ITEMS, warm[0], warm[1], warm[2]);
+        // Sau commit, việc giữ hàng không bị các entity đã load trước đó flush đè lại
+        for (long detailId : DETAIL_IDS) {
+            Map<String, Object> row = jdbcTemplate.queryForMap("SELECT COUNT(*) AS picked, MIN(status) AS min_status, "
+                    + "MAX(status) AS max_status FROM inventory_item WHERE export_request_detail_id = ?", detailId);
+            assertEquals(PICK_QUANTITY, ((Number) row.get("picked")).intValue(), "Detail " + detailId);
+            assertEquals(ItemStatus.UNAVAILABLE.ordinal(), ((Number) row.get("min_status")).intValue());
+            assertEquals(ItemStatus.UNAVAILABLE.ordinal(), ((Number) row.get("max_status")).intValue());
+        }
+        assertTrue(coldMillis < 10_000, "Pick from " + INVENTORY_ITEMS + " items took " + coldMillis + " ms");
+        // Phần lớn thời gian là refresh: lần refresh đầu tiên khởi tạo cả Item.inventoryItems (100k item) qua các
+        // association EAGER, cách cũ cũng refresh đúng các entity này
+        assertTrue(warm[1] < 60_000, "Pick with " + INVENTORY_ITEMS + " managed items took " + warm[1] + " ms");
+    }
+
+    @Test
+    void pickByMeasurementBeyondOneCandidateLoad() {
+        long started = System.nanoTime();
+        MeasurementSelection selection = transactionTemplate.execute(status -> inventoryPickingService
+                .pickByMeasurement(detail(MEASUREMENT_DETAIL_ID), REQUESTED_MEASUREMENT, 0));
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        LOGGER.info("Picking measurement {} from {} items of 1.0: {} items in {} ms", REQUESTED_MEASUREMENT,
+                INVENTORY_ITEMS, selection.getInventoryItemIds().size(), millis);
+        assertEquals(REQUESTED_MEASUREMENT, selection.getTotalMeasurement(), 1e-6);
+        assertTrue(selection.isWithinTolerance());
+        assertEquals((int) REQUESTED_MEASUREMENT, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_item "
+                + "WHERE export_request_detail_id = ?", Integer.class, MEASUREMENT_DETAIL_ID));
+    }
+
+    // Load toàn bộ item của SKU vào persistence context rồi mới giữ hàng; trả về thời gian load, giữ hàng và
+    // thời gian cách cũ duyệt persistence context để tìm các item vừa giữ
+    private long[] pickWithAllItemsManaged(long detailId) {
+        long[] millis = new long[3];
+        transactionTemplate.executeWithoutResult(status -> {
+            long loadStart = System.nanoTime();
+            List<InventoryItem> managed = inventoryItemRepository.findByItem_Id(ITEM_ID);
+            millis[0] = (System.nanoTime() - loadStart) / 1_000_000;
+            assertEquals(INVENTORY_ITEMS, managed.size());
+
+            millis[1] = timed(() -> inventoryPickingService.pickFullItems(detail(detailId)));
+
+            List<String> picked = inventoryItemRepository.findPickedByExportRequestDetailId(detailId).stream()
+                    .map(PickCandidate::getId).toList();
+            millis[2] = timed(() -> legacyManagedScan(picked));
+            Set<String> pickedIds = new HashSet<>(picked);
+            for (InventoryItem inventoryItem : managed) {
+                if (pickedIds.contains(inventoryItem.getId())) {
+                    assertEquals(ItemStatus.UNAVAILABLE, inventoryItem.getStatus(), inventoryItem.getId());
+                    assertEquals(detailId, inventoryItem.getExportRequestDetail().getId(), inventoryItem.getId());
+                }
+            }
+        });
+        return millis;
+    }
+
+    private ExportRequestDetail detail(long detailId) {
+        return exportRequestDetailRepository.findById(detailId).orElseThrow();
+    }
+
+    // Bản sao phần tìm entity của refreshManaged trước đây: duyệt mọi entry của persistence context
+    private int legacyManagedScan(List<String> ids) {
+        Set<String> idSet = new HashSet<>(ids);
+        int found = 0;
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, ?> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof InventoryItem inventoryItem && idSet.contains(inventoryItem.getId())) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static long timed(Runnable call) {
+        long start = System.nanoTime();
+        call.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,149 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.ImportOrderDetail;
+import capstonesu25.warehouse.entity.InventoryItem;
+import capstonesu25.warehouse.entity.Item;
+import capstonesu25.warehouse.enums.ExportType;
+import capstonesu25.warehouse.enums.ImportType;
+import capstonesu25.warehouse.enums.ItemStatus;
+import capstonesu25.warehouse.enums.RequestStatus;
+import capstonesu25.warehouse.model.inventoryitem.InventoryFigure;
+import capstonesu25.warehouse.repository.ExportRequestDetailRepository;
+import capstonesu25.warehouse.repository.InventoryItemRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * inventory_stock_counter phải luôn bằng số inventory item theo (item, status) sau các chuyển trạng thái đi qua
+ * entity listener (lưu kho đơn nhập), qua UPDATE hàng loạt có tự ghi delta (giữ hàng cho phiếu xuất, trả hàng bị giữ)
+ * và sau khi đối soát. Counter dùng INSERT ... ON CONFLICT nên chỉ chạy trên PostgreSQL.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfEnvironmentVariable(named = "TEST_DATASOURCE_URL", matches = "jdbc:postgresql:.*")
+class InventoryStockCounterServiceTest {
+    @Autowired
+    private InventoryStockCounterService inventoryStockCounterService;
+    @Autowired
+    private ImportOrderService importOrderService;
+    @Autowired
+    private InventoryPickingService inventoryPickingService;
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+    @Autowired
+    private ExportRequestDetailRepository exportRequestDetailRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void countersFollowImportStoreExportAssignmentAndBulkRelease() {
+        String itemId = "ZCT-ITEM1";
+        seedItem(itemId);
+        seedReadyToStoreImportOrder("ZCT-IO1", 931001L, itemId, 5);
+        assertCounters(itemId, Map.of(ItemStatus.READY_TO_STORE, 5L));
+
+        transactionTemplate.executeWithoutResult(status -> importOrderService.updateImportOrderStatus("ZCT-IO1"));
+        assertCounters(itemId, Map.of(ItemStatus.AVAILABLE, 5L));
+
+        jdbcTemplate.update("INSERT INTO export_request (id, status, type, is_extended, created_by, created_date) "
+                + "VALUES ('ZCT-ER1', ?, ?, false, 'x', CURRENT_TIMESTAMP)",
+                RequestStatus.IN_PROGRESS.ordinal(), ExportType.SELLING.ordinal());
+        jdbcTemplate.update("INSERT INTO export_request_detail (id, export_request_id, item_id, quantity, actual_quantity) "
+                + "VALUES (931101, 'ZCT-ER1', ?, 3, 0)", itemId);
+        transactionTemplate.executeWithoutResult(status ->
+                inventoryPickingService.pickFullItems(exportRequestDetailRepository.findById(931101L).orElseThrow()));
+        assertCounters(itemId, Map.of(ItemStatus.AVAILABLE, 2L, ItemStatus.UNAVAILABLE, 3L));
+
+        assertEquals(3, inventoryStockCounterService.releaseByExportDetailIds(List.of(931101L)));
+        assertCounters(itemId, Map.of(ItemStatus.AVAILABLE, 5L));
+
+        InventoryFigure figure = inventoryStockCounterService.getInventoryFigures().stream()
+                .filter(f -> f.getItemId().equals(itemId)).findFirst().orElseThrow();
+        assertEquals(5, figure.getTotalInventoryItemAvailable());
+        assertEquals(0, figure.getTotalInventoryItemUnAvailable());
+    }
+
+    @Test
+    void reconcileRepairsDriftedCounters() {
+        String itemId = "ZCT-ITEM2";
+        seedItem(itemId);
+        seedReadyToStoreImportOrder("ZCT-IO2", 932001L, itemId, 4);
+        // Lệch do cập nhật bỏ qua listener: một item đổi status bằng SQL trực tiếp, một counter sai và một dòng thừa
+        jdbcTemplate.update("UPDATE inventory_item SET status = ? WHERE id = ?", ItemStatus.NEED_LIQUID.ordinal(),
+                "ZCT-IO2-0");
+        jdbcTemplate.update("UPDATE inventory_stock_counter SET quantity = 42 WHERE item_id = ? AND status = ?",
+                itemId, ItemStatus.READY_TO_STORE.ordinal());
+        jdbcTemplate.update("INSERT INTO inventory_stock_counter (item_id, status, quantity, updated_date) "
+                + "VALUES (?, ?, 7, CURRENT_TIMESTAMP)", itemId, ItemStatus.RETURN.ordinal());
+
+        inventoryStockCounterService.reconcile();
+
+        assertCounters(itemId, Map.of(ItemStatus.READY_TO_STORE, 3L, ItemStatus.NEED_LIQUID, 1L));
+    }
+
+    private void seedItem(String itemId) {
+        jdbcTemplate.update("INSERT INTO item (id, name, measurement_value, total_measurement_value, quantity, "
+                + "counting_minutes) VALUES (?, 'Item', 1.0, 0, 0, 1)", itemId);
+    }
+
+    // Inventory item được lưu qua JPA như khi kiểm đếm đơn nhập, listener cộng counter READY_TO_STORE
+    private void seedReadyToStoreImportOrder(String importOrderId, long detailId, String itemId, int quantity) {
+        jdbcTemplate.update("INSERT INTO provider (id, name, phone, address) VALUES (?, 'P', '1', 'a')", detailId);
+        jdbcTemplate.update("INSERT INTO provider_item (provider_id, item_id, provider_code) VALUES (?, ?, 'C')",
+                detailId, itemId);
+        jdbcTemplate.update("INSERT INTO import_request (id, status, type, provider_id, created_by, created_date) "
+                + "VALUES (?, ?, ?, ?, 'x', CURRENT_TIMESTAMP)", importOrderId + "-R", RequestStatus.IN_PROGRESS.ordinal(),
+                ImportType.ORDER.ordinal(), detailId);
+        jdbcTemplate.update("INSERT INTO import_order (id, import_request_id, status, is_extended, created_by, created_date, "
+                + "date_received, time_received) VALUES (?, ?, ?, false, 'x', CURRENT_TIMESTAMP, ?, ?)", importOrderId,
+                importOrderId + "-R", RequestStatus.READY_TO_STORE.ordinal(), LocalDate.now(), LocalTime.of(8, 0));
+        jdbcTemplate.update("INSERT INTO import_order_detail (id, import_order_id, item_id, expect_quantity, actual_quantity) "
+                + "VALUES (?, ?, ?, ?, ?)", detailId, importOrderId, itemId, quantity, quantity);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < quantity; i++) {
+                InventoryItem inventoryItem = new InventoryItem();
+                inventoryItem.setId(importOrderId + "-" + i);
+                inventoryItem.setItem(entityManager.getReference(Item.class, itemId));
+                inventoryItem.setImportOrderDetail(entityManager.getReference(ImportOrderDetail.class, detailId));
+                inventoryItem.setMeasurementValue(1.0);
+                inventoryItem.setImportedDate(LocalDateTime.now());
+                inventoryItem.setStatus(ItemStatus.READY_TO_STORE);
+                inventoryItemRepository.save(inventoryItem);
+            }
+        });
+    }
+
+    private void assertCounters(String itemId, Map<ItemStatus, Long> expected) {
+        Map<ItemStatus, Long> counters = new HashMap<>();
+        jdbcTemplate.query("SELECT status, quantity FROM inventory_stock_counter WHERE item_id = ? AND quantity <> 0",
+                rs -> {
+                    counters.put(ItemStatus.values()[rs.getInt(1)], rs.getLong(2));
+                }, itemId);
+        Map<ItemStatus, Long> inventory = new HashMap<>();
+        jdbcTemplate.query("SELECT status, COUNT(*) FROM inventory_item WHERE item_id = ? GROUP BY status",
+                rs -> {
+                    inventory.put(ItemStatus.values()[rs.getInt(1)], rs.getLong(2));
+                }, itemId);
+        assertEquals(expected, inventory, "Inventory items of " + itemId);
+        assertEquals(inventory, counters, "Counters of " + itemId);
+    }
+}
@@ -0,0 +1,190 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.WarehouseApplication;
+import capstonesu25.warehouse.entity.JobRun;
+import capstonesu25.warehouse.enums.JobRunStatus;
+import capstonesu25.warehouse.enums.RequestStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hai application context dùng chung một database H2 đóng vai hai instance: kiểm tra job chạy một lần mỗi ngày,
+ * hai instance cùng hủy phiếu quá hạn mà mỗi phiếu chỉ bị hủy một lần, và instance bị giành lease kết thúc LEASE_LOST.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JobLeaseServiceTest {
+    // INSERT ... ON CONFLICT của counter không chạy trên H2
+    @MockitoBean
+    private InventoryStockCounterService inventoryStockCounterService;
+
+    @Autowired
+    private JobLeaseService leaseA;
+    @Autowired
+    private RequestExpiryService expiryA;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ConfigurableApplicationContext contextB;
+    private JobLeaseService leaseB;
+    private RequestExpiryService expiryB;
+    private ExecutorService pool;
+
+    @BeforeAll
+    void startSecondInstance() {
+        // Tham số dòng lệnh thắng application-test.yml: instance thứ hai không được tạo lại schema của instance đầu
+        contextB = new SpringApplicationBuilder(WarehouseApplication.class)
+                .profiles("test")
+                .run("--spring.main.web-application-type=none", "--spring.jpa.hibernate.ddl-auto=none");
+        leaseB = contextB.getBean(JobLeaseService.class);
+        expiryB = contextB.getBean(RequestExpiryService.class);
+        pool = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterAll
+    void stopSecondInstance() {
+        pool.shutdownNow();
+        contextB.close();
+    }
+
+    @Test
+    void oncePerDayJobRunsOnOneInstanceOnly() throws Exception {
+        LocalDate today = LocalDate.now();
+        AtomicInteger executions = new AtomicInteger();
+        List<Boolean> ran = race(
+                () -> leaseA.runOncePerDay("test-daily", today, lease -> pause(executions)),
+                () -> leaseB.runOncePerDay("test-daily", today, lease -> pause(executions)));
+
+        assertEquals(1, executions.get());
+        assertNotEquals(ran.get(0), ran.get(1));
+        assertFalse(leaseA.runOncePerDay("test-daily", today, lease -> 1));
+        assertFalse(leaseB.runOncePerDay("test-daily", today, lease -> 1));
+        assertTrue(leaseB.runOncePerDay("test-daily", today.plusDays(1), lease -> 1));
+    }
+
+    @Test
+    void concurrentCancellationCancelsEachRequestOnce() throws Exception {
+        LocalDate today = LocalDate.now();
+        int requests = 1200;
+        jdbcTemplate.update("INSERT INTO account (id, username, email, password, phone, status, is_enable, is_blocked, role) "
+                + "VALUES (9100, 'lease-staff', 'lease-staff@x', 'x', '0900', 'ACTIVE', true, false, 'STAFF')");
+        for (int i = 0; i < requests; i++) {
+            jdbcTemplate.update("INSERT INTO stock_check_request (id, status, type, assigned_staff_id, created_by, created_date, "
+                    + "expected_return_date) VALUES (?, 0, 0, 9100, 'x', CURRENT_TIMESTAMP, ?)", "LSC" + i, today.plusDays(1));
+        }
+
+        try {
+            AtomicInteger cancelled = new AtomicInteger();
+            List<Boolean> ran = race(
+                    () -> leaseA.runExclusively("test-cancel", lease -> cancelled.addAndGet(expiryA.cancelStockCheckRequests(
+                            lease, List.of(RequestStatus.NOT_STARTED), today.plusDays(1), "test"))),
+                    () -> leaseB.runExclusively("test-cancel", lease -> cancelled.addAndGet(expiryB.cancelStockCheckRequests(
+                            lease, List.of(RequestStatus.NOT_STARTED), today.plusDays(1), "test"))));
+
+            assertTrue(ran.contains(true));
+            assertEquals(requests, cancelled.get());
+            assertEquals(requests, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_check_request "
+                    + "WHERE id LIKE 'LSC%' AND status = ?", Integer.class, RequestStatus.CANCELLED.ordinal()));
+        } finally {
+            // Các test khác dùng chung database và đếm toàn bộ phiếu kiểm kho
+            jdbcTemplate.update("DELETE FROM stock_check_request WHERE id LIKE 'LSC%'");
+        }
+    }
+
+    @Test
+    void holderWhoseLeaseWasTakenOverEndsWithLeaseLost() {
+        AtomicReference<Long> tokenA = new AtomicReference<>();
+        AtomicReference<Long> tokenB = new AtomicReference<>();
+        AtomicReference<Boolean> ranBWhileHeld = new AtomicReference<>();
+        AtomicReference<Boolean> ranBAfterExpiry = new AtomicReference<>();
+        AtomicReference<Exception> assertHeldError = new AtomicReference<>();
+        // Lỗi assert trong task bị run() bắt lại, nên chỉ ghi nhận kết quả rồi kiểm tra sau khi job xong
+        boolean ranA = leaseA.runExclusively("test-fence", lease -> {
+            tokenA.set(lease.getFencingToken());
+            ranBWhileHeld.set(leaseB.runExclusively("test-fence", other -> 1));
+            // Giả lập A treo quá hạn lease để B giành được
+            jdbcTemplate.update("UPDATE job_lease SET lease_until = ? WHERE job_name = 'test-fence'",
+                    LocalDateTime.now().minusMinutes(5));
+            ranBAfterExpiry.set(leaseB.runExclusively("test-fence", other -> {
+                tokenB.set(other.getFencingToken());
+                return 1;
+            }));
+            try {
+                leaseA.assertHeld(lease);
+            } catch (IllegalStateException e) {
+                assertHeldError.set(e);
+            }
+            return 1;
+        });
+
+        assertTrue(ranA);
+        assertFalse(ranBWhileHeld.get());
+        assertTrue(ranBAfterExpiry.get());
+        assertTrue(tokenB.get() > tokenA.get());
+        assertNotNull(assertHeldError.get());
+        List<JobRun> runs = leaseA.getRuns("test-fence", 1, 10).getContent();
+        assertEquals(JobRunStatus.LEASE_LOST, statusOf(runs, leaseA.getOwner()));
+        assertEquals(JobRunStatus.SUCCEEDED, statusOf(runs, leaseB.getOwner()));
+    }
+
+    private List<Boolean> race(Callable<Boolean> first, Callable<Boolean> second) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (Callable<Boolean> task : List.of(first, second)) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<Boolean> ran = new ArrayList<>();
+        for (Future<Boolean> future : futures) {
+            ran.add(future.get());
+        }
+        return ran;
+    }
+
+    // Giữ lease đủ lâu để instance kia chắc chắn thử giành trong lúc job đang chạy
+    private static int pause(AtomicInteger executions) {
+        executions.incrementAndGet();
+        try {
+            Thread.sleep(400);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 1;
+    }
+
+    private static JobRunStatus statusOf(List<JobRun> runs, String owner) {
+        return runs.stream().filter(run -> owner.equals(run.getOwner())).findFirst()
+                .map(JobRun::getStatus).orElse(null);
+    }
+}
@@ -0,0 +1,201 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.enums.RequestStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Số câu SQL của các API danh sách không được tăng theo số dòng trả về: mỗi API có một ngân sách cố định,
+ * đếm bằng Hibernate statistics trên dữ liệu đủ lớn để lộ N+1 (50 phiếu mỗi loại, mỗi phiếu vài detail).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListEndpointStatementCountTest {
+    // INSERT ... ON CONFLICT của counter không chạy trên H2, và không thuộc các API đọc được đo ở đây
+    @MockitoBean
+    private InventoryStockCounterService inventoryStockCounterService;
+
+    @Autowired
+    private ExportRequestService exportRequestService;
+    @Autowired
+    private InventoryItemService inventoryItemService;
+    @Autowired
+    private ImportOrderService importOrderService;
+    @Autowired
+    private ImportOrderDetailService importOrderDetailService;
+    @Autowired
+    private ImportRequestService importRequestService;
+    @Autowired
+    private StockCheckService stockCheckService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final int ROWS = 50;
+    private static final LocalDate FROM = LocalDate.of(2026, 10, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 10, 31);
+
+    private Statistics statistics;
+
+    @BeforeAll
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String created = "TIMESTAMP '2026-10-10 10:00:00'";
+        jdbcTemplate.update("INSERT INTO provider (id, name, phone, address) VALUES (9001, 'P1', '1', 'a'), (9002, 'P2', '2', 'b')");
+        jdbcTemplate.update("INSERT INTO item (id, name, measurement_value) VALUES ('ZSKU1', 'Item', 1.0)");
+        for (int i = 0; i < 20; i++) {
+            jdbcTemplate.update("INSERT INTO item (id, name, measurement_value) VALUES (?, 'Item', 1.0)", "ZI" + i);
+            jdbcTemplate.update("INSERT INTO provider_item (provider_id, item_id, provider_code) VALUES (9001, ?, ?), (9002, ?, ?)",
+                    "ZI" + i, "C1-" + i, "ZI" + i, "C2-" + i);
+        }
+        for (int s = 0; s < 10; s++) {
+            jdbcTemplate.update("INSERT INTO account (id, username, email, password, phone, status, is_enable, is_blocked, role) "
+                    + "VALUES (?, ?, ?, 'x', ?, 'ACTIVE', true, false, 'STAFF')", 9000 + s, "zs" + s, "zs" + s + "@x", "09" + s);
+            jdbcTemplate.update("INSERT INTO stored_location (id, zone, floor, row, line, maximum_capacity_for_item, current_capacity, "
+                    + "is_fulled, is_used, is_road, is_door) VALUES (?, 'Z', '1', 'R', ?, 50, 0, false, false, false, false)",
+                    95000 + s, "L" + s);
+        }
+        for (int r = 0; r < ROWS; r++) {
+            jdbcTemplate.update("INSERT INTO import_request (id, status, type, provider_id, created_by, created_date) "
+                    + "VALUES (?, 0, 0, ?, 'x', " + created + ")", "ZIR" + r, 9001 + r % 2);
+            jdbcTemplate.update("INSERT INTO import_request_detail (id, import_request_id, item_id, actual_quantity, expect_quantity, "
+                    + "ordered_quantity) VALUES (?, ?, ?, 0, 1, 1), (?, ?, ?, 0, 1, 1)",
+                    80000 + r * 2, "ZIR" + r, "ZI" + (r % 20), 80001 + r * 2, "ZIR" + r, "ZI" + ((r + 1) % 20));
+            jdbcTemplate.update("INSERT INTO import_order (id, import_request_id, assigned_staff_id, status, is_extended, created_by, "
+                    + "created_date) VALUES (?, ?, ?, 0, false, 'x', " + created + ")", "ZIO" + r, "ZIR" + r, 9000 + r % 10);
+            for (int d = 0; d < 4; d++) {
+                jdbcTemplate.update("INSERT INTO import_order_detail (id, import_order_id, item_id, expect_quantity, actual_quantity) "
+                        + "VALUES (?, ?, ?, 1, 0)", 70000 + r * 4 + d, "ZIO" + r, "ZI" + ((r + d) % 20));
+            }
+        }
+        for (int e = 0; e < ROWS; e++) {
+            jdbcTemplate.update("INSERT INTO export_request (id, status, type, assigned_staff_id, is_extended, created_by, created_date) "
+                    + "VALUES (?, 0, 0, ?, false, 'x', " + created + ")", "ZER" + e, 9000 + e % 10);
+            for (int d = 0; d < 3; d++) {
+                jdbcTemplate.update("INSERT INTO export_request_detail (id, export_request_id, item_id) VALUES (?, ?, 'ZSKU1')",
+                        60000 + e * 3 + d, "ZER" + e);
+            }
+            if (e % 2 == 0) {
+                jdbcTemplate.update("INSERT INTO paper (id, export_request_id, description) VALUES (?, ?, 'p')", 50000 + e, "ZER" + e);
+            }
+        }
+        for (int c = 0; c < ROWS; c++) {
+            jdbcTemplate.update("INSERT INTO stock_check_request (id, status, type, assigned_staff_id, created_by, created_date) "
+                    + "VALUES (?, 0, 0, ?, 'x', " + created + ")", "ZSC" + c, 9000 + c % 10);
+            jdbcTemplate.update("INSERT INTO stock_check_request_detail (id, stock_check_request_id, item_id, quantity) "
+                    + "VALUES (?, ?, 'ZSKU1', 1), (?, ?, 'ZSKU1', 1)", 40000 + c * 2, "ZSC" + c, 40001 + c * 2, "ZSC" + c);
+        }
+        for (int i = 0; i < ROWS; i++) {
+            jdbcTemplate.update("INSERT INTO inventory_item (id, item_id, status, measurement_value, stored_location_id, "
+                    + "import_order_detail_id, export_request_detail_id, need_return_to_provider) VALUES (?, 'ZSKU1', 0, 2.0, ?, ?, ?, ?)",
+                    String.format("ZII%03d", i), 95000 + i % 10, 70000 + i * 4, i % 3 == 0 ? 60000 + i : null, i < 20);
+        }
+        for (int i = 0; i < 10; i++) {
+            jdbcTemplate.update("INSERT INTO inventory_item (id, parent_id, item_id, status, measurement_value, stored_location_id) "
+                    + "VALUES (?, ?, 'ZSKU1', 0, 1.0, 95000)", "ZIIC" + i, String.format("ZII%03d", i));
+        }
+    }
+
+    @Test
+    void exportRequestPage() {
+        assertStatements(3, ROWS, () -> exportRequestService.getAllExportRequestsByPage(1, ROWS).getContent());
+    }
+
+    @Test
+    void exportRequestsByStatusPage() {
+        assertStatements(3, ROWS, () -> exportRequestService.getExportRequestsByStatus(
+                RequestStatus.NOT_STARTED, FROM, TO, 1, ROWS).getContent());
+    }
+
+    @Test
+    void exportRequestsByStatusList() {
+        assertStatements(2, ROWS, () -> exportRequestService.getExportRequestsByStatus(RequestStatus.NOT_STARTED, FROM, TO));
+    }
+
+    @Test
+    void inventoryItemsByItemPage() {
+        assertStatements(3, ROWS, () -> inventoryItemService.getAllInventoryItemsByItemId("ZSKU1", 1, ROWS).getContent());
+    }
+
+    @Test
+    void inventoryItemsByLocationPage() {
+        assertStatements(3, 15, () -> inventoryItemService.getByStoredLocationId(95000L, 1, ROWS).getContent());
+    }
+
+    @Test
+    void inventoryItemsNeedToReturnPage() {
+        assertStatements(3, 13, () -> inventoryItemService.getAllNeedToReturnByItemId("ZSKU1", 1, ROWS).getContent());
+    }
+
+    @Test
+    void inventoryItemsByImportOrderDetails() {
+        assertStatements(2, 4, () -> inventoryItemService.getByListImportOrderDetailIds(
+                List.of(70000L, 70004L, 70008L, 70012L)));
+    }
+
+    @Test
+    void inventoryItemQrCodes() {
+        assertStatements(2, 4, () -> inventoryItemService.getListQrCodes(List.of("ZII000", "ZII001", "ZII002", "ZIIC0")));
+    }
+
+    @Test
+    void importOrderPage() {
+        assertStatements(5, ROWS, () -> importOrderService.getImportOrdersByPage(1, ROWS).getContent());
+    }
+
+    @Test
+    void importOrdersByStatus() {
+        assertStatements(5, ROWS, () -> importOrderService.getImportOrdersByStatus(RequestStatus.NOT_STARTED));
+    }
+
+    @Test
+    void importOrderDetailPage() {
+        assertStatements(4, 4, () -> importOrderDetailService.getAllByImportOrderId("ZIO0", 1, ROWS).getContent());
+    }
+
+    @Test
+    void importRequestPage() {
+        assertStatements(6, ROWS, () -> importRequestService.getAllImportRequestsByPage(1, ROWS).getContent());
+    }
+
+    @Test
+    void stockChecks() {
+        assertStatements(3, ROWS, () -> stockCheckService.getAllStockCheckRequests());
+    }
+
+    @Test
+    void stockChecksByStatusPage() {
+        assertStatements(3, ROWS, () -> stockCheckService.getStockCheckRequestsByStatus(
+                RequestStatus.NOT_STARTED, FROM, TO, 1, ROWS).getContent());
+    }
+
+    // Gọi trong một transaction như từ controller (open-in-view), đếm số câu lệnh được prepare
+    private void assertStatements(int budget, int expectedRows, Supplier<List<?>> call) {
+        statistics.clear();
+        int rows = transactionTemplate.execute(status -> call.get().size());
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(expectedRows, rows);
+        assertTrue(statements <= budget, rows + " rows took " + statements + " statements, budget is " + budget);
+    }
+}
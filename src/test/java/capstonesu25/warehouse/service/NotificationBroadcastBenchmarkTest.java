@@ -0,0 +1,185 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.config.PusherStub;
+import capstonesu25.warehouse.entity.Account;
+import capstonesu25.warehouse.entity.Notification;
+import capstonesu25.warehouse.enums.AccountRole;
+import capstonesu25.warehouse.repository.AccountRepository;
+import capstonesu25.warehouse.repository.NotificationRepository;
+import com.pusher.rest.Pusher;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Thông báo cho một role có 500 account: mỗi thay đổi trạng thái là một transaction gọi handleNotification theo role,
+ * các dòng notification được insert bằng một batch lúc commit và sự kiện Pusher đi qua outbox (gửi tới
+ * {@link PusherStub} bằng sendDueEvents). So với cách cũ: load Account theo role, save từng Notification rồi gọi
+ * Pusher ngay trong transaction. Cùng một thông báo lặp lại trong một transaction chỉ ghi một dòng mỗi người nhận.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class NotificationBroadcastBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationBroadcastBenchmarkTest.class);
+
+    private static final AccountRole ROLE = AccountRole.OTHER;
+    private static final String CHANNEL = "private-znb";
+    private static final long ACCOUNT_BASE = 950_000;
+    private static final int ACCOUNTS = 500;
+    private static final int BROADCASTS = 20;
+
+    // INSERT ... ON CONFLICT của counter không chạy trên H2
+    @MockitoBean
+    private InventoryStockCounterService inventoryStockCounterService;
+
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private NotificationOutboxSender notificationOutboxSender;
+    @Autowired
+    private NotificationRepository notificationRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private Pusher pusher;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final PusherStub pusherStub = PusherStub.get();
+
+    @BeforeAll
+    void seedAccounts() {
+        List<Object[]> accounts = new ArrayList<>(ACCOUNTS);
+        for (long id = ACCOUNT_BASE + 1; id <= ACCOUNT_BASE + ACCOUNTS; id++) {
+            accounts.add(new Object[]{id, "znb" + id, "znb" + id + "@x", "0" + id, ROLE.name()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO account (id, username, email, password, phone, status, is_enable, "
+                + "is_blocked, role) VALUES (?, ?, ?, 'x', ?, 'ACTIVE', true, false, ?)", accounts);
+    }
+
+    @AfterAll
+    void deleteAccounts() {
+        // Kể cả thông báo gửi tới account cùng role của test khác
+        jdbcTemplate.update("DELETE FROM notification WHERE object_id LIKE 'ZNB-%'");
+        jdbcTemplate.update("DELETE FROM notification_outbox WHERE channel = ?", CHANNEL);
+        jdbcTemplate.update("DELETE FROM account WHERE id > ? AND id <= ?", ACCOUNT_BASE, ACCOUNT_BASE + ACCOUNTS);
+    }
+
+    @Test
+    void broadcastToFiveHundredAccountRole() {
+        int recipients = recipients();
+        // Lượt làm nóng cho cả hai đường, không tính giờ
+        broadcast("ZNB-WARM");
+        legacyBroadcast("ZNB-LEGACY-WARM");
+        notificationOutboxSender.sendDueEvents();
+        pusherStub.reset();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < BROADCASTS; i++) {
+            broadcast("ZNB-" + i);
+        }
+        long broadcastMillis = (System.nanoTime() - started) / 1_000_000;
+        started = System.nanoTime();
+        int pushed = notificationOutboxSender.sendDueEvents();
+        long pushMillis = (System.nanoTime() - started) / 1_000_000;
+
+        started = System.nanoTime();
+        for (int i = 0; i < BROADCASTS; i++) {
+            legacyBroadcast("ZNB-LEGACY-" + i);
+        }
+        long legacyMillis = (System.nanoTime() - started) / 1_000_000;
+
+        long rows = (long) BROADCASTS * recipients;
+        LOGGER.info("{} broadcasts to a {}-account role: {} ms ({} rows/s), outbox push {} ms in {} Pusher calls; "
+                        + "old per-row save with inline push {} ms ({} rows/s)", BROADCASTS, recipients, broadcastMillis,
+                rows * 1000 / Math.max(1, broadcastMillis), pushMillis, pusherStub.calls().size() - BROADCASTS,
+                legacyMillis, rows * 1000 / Math.max(1, legacyMillis));
+
+        assertEquals(BROADCASTS, pushed);
+        for (int i = 0; i < BROADCASTS; i++) {
+            assertEquals(recipients, countRows("ZNB-" + i), "Broadcast " + i);
+        }
+        assertTrue(broadcastMillis < legacyMillis, "Batched broadcasts took " + broadcastMillis
+                + " ms, per-row saves " + legacyMillis + " ms");
+    }
+
+    @Test
+    void repeatedNotificationInOneTransactionWritesOneRowPerReceiver() {
+        int recipients = recipients();
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                notificationService.handleNotification(CHANNEL, "znb-event", "ZNB-SAME", "content", ROLE);
+            }
+        });
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        LOGGER.info("Same broadcast three times in one transaction to {} accounts: {} ms", recipients, millis);
+        assertEquals(recipients, countRows("ZNB-SAME"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_outbox WHERE channel = ? "
+                + "AND payload LIKE ?", Integer.class, CHANNEL, "%ZNB-SAME%"));
+    }
+
+    private void broadcast(String objectId) {
+        transactionTemplate.executeWithoutResult(status ->
+                notificationService.handleNotification(CHANNEL, "znb-event", objectId, "content", ROLE));
+    }
+
+    // Cách cũ của handleNotification: gọi Pusher ngay, rồi save từng Notification cho các Account của role
+    private void legacyBroadcast(String objectId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Account> receivers = accountRepository.findByRole(ROLE);
+            LocalDateTime now = LocalDateTime.now();
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("objectId", objectId);
+            payload.put("content", "content");
+            payload.put("eventType", "znb-event");
+            payload.put("createdDate", now.toString());
+            pusher.trigger(CHANNEL, "znb-event", payload);
+            for (Account receiver : receivers) {
+                notificationRepository.save(Notification.builder()
+                        .receiver(receiver)
+                        .objectId(objectId)
+                        .eventType("znb-event")
+                        .content("content")
+                        .isViewed(false)
+                        .isClicked(false)
+                        .createdDate(now)
+                        .build());
+            }
+        });
+    }
+
+    // Các test khác có thể đã tạo thêm account cùng role trong database dùng chung
+    private int recipients() {
+        int recipients = accountRepository.findIdsByRole(ROLE).size();
+        assertTrue(recipients >= ACCOUNTS, "Only " + recipients + " accounts with role " + ROLE);
+        return recipients;
+    }
+
+    private int countRows(String objectId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification WHERE object_id = ?", Integer.class,
+                objectId);
+    }
+}
@@ -0,0 +1,150 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.config.PusherStub;
+import capstonesu25.warehouse.model.notification.NotificationOutboxMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * NotificationOutboxSender gửi tới {@link PusherStub}: chia lô tối đa 10 event mỗi lần batch trigger, lỗi tạm thời
+ * (503) được gửi lại sau 2s, 4s, ... , lỗi từ phía client (400) chuyển FAILED ngay, và metrics ghi nhận số lần gọi,
+ * số event đã gửi và độ trễ từ lúc ghi outbox tới lúc gửi. Luồng gửi nền bị tắt trong profile test nên mỗi vòng gửi
+ * được gọi trực tiếp bằng sendDueEvents.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class NotificationOutboxSenderTest {
+    private static final String CHANNEL = "private-zob";
+    private static final Duration CREATED_AGO = Duration.ofSeconds(3);
+
+    @Autowired
+    private NotificationOutboxSender notificationOutboxSender;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final PusherStub pusherStub = PusherStub.get();
+
+    @BeforeEach
+    void clearOutbox() {
+        // Các test khác có thể để lại event chưa gửi trong database dùng chung
+        jdbcTemplate.update("DELETE FROM notification_outbox");
+        pusherStub.reset();
+    }
+
+    @Test
+    void sendsDueEventsInBatchesOfTenAndRecordsLag() {
+        insertEvents(25);
+        NotificationOutboxMetrics before = notificationOutboxSender.getMetrics();
+
+        assertEquals(25, notificationOutboxSender.sendDueEvents());
+
+        List<PusherStub.Call> calls = pusherStub.calls();
+        assertEquals(List.of(10, 10, 5), calls.stream().map(call -> call.channels().size()).toList());
+        assertTrue(calls.stream().allMatch(call -> call.path().endsWith("/batch_events")
+                && call.channels().stream().allMatch(CHANNEL::equals)), calls.toString());
+        assertEquals(25, countByStatus("SENT"));
+
+        NotificationOutboxMetrics after = notificationOutboxSender.getMetrics();
+        assertEquals(25, after.getSent() - before.getSent());
+        assertEquals(3, after.getTriggerCalls() - before.getTriggerCalls());
+        assertEquals(0, after.getPending());
+        assertTrue(after.getLastSendLagMillis() >= CREATED_AGO.toMillis(), "Last lag " + after.getLastSendLagMillis());
+        assertTrue(after.getMaxSendLagMillis() >= after.getLastSendLagMillis(), "Max lag " + after.getMaxSendLagMillis());
+        assertEquals(0, notificationOutboxSender.sendDueEvents());
+    }
+
+    @Test
+    void retriesServerErrorsWithExponentialBackoff() {
+        insertEvents(1);
+        pusherStub.failNext(503, 503);
+        NotificationOutboxMetrics before = notificationOutboxSender.getMetrics();
+
+        assertEquals(1, notificationOutboxSender.sendDueEvents());
+        assertRetryScheduled(1, Duration.ofSeconds(2));
+        // Chưa tới hạn gửi lại thì vòng kế tiếp không nhận event
+        assertEquals(0, notificationOutboxSender.sendDueEvents());
+
+        makeDue();
+        assertEquals(1, notificationOutboxSender.sendDueEvents());
+        assertRetryScheduled(2, Duration.ofSeconds(4));
+
+        makeDue();
+        assertEquals(1, notificationOutboxSender.sendDueEvents());
+        assertEquals(1, countByStatus("SENT"));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT attempts FROM notification_outbox", Integer.class));
+        assertEquals(List.of(503, 503, 200), pusherStub.calls().stream().map(PusherStub.Call::status).toList());
+
+        NotificationOutboxMetrics after = notificationOutboxSender.getMetrics();
+        assertEquals(2, after.getRetried() - before.getRetried());
+        assertEquals(1, after.getSent() - before.getSent());
+        assertEquals(0, after.getFailed() - before.getFailed());
+    }
+
+    @Test
+    void clientErrorFailsWithoutRetry() {
+        insertEvents(3);
+        pusherStub.failNext(400);
+        NotificationOutboxMetrics before = notificationOutboxSender.getMetrics();
+
+        assertEquals(3, notificationOutboxSender.sendDueEvents());
+
+        assertEquals(3, countByStatus("FAILED"));
+        NotificationOutboxMetrics after = notificationOutboxSender.getMetrics();
+        assertEquals(3, after.getFailed() - before.getFailed());
+        assertEquals(3, after.getFailedInOutbox());
+        makeDue();
+        assertEquals(0, notificationOutboxSender.sendDueEvents());
+        assertEquals(1, pusherStub.calls().size());
+    }
+
+    // Ghi trong một transaction để một vòng gửi nhận đủ cả lô
+    private void insertEvents(int count) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{CHANNEL, "{\"id\":\"ZOB-" + i + "\"}", Timestamp.valueOf(now.minusSeconds(1)),
+                    Timestamp.valueOf(now.minus(CREATED_AGO))});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate("INSERT INTO notification_outbox "
+                + "(channel, event, payload, status, attempts, next_attempt_at, created_date) "
+                + "VALUES (?, 'zob-event', ?, 'PENDING', 0, ?, ?)", rows));
+    }
+
+    private void assertRetryScheduled(int attempts, Duration backoff) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT status, attempts, next_attempt_at, last_error "
+                + "FROM notification_outbox");
+        assertEquals("PENDING", row.get("status"));
+        assertEquals(attempts, ((Number) row.get("attempts")).intValue());
+        assertTrue(((String) row.get("last_error")).contains("503"), (String) row.get("last_error"));
+        Duration delay = Duration.between(LocalDateTime.now(), ((Timestamp) row.get("next_attempt_at")).toLocalDateTime());
+        assertTrue(delay.compareTo(backoff.minusSeconds(1)) > 0 && delay.compareTo(backoff) <= 0,
+                "Attempt " + attempts + " retries in " + delay + ", expected about " + backoff);
+    }
+
+    private void makeDue() {
+        jdbcTemplate.update("UPDATE notification_outbox SET next_attempt_at = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)));
+    }
+
+    private int countByStatus(String status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_outbox WHERE status = ?",
+                Integer.class, status);
+    }
+}
@@ -0,0 +1,222 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.Account;
+import capstonesu25.warehouse.entity.ImportOrder;
+import capstonesu25.warehouse.entity.ImportOrderDetail;
+import capstonesu25.warehouse.entity.StaffPerformance;
+import capstonesu25.warehouse.enums.AccountRole;
+import capstonesu25.warehouse.enums.AccountStatus;
+import capstonesu25.warehouse.model.account.AccountResponse;
+import capstonesu25.warehouse.model.account.ActiveAccountRequest;
+import capstonesu25.warehouse.repository.AccountRepository;
+import capstonesu25.warehouse.repository.ImportOrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * So sánh StaffAvailabilityService với cách tính cũ (duyệt từng staff, mỗi staff một truy vấn task) khi chọn staff
+ * cho một đơn nhập, với 40/400/4000 staff: số câu SQL của đường mới không đổi theo số staff, đường cũ tăng tuyến tính.
+ * Mỗi staff có một dòng staff_performance và hai đơn nhập trong ngày (3 detail mỗi đơn), một phần tư số staff bận
+ * tới sau giờ nhận của đơn cần phân công.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StaffAvailabilityBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StaffAvailabilityBenchmarkTest.class);
+
+    // INSERT ... ON CONFLICT của counter không chạy trên H2
+    @MockitoBean
+    private InventoryStockCounterService inventoryStockCounterService;
+
+    @Autowired
+    private StaffAvailabilityService staffAvailabilityService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private ImportOrderRepository importOrderRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final LocalDate DATE = LocalDate.of(2026, 11, 20);
+    private static final LocalTime TARGET_TIME = LocalTime.of(15, 0);
+    private static final String TARGET_ORDER = "ZSA-TARGET";
+    private static final long STAFF_BASE = 200_000;
+    private static final int WARM_UP_RUNS = 1;
+    private static final int MEASURED_RUNS = 3;
+    // Đường cũ mất hàng chục giây ở 4000 staff, một lần đo đã đủ để thấy chênh lệch
+    private static final int LEGACY_RUNS = 1;
+    // Đường mới: accounts, workload, task ids nhập/xuất, đơn cần phân công, cửa sổ task trong ngày
+    private static final int STATEMENT_BUDGET = 8;
+
+    private Statistics statistics;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeAll
+    void seedItemAndTargetOrder() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+        jdbcTemplate.update("INSERT INTO item (id, name, measurement_value, counting_minutes) VALUES ('ZSA-ITEM', 'Item', 1.0, 5)");
+        jdbcTemplate.update("INSERT INTO import_order (id, status, is_extended, created_by, created_date, date_received, "
+                + "time_received) VALUES (?, 0, false, 'x', CURRENT_TIMESTAMP, ?, ?)", TARGET_ORDER, DATE, TARGET_TIME);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {40, 400, 4000})
+    void availabilityQueriesStayFlatAsStaffGrows(int staffCount) {
+        seedStaffs(staffCount);
+        try {
+            ActiveAccountRequest request = ActiveAccountRequest.builder().date(DATE).importOrderId(TARGET_ORDER).build();
+            Measurement current = measure(WARM_UP_RUNS, MEASURED_RUNS,
+                    () -> staffAvailabilityService.getAllActiveStaffsInDate(request));
+            Measurement legacy = measure(0, LEGACY_RUNS, this::legacyAvailableStaffsForTargetOrder);
+
+            LOGGER.info("{} staff: availability service {} statements, median {} ms; per-staff path {} statements, "
+                    + "median {} ms", staffCount, current.statements, current.medianMillis, legacy.statements,
+                    legacy.medianMillis);
+            assertEquals(legacy.staffIds, current.staffIds, "Both paths must pick the same free staff");
+            assertTrue(current.statements <= STATEMENT_BUDGET, staffCount + " staff took " + current.statements
+                    + " statements, budget is " + STATEMENT_BUDGET);
+            assertTrue(legacy.statements >= staffCount, "Per-staff path took only " + legacy.statements
+                    + " statements for " + staffCount + " staff");
+        } finally {
+            // Staff của cỡ trước không được tính vào lần đo sau
+            jdbcTemplate.update("UPDATE account SET status = ? WHERE id >= ?", AccountStatus.INACTIVE.name(), STAFF_BASE);
+        }
+    }
+
+    private void seedStaffs(int staffCount) {
+        long base = STAFF_BASE + staffCount * 10L;
+        List<Object[]> accounts = new ArrayList<>();
+        List<Object[]> performances = new ArrayList<>();
+        List<Object[]> orders = new ArrayList<>();
+        List<Object[]> details = new ArrayList<>();
+        for (int s = 0; s < staffCount; s++) {
+            long staffId = base + s;
+            boolean busy = s % 4 == 0;
+            accounts.add(new Object[]{staffId, "zsa" + staffId, "zsa" + staffId + "@x", "0" + staffId});
+            performances.add(new Object[]{staffId, Date.valueOf(DATE), Time.valueOf(LocalTime.of(0, 30 + s % 30))});
+            for (int o = 0; o < 2; o++) {
+                String orderId = "ZSA-" + staffId + "-" + o;
+                LocalTime received = busy ? LocalTime.of(14, 40 + o * 10) : LocalTime.of(8 + o, 0);
+                orders.add(new Object[]{orderId, staffId, Date.valueOf(DATE), Time.valueOf(received)});
+                for (int d = 0; d < 3; d++) {
+                    details.add(new Object[]{staffId * 10 + o * 3 + d, orderId});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO account (id, username, email, password, phone, status, is_enable, "
+                + "is_blocked, role) VALUES (?, ?, ?, 'x', ?, 'ACTIVE', true, false, 'STAFF')", accounts);
+        jdbcTemplate.batchUpdate("INSERT INTO staff_performance (assigned_staff_id, date, expected_working_time, "
+                + "is_export_counting) VALUES (?, ?, ?, false)", performances);
+        jdbcTemplate.batchUpdate("INSERT INTO import_order (id, status, is_extended, created_by, created_date, "
+                + "assigned_staff_id, date_received, time_received) VALUES (?, 0, false, 'x', CURRENT_TIMESTAMP, ?, ?, ?)",
+                orders);
+        jdbcTemplate.batchUpdate("INSERT INTO import_order_detail (id, import_order_id, item_id, expect_quantity, "
+                + "actual_quantity) VALUES (?, ?, 'ZSA-ITEM', 2, 0)", details);
+    }
+
+    // Cả hai đường chạy trong transaction chỉ đọc như service mới: trong transaction ghi, đường cũ còn tốn thêm
+    // một lần dirty-check toàn bộ persistence context trước mỗi câu truy vấn. Số câu SQL lấy ở lần chạy đầu
+    private Measurement measure(int warmUpRuns, int measuredRuns, Supplier<List<AccountResponse>> call) {
+        long statements = -1;
+        Set<Long> staffIds = null;
+        long[] millis = new long[measuredRuns];
+        for (int run = 0; run < warmUpRuns + measuredRuns; run++) {
+            statistics.clear();
+            long start = System.nanoTime();
+            List<AccountResponse> staffs = readOnlyTransaction.execute(status -> call.get());
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            if (run == 0) {
+                statements = statistics.getPrepareStatementCount();
+                staffIds = staffs.stream().map(AccountResponse::getId).filter(id -> id >= STAFF_BASE)
+                        .collect(Collectors.toSet());
+            }
+            if (run >= warmUpRuns) {
+                millis[run - warmUpRuns] = elapsed;
+            }
+        }
+        Arrays.sort(millis);
+        return new Measurement(statements, millis[measuredRuns / 2], staffIds);
+    }
+
+    // Bản sao nhánh đơn nhập của AccountServiceImpl.getAllActiveStaffsInDate trước khi có StaffAvailabilityService
+    private List<AccountResponse> legacyAvailableStaffsForTargetOrder() {
+        List<AccountResponse> accountResponses = new ArrayList<>();
+        for (Account account : accountRepository.findByRoleAndStatus(AccountRole.STAFF, AccountStatus.ACTIVE)) {
+            LocalTime expected = LocalTime.of(0, 0);
+            LocalTime actual = LocalTime.of(0, 0);
+            for (StaffPerformance performance : account.getStaffPerformances()) {
+                if (!performance.getDate().equals(DATE)) {
+                    continue;
+                }
+                expected = expected.plusMinutes(performance.getExpectedWorkingTime().toSecondOfDay() / 60);
+                if (performance.getActualWorkingTime() != null) {
+                    actual = actual.plusMinutes(performance.getActualWorkingTime().toSecondOfDay() / 60);
+                }
+            }
+            accountResponses.add(new AccountResponse(account.getId(), account.getUsername(), account.getEmail(),
+                    account.getPhone(), account.getFullName(), account.getStatus(), account.getIsEnable(),
+                    account.getIsBlocked(), account.getRole(), actual, expected,
+                    account.getImportOrders().stream().map(ImportOrder::getId).toList(),
+                    account.getExportRequests().stream().map(exportRequest -> exportRequest.getId()).toList()));
+        }
+        accountResponses.sort(Comparator.comparing(AccountResponse::getTotalExpectedWorkingTimeOfRequestInDay));
+
+        ImportOrder importOrder = importOrderRepository.findById(TARGET_ORDER).orElseThrow();
+        List<AccountResponse> responses = new ArrayList<>();
+        for (AccountResponse accountResponse : accountResponses) {
+            List<ImportOrder> checkImportOrder = importOrderRepository.findByAssignedStaff_IdAndDateReceived(
+                    accountResponse.getId(), importOrder.getDateReceived());
+            if (checkImportOrder.isEmpty()) {
+                responses.add(accountResponse);
+            }
+            for (ImportOrder orderCheck : checkImportOrder) {
+                int totalMinutes = 0;
+                for (ImportOrderDetail detail : orderCheck.getImportOrderDetails()) {
+                    totalMinutes += detail.getExpectQuantity() * detail.getItem().getCountingMinutes();
+                }
+                if (importOrder.getTimeReceived().isAfter(orderCheck.getTimeReceived().plusMinutes(totalMinutes))) {
+                    responses.add(accountResponse);
+                }
+            }
+        }
+        return responses;
+    }
+
+    private record Measurement(long statements, long medianMillis, Set<Long> staffIds) {
+    }
+}
@@ -0,0 +1,67 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.enums.ItemStatus;
+import capstonesu25.warehouse.enums.RequestStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm kê định kỳ tạo một detail cho mọi item như trước khi chuyển sang GROUP BY: item đang có hàng mang số lượng,
+ * tổng measurementValue và danh sách inventory item AVAILABLE; item hết hàng vẫn có detail với số lượng 0.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StockCheckDetailServiceTest {
+    @Autowired
+    private StockCheckDetailService stockCheckDetailService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void periodicStockCheckHasADetailForEveryItem() {
+        LocalDate today = LocalDate.now();
+        jdbcTemplate.update("INSERT INTO account (id, username, email, password, phone, status, is_enable, is_blocked, "
+                + "role) VALUES (9400, 'zpc-staff', 'zpc-staff@x', 'x', '0940', 'ACTIVE', true, false, 'STAFF')");
+        jdbcTemplate.update("INSERT INTO item (id, name, measurement_value, counting_minutes) VALUES "
+                + "('ZPC-IN-STOCK', 'Item', 1.0, 1), ('ZPC-EMPTY', 'Item', 1.0, 1)");
+        jdbcTemplate.update("INSERT INTO inventory_item (id, item_id, measurement_value, status) VALUES "
+                + "('ZPC-0', 'ZPC-IN-STOCK', 2.5, ?), ('ZPC-1', 'ZPC-IN-STOCK', 1.5, ?), "
+                + "('ZPC-2', 'ZPC-IN-STOCK', 4.0, ?), ('ZPC-3', 'ZPC-EMPTY', 3.0, ?)",
+                ItemStatus.AVAILABLE.ordinal(), ItemStatus.AVAILABLE.ordinal(), ItemStatus.UNAVAILABLE.ordinal(),
+                ItemStatus.NEED_LIQUID.ordinal());
+        jdbcTemplate.update("INSERT INTO stock_check_request (id, status, type, created_by, created_date, counting_date, "
+                + "counting_time) VALUES ('ZPC-SC1', ?, 1, 'x', CURRENT_TIMESTAMP, ?, '08:00:00')",
+                RequestStatus.NOT_STARTED.ordinal(), today);
+
+        int created = stockCheckDetailService.createForAvailableItems("ZPC-SC1");
+
+        int items = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class);
+        assertEquals(items, created, "Every item must get a detail");
+        Map<String, Map<String, Object>> details = new HashMap<>();
+        jdbcTemplate.queryForList("SELECT item_id, quantity, measurement_value, inventory_item_ids "
+                + "FROM stock_check_request_detail WHERE stock_check_request_id = 'ZPC-SC1'")
+                .forEach(row -> details.put((String) row.get("item_id"), row));
+        assertEquals(items, details.size());
+
+        Map<String, Object> inStock = details.get("ZPC-IN-STOCK");
+        assertEquals(2, ((Number) inStock.get("quantity")).intValue());
+        assertEquals(4.0, ((Number) inStock.get("measurement_value")).doubleValue());
+        assertTrue(((String) inStock.get("inventory_item_ids")).contains("ZPC-0"));
+        assertTrue(((String) inStock.get("inventory_item_ids")).contains("ZPC-1"));
+
+        Map<String, Object> empty = details.get("ZPC-EMPTY");
+        assertEquals(0, ((Number) empty.get("quantity")).intValue());
+        assertEquals(0.0, ((Number) empty.get("measurement_value")).doubleValue());
+        assertEquals("[]", empty.get("inventory_item_ids"));
+    }
+}
@@ -0,0 +1,164 @@
+package capstonesu25.warehouse.service;
+
+import capstonesu25.warehouse.entity.StoredLocation;
+import capstonesu25.warehouse.model.storedlocation.StoredLocationResponse;
+import capstonesu25.warehouse.repository.StoredLocationRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * suggestNearestStoredLocations (top-10) trên kho 10k location: 10 zone x 10 floor x 10 row x 10 line, mỗi location
+ * thứ bảy đã đầy. So với cách cũ (load mọi location chưa đầy, parse zone/floor/row/line ở mỗi lần so sánh rồi sắp
+ * toàn bộ): cùng kết quả, nhanh hơn. Cách cũ sắp theo khoảng cách rồi theo thứ tự đọc từ DB, ở đây thêm id để so
+ * được cả các location cùng khoảng cách.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class WarehouseTopologyIndexBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarehouseTopologyIndexBenchmarkTest.class);
+
+    private static final String ITEM_ID = "ZTI-ITEM";
+    private static final long LOCATION_BASE = 960_000;
+    private static final int SIDE = 10;
+    private static final int LOCATIONS = SIDE * SIDE * SIDE * SIDE;
+    private static final int LIMIT = 10;
+    private static final int QUERIES = 200;
+    // Mỗi lần chạy cách cũ đọc lại cả 10k location, vài chục lần là đủ để so
+    private static final int LEGACY_QUERIES = 20;
+
+    // INSERT ... ON CONFLICT của counter không chạy trên H2
+    @MockitoBean
+    private InventoryStockCounterService inventoryStockCounterService;
+
+    @Autowired
+    private StoredLocationService storedLocationService;
+    @Autowired
+    private WarehouseTopologyIndex topologyIndex;
+    @Autowired
+    private StoredLocationRepository storedLocationRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    void seedLocations() {
+        jdbcTemplate.update("INSERT INTO item (id, name, measurement_value, counting_minutes) VALUES (?, 'Item', 1.0, 1)",
+                ITEM_ID);
+        List<Object[]> rows = new ArrayList<>(LOCATIONS);
+        for (int i = 0; i < LOCATIONS; i++) {
+            String zone = String.valueOf((char) ('A' + i / (SIDE * SIDE * SIDE)));
+            String floor = String.valueOf(i / (SIDE * SIDE) % SIDE + 1);
+            String row = "R" + (i / SIDE % SIDE + 1);
+            String line = "L" + (i % SIDE + 1);
+            rows.add(new Object[]{LOCATION_BASE + i, zone, floor, row, line, i % 7 == 0});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO stored_location (id, zone, floor, row, line, maximum_capacity_for_item, "
+                + "current_capacity, is_fulled, is_used, is_road, is_door) VALUES (?, ?, ?, ?, ?, 50, 0, ?, false, "
+                + "false, false)", rows);
+        // Ghi bằng JDBC không qua StoredLocationIndexListener
+        topologyIndex.invalidate();
+    }
+
+    @AfterAll
+    void deleteLocations() {
+        jdbcTemplate.update("DELETE FROM stored_location WHERE id >= ? AND id < ?", LOCATION_BASE,
+                LOCATION_BASE + LOCATIONS);
+        jdbcTemplate.update("DELETE FROM item WHERE id = ?", ITEM_ID);
+        topologyIndex.invalidate();
+    }
+
+    @Test
+    void nearestLocationsInTenThousandSlotWarehouse() {
+        Random random = new Random(7);
+        long[] bases = new long[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            bases[q] = LOCATION_BASE + random.nextInt(LOCATIONS);
+        }
+        // Lượt đầu dựng chỉ mục, không tính giờ
+        suggest(bases[0]);
+
+        List<List<Long>> suggested = new ArrayList<>(QUERIES);
+        long started = System.nanoTime();
+        for (long base : bases) {
+            suggested.add(suggest(base));
+        }
+        double serviceMillis = (System.nanoTime() - started) / 1e6 / QUERIES;
+
+        long legacyNanos = 0;
+        for (int q = 0; q < LEGACY_QUERIES; q++) {
+            long legacyStarted = System.nanoTime();
+            List<Long> legacy = legacySuggest(bases[q]);
+            legacyNanos += System.nanoTime() - legacyStarted;
+            assertEquals(legacy, suggested.get(q), "Base " + bases[q]);
+        }
+        double legacyMillis = legacyNanos / 1e6 / LEGACY_QUERIES;
+
+        LOGGER.info("Top-{} nearest of {} locations: old load-and-sort {} ms/query, suggestNearestStoredLocations "
+                        + "{} ms/query; index metrics {}", LIMIT, LOCATIONS, String.format("%.2f", legacyMillis),
+                String.format("%.2f", serviceMillis), topologyIndex.getMetrics());
+        for (List<Long> ids : suggested) {
+            assertEquals(LIMIT, ids.size());
+        }
+        assertTrue(serviceMillis < legacyMillis, "Index " + serviceMillis + " ms/query, old " + legacyMillis
+                + " ms/query");
+    }
+
+    // Response đọc collection lazy của location nên chạy trong transaction như request có open-in-view
+    private List<Long> suggest(long baseId) {
+        return transactionTemplate.execute(status -> storedLocationService
+                .suggestNearestStoredLocations(ITEM_ID, baseId, LIMIT).stream()
+                .map(StoredLocationResponse::getId).toList());
+    }
+
+    // Cách cũ của suggestNearestStoredLocations, các location seed chưa chứa item nào
+    private List<Long> legacySuggest(long baseId) {
+        return transactionTemplate.execute(status -> {
+            StoredLocation base = storedLocationRepository.findById(baseId).orElseThrow();
+            return storedLocationRepository.findByIsFulledFalse().stream()
+                    .filter(location -> !location.getId().equals(base.getId()))
+                    .filter(location -> location.getItems() == null || location.getItems().isEmpty()
+                            || location.getItems().stream().anyMatch(item -> item.getId().equals(ITEM_ID)))
+                    .sorted(Comparator.comparingInt((StoredLocation location) -> legacyDistance(base, location))
+                            .thenComparing(StoredLocation::getId))
+                    .limit(LIMIT)
+                    .map(StoredLocation::getId)
+                    .toList();
+        });
+    }
+
+    private static int legacyDistance(StoredLocation a, StoredLocation b) {
+        int zoneDiff = Math.abs(a.getZone().charAt(0) - b.getZone().charAt(0));
+        int floorDiff = Math.abs(parseInt(a.getFloor()) - parseInt(b.getFloor()));
+        int rowDiff = Math.abs(parseInt(a.getRow().replace("R", "")) - parseInt(b.getRow().replace("R", "")));
+        int lineDiff = Math.abs(parseInt(a.getLine().replace("L", "")) - parseInt(b.getLine().replace("L", "")));
+        return zoneDiff * 1000 + floorDiff * 100 + rowDiff * 10 + lineDiff;
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package capstonesu25.warehouse.utils;
+
+import capstonesu25.warehouse.model.inventoryitem.MeasurementSelection;
+import capstonesu25.warehouse.model.inventoryitem.PickCandidate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JMH benchmark của MeasurementSelectionUtil.select với 1k/10k/100k ứng viên, cùng time budget mà
+ * InventoryPickingService dùng. Không chạy trong build thường (tên không kết thúc bằng Test), chạy bằng:
+ * mvn test -Dtest=MeasurementSelectionUtilBenchmark -Djmh=true
+ * rồi so điểm (ms/lần chọn) với budget.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeasurementSelectionUtilBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MeasurementSelectionUtilBenchmark.class);
+
+    static final long TIME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    static final double TARGET = 1_000;
+    static final double TOLERANCE_PERCENT = 2;
+
+    @Param({"1000", "10000", "100000"})
+    public int candidateCount;
+
+    private List<PickCandidate> candidates;
+
+    @Setup
+    public void generateCandidates() {
+        candidates = generate(candidateCount, 42L);
+    }
+
+    @Benchmark
+    public MeasurementSelection select() {
+        return MeasurementSelectionUtil.select(candidates, TARGET, TOLERANCE_PERCENT, TIME_BUDGET_NANOS);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "jmh", matches = "true")
+    void selectStaysWithinTimeBudget() throws RunnerException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(MeasurementSelectionUtilBenchmark.class.getName())
+                .build()).run();
+
+        assertEquals(3, results.size());
+        double budgetMillis = TIME_BUDGET_NANOS / 1e6;
+        for (RunResult result : results) {
+            String count = result.getParams().getParam("candidateCount");
+            double score = result.getPrimaryResult().getScore();
+            LOGGER.info("MeasurementSelectionUtil.select {} candidates: {} ms/op (error {})", count, score,
+                    result.getPrimaryResult().getScoreError());
+            assertTrue(score <= budgetMillis, count + " candidates took " + score + " ms, budget " + budgetMillis + " ms");
+        }
+    }
+
+    // Measurement lẻ từ 0.5 đến 50, giống item đã bị cắt nhiều lần
+    static List<PickCandidate> generate(int count, long seed) {
+        Random random = new Random(seed);
+        List<PickCandidate> candidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double value = Math.round((0.5 + random.nextDouble() * 49.5) * 100) / 100.0;
+            candidates.add(new Candidate("II-" + i, value));
+        }
+        return candidates;
+    }
+
+    record Candidate(String id, Double measurementValue) implements PickCandidate {
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public Double getMeasurementValue() {
+            return measurementValue;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package capstonesu25.warehouse.utils;
+
+import capstonesu25.warehouse.model.inventoryitem.MeasurementSelection;
+import capstonesu25.warehouse.model.inventoryitem.PickCandidate;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra trong build thường rằng MeasurementSelectionUtil.select với 1k/10k/100k ứng viên giữ trung vị trong budget
+ * và trả kết quả hợp lệ. Số đo chính xác lấy từ {@link MeasurementSelectionUtilBenchmark} (JMH).
+ */
+class MeasurementSelectionUtilBenchmarkTest {
+    private static final long TIME_BUDGET_NANOS = MeasurementSelectionUtilBenchmark.TIME_BUDGET_NANOS;
+    // Budget chỉ giới hạn vòng DP, phần lọc/gộp ứng viên và greedy dự phòng nằm ngoài nên cho phép thêm
+    private static final long ALLOWED_NANOS = TIME_BUDGET_NANOS * 2;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 9;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000, 100_000})
+    void selectStaysWithinTimeBudget(int candidateCount) {
+        List<PickCandidate> candidates = MeasurementSelectionUtilBenchmark.generate(candidateCount, 42L);
+        double target = MeasurementSelectionUtilBenchmark.TARGET;
+        double tolerancePercent = MeasurementSelectionUtilBenchmark.TOLERANCE_PERCENT;
+
+        MeasurementSelection selection = null;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            selection = MeasurementSelectionUtil.select(candidates, target, tolerancePercent, TIME_BUDGET_NANOS);
+        }
+        long[] elapsed = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long started = System.nanoTime();
+            selection = MeasurementSelectionUtil.select(candidates, target, tolerancePercent, TIME_BUDGET_NANOS);
+            elapsed[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(elapsed);
+        long median = elapsed[MEASURED_RUNS / 2];
+
+        assertNotNull(selection);
+        assertTrue(selection.getTotalMeasurement() >= target);
+        assertTrue(selection.isWithinTolerance());
+        assertEquals(selection.getInventoryItemIds().size(), new HashSet<>(selection.getInventoryItemIds()).size());
+        assertTrue(median <= ALLOWED_NANOS, candidateCount + " candidates: median " + median / 1e6 + " ms exceeds "
+                + ALLOWED_NANOS / 1e6 + " ms");
+    }
+}